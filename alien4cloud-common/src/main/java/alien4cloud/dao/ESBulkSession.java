@@ -0,0 +1,93 @@
+package alien4cloud.dao;
+
+import java.io.IOException;
+import java.util.Map;
+
+import lombok.SneakyThrows;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.mapping.MappingBuilder;
+
+import alien4cloud.dao.model.WriteConsistency;
+import alien4cloud.exception.IndexingServiceException;
+
+/**
+ * Elastic search implementation of {@link IBulkSession}. All operations are sent in a single {@link BulkRequestBuilder}, the index is refreshed once at the
+ * end of the bulk if the consistency level requires it.
+ */
+public class ESBulkSession implements IBulkSession {
+    private final ESGenericIdDAO dao;
+    private final WriteConsistency consistency;
+    private BulkRequestBuilder bulkRequestBuilder;
+    private int writes = 0;
+    private int deletes = 0;
+
+    /**
+     * Create a new bulk session.
+     *
+     * @param dao The dao on which to perform operations.
+     * @param consistency The consistency level to apply when the session is flushed.
+     */
+    public ESBulkSession(ESGenericIdDAO dao, WriteConsistency consistency) {
+        this.dao = dao;
+        this.consistency = consistency;
+        this.bulkRequestBuilder = dao.getClient().prepareBulk();
+    }
+
+    @Override
+    @SneakyThrows({ IOException.class })
+    public <T> IBulkSession save(T entity) {
+        String indexName = dao.getIndexForType(entity.getClass());
+        String typeName = MappingBuilder.indexTypeFromClass(entity.getClass());
+        String json = dao.getJsonMapper().writeValueAsString(entity);
+        bulkRequestBuilder.add(dao.getClient().prepareIndex(indexName, typeName).setSource(json));
+        writes++;
+        return this;
+    }
+
+    @Override
+    public IBulkSession update(Class<?> clazz, String id, Map<String, Object> fields) {
+        dao.assertIdNotNullFor(id, "update");
+        String indexName = dao.getIndexForType(clazz);
+        String typeName = MappingBuilder.indexTypeFromClass(clazz);
+        bulkRequestBuilder.add(dao.getClient().prepareUpdate(indexName, typeName, id).setDoc(fields));
+        writes++;
+        return this;
+    }
+
+    @Override
+    public IBulkSession delete(Class<?> clazz, String id) {
+        dao.assertIdNotNullFor(id, "delete");
+        String indexName = dao.getIndexForType(clazz);
+        String typeName = MappingBuilder.indexTypeFromClass(clazz);
+        bulkRequestBuilder.add(dao.getClient().prepareDelete(indexName, typeName, id));
+        deletes++;
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return writes + deletes;
+    }
+
+    @Override
+    public void flush() {
+        if (size() == 0) {
+            return;
+        }
+        bulkRequestBuilder.setRefresh(consistency.isRefresh());
+        dao.getWriteStatistics().record(writes, deletes, true, consistency.isRefresh());
+        if (consistency == WriteConsistency.ASYNC) {
+            bulkRequestBuilder.execute(new ESGenericIdDAO.LoggingActionListener<BulkResponse>(dao.getWriteStatistics(), "bulk", null, size()));
+        } else {
+            BulkResponse response = bulkRequestBuilder.execute().actionGet();
+            if (response.hasFailures()) {
+                throw new IndexingServiceException("Bulk request failed: " + response.buildFailureMessage());
+            }
+        }
+        bulkRequestBuilder = dao.getClient().prepareBulk();
+        writes = 0;
+        deletes = 0;
+    }
+}
@@ -1,11 +1,21 @@
 package alien4cloud.dao;
 
+import alien4cloud.dao.model.WriteConsistency;
+import alien4cloud.dao.model.WriteStatistics;
 import alien4cloud.exception.IndexingServiceException;
+import lombok.Getter;
 import lombok.SneakyThrows;
-import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequestBuilder;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetRequestBuilder;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.get.MultiGetItemResponse;
 import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.common.collect.Lists;
 import org.elasticsearch.mapping.MappingBuilder;
 
@@ -21,58 +31,102 @@ import java.util.List;
  * @author luc boutier
  */
 public abstract class ESGenericIdDAO extends ESIndexMapper implements IGenericIdDAO {
+    @Getter
+    private final WriteStatistics writeStatistics = new WriteStatistics();
 
     @Override
-    @SneakyThrows({ IOException.class })
     public <T> void save(T data) {
+        save(data, WriteConsistency.IMMEDIATE);
+    }
+
+    @Override
+    @SneakyThrows({ IOException.class })
+    public <T> void save(T data, WriteConsistency consistency) {
         String indexName = getIndexForType(data.getClass());
         String typeName = MappingBuilder.indexTypeFromClass(data.getClass());
 
         String json = getJsonMapper().writeValueAsString(data);
-        getClient().prepareIndex(indexName, typeName).setOperationThreaded(false).setSource(json).setRefresh(true).execute().actionGet();
+        IndexRequestBuilder indexRequestBuilder = getClient().prepareIndex(indexName, typeName).setOperationThreaded(false).setSource(json)
+                .setRefresh(consistency.isRefresh());
+        writeStatistics.record(1, 0, false, consistency.isRefresh());
+        if (consistency == WriteConsistency.ASYNC) {
+            indexRequestBuilder.execute(new LoggingActionListener<IndexResponse>(writeStatistics, "save", typeName, 1));
+        } else {
+            indexRequestBuilder.execute().actionGet();
+        }
     }
 
     @Override
-    @SneakyThrows({ IOException.class })
     public <T> void save(T[] entities) {
+        save(entities, WriteConsistency.IMMEDIATE);
+    }
+
+    @Override
+    public <T> void save(T[] entities, WriteConsistency consistency) {
         if (entities == null || entities.length == 0) {
             return;
         }
-        BulkRequestBuilder bulkRequestBuilder = getClient().prepareBulk().setRefresh(true);
+        IBulkSession bulkSession = newBulkSession(consistency);
         for (T data : entities) {
-            String indexName = getIndexForType(data.getClass());
-            String typeName = MappingBuilder.indexTypeFromClass(data.getClass());
-
-            String json = getJsonMapper().writeValueAsString(data);
-            bulkRequestBuilder.add(getClient().prepareIndex(indexName, typeName).setSource(json));
+            bulkSession.save(data);
         }
-        bulkRequestBuilder.execute().actionGet();
+        bulkSession.flush();
+    }
+
+    @Override
+    public IBulkSession newBulkSession(WriteConsistency consistency) {
+        return new ESBulkSession(this, consistency);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     @SneakyThrows({ IOException.class })
     public <T> T findById(Class<T> clazz, String id) {
-        boolean abstractType = Modifier.isAbstract(clazz.getModifiers());
+        GetResponse response = prepareGet(clazz, id).execute().actionGet();
+        return readGetResponse(clazz, id, response);
+    }
+
+    /**
+     * Prepare the get request used to find an instance from its class and id.
+     *
+     * @param clazz The class for which to find an instance.
+     * @param id The id of the data to find.
+     * @return The get request builder.
+     */
+    protected GetRequestBuilder prepareGet(Class<?> clazz, String id) {
         assertIdNotNullFor(id, "findById");
-        String indexName = getIndexForType(clazz);
-        String typeName = abstractType ? null : MappingBuilder.indexTypeFromClass(clazz);
-        GetResponse response = getClient().prepareGet(indexName, typeName, id).execute().actionGet();
+        return getClient().prepareGet(getIndexForType(clazz), getGetTypeName(clazz), id);
+    }
 
+    /**
+     * De-serialize the instance returned by a get request.
+     *
+     * @param clazz The class for which to find an instance.
+     * @param id The id of the data to find.
+     * @param response The get response.
+     * @return The instance or null if no instance was found.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T readGetResponse(Class<T> clazz, String id, GetResponse response) throws IOException {
+        String typeName = getGetTypeName(clazz);
         if (response == null || !response.isExists()) {
-            ESIndexMapper.getLog().debug("Nothing found in index <{}>, type <{}>, for Id <{}>.", indexName, typeName, id);
+            ESIndexMapper.getLog().debug("Nothing found in index <{}>, type <{}>, for Id <{}>.", getIndexForType(clazz), typeName, id);
             return null;
         }
 
-        ESIndexMapper.getLog().debug("Found one in index <{}>, type <{}>, for Id <{}>.", indexName, typeName, id);
+        ESIndexMapper.getLog().debug("Found one in index <{}>, type <{}>, for Id <{}>.", getIndexForType(clazz), typeName, id);
 
-        if (abstractType) {
+        if (typeName == null) {
             return (T) getJsonMapper().readValue(response.getSourceAsString(), getTypesToClasses().get(response.getType()));
         }
 
         return getJsonMapper().readValue(response.getSourceAsString(), clazz);
     }
 
+    private String getGetTypeName(Class<?> clazz) {
+        // get on all the types of the index for abstract classes.
+        return Modifier.isAbstract(clazz.getModifiers()) ? null : MappingBuilder.indexTypeFromClass(clazz);
+    }
+
     @Override
     @SneakyThrows({ IOException.class })
     public <T> List<T> findByIds(Class<T> clazz, String... ids) {
@@ -97,13 +151,24 @@ public abstract class ESGenericIdDAO extends ESIndexMapper implements IGenericId
 
     @Override
     public void delete(Class<?> clazz, String id) {
+        delete(clazz, id, WriteConsistency.IMMEDIATE);
+    }
+
+    @Override
+    public void delete(Class<?> clazz, String id, WriteConsistency consistency) {
         assertIdNotNullFor(id, "delete");
         String indexName = getIndexForType(clazz);
         String typeName = MappingBuilder.indexTypeFromClass(clazz);
-        getClient().prepareDelete(indexName, typeName, id).setRefresh(true).execute().actionGet();
+        DeleteRequestBuilder deleteRequestBuilder = getClient().prepareDelete(indexName, typeName, id).setRefresh(consistency.isRefresh());
+        writeStatistics.record(0, 1, false, consistency.isRefresh());
+        if (consistency == WriteConsistency.ASYNC) {
+            deleteRequestBuilder.execute(new LoggingActionListener<DeleteResponse>(writeStatistics, "delete", typeName, 1));
+        } else {
+            deleteRequestBuilder.execute().actionGet();
+        }
     }
 
-    private void assertIdNotNullFor(String id, String operation) {
+    protected void assertIdNotNullFor(String id, String operation) {
         if (id == null || id.trim().isEmpty()) {
             ESIndexMapper.getLog().error("Null or empty Id is not allowed for operation <" + operation + ">.");
             throw new IndexingServiceException("Null or empty Id is not allowed for operation <" + operation + ">.");
@@ -138,4 +203,43 @@ public abstract class ESGenericIdDAO extends ESIndexMapper implements IGenericId
         }
         return types.toArray(new String[types.size()]);
     }
-}
\ No newline at end of file
+
+    /**
+     * Listener for asynchronous writes that log and count failures as no caller waits for the result, including the failures of the items of a bulk.
+     */
+    static class LoggingActionListener<R> implements ActionListener<R> {
+        private final WriteStatistics writeStatistics;
+        private final String operation;
+        private final String typeName;
+        private final int actions;
+
+        LoggingActionListener(WriteStatistics writeStatistics, String operation, String typeName, int actions) {
+            this.writeStatistics = writeStatistics;
+            this.operation = operation;
+            this.typeName = typeName;
+            this.actions = actions;
+        }
+
+        @Override
+        public void onResponse(R response) {
+            if (response instanceof BulkResponse && ((BulkResponse) response).hasFailures()) {
+                BulkResponse bulkResponse = (BulkResponse) response;
+                int failures = 0;
+                for (BulkItemResponse item : bulkResponse.getItems()) {
+                    if (item.isFailed()) {
+                        failures++;
+                    }
+                }
+                writeStatistics.recordFailures(failures);
+                ESIndexMapper.getLog().error("Asynchronous <" + operation + "> failed for " + failures + " of " + actions + " actions: "
+                        + bulkResponse.buildFailureMessage());
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            writeStatistics.recordFailures(actions);
+            ESIndexMapper.getLog().error("Asynchronous <" + operation + "> failed for type <" + typeName + ">.", e);
+        }
+    }
+}
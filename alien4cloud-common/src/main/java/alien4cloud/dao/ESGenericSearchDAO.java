@@ -1,31 +1,45 @@
 package alien4cloud.dao;
 
+import alien4cloud.dao.model.DeleteByQueryReport;
 import alien4cloud.dao.model.FacetedSearchFacet;
 import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.dao.model.ScoredSearchResult;
 import alien4cloud.rest.utils.JsonUtil;
 import alien4cloud.utils.ElasticSearchUtil;
 import alien4cloud.utils.MapUtil;
 import com.google.common.collect.Lists;
 import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.count.CountRequestBuilder;
+import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.common.lucene.search.function.CombineFunction;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
 import org.elasticsearch.mapping.*;
 import org.elasticsearch.mapping.QueryHelper.SearchQueryHelperBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.facet.Facet;
 import org.elasticsearch.search.facet.Facets;
 import org.elasticsearch.search.facet.terms.TermsFacet;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
 import javax.annotation.Resource;
 import java.io.IOException;
@@ -34,18 +48,34 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Elastic search dao that manages search operations.
  *
  * @author luc boutier
  */
-public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearchDAO {
+@Slf4j
+public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearchDAO, IAsyncSearchDAO {
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
     // private static final String SCORE_SCRIPT = "_score * ((doc.containsKey('alienScore') && !doc['alienScore'].empty) ? doc['alienScore'].value : 1)";
     @Resource
     private ElasticSearchClient esClient;
     @Resource
     private QueryHelper queryHelper;
+    /** Number of documents fetched per request when scrolling through results. */
+    @Value("${elasticSearch.scroll_page_size:500}")
+    private int scrollPageSize = 500;
+    /** Maximum number of deletions sent in a single bulk request by a delete by query. */
+    @Value("${elasticSearch.delete_by_query.bulk_actions:1000}")
+    private int deleteBulkActions = 1000;
+    /** Maximum estimated size in bytes of a bulk request sent by a delete by query. */
+    @Value("${elasticSearch.delete_by_query.bulk_max_bytes:5242880}")
+    private long deleteBulkMaxBytes = 5242880;
+    /** Number of bulk requests of a delete by query that can be in flight while the ids are scrolled (0 to send them synchronously). */
+    @Value("${elasticSearch.delete_by_query.concurrent_requests:1}")
+    private int deleteConcurrentRequests = 1;
 
     @Override
     public <T> long count(Class<T> clazz, QueryBuilder query) {
@@ -67,30 +97,131 @@ public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearch
     }
 
     @Override
-    public void delete(Class<?> clazz, QueryBuilder query) {
+    public <T> Map<String, Long> countByTerms(Class<T> clazz, QueryBuilder query, String field) {
         String indexName = getIndexForType(clazz);
-        String typeName = MappingBuilder.indexTypeFromClass(clazz);
+        // a size of 0 returns the buckets of all the values of the field.
+        SearchResponse response = getClient().prepareSearch(indexName).setTypes(getTypesFromClass(clazz)).setSearchType(SearchType.COUNT)
+                .setQuery(query == null ? QueryBuilders.matchAllQuery() : query).addAggregation(AggregationBuilders.terms(field).field(field).size(0))
+                .execute().actionGet();
+        Map<String, Long> counts = new HashMap<>();
+        Terms terms = response.getAggregations().get(field);
+        for (Terms.Bucket bucket : terms.getBuckets()) {
+            counts.put(bucket.getKey(), bucket.getDocCount());
+        }
+        return counts;
+    }
 
-        // get all elements and then use a bulk delete to remove data.
-        SearchRequestBuilder searchRequestBuilder = getClient().prepareSearch(indexName).setTypes(getTypesFromClass(clazz)).setQuery(query).setNoFields().setFetchSource(false);
-        searchRequestBuilder.setFrom(0).setSize(1000);
-        SearchResponse response = searchRequestBuilder.execute().actionGet();
+    @Override
+    public DeleteByQueryReport delete(Class<?> clazz, QueryBuilder query) {
+        long start = System.currentTimeMillis();
+        String indexName = getIndexForType(clazz);
+        BulkDeleteExecutor executor = new BulkDeleteExecutor();
+
+        // scroll the ids of the matching elements only once (the scroll is a snapshot so deleting while scrolling is safe) and stream them to bulk requests.
+        SearchResponse response = getClient().prepareSearch(indexName).setTypes(getTypesFromClass(clazz))
+                .setQuery(query == null ? QueryBuilders.matchAllQuery() : query).setNoFields().setFetchSource(false).setSearchType(SearchType.SCAN)
+                .setScroll(SCROLL_KEEP_ALIVE).setSize(deleteBulkActions).execute().actionGet();
+        String scrollId = response.getScrollId();
+        long matched = 0;
+        try {
+            BulkRequestBuilder bulkRequestBuilder = getClient().prepareBulk();
+            response = getClient().prepareSearchScroll(scrollId).setScroll(SCROLL_KEEP_ALIVE).execute().actionGet();
+            scrollId = response.getScrollId();
+            while (somethingFound(response)) {
+                for (SearchHit hit : response.getHits().getHits()) {
+                    bulkRequestBuilder.add(getClient().prepareDelete(indexName, hit.getType(), hit.getId()));
+                    matched++;
+                    if (bulkRequestBuilder.numberOfActions() >= deleteBulkActions || bulkRequestBuilder.request().estimatedSizeInBytes() >= deleteBulkMaxBytes) {
+                        executor.execute(bulkRequestBuilder);
+                        bulkRequestBuilder = getClient().prepareBulk();
+                    }
+                }
+                response = getClient().prepareSearchScroll(scrollId).setScroll(SCROLL_KEEP_ALIVE).execute().actionGet();
+                scrollId = response.getScrollId();
+            }
+            if (bulkRequestBuilder.numberOfActions() > 0) {
+                executor.execute(bulkRequestBuilder);
+            }
+        } finally {
+            if (scrollId != null) {
+                getClient().prepareClearScroll().addScrollId(scrollId).execute();
+            }
+            executor.awaitCompletion();
+        }
 
-        while (somethingFound(response)) {
-            BulkRequestBuilder bulkRequestBuilder = getClient().prepareBulk().setRefresh(true);
+        // bulk requests don't refresh the index, a single refresh makes all the deletions visible.
+        if (matched > 0) {
+            getClient().admin().indices().prepareRefresh(indexName).execute().actionGet();
+            getWriteStatistics().recordRefresh();
+        }
+        DeleteByQueryReport report = new DeleteByQueryReport(matched, executor.deleted.get(), executor.failed.get(), executor.bulkRequests.get(),
+                System.currentTimeMillis() - start);
+        if (report.getFailed() > 0) {
+            log.warn("Delete by query on index <{}> completed with failures {}", indexName, report);
+        } else {
+            log.debug("Delete by query on index <{}> completed {}", indexName, report);
+        }
+        return report;
+    }
 
-            for (int i = 0; i < response.getHits().hits().length; i++) {
-                String id = response.getHits().hits()[i].getId();
-                bulkRequestBuilder.add(getClient().prepareDelete(indexName, typeName, id));
+    /**
+     * Send the bulk delete requests of a delete by query, keeping at most deleteConcurrentRequests requests in flight while the ids are scrolled.
+     */
+    private class BulkDeleteExecutor {
+        private final int concurrentRequests = Math.max(0, deleteConcurrentRequests);
+        private final Semaphore inFlightRequests = new Semaphore(concurrentRequests);
+        private final AtomicLong deleted = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong bulkRequests = new AtomicLong();
+
+        private void execute(BulkRequestBuilder bulkRequestBuilder) {
+            final int size = bulkRequestBuilder.numberOfActions();
+            bulkRequests.incrementAndGet();
+            if (concurrentRequests == 0) {
+                handleResponse(bulkRequestBuilder.execute().actionGet(), size);
+                return;
             }
+            inFlightRequests.acquireUninterruptibly();
+            bulkRequestBuilder.execute(new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    try {
+                        handleResponse(response, size);
+                    } finally {
+                        inFlightRequests.release();
+                    }
+                }
 
-            bulkRequestBuilder.execute().actionGet();
+                @Override
+                public void onFailure(Throwable e) {
+                    try {
+                        failed.addAndGet(size);
+                        log.error("Failed to execute bulk delete of " + size + " elements", e);
+                    } finally {
+                        inFlightRequests.release();
+                    }
+                }
+            });
+        }
 
-            if (response.getHits().totalHits() == response.getHits().hits().length) {
-                response = null;
-            } else {
-                response = searchRequestBuilder.execute().actionGet();
+        private void handleResponse(BulkResponse response, int size) {
+            int failures = 0;
+            if (response.hasFailures()) {
+                for (BulkItemResponse item : response.getItems()) {
+                    if (item.isFailed()) {
+                        failures++;
+                    }
+                }
+                log.warn("Bulk delete has failures: {}", response.buildFailureMessage());
             }
+            deleted.addAndGet(size - failures);
+            failed.addAndGet(failures);
+            getWriteStatistics().record(0, size - failures, true, false);
+        }
+
+        private void awaitCompletion() {
+            inFlightRequests.acquireUninterruptibly(concurrentRequests);
+            inFlightRequests.release(concurrentRequests);
         }
     }
 
@@ -139,7 +270,82 @@ public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearch
 
     @Override
     public <T> List<T> customFindAll(Class<T> clazz, QueryBuilder query, SortBuilder sortBuilder) {
-        return doCustomFind(clazz, query, sortBuilder, Integer.MAX_VALUE);
+        // the first page is returned by the search that opens the scroll, most queries match less than a page and don't need any other request
+        String indexName = getIndexForType(clazz);
+        SearchRequestBuilder searchRequestBuilder = getClient().prepareSearch(indexName).setTypes(getTypesFromClass(clazz))
+                .setQuery(query == null ? QueryBuilders.matchAllQuery() : query).setScroll(SCROLL_KEEP_ALIVE).setSize(scrollPageSize);
+        if (sortBuilder != null) {
+            searchRequestBuilder.addSort(sortBuilder);
+        }
+        final List<T> hits = Lists.newArrayList();
+        consumeScroll(searchRequestBuilder.execute().actionGet(), new IDocumentConsumer<T>() {
+            @Override
+            public void accept(T document) {
+                hits.add(document);
+            }
+        });
+        return hits.isEmpty() ? null : hits;
+    }
+
+    @Override
+    public <T> long scroll(Class<T> clazz, QueryBuilder query, SortBuilder sortBuilder, IDocumentConsumer<T> consumer) {
+        return scroll(clazz, query, sortBuilder, scrollPageSize, consumer);
+    }
+
+    @Override
+    public <T> long scroll(Class<T> clazz, QueryBuilder query, SortBuilder sortBuilder, int pageSize, IDocumentConsumer<T> consumer) {
+        String indexName = getIndexForType(clazz);
+        SearchRequestBuilder searchRequestBuilder = getClient().prepareSearch(indexName).setTypes(getTypesFromClass(clazz))
+                .setQuery(query == null ? QueryBuilders.matchAllQuery() : query).setScroll(SCROLL_KEEP_ALIVE).setSize(pageSize);
+        if (sortBuilder == null) {
+            // scan is the most efficient way to scroll when no order is required, note that the first response doesn't contains any hit.
+            searchRequestBuilder.setSearchType(SearchType.SCAN);
+        } else {
+            searchRequestBuilder.addSort(sortBuilder);
+        }
+        SearchResponse response = searchRequestBuilder.execute().actionGet();
+        if (sortBuilder == null) {
+            try {
+                response = getClient().prepareSearchScroll(response.getScrollId()).setScroll(SCROLL_KEEP_ALIVE).execute().actionGet();
+            } catch (RuntimeException e) {
+                getClient().prepareClearScroll().addScrollId(response.getScrollId()).execute();
+                throw e;
+            }
+        }
+        return consumeScroll(response, consumer);
+    }
+
+    /**
+     * Consume the documents of a scroll, from the hits of the given response to the last page, then clear the scroll.
+     *
+     * @param response The response that contains the first page of hits and the scroll id.
+     * @param consumer The consumer of the documents.
+     * @return The number of consumed documents.
+     */
+    @SneakyThrows({IOException.class})
+    private <T> long consumeScroll(SearchResponse response, IDocumentConsumer<T> consumer) {
+        String scrollId = response.getScrollId();
+        long totalHits = response.getHits().getTotalHits();
+        long count = 0;
+        try {
+            while (somethingFound(response)) {
+                for (SearchHit hit : response.getHits().getHits()) {
+                    consumer.accept((T) getJsonMapper().readValue(hit.getSourceAsString(), getClassFromType(hit.getType())));
+                    count++;
+                }
+                if (count >= totalHits) {
+                    // all documents have been consumed, no need to ask for an empty page
+                    break;
+                }
+                response = getClient().prepareSearchScroll(scrollId).setScroll(SCROLL_KEEP_ALIVE).execute().actionGet();
+                scrollId = response.getScrollId();
+            }
+        } finally {
+            if (scrollId != null) {
+                getClient().prepareClearScroll().addScrollId(scrollId).execute();
+            }
+        }
+        return count;
     }
 
     @Override
@@ -200,6 +406,49 @@ public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearch
         return toGetMultipleDataResult(Object.class, searchResponse, from);
     }
 
+    @Override
+    public ListenableFuture<ScoredSearchResult> searchAsync(String[] searchIndices, Class<?>[] classes, String searchText, Map<String, String[]> filters,
+                                                            FilterBuilder customFilter, String fetchContext, final int from, int maxElements) {
+        FutureListener<SearchResponse, ScoredSearchResult> listener = new FutureListener<SearchResponse, ScoredSearchResult>() {
+            @Override
+            protected ScoredSearchResult convert(SearchResponse response) throws IOException {
+                return toScoredSearchResult(response, from);
+            }
+        };
+        SearchRequestBuilder searchRequestBuilder = queryHelper.buildSearchQuery(searchIndices, searchText).fetchContext(fetchContext).filters(filters)
+                .customFilter(customFilter).types(classes).generate(from, maxElements, new QueryBuilderAdapter() {
+                    @Override
+                    public QueryBuilder adapt(QueryBuilder queryBuilder) {
+                        return queryBuilder;
+                    }
+                });
+        searchRequestBuilder.setTypes(getTypesStrings(classes));
+        searchRequestBuilder.execute(listener);
+        return listener.future;
+    }
+
+    private ScoredSearchResult toScoredSearchResult(SearchResponse searchResponse, int from) throws IOException {
+        ScoredSearchResult finalResponse = new ScoredSearchResult();
+        if (!somethingFound(searchResponse)) {
+            finalResponse.setTypes(new String[0]);
+            finalResponse.setData(new Object[0]);
+            finalResponse.setScores(new float[0]);
+            if (searchResponse != null) {
+                finalResponse.setQueryDuration(searchResponse.getTookInMillis());
+                finalResponse.setTotalResults(searchResponse.getHits().getTotalHits());
+            }
+            return finalResponse;
+        }
+
+        fillMultipleDataResult(Object.class, searchResponse, finalResponse, from, true);
+        float[] scores = new float[searchResponse.getHits().getHits().length];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = searchResponse.getHits().getAt(i).getScore();
+        }
+        finalResponse.setScores(scores);
+        return finalResponse;
+    }
+
     @Override
     public <T> FacetedSearchResult facetedSearch(Class<T> clazz, String searchText, Map<String, String[]> filters, int maxElements) {
         return facetedSearch(clazz, searchText, filters, null, 0, maxElements);
@@ -217,13 +466,41 @@ public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearch
         return facetedSearch(clazz, searchText, filters, customFilter, fetchContext, from, maxElements, null, false);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     @SneakyThrows({IOException.class})
     public <T> FacetedSearchResult facetedSearch(Class<T> clazz, String searchText, Map<String, String[]> filters, FilterBuilder customFilter,
                                                  String fetchContext, int from, int maxElements, String fieldSort, boolean sortOrder) {
         SearchResponse searchResponse = doSearch(clazz, searchText, filters, customFilter, fetchContext, from, maxElements, true, fieldSort, sortOrder);
+        return toFacetedSearchResult(clazz, searchResponse, from);
+    }
+
+    @Override
+    public <T> ListenableFuture<T> findByIdAsync(final Class<T> clazz, final String id) {
+        FutureListener<GetResponse, T> listener = new FutureListener<GetResponse, T>() {
+            @Override
+            protected T convert(GetResponse response) throws IOException {
+                return readGetResponse(clazz, id, response);
+            }
+        };
+        prepareGet(clazz, id).execute(listener);
+        return listener.future;
+    }
+
+    @Override
+    public <T> ListenableFuture<FacetedSearchResult> facetedSearchAsync(final Class<T> clazz, String searchText, Map<String, String[]> filters,
+                                                                        FilterBuilder customFilter, String fetchContext, final int from, int maxElements) {
+        FutureListener<SearchResponse, FacetedSearchResult> listener = new FutureListener<SearchResponse, FacetedSearchResult>() {
+            @Override
+            protected FacetedSearchResult convert(SearchResponse response) throws IOException {
+                return toFacetedSearchResult(clazz, response, from);
+            }
+        };
+        prepareSearch(clazz, searchText, filters, customFilter, fetchContext, from, maxElements, true, null, false).execute(listener);
+        return listener.future;
+    }
 
+    @SuppressWarnings("unchecked")
+    private <T> FacetedSearchResult toFacetedSearchResult(Class<T> clazz, SearchResponse searchResponse, int from) throws IOException {
         // check something found
         // return an empty object if nothing found
         if (!somethingFound(searchResponse)) {
@@ -244,6 +521,32 @@ public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearch
         return finalResponse;
     }
 
+    /**
+     * Elastic search listener that completes a future with the converted response.
+     *
+     * @param <R> The type of the elastic search response.
+     * @param <T> The type of the future result.
+     */
+    private abstract static class FutureListener<R, T> implements ActionListener<R> {
+        private final SettableListenableFuture<T> future = new SettableListenableFuture<T>();
+
+        protected abstract T convert(R response) throws IOException;
+
+        @Override
+        public void onResponse(R response) {
+            try {
+                future.set(convert(response));
+            } catch (Exception e) {
+                future.setException(e);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            future.setException(e);
+        }
+    }
+
     @Override
     public GetMultipleDataResult<Object> suggestSearch(String[] searchIndices, Class<?>[] requestedTypes, String suggestFieldPath, String searchPrefix,
                                                        String fetchContext, int from, int maxElements) {
@@ -333,6 +636,12 @@ public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearch
 
     private <T> SearchResponse doSearch(Class<T> clazz, String searchText, Map<String, String[]> filters, FilterBuilder customFilter, String fetchContext,
                                         int from, int maxElements, boolean enableFacets, String fieldSort, boolean sortOrder) {
+        return prepareSearch(clazz, searchText, filters, customFilter, fetchContext, from, maxElements, enableFacets, fieldSort, sortOrder).execute()
+                .actionGet();
+    }
+
+    private <T> SearchRequestBuilder prepareSearch(Class<T> clazz, String searchText, Map<String, String[]> filters, FilterBuilder customFilter,
+                                                   String fetchContext, int from, int maxElements, boolean enableFacets, String fieldSort, boolean sortOrder) {
         String[] searchIndexes = clazz == null ? getAllIndexes() : new String[]{getIndexForType(clazz)};
         Class<?>[] requestedTypes = getRequestedTypes(clazz);
         String[] esTypes = getTypesStrings(requestedTypes);
@@ -351,7 +660,7 @@ public class ESGenericSearchDAO extends ESGenericIdDAO implements IGenericSearch
             }
         });
         searchRequestBuilder.setTypes(esTypes);
-        return searchRequestBuilder.execute().actionGet();
+        return searchRequestBuilder;
     }
 
     private boolean somethingFound(final SearchResponse searchResponse) {
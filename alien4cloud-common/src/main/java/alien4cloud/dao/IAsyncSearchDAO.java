@@ -0,0 +1,57 @@
+package alien4cloud.dao;
+
+import java.util.Map;
+
+import org.elasticsearch.index.query.FilterBuilder;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import alien4cloud.dao.model.FacetedSearchResult;
+import alien4cloud.dao.model.ScoredSearchResult;
+
+/**
+ * Non blocking variant of the read operations of {@link IGenericIdDAO} and {@link IGenericSearchDAO}.
+ *
+ * The returned futures are completed by elastic search listener threads once the response is received and de-serialized, so the calling thread is never
+ * blocked while the request is executed.
+ */
+public interface IAsyncSearchDAO {
+    /**
+     * Find an instance from its class and id.
+     *
+     * @param clazz The class for which to find an instance.
+     * @param id The id of the data to find.
+     * @return A future completed with the instance matching the given id or null if none is found.
+     */
+    <T> ListenableFuture<T> findByIdAsync(Class<T> clazz, String id);
+
+    /**
+     * Search for data with facets, see {@link IGenericSearchDAO#facetedSearch(Class, String, Map, FilterBuilder, String, int, int)}.
+     *
+     * @param clazz The class for which to search data.
+     * @param searchText The text to search.
+     * @param filters The filters.
+     * @param customFilter A custom filter to add to the request.
+     * @param fetchContext The fetch context to recover the data.
+     * @param from The initial position of the data to get (pagination).
+     * @param maxElements The maximum number of elements to return.
+     * @return A future completed with the data matching the search request and the facets.
+     */
+    <T> ListenableFuture<FacetedSearchResult> facetedSearchAsync(Class<T> clazz, String searchText, Map<String, String[]> filters,
+            FilterBuilder customFilter, String fetchContext, int from, int maxElements);
+
+    /**
+     * Search on the given indices, see {@link IGenericSearchDAO#search(String[], Class[], String, Map, FilterBuilder, String, int, int)}.
+     *
+     * @param searchIndices Indices in which to search.
+     * @param classes Classes to search.
+     * @param searchText The text to search for.
+     * @param filters The filters for the search.
+     * @param customFilter The custom defined filter.
+     * @param fetchContext A fetch context to define a partial response.
+     * @param from start element in the search.
+     * @param maxElements Maximum number of elements to get.
+     * @return A future completed with the data matching the search request and their score.
+     */
+    ListenableFuture<ScoredSearchResult> searchAsync(String[] searchIndices, Class<?>[] classes, String searchText, Map<String, String[]> filters,
+            FilterBuilder customFilter, String fetchContext, int from, int maxElements);
+}
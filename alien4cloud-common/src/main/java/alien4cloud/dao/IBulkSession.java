@@ -0,0 +1,47 @@
+package alien4cloud.dao;
+
+import java.util.Map;
+
+/**
+ * A unit of work that collects save and delete operations (on any type managed by the dao) and sends them to elastic search as a single bulk request.
+ * 
+ * A session is not thread-safe and is expected to be used by a single thread.
+ */
+public interface IBulkSession {
+    /**
+     * Add an entity to save.
+     * 
+     * @param entity The entity to save.
+     * @return This session.
+     */
+    <T> IBulkSession save(T entity);
+
+    /**
+     * Add a partial update of an entity, only the given fields are written.
+     * 
+     * @param clazz The class of the object to update.
+     * @param id The id of the object to update.
+     * @param fields The values of the fields to update.
+     * @return This session.
+     */
+    IBulkSession update(Class<?> clazz, String id, Map<String, Object> fields);
+
+    /**
+     * Add an entity to delete.
+     * 
+     * @param clazz The class of the object to delete.
+     * @param id The id of the object to delete.
+     * @return This session.
+     */
+    IBulkSession delete(Class<?> clazz, String id);
+
+    /**
+     * @return The number of operations waiting to be flushed.
+     */
+    int size();
+
+    /**
+     * Send all pending operations as a single bulk request using the consistency level of the session. The session can be reused after a flush.
+     */
+    void flush();
+}
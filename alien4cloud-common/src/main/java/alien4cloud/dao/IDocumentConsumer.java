@@ -0,0 +1,15 @@
+package alien4cloud.dao;
+
+/**
+ * Consumes documents streamed from elastic search one by one so callers don't have to keep a whole result set in memory.
+ *
+ * @param <T> The type of the documents.
+ */
+public interface IDocumentConsumer<T> {
+    /**
+     * Process a document.
+     *
+     * @param document The document read from elastic search.
+     */
+    void accept(T document);
+}
@@ -4,6 +4,9 @@ import java.util.List;
 
 import org.elasticsearch.index.query.QueryBuilder;
 
+import alien4cloud.dao.model.WriteConsistency;
+import alien4cloud.dao.model.WriteStatistics;
+
 /**
  * A DAO that allows accessing data by Id or / and multiple Ids.
  * 
@@ -24,6 +27,30 @@ public interface IGenericIdDAO {
      */
     <T> void save(T[] entities);
 
+    /**
+     * Saves an entity into the repository
+     * 
+     * @param entity the entity to save
+     * @param consistency The consistency level of the write.
+     */
+    <T> void save(T entity, WriteConsistency consistency);
+
+    /**
+     * Bulk save multiple entities into the repository
+     * 
+     * @param entities The entities to save.
+     * @param consistency The consistency level of the write, the index is refreshed at most once for all entities.
+     */
+    <T> void save(T[] entities, WriteConsistency consistency);
+
+    /**
+     * Start a new bulk session to collect save and delete operations and send them as a single bulk request.
+     * 
+     * @param consistency The consistency level to apply when the session is flushed.
+     * @return A new bulk session.
+     */
+    IBulkSession newBulkSession(WriteConsistency consistency);
+
     /**
      * Find an instance from the given class.
      * 
@@ -49,4 +76,20 @@ public interface IGenericIdDAO {
      * @param id The id of the object to delete.
      */
     void delete(Class<?> clazz, String id);
+
+    /**
+     * Delete an instance from the given class.
+     * 
+     * @param clazz The class of the object to delete.
+     * @param id The id of the object to delete.
+     * @param consistency The consistency level of the delete.
+     */
+    void delete(Class<?> clazz, String id, WriteConsistency consistency);
+
+    /**
+     * Get the counters of the write operations issued by this dao (including the failures of asynchronous writes), they can be registered as metrics.
+     * 
+     * @return The write statistics of the dao.
+     */
+    WriteStatistics getWriteStatistics();
 }
\ No newline at end of file
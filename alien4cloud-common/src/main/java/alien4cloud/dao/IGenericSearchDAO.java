@@ -11,6 +11,7 @@ import org.elasticsearch.mapping.QueryHelper.SearchQueryHelperBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 
+import alien4cloud.dao.model.DeleteByQueryReport;
 import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.dao.model.GetMultipleDataResult;
 
@@ -55,12 +56,24 @@ public interface IGenericSearchDAO extends IGenericIdDAO {
     <T> long count(Class<T> clazz, String searchText, Map<String, String[]> filters);
 
     /**
-     * Delete a data by query
+     * Count the documents of a given type for every value of a field, using a single terms aggregation.
      *
-     * @param clazz
-     * @param query
+     * @param clazz The class of the documents to count.
+     * @param query The query to select the documents to count, null to count all documents.
+     * @param field The path of the field to aggregate, note that values of analyzed fields are the terms produced by the analyzer.
+     * @return The number of documents per value of the field.
      */
-    void delete(Class<?> clazz, QueryBuilder query);
+    <T> Map<String, Long> countByTerms(Class<T> clazz, QueryBuilder query, String field);
+
+    /**
+     * Delete all the data matching a query. Ids of the matching data are scrolled once and deleted through bulk requests, the index is refreshed once all
+     * deletions are done.
+     *
+     * @param clazz The type of data to delete.
+     * @param query The query that matches the data to delete (null to delete all the data of the given type).
+     * @return A report of the deletion.
+     */
+    DeleteByQueryReport delete(Class<?> clazz, QueryBuilder query);
 
     /**
      * Run a custom query on elastic search for the given class.
@@ -100,6 +113,29 @@ public interface IGenericSearchDAO extends IGenericIdDAO {
      */
     <T> List<T> customFindAll(Class<T> clazz, QueryBuilder query, SortBuilder sortBuilder);
 
+    /**
+     * Stream all the documents matching a query using elastic search scroll, only one page of documents is loaded in memory at a time.
+     *
+     * @param clazz       The type of data to query.
+     * @param query       The query to execute (null to match all documents).
+     * @param sortBuilder The sort configuration (null for unordered documents that can be retrieved more efficiently).
+     * @param consumer    The consumer to call for every document.
+     * @return The number of documents consumed.
+     */
+    <T> long scroll(Class<T> clazz, QueryBuilder query, SortBuilder sortBuilder, IDocumentConsumer<T> consumer);
+
+    /**
+     * Stream all the documents matching a query using elastic search scroll, only one page of documents is loaded in memory at a time.
+     *
+     * @param clazz       The type of data to query.
+     * @param query       The query to execute (null to match all documents).
+     * @param sortBuilder The sort configuration (null for unordered documents that can be retrieved more efficiently).
+     * @param pageSize    The number of documents to fetch per request (per shard when no sort is defined).
+     * @param consumer    The consumer to call for every document.
+     * @return The number of documents consumed.
+     */
+    <T> long scroll(Class<T> clazz, QueryBuilder query, SortBuilder sortBuilder, int pageSize, IDocumentConsumer<T> consumer);
+
     /**
      * Run a query build from a {@link SearchQueryHelperBuilder}.
      *
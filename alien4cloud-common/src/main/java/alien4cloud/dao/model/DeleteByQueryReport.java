@@ -0,0 +1,25 @@
+package alien4cloud.dao.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Report of a delete by query operation.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+@SuppressWarnings("PMD.UnusedPrivateField")
+public class DeleteByQueryReport {
+    /** Number of documents that matched the query. */
+    private long matched;
+    /** Number of documents actually deleted. */
+    private long deleted;
+    /** Number of documents that could not be deleted. */
+    private long failed;
+    /** Number of bulk requests sent to elastic search. */
+    private long bulkRequests;
+    /** Total duration of the operation in milliseconds. */
+    private long took;
+}
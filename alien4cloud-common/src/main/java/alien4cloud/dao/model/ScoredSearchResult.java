@@ -0,0 +1,19 @@
+package alien4cloud.dao.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Result of a search with the relevance of every element, so results of searches on different indices can be ordered together.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@SuppressWarnings("PMD.UnusedPrivateField")
+public class ScoredSearchResult extends GetMultipleDataResult<Object> {
+    private static final long serialVersionUID = 1L;
+
+    /** Score of the elements, in the order of the data. */
+    private float[] scores;
+}
@@ -0,0 +1,20 @@
+package alien4cloud.dao.model;
+
+/**
+ * Defines when data written to elastic search must be visible to searches and if the caller must wait for the write to complete.
+ */
+public enum WriteConsistency {
+    /** The index is refreshed after the write so the data is immediately visible to searches. The caller waits for the write and the refresh. */
+    IMMEDIATE,
+    /** The index is not refreshed, data is visible to get by id immediately and to searches after the next elastic search refresh. The caller waits for the write. */
+    NEAR_REAL_TIME,
+    /** The index is not refreshed and the caller doesn't wait for the write to complete, failures are only logged. */
+    ASYNC;
+
+    /**
+     * @return True if the index must be refreshed after the write.
+     */
+    public boolean isRefresh() {
+        return this == IMMEDIATE;
+    }
+}
@@ -0,0 +1,137 @@
+package alien4cloud.dao.model;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.Maps;
+
+/**
+ * Counters of the write operations issued by a dao.
+ */
+public class WriteStatistics implements MetricSet {
+    private final Counter writes = new Counter();
+    private final Counter deletes = new Counter();
+    private final Counter bulkRequests = new Counter();
+    private final Counter bulkActions = new Counter();
+    private final AtomicLong maxBulkSize = new AtomicLong();
+    private final Counter refreshes = new Counter();
+    private final Counter failures = new Counter();
+
+    /**
+     * Record a write or delete request.
+     *
+     * @param writes Number of documents indexed by the request.
+     * @param deletes Number of documents deleted by the request.
+     * @param bulk True if the request was a bulk request.
+     * @param refresh True if the request has refreshed the index.
+     */
+    public void record(int writes, int deletes, boolean bulk, boolean refresh) {
+        this.writes.inc(writes);
+        this.deletes.inc(deletes);
+        if (bulk) {
+            int size = writes + deletes;
+            bulkRequests.inc();
+            bulkActions.inc(size);
+            long currentMax = maxBulkSize.get();
+            while (size > currentMax && !maxBulkSize.compareAndSet(currentMax, size)) {
+                currentMax = maxBulkSize.get();
+            }
+        }
+        if (refresh) {
+            refreshes.inc();
+        }
+    }
+
+    /**
+     * Record an explicit refresh of an index.
+     */
+    public void recordRefresh() {
+        refreshes.inc();
+    }
+
+    /**
+     * Record writes or deletes that failed after the request has been sent (asynchronous writes, as synchronous writes fail the caller).
+     *
+     * @param count Number of failed documents.
+     */
+    public void recordFailures(int count) {
+        failures.inc(count);
+    }
+
+    /**
+     * @return The number of documents indexed.
+     */
+    public long getWrites() {
+        return writes.getCount();
+    }
+
+    /**
+     * @return The number of documents deleted.
+     */
+    public long getDeletes() {
+        return deletes.getCount();
+    }
+
+    /**
+     * @return The number of bulk requests issued.
+     */
+    public long getBulkRequests() {
+        return bulkRequests.getCount();
+    }
+
+    /**
+     * @return The average number of actions in a bulk request.
+     */
+    public double getAverageBulkSize() {
+        long requests = bulkRequests.getCount();
+        return requests == 0 ? 0 : (double) bulkActions.getCount() / requests;
+    }
+
+    /**
+     * @return The largest number of actions sent in a single bulk request.
+     */
+    public long getMaxBulkSize() {
+        return maxBulkSize.get();
+    }
+
+    /**
+     * @return The number of index refreshes triggered.
+     */
+    public long getRefreshes() {
+        return refreshes.getCount();
+    }
+
+    /**
+     * @return The number of documents whose asynchronous write or delete failed.
+     */
+    public long getFailures() {
+        return failures.getCount();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        metrics.put("writes", writes);
+        metrics.put("deletes", deletes);
+        metrics.put("bulk_requests", bulkRequests);
+        metrics.put("refreshes", refreshes);
+        metrics.put("failures", failures);
+        metrics.put("bulk_size_avg", new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return getAverageBulkSize();
+            }
+        });
+        metrics.put("bulk_size_max", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getMaxBulkSize();
+            }
+        });
+        return metrics;
+    }
+}
@@ -0,0 +1,60 @@
+package alien4cloud.utils;
+
+import java.util.Map;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Maps;
+
+/**
+ * Gauges of the statistics (hits, misses, evictions) and of the size of a guava cache built with recordStats.
+ */
+public class CacheMetricSet implements MetricSet {
+    private static final CacheStats EMPTY_STATS = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    private final Cache<?, ?> cache;
+
+    /**
+     * @param cache The cache, null if the cache is disabled (all gauges are then 0).
+     */
+    public CacheMetricSet(Cache<?, ?> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        metrics.put("hits", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getStats().hitCount();
+            }
+        });
+        metrics.put("misses", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getStats().missCount();
+            }
+        });
+        metrics.put("evictions", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getStats().evictionCount();
+            }
+        });
+        metrics.put("size", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return cache == null ? 0 : cache.size();
+            }
+        });
+        return metrics;
+    }
+
+    private CacheStats getStats() {
+        return cache == null ? EMPTY_STATS : cache.stats();
+    }
+}
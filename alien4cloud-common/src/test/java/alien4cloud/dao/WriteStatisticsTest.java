@@ -0,0 +1,65 @@
+package alien4cloud.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.junit.Test;
+
+import alien4cloud.dao.model.WriteStatistics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+
+/**
+ * Test the counters of the write operations and of the failures of the asynchronous writes.
+ */
+public class WriteStatisticsTest {
+
+    @Test
+    public void writesAndBulksAreCounted() {
+        WriteStatistics writeStatistics = new WriteStatistics();
+        writeStatistics.record(1, 0, false, true);
+        writeStatistics.record(3, 1, true, true);
+        writeStatistics.record(2, 0, true, false);
+        writeStatistics.recordRefresh();
+
+        assertEquals(6, writeStatistics.getWrites());
+        assertEquals(1, writeStatistics.getDeletes());
+        assertEquals(2, writeStatistics.getBulkRequests());
+        assertEquals(3, writeStatistics.getAverageBulkSize(), 0);
+        assertEquals(4, writeStatistics.getMaxBulkSize());
+        assertEquals(3, writeStatistics.getRefreshes());
+
+        assertEquals(6, ((Counter) writeStatistics.getMetrics().get("writes")).getCount());
+        assertEquals(4L, ((Gauge<?>) writeStatistics.getMetrics().get("bulk_size_max")).getValue());
+    }
+
+    @Test
+    public void failedItemsOfAsynchronousBulkAreCounted() {
+        WriteStatistics writeStatistics = new WriteStatistics();
+        ESGenericIdDAO.LoggingActionListener<BulkResponse> listener = new ESGenericIdDAO.LoggingActionListener<BulkResponse>(writeStatistics, "bulk",
+                null, 3);
+        BulkItemResponse succeeded = mock(BulkItemResponse.class);
+        BulkItemResponse failed = mock(BulkItemResponse.class);
+        when(failed.isFailed()).thenReturn(true);
+        BulkResponse response = mock(BulkResponse.class);
+        when(response.hasFailures()).thenReturn(true);
+        when(response.getItems()).thenReturn(new BulkItemResponse[] { succeeded, failed, failed });
+
+        listener.onResponse(response);
+        assertEquals(2, writeStatistics.getFailures());
+    }
+
+    @Test
+    public void failedAsynchronousRequestCountsAllActions() {
+        WriteStatistics writeStatistics = new WriteStatistics();
+        new ESGenericIdDAO.LoggingActionListener<BulkResponse>(writeStatistics, "bulk", null, 5).onFailure(new RuntimeException("unreachable"));
+        new ESGenericIdDAO.LoggingActionListener<IndexResponse>(writeStatistics, "save", "type", 1).onResponse(mock(IndexResponse.class));
+        assertEquals(5, writeStatistics.getFailures());
+        assertEquals(5, ((Counter) writeStatistics.getMetrics().get("failures")).getCount());
+    }
+}
@@ -102,6 +102,18 @@ public class ApplicationEnvironmentService {
         return result.getData();
     }
 
+    /**
+     * Get all environments for a set of applications in a single request.
+     *
+     * @param applicationIds The ids of the applications for which to get environments.
+     * @return An array of the environments of the requested applications.
+     */
+    public ApplicationEnvironment[] getByApplicationIds(String... applicationIds) {
+        GetMultipleDataResult<ApplicationEnvironment> result = alienDAO.find(ApplicationEnvironment.class,
+                MapUtil.newHashMap(new String[] { "applicationId" }, new String[][] { applicationIds }), Integer.MAX_VALUE);
+        return result.getData();
+    }
+
     /**
      * Get all environments for a given application
      *
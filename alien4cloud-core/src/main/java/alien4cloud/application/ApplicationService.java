@@ -11,6 +11,7 @@ import org.elasticsearch.mapping.QueryHelper;
 import org.elasticsearch.mapping.QueryHelper.SearchQueryHelperBuilder;
 import org.springframework.stereotype.Service;
 
+import alien4cloud.common.SuggestionService;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.GetMultipleDataResult;
 import alien4cloud.exception.AlreadyExistException;
@@ -43,6 +44,8 @@ public class ApplicationService {
     private ApplicationEnvironmentService applicationEnvironmentService;
     @Resource
     private ApplicationVersionService applicationVersionService;
+    @Resource
+    private SuggestionService suggestionService;
 
     /**
      * Create a new application and return it's id
@@ -155,6 +158,7 @@ public class ApplicationService {
         applicationVersionService.deleteByApplication(applicationId);
         applicationEnvironmentService.deleteByApplication(applicationId);
         alienDAO.delete(Application.class, applicationId);
+        suggestionService.removeApplication(applicationId);
         return true;
     }
 
@@ -171,4 +175,31 @@ public class ApplicationService {
         AuthorizationUtil.checkAuthorizationForApplication(application, roles);
         return application;
     }
+
+    /**
+     * Get applications from their ids in a single request and check that the current user is authorized on every one of them.
+     *
+     * @param applicationIds The ids of the applications to retrieve.
+     * @return Map of the requested applications by id.
+     * @throws NotFoundException if one of the applications cannot be found.
+     */
+    public Map<String, Application> checkAndGetApplications(String... applicationIds) {
+        Map<String, Application> applications = Maps.newHashMap();
+        if (applicationIds.length == 0) {
+            return applications;
+        }
+        List<Application> found = alienDAO.findByIds(Application.class, applicationIds);
+        if (found != null) {
+            for (Application application : found) {
+                AuthorizationUtil.checkAuthorizationForApplication(application, ApplicationRole.values());
+                applications.put(application.getId(), application);
+            }
+        }
+        for (String applicationId : applicationIds) {
+            if (!applications.containsKey(applicationId)) {
+                throw new NotFoundException("Application [" + applicationId + "] cannot be found");
+            }
+        }
+        return applications;
+    }
 }
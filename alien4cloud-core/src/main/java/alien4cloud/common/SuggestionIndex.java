@@ -0,0 +1,172 @@
+package alien4cloud.common;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * In memory index of values that can be suggested to users, supporting prefix search and case insensitive search of any part of the values.
+ *
+ * Every value is indexed under all its (lower case) n-grams of 1 to {@link #GRAM_SIZE} characters. A search for a text of at most {@link #GRAM_SIZE}
+ * characters reads a single posting, longer texts are searched by scanning the smallest posting of their n-grams. Postings are sorted so the search can stop
+ * as soon as the expected number of results is found.
+ *
+ * Values are reference counted as the same value can be provided by several sources. Updates are serialized, searches don't lock and can run concurrently
+ * with updates.
+ */
+public class SuggestionIndex {
+    /** Maximum size of the indexed n-grams. */
+    public static final int GRAM_SIZE = 3;
+
+    /** Number of sources of every indexed value. */
+    private final Map<String, Integer> references = Maps.newHashMap();
+    private final ConcurrentSkipListSet<String> values = new ConcurrentSkipListSet<>();
+    private final ConcurrentMap<String, Posting> postings = Maps.newConcurrentMap();
+
+    /**
+     * Add a value to the index.
+     *
+     * @param value The value to add.
+     */
+    public synchronized void add(String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        Integer count = references.get(value);
+        references.put(value, count == null ? 1 : count + 1);
+        if (count != null) {
+            return;
+        }
+        for (String gram : getGrams(value)) {
+            Posting posting = postings.get(gram);
+            if (posting == null) {
+                posting = new Posting();
+                postings.put(gram, posting);
+            }
+            posting.values.add(value);
+            posting.size.incrementAndGet();
+        }
+        values.add(value);
+    }
+
+    /**
+     * Remove a value from the index, the value is kept in the index until it has been removed as many times as it has been added.
+     *
+     * @param value The value to remove.
+     */
+    public synchronized void remove(String value) {
+        Integer count = references.get(value);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            references.put(value, count - 1);
+            return;
+        }
+        references.remove(value);
+        values.remove(value);
+        for (String gram : getGrams(value)) {
+            Posting posting = postings.get(gram);
+            posting.values.remove(value);
+            if (posting.size.decrementAndGet() == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Find the values that start with a given prefix (case sensitive).
+     *
+     * @param prefix The prefix of the values.
+     * @param limit The maximum number of values to return.
+     * @return The matching values in ascending order.
+     */
+    public List<String> findStartingWith(String prefix, int limit) {
+        List<String> results = Lists.newArrayList();
+        Iterator<String> iterator = values.tailSet(prefix).iterator();
+        while (iterator.hasNext() && results.size() < limit) {
+            String value = iterator.next();
+            if (!value.startsWith(prefix)) {
+                break;
+            }
+            results.add(value);
+        }
+        return results;
+    }
+
+    /**
+     * Find the values that contain a given text (case insensitive).
+     *
+     * @param text The text to search.
+     * @param limit The maximum number of values to return.
+     * @return The matching values in ascending order.
+     */
+    public List<String> findContaining(String text, int limit) {
+        String lowerCaseText = text.toLowerCase(Locale.ENGLISH);
+        if (lowerCaseText.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (lowerCaseText.length() <= GRAM_SIZE) {
+            // all the values of the posting contain the text.
+            Posting posting = postings.get(lowerCaseText);
+            return posting == null ? Collections.<String> emptyList() : firstValues(posting, null, limit);
+        }
+        Posting smallest = null;
+        for (int i = 0; i + GRAM_SIZE <= lowerCaseText.length(); i++) {
+            Posting posting = postings.get(lowerCaseText.substring(i, i + GRAM_SIZE));
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            if (smallest == null || posting.size.get() < smallest.size.get()) {
+                smallest = posting;
+            }
+        }
+        return firstValues(smallest, lowerCaseText, limit);
+    }
+
+    /**
+     * @return The number of distinct values in the index.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    private List<String> firstValues(Posting posting, String lowerCaseText, int limit) {
+        List<String> results = Lists.newArrayList();
+        Iterator<String> iterator = posting.values.iterator();
+        while (iterator.hasNext() && results.size() < limit) {
+            String value = iterator.next();
+            if (lowerCaseText == null || value.toLowerCase(Locale.ENGLISH).contains(lowerCaseText)) {
+                results.add(value);
+            }
+        }
+        return results;
+    }
+
+    private static Set<String> getGrams(String value) {
+        String lowerCaseValue = value.toLowerCase(Locale.ENGLISH);
+        Set<String> grams = Sets.newHashSet();
+        for (int size = 1; size <= GRAM_SIZE; size++) {
+            for (int i = 0; i + size <= lowerCaseValue.length(); i++) {
+                grams.add(lowerCaseValue.substring(i, i + size));
+            }
+        }
+        return grams;
+    }
+
+    /** The values that contain a n-gram. */
+    private static class Posting {
+        private final ConcurrentSkipListSet<String> values = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+    }
+}
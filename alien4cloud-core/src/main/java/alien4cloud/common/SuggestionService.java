@@ -0,0 +1,354 @@
+package alien4cloud.common;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.mapping.MappingBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Service;
+
+import alien4cloud.component.ArchiveInvalidatedEvent;
+import alien4cloud.dao.IDocumentConsumer;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.application.Application;
+import alien4cloud.model.common.Tag;
+import alien4cloud.model.components.IndexedArtifactType;
+import alien4cloud.model.components.IndexedCapabilityType;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedRelationshipType;
+import alien4cloud.model.components.IndexedToscaElement;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Serves the suggestions of the auto-completion fields (element ids, tag names and values) from in memory indexes instead of regexp queries on elastic
+ * search.
+ *
+ * The indexes are loaded from elastic search in the background at startup, then maintained incrementally: archives are reloaded in the background when their
+ * elements are indexed or updated (see {@link ArchiveInvalidatedEvent}), applications are updated when their tags change. Suggestion requests never wait
+ * for a load, they are served from the current indexes (empty or partial until the first load completes, outdated until a reload completes).
+ */
+@Slf4j
+@Service
+public class SuggestionService implements MetricSet, ApplicationListener<ArchiveInvalidatedEvent> {
+    /** Suggestion field for the names of the tags. */
+    public static final String TAG_NAME = "name";
+    /** Suggestion field for the values of the tags. */
+    public static final String TAG_VALUE = "value";
+    /** The types of elements for which tags are suggested. */
+    private static final Set<Class<?>> TAGGED_ELEMENTS = ImmutableSet.<Class<?>> of(IndexedNodeType.class, IndexedArtifactType.class,
+            IndexedCapabilityType.class, IndexedRelationshipType.class);
+    private static final String ARCHIVE_SOURCE = "archive:";
+    private static final String APPLICATION_SOURCE = "application:";
+
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO alienDAO;
+    @Resource(name = "suggestion-loader")
+    private Executor loader;
+    /** Disable to query elastic search for every suggestion (when documents may be written by another process). */
+    @Value("${suggestion.index.enabled:true}")
+    private boolean enabled = true;
+
+    /** Indexes of the element ids per elastic search type of element, and of tag names and values. */
+    private volatile Map<String, SuggestionIndex> indexes = Maps.newConcurrentMap();
+    /** The values indexed for every source (archive or application), so they can be removed when the source changes. */
+    private Map<String, ListMultimap<String, String>> sourceValues = Maps.newHashMap();
+    /** Tags of the applications updated while the indexes are loaded (empty values for removed applications), null if no load is running. */
+    private Map<String, ListMultimap<String, String>> loadingApplications;
+    private final Set<String> modifiedArchives = Sets.newConcurrentHashSet();
+    /** True once the indexes have been loaded once. */
+    private volatile boolean loaded = false;
+    private final AtomicBoolean reloadRequired = new AtomicBoolean(true);
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        scheduleRefresh();
+    }
+
+    /**
+     * @return True if suggestions are served from the in memory indexes.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the ids of the elements of a given type that contain a text.
+     *
+     * @param esType The elastic search type of the elements.
+     * @param text The text to search (case insensitive).
+     * @param limit The maximum number of suggestions.
+     * @return The matching ids in ascending order.
+     */
+    public List<String> suggestElementIds(String esType, String text, int limit) {
+        checkLoaded();
+        SuggestionIndex index = indexes.get(esType);
+        return index == null ? Collections.<String> emptyList() : index.findContaining(text, limit);
+    }
+
+    /**
+     * Get the tag names or values that start with a given prefix.
+     *
+     * @param field {@link #TAG_NAME} or {@link #TAG_VALUE}.
+     * @param prefix The prefix of the suggested values.
+     * @param limit The maximum number of suggestions.
+     * @return The matching names or values in ascending order.
+     */
+    public List<String> suggestTags(String field, String prefix, int limit) {
+        checkLoaded();
+        SuggestionIndex index = indexes.get(getTagIndexKey(field));
+        return index == null ? Collections.<String> emptyList() : index.findStartingWith(prefix, limit);
+    }
+
+    @Override
+    public void onApplicationEvent(ArchiveInvalidatedEvent event) {
+        if (event.getArchiveName() == null) {
+            invalidateAll();
+        } else {
+            invalidateArchive(event.getArchiveName());
+        }
+    }
+
+    /**
+     * Mark an archive as modified, its elements are reloaded in the background.
+     *
+     * @param archiveName The name of the modified archive (all versions are reloaded).
+     */
+    public void invalidateArchive(String archiveName) {
+        modifiedArchives.add(archiveName);
+        scheduleRefresh();
+    }
+
+    /**
+     * Reload all the indexes in the background, the current indexes are used until the reload completes.
+     */
+    public void invalidateAll() {
+        reloadRequired.set(true);
+        scheduleRefresh();
+    }
+
+    /**
+     * @return True once the indexes have been loaded from elastic search.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Update the tags of an application.
+     *
+     * @param application The created or updated application.
+     */
+    public synchronized void updateApplication(Application application) {
+        ListMultimap<String, String> values = ArrayListMultimap.create();
+        addTags(values, application.getTags());
+        updateApplicationValues(APPLICATION_SOURCE + application.getId(), values);
+    }
+
+    /**
+     * Remove the tags of a deleted application.
+     *
+     * @param applicationId The id of the deleted application.
+     */
+    public synchronized void removeApplication(String applicationId) {
+        updateApplicationValues(APPLICATION_SOURCE + applicationId, ArrayListMultimap.<String, String> create());
+    }
+
+    private void updateApplicationValues(String source, ListMultimap<String, String> values) {
+        update(indexes, sourceValues, source, values);
+        if (loadingApplications != null) {
+            // the application may have been read before the update by the running load
+            loadingApplications.put(source, values);
+        }
+    }
+
+    /**
+     * @return The number of distinct values in the indexes.
+     */
+    public long getSize() {
+        long size = 0;
+        for (SuggestionIndex index : indexes.values()) {
+            size += index.size();
+        }
+        return size;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        metrics.put("size", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getSize();
+            }
+        });
+        return metrics;
+    }
+
+    private void checkLoaded() {
+        if (!loaded) {
+            // the initial load may have failed
+            scheduleRefresh();
+        }
+    }
+
+    private void scheduleRefresh() {
+        if (enabled && refreshScheduled.compareAndSet(false, true)) {
+            loader.execute(new Runnable() {
+                @Override
+                public void run() {
+                    refresh();
+                }
+            });
+        }
+    }
+
+    private void refresh() {
+        refreshScheduled.set(false);
+        try {
+            if (reloadRequired.getAndSet(false)) {
+                load();
+            }
+            for (String archiveName : Sets.newHashSet(modifiedArchives)) {
+                modifiedArchives.remove(archiveName);
+                loadArchive(archiveName);
+            }
+        } catch (RuntimeException e) {
+            log.error("Unable to load suggestions", e);
+        }
+    }
+
+    /**
+     * Load all the indexes, they replace the current indexes once loaded so suggestions are served from the current ones meanwhile.
+     */
+    private void load() {
+        long start = System.currentTimeMillis();
+        // archives updated from now are reloaded after the load
+        modifiedArchives.clear();
+        synchronized (this) {
+            loadingApplications = Maps.newHashMap();
+        }
+        final Map<String, ListMultimap<String, String>> loadedValues = Maps.newHashMap();
+        boolean succeeded = false;
+        try {
+            alienDAO.scroll(IndexedToscaElement.class, null, null, new IDocumentConsumer<IndexedToscaElement>() {
+                @Override
+                public void accept(IndexedToscaElement element) {
+                    String source = ARCHIVE_SOURCE + element.getArchiveName();
+                    ListMultimap<String, String> values = loadedValues.get(source);
+                    if (values == null) {
+                        values = ArrayListMultimap.create();
+                        loadedValues.put(source, values);
+                    }
+                    addElement(values, element);
+                }
+            });
+            alienDAO.scroll(Application.class, null, null, new IDocumentConsumer<Application>() {
+                @Override
+                public void accept(Application application) {
+                    ListMultimap<String, String> values = ArrayListMultimap.create();
+                    addTags(values, application.getTags());
+                    loadedValues.put(APPLICATION_SOURCE + application.getId(), values);
+                }
+            });
+            Map<String, SuggestionIndex> loadedIndexes = Maps.newConcurrentMap();
+            Map<String, ListMultimap<String, String>> loadedSourceValues = Maps.newHashMap();
+            for (Map.Entry<String, ListMultimap<String, String>> sourceEntry : loadedValues.entrySet()) {
+                update(loadedIndexes, loadedSourceValues, sourceEntry.getKey(), sourceEntry.getValue());
+            }
+            synchronized (this) {
+                for (Map.Entry<String, ListMultimap<String, String>> applicationEntry : loadingApplications.entrySet()) {
+                    update(loadedIndexes, loadedSourceValues, applicationEntry.getKey(), applicationEntry.getValue());
+                }
+                indexes = loadedIndexes;
+                sourceValues = loadedSourceValues;
+                loaded = true;
+            }
+            succeeded = true;
+        } finally {
+            synchronized (this) {
+                loadingApplications = null;
+            }
+            if (!succeeded) {
+                reloadRequired.set(true);
+            }
+        }
+        log.info("Loaded suggestions of {} archives and applications in {} ms", loadedValues.size(), System.currentTimeMillis() - start);
+    }
+
+    private void loadArchive(String archiveName) {
+        final ListMultimap<String, String> values = ArrayListMultimap.create();
+        alienDAO.scroll(IndexedToscaElement.class, QueryBuilders.termQuery("archiveName", archiveName), null, new IDocumentConsumer<IndexedToscaElement>() {
+            @Override
+            public void accept(IndexedToscaElement element) {
+                addElement(values, element);
+            }
+        });
+        synchronized (this) {
+            update(indexes, sourceValues, ARCHIVE_SOURCE + archiveName, values);
+        }
+    }
+
+    /**
+     * Replace the values of a source in the indexes. New values are added before the previous ones are removed so values shared by both remain visible.
+     */
+    private static void update(Map<String, SuggestionIndex> indexes, Map<String, ListMultimap<String, String>> sourceValues, String source,
+            ListMultimap<String, String> values) {
+        for (Map.Entry<String, String> value : values.entries()) {
+            SuggestionIndex index = indexes.get(value.getKey());
+            if (index == null) {
+                index = new SuggestionIndex();
+                indexes.put(value.getKey(), index);
+            }
+            index.add(value.getValue());
+        }
+        ListMultimap<String, String> previousValues = values.isEmpty() ? sourceValues.remove(source) : sourceValues.put(source, values);
+        if (previousValues != null) {
+            for (Map.Entry<String, String> value : previousValues.entries()) {
+                indexes.get(value.getKey()).remove(value.getValue());
+            }
+        }
+    }
+
+    private static void addElement(ListMultimap<String, String> values, IndexedToscaElement element) {
+        values.put(MappingBuilder.indexTypeFromClass(element.getClass()), element.getElementId());
+        if (TAGGED_ELEMENTS.contains(element.getClass())) {
+            addTags(values, element.getTags());
+        }
+    }
+
+    private static void addTags(ListMultimap<String, String> values, List<Tag> tags) {
+        if (tags == null) {
+            return;
+        }
+        for (Tag tag : tags) {
+            values.put(getTagIndexKey(TAG_NAME), tag.getName());
+            if (tag.getValue() != null) {
+                values.put(getTagIndexKey(TAG_VALUE), tag.getValue());
+            }
+        }
+    }
+
+    private static String getTagIndexKey(String field) {
+        return "tags." + field;
+    }
+}
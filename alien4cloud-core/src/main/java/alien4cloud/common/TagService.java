@@ -9,6 +9,7 @@ import org.elasticsearch.common.collect.Maps;
 import org.springframework.stereotype.Service;
 
 import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.application.Application;
 import alien4cloud.model.common.ITaggableResource;
 import alien4cloud.model.common.Tag;
 
@@ -21,6 +22,8 @@ import com.google.common.collect.Lists;
 public class TagService {
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
+    @Resource
+    private SuggestionService suggestionService;
 
     /**
      * Add or update a tag to a taggable resource.
@@ -39,6 +42,7 @@ public class TagService {
         }
         resource.getTags().add(newTag);
         alienDAO.save(resource);
+        updateSuggestions(resource);
     }
 
     /**
@@ -51,6 +55,13 @@ public class TagService {
         if (resource.getTags() != null) {
             resource.getTags().remove(new Tag(key, null));
             alienDAO.save(resource);
+            updateSuggestions(resource);
+        }
+    }
+
+    private void updateSuggestions(ITaggableResource resource) {
+        if (resource instanceof Application) {
+            suggestionService.updateApplication((Application) resource);
         }
     }
 }
@@ -0,0 +1,39 @@
+package alien4cloud.component;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Timings and counts of the indexing of the elements of an archive.
+ */
+@Getter
+@Setter
+@ToString
+@SuppressWarnings("PMD.UnusedPrivateField")
+public class ArchiveIndexingReport {
+    private final String archiveName;
+    private final String archiveVersion;
+    /** Number of elements indexed. */
+    private int indexedElements;
+    /** Number of elements of a previous indexing of the archive that have been deleted. */
+    private int deletedElements;
+    /** Time in milliseconds spent to resolve the parents of the elements and merge the inherited data. */
+    private long parentsResolutionTime;
+    /** Time in milliseconds spent to compute the highest version and older versions of the elements. */
+    private long versionsResolutionTime;
+    /** Time in milliseconds spent to write the elements in elastic search. */
+    private long writeTime;
+
+    public ArchiveIndexingReport(String archiveName, String archiveVersion) {
+        this.archiveName = archiveName;
+        this.archiveVersion = archiveVersion;
+    }
+
+    /**
+     * @return The total indexing time in milliseconds.
+     */
+    public long getTotalTime() {
+        return parentsResolutionTime + versionsResolutionTime + writeTime;
+    }
+}
@@ -0,0 +1,21 @@
+package alien4cloud.component;
+
+import lombok.Getter;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when the elements of an archive have been indexed, updated or deleted, so services that keep data derived from the elements can refresh it.
+ */
+@Getter
+public class ArchiveInvalidatedEvent extends ApplicationEvent {
+    private static final long serialVersionUID = 1L;
+
+    /** The name of the modified archive (all versions), null if all the archives must be considered as modified. */
+    private final String archiveName;
+
+    public ArchiveInvalidatedEvent(Object source, String archiveName) {
+        super(source);
+        this.archiveName = archiveName;
+    }
+}
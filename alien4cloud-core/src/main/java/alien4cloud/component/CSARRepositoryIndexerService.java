@@ -13,16 +13,14 @@ import java.util.Set;
 import javax.annotation.Resource;
 
 import org.elasticsearch.index.query.BoolQueryBuilder;
-import org.elasticsearch.index.query.FilterBuilder;
-import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearch.mapping.ElasticSearchClient;
 import org.springframework.stereotype.Component;
 
-import alien4cloud.dao.ElasticSearchDAO;
+import alien4cloud.dao.IBulkSession;
+import alien4cloud.dao.IDocumentConsumer;
 import alien4cloud.dao.IGenericSearchDAO;
-import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.dao.model.WriteConsistency;
 import alien4cloud.exception.IndexingServiceException;
 import alien4cloud.images.IImageDAO;
 import alien4cloud.model.common.Tag;
@@ -31,9 +29,10 @@ import alien4cloud.model.components.IndexedInheritableToscaElement;
 import alien4cloud.model.components.IndexedModelUtils;
 import alien4cloud.model.components.IndexedToscaElement;
 import alien4cloud.tosca.ArchiveImageLoader;
-import alien4cloud.utils.MapUtil;
 import alien4cloud.utils.VersionUtil;
 
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -42,45 +41,243 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
     @Resource
-    private ElasticSearchClient elasticSearchClient;
-    @Resource
     private IImageDAO imageDAO;
+    @Resource
+    private ICSARRepositorySearchService searchService;
 
-    private void refreshIndexForSearching() {
-        elasticSearchClient.getClient().admin().indices().prepareRefresh(ElasticSearchDAO.TOSCA_ELEMENT_INDEX).execute().actionGet();
+    @Override
+    public Map<String, IndexedToscaElement> getArchiveElements(String archiveName, String archiveVersion) {
+        final Map<String, IndexedToscaElement> elementsByIds = Maps.newHashMap();
+        alienDAO.scroll(IndexedToscaElement.class, getArchiveElementsQuery(archiveName, archiveVersion), null, new IDocumentConsumer<IndexedToscaElement>() {
+            @Override
+            public void accept(IndexedToscaElement element) {
+                elementsByIds.put(element.getId(), element);
+            }
+        });
+        return elementsByIds;
     }
 
     @Override
-    public Map<String, IndexedToscaElement> getArchiveElements(String archiveName, String archiveVersion) {
-        GetMultipleDataResult<IndexedToscaElement> elements = alienDAO.find(
-                IndexedToscaElement.class,
-                MapUtil.newHashMap(new String[] { "archiveName", "archiveVersion" }, new String[][] { new String[] { archiveName },
-                        new String[] { archiveVersion } }), Integer.MAX_VALUE);
+    public void deleteElements(String archiveName, String archiveVersion) {
+        final List<IndexedToscaElement> elements = Lists.newArrayList();
+        alienDAO.scroll(IndexedToscaElement.class, getArchiveElementsQuery(archiveName, archiveVersion), null, new IDocumentConsumer<IndexedToscaElement>() {
+            @Override
+            public void accept(IndexedToscaElement element) {
+                elements.add(element);
+            }
+        });
+        deleteArchiveElements(archiveName, archiveVersion, elements);
+    }
+
+    private static QueryBuilder getArchiveElementsQuery(String archiveName, String archiveVersion) {
+        return QueryBuilders.boolQuery().must(QueryBuilders.termQuery("archiveName", archiveName))
+                .must(QueryBuilders.termQuery("archiveVersion", archiveVersion));
+    }
 
-        Map<String, IndexedToscaElement> elementsByIds = Maps.newHashMap();
-        if (elements == null) {
-            return elementsByIds;
+    @Override
+    public ArchiveIndexingReport indexArchiveElements(String archiveName, String archiveVersion, Collection<? extends IndexedInheritableToscaElement> elements,
+            Collection<CSARDependency> dependencies, Collection<IndexedToscaElement> previousElements) {
+        ArchiveIndexingReport report = new ArchiveIndexingReport(archiveName, archiveVersion);
+        long phaseStart = System.currentTimeMillis();
+        Date now = new Date();
+        Map<String, IndexedToscaElement> elementsByVersionKey = Maps.newHashMap();
+        for (IndexedInheritableToscaElement element : elements) {
+            element.setLastUpdateDate(now);
+            element.setCreationDate(element.getCreationDate() == null ? now : element.getCreationDate());
+            elementsByVersionKey.put(getVersionKey(element), element);
         }
+        resolveParents(archiveName, archiveVersion, elements, dependencies);
+        report.setParentsResolutionTime(System.currentTimeMillis() - phaseStart);
 
-        for (IndexedToscaElement element : elements.getData()) {
-            elementsByIds.put(element.getId(), element);
+        phaseStart = System.currentTimeMillis();
+        // elements of a previous indexing of the archive are overridden by the new ones (keeping their creation date), the ones that doesn't exists anymore
+        // must be deleted.
+        List<IndexedToscaElement> deletedElements = Lists.newArrayList();
+        if (previousElements != null) {
+            for (IndexedToscaElement previousElement : previousElements) {
+                IndexedToscaElement element = elementsByVersionKey.get(getVersionKey(previousElement));
+                if (element == null) {
+                    deletedElements.add(previousElement);
+                } else if (previousElement.getCreationDate() != null) {
+                    element.setCreationDate(previousElement.getCreationDate());
+                }
+                deleteReplacedIcon(previousElement, element);
+            }
         }
-        return elementsByIds;
+        IBulkSession bulkSession = alienDAO.newBulkSession(WriteConsistency.IMMEDIATE);
+        updateVersions(archiveName, archiveVersion, elementsByVersionKey.values(), deletedElements, bulkSession);
+        report.setVersionsResolutionTime(System.currentTimeMillis() - phaseStart);
+
+        phaseStart = System.currentTimeMillis();
+        // the whole archive is written in a single bulk request that refresh the index once.
+        bulkSession.flush();
+        searchService.invalidateArchive(archiveName);
+        report.setWriteTime(System.currentTimeMillis() - phaseStart);
+        report.setIndexedElements(elementsByVersionKey.size());
+        report.setDeletedElements(deletedElements.size());
+        return report;
     }
 
-    @Override
-    public void deleteElements(String archiveName, String archiveVersion) {
+    /**
+     * Merge the inherited data of the parents in the elements. Parents are looked for in the elements themselves (elements must be processed after their
+     * parents) and then in the archive and its dependencies using a single query per type of element.
+     */
+    private void resolveParents(String archiveName, String archiveVersion, Collection<? extends IndexedInheritableToscaElement> elements,
+            Collection<CSARDependency> dependencies) {
+        // an element can only derive from an element of the same type.
+        Map<Class<? extends IndexedInheritableToscaElement>, Map<String, IndexedInheritableToscaElement>> elementsByType = Maps.newHashMap();
+        for (IndexedInheritableToscaElement element : elements) {
+            Map<String, IndexedInheritableToscaElement> typeElements = elementsByType.get(element.getClass());
+            if (typeElements == null) {
+                typeElements = Maps.newHashMap();
+                elementsByType.put(element.getClass(), typeElements);
+            }
+            typeElements.put(element.getElementId(), element);
+        }
+        Set<String> parentArchives = Sets.newHashSet(archiveName + ":" + archiveVersion);
+        if (dependencies != null) {
+            for (CSARDependency dependency : dependencies) {
+                parentArchives.add(dependency.getName() + ":" + dependency.getVersion());
+            }
+        }
 
-        FilterBuilder filter = FilterBuilders.boolFilter().must(FilterBuilders.termFilter("archiveName", archiveName))
-                .must(FilterBuilders.termFilter("archiveVersion", archiveVersion));
-        GetMultipleDataResult<IndexedToscaElement> result = alienDAO.search(IndexedToscaElement.class, null, null, filter, null, 0, Integer.MAX_VALUE);
-        IndexedToscaElement[] elements = result.getData();
+        for (Map.Entry<Class<? extends IndexedInheritableToscaElement>, Map<String, IndexedInheritableToscaElement>> typeEntry : elementsByType.entrySet()) {
+            Map<String, IndexedInheritableToscaElement> typeElements = typeEntry.getValue();
+            Map<String, IndexedInheritableToscaElement> externalParents = findExternalParents(typeEntry.getKey(), typeElements, parentArchives);
+            for (IndexedInheritableToscaElement element : IndexedModelUtils.orderByDerivedFromHierarchy(typeElements)) {
+                if (element.getDerivedFrom() == null || element.getDerivedFrom().isEmpty()) {
+                    continue;
+                }
+                String parentId = element.getDerivedFrom().get(0);
+                IndexedInheritableToscaElement parent = typeElements.get(parentId);
+                if (parent == null) {
+                    parent = externalParents.get(parentId);
+                }
+                if (parent == null) {
+                    throw new IndexingServiceException("Indexing service is in an inconsistent state, the super element [" + element.getDerivedFrom()
+                            + "] is not found for element [" + element.getId() + "]");
+                }
+                IndexedModelUtils.mergeInheritableIndex(parent, element);
+            }
+        }
+    }
 
-        // we need to delete each element and find the new highest version element
-        for (IndexedToscaElement element : elements) {
-            deleteElement(element);
+    private Map<String, IndexedInheritableToscaElement> findExternalParents(Class<? extends IndexedInheritableToscaElement> type,
+            Map<String, IndexedInheritableToscaElement> typeElements, Set<String> parentArchives) {
+        Map<String, IndexedInheritableToscaElement> parents = Maps.newHashMap();
+        Set<String> parentIds = Sets.newHashSet();
+        Set<String> parentArchiveNames = Sets.newHashSet();
+        for (IndexedInheritableToscaElement element : typeElements.values()) {
+            if (element.getDerivedFrom() == null || element.getDerivedFrom().isEmpty() || typeElements.containsKey(element.getDerivedFrom().get(0))) {
+                continue;
+            }
+            for (String parentArchive : parentArchives) {
+                int separatorIndex = parentArchive.lastIndexOf(':');
+                parentIds.add(element.getDerivedFrom().get(0) + parentArchive.substring(separatorIndex));
+                parentArchiveNames.add(parentArchive.substring(0, separatorIndex));
+            }
+        }
+        if (parentIds.isEmpty()) {
+            return parents;
         }
+        // a single query with the ids of all the candidates (parent id in every archive version) restricted to the archives names.
+        QueryBuilder parentsQuery = QueryBuilders.boolQuery().must(QueryBuilders.idsQuery().addIds(parentIds.toArray(new String[parentIds.size()])))
+                .must(QueryBuilders.termsQuery("archiveName", parentArchiveNames.toArray(new String[parentArchiveNames.size()])));
+        List<? extends IndexedInheritableToscaElement> candidates = alienDAO.customFindAll(type, parentsQuery);
+        if (candidates == null) {
+            return parents;
+        }
+        for (IndexedInheritableToscaElement candidate : candidates) {
+            if (!parentArchives.contains(candidate.getArchiveName() + ":" + candidate.getArchiveVersion())) {
+                // the id and the archive name matches but for a version that is not the one of the dependency.
+                continue;
+            }
+            IndexedInheritableToscaElement current = parents.get(candidate.getElementId());
+            if (current == null || VersionUtil.compare(candidate.getArchiveVersion(), current.getArchiveVersion()) > 0) {
+                parents.put(candidate.getElementId(), candidate);
+            }
+        }
+        return parents;
+    }
 
+    /**
+     * Add to the bulk session the saved and deleted elements of an archive as well as the updates of the <code>highestVersion<code> and
+     * <code>olderVersions</code> properties of the elements from the other versions of the archive. All versions are loaded in a single request and computed
+     * in memory.
+     */
+    private void updateVersions(String archiveName, String archiveVersion, Collection<? extends IndexedToscaElement> savedElements,
+            Collection<? extends IndexedToscaElement> deletedElements, IBulkSession bulkSession) {
+        final Map<String, List<IndexedToscaElement>> otherVersions = Maps.newHashMap();
+        QueryBuilder otherVersionsQuery = QueryBuilders.boolQuery().must(QueryBuilders.termQuery("archiveName", archiveName))
+                .mustNot(QueryBuilders.termQuery("archiveVersion", archiveVersion));
+        alienDAO.scroll(IndexedToscaElement.class, otherVersionsQuery, null, new IDocumentConsumer<IndexedToscaElement>() {
+            @Override
+            public void accept(IndexedToscaElement element) {
+                String versionKey = getVersionKey(element);
+                List<IndexedToscaElement> versions = otherVersions.get(versionKey);
+                if (versions == null) {
+                    versions = Lists.newArrayList();
+                    otherVersions.put(versionKey, versions);
+                }
+                versions.add(element);
+            }
+        });
+        for (IndexedToscaElement deletedElement : deletedElements) {
+            bulkSession.delete(deletedElement.getClass(), deletedElement.getId());
+            updateHighestVersion(otherVersions.get(getVersionKey(deletedElement)), null, bulkSession);
+        }
+        for (IndexedToscaElement savedElement : savedElements) {
+            updateHighestVersion(otherVersions.get(getVersionKey(savedElement)), savedElement, bulkSession);
+        }
+    }
+
+    private void updateHighestVersion(List<IndexedToscaElement> otherVersions, IndexedToscaElement savedElement, IBulkSession bulkSession) {
+        List<IndexedToscaElement> versions = otherVersions == null ? Lists.<IndexedToscaElement> newArrayList() : Lists.newArrayList(otherVersions);
+        if (savedElement != null) {
+            versions.add(savedElement);
+        }
+        if (versions.isEmpty()) {
+            return;
+        }
+        Collections.sort(versions, new Comparator<IndexedToscaElement>() {
+            @Override
+            public int compare(IndexedToscaElement o1, IndexedToscaElement o2) {
+                return VersionUtil.compare(o1.getArchiveVersion(), o2.getArchiveVersion());
+            }
+        });
+        IndexedToscaElement highestVersionElement = versions.get(versions.size() - 1);
+        Set<String> olderVersions = new LinkedHashSet<String>();
+        for (IndexedToscaElement version : versions) {
+            if (version != highestVersionElement) {
+                olderVersions.add(version.getArchiveVersion());
+            }
+        }
+        for (IndexedToscaElement version : versions) {
+            boolean highestVersion = version == highestVersionElement;
+            Set<String> expectedOlderVersions = highestVersion && !olderVersions.isEmpty() ? olderVersions : null;
+            Set<String> currentOlderVersions = version.getOlderVersions() == null || version.getOlderVersions().isEmpty() ? null : version.getOlderVersions();
+            // only the elements that are indexed or which versions properties changes are saved.
+            if (version == savedElement || version.isHighestVersion() != highestVersion || !Objects.equal(currentOlderVersions, expectedOlderVersions)) {
+                version.setHighestVersion(highestVersion);
+                version.setOlderVersions(expectedOlderVersions);
+                bulkSession.save(version);
+            }
+        }
+    }
+
+    private static String getVersionKey(IndexedToscaElement element) {
+        return element.getClass().getName() + ":" + element.getElementId();
+    }
+
+    private void deleteReplacedIcon(IndexedToscaElement previousElement, IndexedToscaElement element) {
+        Tag previousIconTag = ArchiveImageLoader.getIconTag(previousElement.getTags());
+        if (previousIconTag == null) {
+            return;
+        }
+        Tag iconTag = element == null ? null : ArchiveImageLoader.getIconTag(element.getTags());
+        if (iconTag == null || !previousIconTag.getValue().equals(iconTag.getValue())) {
+            imageDAO.delete(previousIconTag.getValue());
+        }
     }
 
     @Override
@@ -122,68 +319,6 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
         saveAndUpdateHighestVersion(element);
     }
     
-    /**
-     * Delete this indexed element and ensure that the <code>highestVersion<code> and <code>olderVersions</code> properties
-     * are up to date for the remaining ones.
-     */
-    private void deleteAndUpdateHighestVersion(IndexedToscaElement element) {
-        boolean elementWasHihestVersion = element.isHighestVersion();
-        String elementVersion = element.getArchiveVersion();
-        alienDAO.delete(element.getClass(), element.getId());
-
-        BoolQueryBuilder remainingElementQueryBuilder = QueryBuilders.boolQuery();
-        QueryBuilder archiveNameMatch = QueryBuilders.termQuery("archiveName", element.getArchiveName());
-        QueryBuilder elementIdMatch = QueryBuilders.matchQuery("elementId", element.getElementId());
-        remainingElementQueryBuilder.must(archiveNameMatch).must(elementIdMatch);
-        List<? extends IndexedToscaElement> remainingElements = alienDAO.customFindAll(element.getClass(), remainingElementQueryBuilder);
-
-        if (remainingElements == null) {
-            return;
-        }
-
-        if (elementWasHihestVersion) {
-            // we have to search for the new highest version element candidate
-            IndexedToscaElement hightestVersionElement = null;
-            for (IndexedToscaElement remainingElement : remainingElements) {
-                if (hightestVersionElement == null) {
-                    // the first one is obviously the highest, at least currently
-                    hightestVersionElement = remainingElement;
-                } else if (VersionUtil.compare(remainingElement.getArchiveVersion(), hightestVersionElement.getArchiveVersion()) > 0) {
-                    hightestVersionElement = remainingElement;
-                }
-            }
-            if (hightestVersionElement != null) {
-                // the highest version has been identified, we'll update it's property
-                hightestVersionElement.setHighestVersion(true);
-                // this component has been promoted as highest version, we may set it's older versions ?
-                Collections.sort(remainingElements, new Comparator<IndexedToscaElement>() {
-                    @Override
-                    public int compare(IndexedToscaElement o1, IndexedToscaElement o2) {
-                        return VersionUtil.compare(o1.getArchiveVersion(), o2.getArchiveVersion());
-                    }
-                });
-                Set<String> olderVersions = new LinkedHashSet<String>();
-                for (IndexedToscaElement remainingElement : remainingElements) {
-                    if (VersionUtil.compare(remainingElement.getArchiveVersion(), hightestVersionElement.getArchiveVersion()) < 0) {
-                        // this is an older version
-                        olderVersions.add(remainingElement.getArchiveVersion());
-                    }
-                }
-                hightestVersionElement.setOlderVersions(olderVersions);
-                alienDAO.save(hightestVersionElement);
-            }
-        } else {
-            // deleted element was not the highest version so maybe it was referenced as an older version
-            for (IndexedToscaElement remainingElement : remainingElements) {
-                if (remainingElement.getOlderVersions() != null && remainingElement.getOlderVersions().contains(elementVersion)) {
-                    // just remove the deleted element version from the olderVersions of the current element
-                    remainingElement.getOlderVersions().remove(elementVersion);
-                    alienDAO.save(remainingElement);
-                }
-            }
-        }
-    }
-
     private void saveAndUpdateHighestVersion(IndexedToscaElement element) {
         BoolQueryBuilder highestVersionElementQueryBuilder = QueryBuilders.boolQuery();
         QueryBuilder archiveNameMatch = QueryBuilders.termQuery("archiveName", element.getArchiveName());
@@ -191,6 +326,8 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
         QueryBuilder beHighestVersion = QueryBuilders.termQuery("highestVersion", true);
         highestVersionElementQueryBuilder.must(archiveNameMatch).must(elementIdMatch).must(beHighestVersion);
         IndexedToscaElement highestVersionElement = alienDAO.customFind(element.getClass(), highestVersionElementQueryBuilder);
+        // all the updated elements are saved in a single bulk that refresh the index once so the next elements to index can find them.
+        IBulkSession bulkSession = alienDAO.newBulkSession(WriteConsistency.IMMEDIATE);
         if (highestVersionElement != null) {
             int compareVersionResult = VersionUtil.compare(element.getArchiveVersion(), highestVersionElement.getArchiveVersion());
             if (compareVersionResult > 0) {
@@ -202,13 +339,12 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
                 newOlderVersions.add(highestVersionElement.getArchiveVersion());
                 element.setOlderVersions(newOlderVersions);
                 highestVersionElement.setOlderVersions(null);
-                alienDAO.save(element);
-                alienDAO.save(highestVersionElement);
+                bulkSession.save(element).save(highestVersionElement);
             } else if (compareVersionResult == 0) {
                 // The same version as the highest --> override
                 element.setHighestVersion(true);
                 element.setOlderVersions(highestVersionElement.getOlderVersions());
-                alienDAO.save(element);
+                bulkSession.save(element);
             } else {
                 // Current version is more recent than mine, just save
                 Set<String> currentOlderVersions = highestVersionElement.getOlderVersions();
@@ -217,15 +353,15 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
                     highestVersionElement.setOlderVersions(currentOlderVersions);
                 }
                 currentOlderVersions.add(element.getArchiveVersion());
-                alienDAO.save(highestVersionElement);
-                alienDAO.save(element);
+                bulkSession.save(highestVersionElement).save(element);
             }
         } else {
             // No element found with other version, I'm the highest version
             element.setHighestVersion(true);
-            alienDAO.save(element);
+            bulkSession.save(element);
         }
-        refreshIndexForSearching();
+        bulkSession.flush();
+        searchService.invalidateArchive(element.getArchiveName());
     }
 
     private static void addArchiveToQuery(BoolQueryBuilder boolQueryBuilder, String elementId, String archiveName, String archiveVersion) {
@@ -234,18 +370,35 @@ public class CSARRepositoryIndexerService implements ICSARRepositoryIndexerServi
         boolQueryBuilder.should(QueryBuilders.boolQuery().must(matchIdQueryBuilder).must(matchArchiveNameQueryBuilder));
     }
 
-    private void deleteElement(IndexedToscaElement element) {
-        Tag iconTag = ArchiveImageLoader.getIconTag(element.getTags());
-        if (iconTag != null) {
-            imageDAO.delete(iconTag.getValue());
+    private void deleteArchiveElements(String archiveName, String archiveVersion, Collection<IndexedToscaElement> elements) {
+        if (elements.isEmpty()) {
+            return;
+        }
+        for (IndexedToscaElement element : elements) {
+            deleteReplacedIcon(element, null);
         }
-        deleteAndUpdateHighestVersion(element);
+        // the deletions and the updates of the remaining versions are sent in a single bulk with a single refresh.
+        IBulkSession bulkSession = alienDAO.newBulkSession(WriteConsistency.IMMEDIATE);
+        updateVersions(archiveName, archiveVersion, Collections.<IndexedToscaElement> emptyList(), elements, bulkSession);
+        bulkSession.flush();
+        searchService.invalidateArchive(archiveName);
     }
 
     @Override
     public void deleteElements(Collection<IndexedToscaElement> elements) {
+        Map<String, List<IndexedToscaElement>> elementsByArchive = Maps.newHashMap();
         for (IndexedToscaElement element : elements) {
-            deleteElement(element);
+            String archiveId = element.getArchiveName() + ":" + element.getArchiveVersion();
+            List<IndexedToscaElement> archiveElements = elementsByArchive.get(archiveId);
+            if (archiveElements == null) {
+                archiveElements = Lists.newArrayList();
+                elementsByArchive.put(archiveId, archiveElements);
+            }
+            archiveElements.add(element);
+        }
+        for (List<IndexedToscaElement> archiveElements : elementsByArchive.values()) {
+            IndexedToscaElement element = archiveElements.get(0);
+            deleteArchiveElements(element.getArchiveName(), element.getArchiveVersion(), archiveElements);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,34 @@
 package alien4cloud.component;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
+import lombok.EqualsAndHashCode;
 import lombok.NonNull;
+import lombok.SneakyThrows;
 
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
+import alien4cloud.dao.ElasticSearchMapper;
+import alien4cloud.dao.IAsyncSearchDAO;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.dao.model.FetchContext;
@@ -23,16 +36,60 @@ import alien4cloud.exception.NotFoundException;
 import alien4cloud.model.components.CSARDependency;
 import alien4cloud.model.components.Csar;
 import alien4cloud.model.components.IndexedToscaElement;
+import alien4cloud.utils.CacheMetricSet;
 import alien4cloud.utils.CollectionUtils;
 import alien4cloud.utils.VersionUtil;
 
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 
 @Component
-public class CSARRepositorySearchService implements ICSARRepositorySearchService {
+public class CSARRepositorySearchService implements ICSARRepositorySearchService, MetricSet {
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO searchDAO;
+    @Resource(name = "alien-es-dao")
+    private IAsyncSearchDAO asyncSearchDAO;
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+    /** Maximum number of resolved elements kept in cache (0 to disable the cache). */
+    @Value("${components.cache.max_size:10000}")
+    private int cacheMaxSize;
+    /** Maximum number of elements read by id kept in cache (0 to disable the cache). */
+    @Value("${components.cache.details_max_size:1000}")
+    private int detailsCacheMaxSize;
+
+    /**
+     * Cache of the elements resolved in a set of dependencies. Elements are kept as Jackson tokens so every caller gets its own instance (callers and the
+     * inheritance merge alter the elements they get) without parsing JSON on every hit.
+     */
+    private Cache<ElementKey, Optional<CachedElement>> elementsCache;
+    /** Cache of the elements read by id (details of a component), kept as Jackson tokens with the hash of their content. */
+    private Cache<String, CachedElement> detailsCache;
+    /** Incremented on every invalidation so a lookup that raced with an invalidation doesn't leave a stale element in the cache. */
+    private final AtomicLong cacheGeneration = new AtomicLong();
+    /** Mapper used to copy cached elements, creating a mapper is expensive so it is shared. */
+    private final ObjectMapper mapper = ElasticSearchMapper.getInstance();
+
+    @PostConstruct
+    public void initCache() {
+        if (cacheMaxSize > 0) {
+            elementsCache = CacheBuilder.newBuilder().maximumSize(cacheMaxSize).recordStats().build();
+        }
+        if (detailsCacheMaxSize > 0) {
+            detailsCache = CacheBuilder.newBuilder().maximumSize(detailsCacheMaxSize).recordStats().build();
+        }
+    }
 
     @Override
     public boolean isElementExistInDependencies(@NonNull Class<? extends IndexedToscaElement> elementClass, @NonNull String elementId,
@@ -40,6 +97,9 @@ public class CSARRepositorySearchService implements ICSARRepositorySearchService
         if (dependencies == null || dependencies.isEmpty()) {
             return false;
         }
+        if (elementsCache != null) {
+            return getElementInDependencies(elementClass, elementId, dependencies) != null;
+        }
         // The query match element id of all defined dependencies' version from defined dependencies' archive name
         BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
         for (CSARDependency dependency : dependencies) {
@@ -70,6 +130,25 @@ public class CSARRepositorySearchService implements ICSARRepositorySearchService
         if (dependencies == null || dependencies.isEmpty()) {
             return null;
         }
+        if (elementsCache == null) {
+            return findElementInDependencies(elementClass, elementId, dependencies);
+        }
+        ElementKey key = new ElementKey(elementClass, elementId, dependencies);
+        Optional<CachedElement> cachedElement = elementsCache.getIfPresent(key);
+        if (cachedElement != null) {
+            return cachedElement.isPresent() ? elementClass.cast(cachedElement.get().copy()) : null;
+        }
+        long generation = cacheGeneration.get();
+        T element = findElementInDependencies(elementClass, elementId, dependencies);
+        elementsCache.put(key, element == null ? Optional.<CachedElement> absent() : Optional.of(new CachedElement(element, null)));
+        if (cacheGeneration.get() != generation) {
+            // an archive has been indexed or deleted while we were querying elastic search, the element may be stale.
+            elementsCache.invalidate(key);
+        }
+        return element;
+    }
+
+    private <T extends IndexedToscaElement> T findElementInDependencies(Class<T> elementClass, String elementId, Collection<CSARDependency> dependencies) {
         // The query match element id of all defined dependencies' version from defined dependencies' archive name
         BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
         for (CSARDependency dependency : dependencies) {
@@ -116,14 +195,203 @@ public class CSARRepositorySearchService implements ICSARRepositorySearchService
     @Override
     public FacetedSearchResult search(Class<? extends IndexedToscaElement> classNameToQuery, String query, Integer from, Integer size,
             Map<String, String[]> filters, boolean queryAllVersions) {
+        FacetedSearchResult searchResult = searchDAO.facetedSearch(classNameToQuery, query, getSearchFilters(filters, queryAllVersions), FetchContext.SUMMARY,
+                from, size);
+        return searchResult;
+    }
+
+    @Override
+    public ListenableFuture<FacetedSearchResult> searchAsync(Class<? extends IndexedToscaElement> classNameToQuery, String query, Integer from,
+            Integer size, Map<String, String[]> filters, boolean queryAllVersions) {
+        return asyncSearchDAO.facetedSearchAsync(classNameToQuery, query, getSearchFilters(filters, queryAllVersions), null, FetchContext.SUMMARY, from,
+                size);
+    }
+
+    private Map<String, String[]> getSearchFilters(Map<String, String[]> filters, boolean queryAllVersions) {
         if (!queryAllVersions) {
             if (filters == null) {
                 filters = Maps.newHashMap();
             }
             filters.put("highestVersion", new String[] { "true" });
         }
-        FacetedSearchResult searchResult = searchDAO.facetedSearch(classNameToQuery, query, filters, FetchContext.SUMMARY, from, size);
-        return searchResult;
+        return filters;
+    }
+
+    @Override
+    public ListenableFuture<HashedElement> getElementByIdAsync(final String id) {
+        final SettableListenableFuture<HashedElement> future = new SettableListenableFuture<HashedElement>();
+        HashedElement cachedElement = getCachedElementById(id);
+        if (cachedElement != null) {
+            future.set(cachedElement);
+            return future;
+        }
+        final long generation = cacheGeneration.get();
+        asyncSearchDAO.findByIdAsync(IndexedToscaElement.class, id).addCallback(new ListenableFutureCallback<IndexedToscaElement>() {
+            @Override
+            public void onSuccess(IndexedToscaElement element) {
+                try {
+                    future.set(element == null ? null : cacheElement(id, element, generation));
+                } catch (RuntimeException e) {
+                    future.setException(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                future.setException(e);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public HashedElement getCachedElementById(String id) {
+        CachedElement cachedElement = detailsCache == null ? null : detailsCache.getIfPresent(id);
+        return cachedElement == null ? null : new HashedElement(cachedElement.copy(), cachedElement.hash);
+    }
+
+    private HashedElement cacheElement(String id, IndexedToscaElement element, long generation) {
+        String hash = Hashing.sha1().hashString(writeElement(element), Charsets.UTF_8).toString();
+        if (detailsCache != null) {
+            detailsCache.put(id, new CachedElement(element, hash));
+            if (cacheGeneration.get() != generation) {
+                // an archive has been indexed or deleted while we were querying elastic search, the element may be stale.
+                detailsCache.invalidate(id);
+            }
+        }
+        return new HashedElement(element, hash);
+    }
+
+    @Override
+    public void invalidateArchive(String archiveName) {
+        cacheGeneration.incrementAndGet();
+        if (detailsCache != null) {
+            Iterator<CachedElement> elementIterator = detailsCache.asMap().values().iterator();
+            while (elementIterator.hasNext()) {
+                if (archiveName.equals(elementIterator.next().archiveName)) {
+                    elementIterator.remove();
+                }
+            }
+        }
+        if (elementsCache != null) {
+            // indexing a version of an archive may change the highest version flags of the other versions so all versions are invalidated.
+            Iterator<ElementKey> keyIterator = elementsCache.asMap().keySet().iterator();
+            while (keyIterator.hasNext()) {
+                if (keyIterator.next().archiveNames.contains(archiveName)) {
+                    keyIterator.remove();
+                }
+            }
+        }
+        eventPublisher.publishEvent(new ArchiveInvalidatedEvent(this, archiveName));
     }
 
+    @Override
+    public void invalidateAll() {
+        cacheGeneration.incrementAndGet();
+        if (detailsCache != null) {
+            detailsCache.invalidateAll();
+        }
+        if (elementsCache != null) {
+            elementsCache.invalidateAll();
+        }
+        eventPublisher.publishEvent(new ArchiveInvalidatedEvent(this, null));
+    }
+
+    /**
+     * Get the statistics of the resolved elements cache.
+     *
+     * @return The hits, misses and evictions of the cache.
+     */
+    public CacheStats getCacheStats() {
+        return elementsCache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : elementsCache.stats();
+    }
+
+    /**
+     * @return The number of resolved elements currently in cache.
+     */
+    public long getCacheSize() {
+        return elementsCache == null ? 0 : elementsCache.size();
+    }
+
+    /**
+     * Get the statistics of the cache of the elements read by id.
+     *
+     * @return The hits, misses and evictions of the cache.
+     */
+    public CacheStats getDetailsCacheStats() {
+        return detailsCache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : detailsCache.stats();
+    }
+
+    /**
+     * @return The number of elements read by id currently in cache.
+     */
+    public long getDetailsCacheSize() {
+        return detailsCache == null ? 0 : detailsCache.size();
+    }
+
+    /**
+     * Get the gauges of the resolved elements cache (resolved) and of the cache of the elements read by id (details).
+     */
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        for (Map.Entry<String, Metric> metric : new CacheMetricSet(elementsCache).getMetrics().entrySet()) {
+            metrics.put(MetricRegistry.name("resolved", metric.getKey()), metric.getValue());
+        }
+        for (Map.Entry<String, Metric> metric : new CacheMetricSet(detailsCache).getMetrics().entrySet()) {
+            metrics.put(MetricRegistry.name("details", metric.getKey()), metric.getValue());
+        }
+        return metrics;
+    }
+
+    @SneakyThrows({ IOException.class })
+    private String writeElement(IndexedToscaElement element) {
+        return mapper.writeValueAsString(element);
+    }
+
+    /**
+     * A cached element, kept as the tokens of its serialization: copies are built from the tokens without writing or parsing JSON.
+     */
+    private final class CachedElement {
+        private final Class<? extends IndexedToscaElement> elementClass;
+        private final String archiveName;
+        private final TokenBuffer tokens;
+        /** Hash of the content of the element, null for resolved elements. */
+        private final String hash;
+
+        @SneakyThrows({ IOException.class })
+        private CachedElement(IndexedToscaElement element, String hash) {
+            this.elementClass = element.getClass();
+            this.archiveName = element.getArchiveName();
+            this.tokens = new TokenBuffer(mapper, false);
+            mapper.writeValue(tokens, element);
+            this.hash = hash;
+        }
+
+        @SneakyThrows({ IOException.class })
+        private IndexedToscaElement copy() {
+            return mapper.readValue(tokens.asParser(), elementClass);
+        }
+    }
+
+    /**
+     * Key of a resolved element in the cache.
+     */
+    @EqualsAndHashCode(of = { "elementClass", "elementId", "dependencies" })
+    private static final class ElementKey {
+        private final Class<?> elementClass;
+        private final String elementId;
+        private final Set<String> dependencies = Sets.newHashSet();
+        private final Set<String> archiveNames = Sets.newHashSet();
+
+        private ElementKey(Class<?> elementClass, String elementId, Collection<CSARDependency> dependencies) {
+            this.elementClass = elementClass;
+            this.elementId = elementId;
+            // dependencies are mutable, the key keeps its own copy of their name and version.
+            for (CSARDependency dependency : dependencies) {
+                this.dependencies.add(dependency.getName() + ":" + dependency.getVersion());
+                this.archiveNames.add(dependency.getName());
+            }
+        }
+    }
 }
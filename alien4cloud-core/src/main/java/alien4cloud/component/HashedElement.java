@@ -0,0 +1,16 @@
+package alien4cloud.component;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import alien4cloud.model.components.IndexedToscaElement;
+
+/**
+ * A TOSCA element with the hash of its serialized content, the hash changes whenever the element is modified and can be used as an http entity tag.
+ */
+@Getter
+@AllArgsConstructor
+public class HashedElement {
+    private final IndexedToscaElement element;
+    private final String hash;
+}
@@ -39,6 +39,21 @@ public interface ICSARRepositoryIndexerService {
     void indexInheritableElements(String archiveName, String archiveVersion, Map<String, ? extends IndexedInheritableToscaElement> archiveElements,
             Collection<CSARDependency> dependencies);
 
+    /**
+     * Index all the elements of an archive at once. Parents and versions of the elements are resolved with a few requests and all the elements are written in
+     * a single bulk request.
+     * 
+     * @param archiveName The name of the archive in which the elements lies.
+     * @param archiveVersion The version of the archive in which the elements lies.
+     * @param elements The elements of the archive to index (of any type).
+     * @param dependencies The archive dependencies (in order to add infos from the parent element to the child...)
+     * @param previousElements The elements of a previous indexing of the same archive version (may be null), the ones that are not part of the archive
+     *            anymore are deleted.
+     * @return The timings of the indexing phases.
+     */
+    ArchiveIndexingReport indexArchiveElements(String archiveName, String archiveVersion, Collection<? extends IndexedInheritableToscaElement> elements,
+            Collection<CSARDependency> dependencies, Collection<IndexedToscaElement> previousElements);
+
     /**
      * Index a single element into the repository.
      * 
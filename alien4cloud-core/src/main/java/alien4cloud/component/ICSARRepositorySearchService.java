@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.Map;
 
 import org.elasticsearch.index.query.QueryBuilder;
+import org.springframework.util.concurrent.ListenableFuture;
 
 import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.exception.NotFoundException;
@@ -71,4 +72,40 @@ public interface ICSARRepositorySearchService {
     FacetedSearchResult search(Class<? extends IndexedToscaElement> classNameToQuery, String query, Integer from, Integer size, Map<String, String[]> filters,
             boolean queryAllVersions);
 
+    /**
+     * Non blocking variant of {@link #search(Class, String, Integer, Integer, Map, boolean)}.
+     *
+     * @return A future completed with the search result.
+     */
+    ListenableFuture<FacetedSearchResult> searchAsync(Class<? extends IndexedToscaElement> classNameToQuery, String query, Integer from, Integer size,
+            Map<String, String[]> filters, boolean queryAllVersions);
+
+    /**
+     * Get an element from its id with the hash of its content. Recently read elements are served from memory (the returned future is then already done).
+     *
+     * @param id The id of the element.
+     * @return A future completed with the element and its hash, or null if no element has the given id.
+     */
+    ListenableFuture<HashedElement> getElementByIdAsync(String id);
+
+    /**
+     * Get an element from its id with the hash of its content if it has been read recently, without querying elastic search.
+     *
+     * @param id The id of the element.
+     * @return The element and its hash, or null if the element is not in memory.
+     */
+    HashedElement getCachedElementById(String id);
+
+    /**
+     * Invalidate the cached elements resolved from any version of the given archive. Must be called whenever an element of the archive is indexed, updated
+     * or deleted.
+     *
+     * @param archiveName The name of the archive.
+     */
+    void invalidateArchive(String archiveName);
+
+    /**
+     * Invalidate all the cached elements, when the elements may have been modified directly in elastic search.
+     */
+    void invalidateAll();
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package alien4cloud.component;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
@@ -12,22 +16,34 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
-import alien4cloud.Constants;
+import alien4cloud.dao.IBulkSession;
+import alien4cloud.dao.IDocumentConsumer;
 import alien4cloud.dao.IGenericSearchDAO;
-import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.dao.model.WriteConsistency;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.model.topology.Topology;
 import alien4cloud.utils.MapUtil;
 import alien4cloud.utils.version.Version;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 /**
  * Updates the scoring of node types based on their usage, version and default capabilities.
+ *
+ * Usages of all node types are counted with a single aggregation on topologies and node types are read once to find their latest version, then only the
+ * scores that changed are written with bulk partial updates.
  */
 @Slf4j
 @Component
-public class NodeTypeScoreService implements Runnable {
+public class NodeTypeScoreService implements Runnable, MetricSet {
+    private static final String USAGE_FIELD = "nodeTemplates.value.type";
+    private static final String SCORE_FIELD = "alienScore";
+
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienESDAO;
     @Resource(name = "node-type-score-scheduler")
@@ -41,6 +57,15 @@ public class NodeTypeScoreService implements Runnable {
     private long versionBoost;
     @Value("${components.search.boost.default}")
     private long defaultBoost;
+    /** Maximum number of score updates sent in a single bulk request. */
+    @Value("${components.search.boost.bulk_size:1000}")
+    private int bulkSize = 1000;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong processedNodeTypes = new AtomicLong();
+    private volatile long totalNodeTypes;
+    private volatile long updatedNodeTypes;
+    private final Timer runs = new Timer();
 
     /** Refresh boost for all indexed node types in the system. */
     @PostConstruct
@@ -50,47 +75,173 @@ public class NodeTypeScoreService implements Runnable {
         scheduler.scheduleAtFixedRate(this, date, frequencyMs);
     }
 
+    /**
+     * Trigger an update of the node type scores without waiting for the next scheduled update.
+     *
+     * @return False if an update is already running, true if an update has been triggered.
+     */
+    public boolean trigger() {
+        if (running.get()) {
+            return false;
+        }
+        scheduler.schedule(this, new Date());
+        return true;
+    }
+
     @Override
     public void run() {
-        log.info("Updating node type scores.");
-        // Go over all indexed node types.
-        GetMultipleDataResult<IndexedNodeType> getMultipleDataResult = alienESDAO.find(IndexedNodeType.class, null, 0, Constants.DEFAULT_ES_SEARCH_SIZE);
-        int from = getMultipleDataResult.getTo() + 1;
-        processNodeTypes(getMultipleDataResult.getData());
-        while (getMultipleDataResult.getData().length > 0 && from < getMultipleDataResult.getTotalResults()) {
-            getMultipleDataResult = alienESDAO.find(IndexedNodeType.class, null, from, from + Constants.DEFAULT_ES_SEARCH_SIZE);
-            from = getMultipleDataResult.getTo() + 1;
-            processNodeTypes(getMultipleDataResult.getData());
+        if (!running.compareAndSet(false, true)) {
+            log.info("Node type scores are already being updated.");
+            return;
+        }
+        try {
+            updateScores();
+        } finally {
+            running.set(false);
         }
     }
 
-    private void processNodeTypes(IndexedNodeType[] indexedNodeTypes) {
-        for (IndexedNodeType nodeType : indexedNodeTypes) {
-            Map<String, String[]> usedNodeFiler = Maps.newHashMap();
-            usedNodeFiler.put("nodeTemplates.value.type", new String[] { nodeType.getElementId() });
-            // count the applications that uses the node-type
-            long usageFactor = usageBoost * alienESDAO.count(Topology.class, null, usedNodeFiler);
-            // get the version factor (latest version of a node is better than previous version, snapshot versions do not get boost)
-            long versionFactor = isLatestVersion(nodeType) ? versionBoost : 0;
+    /**
+     * @return True if the scores are being updated.
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return The number of node types processed by the current (or last) update.
+     */
+    public long getProcessedNodeTypes() {
+        return processedNodeTypes.get();
+    }
+
+    /**
+     * @return The number of node types to process by the current (or last) update.
+     */
+    public long getTotalNodeTypes() {
+        return totalNodeTypes;
+    }
+
+    /**
+     * @return The number of node types which score changed during the last update.
+     */
+    public long getUpdatedNodeTypes() {
+        return updatedNodeTypes;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        metrics.put("running", new Gauge<Boolean>() {
+            @Override
+            public Boolean getValue() {
+                return isRunning();
+            }
+        });
+        metrics.put("processed", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getProcessedNodeTypes();
+            }
+        });
+        metrics.put("total", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getTotalNodeTypes();
+            }
+        });
+        metrics.put("updated", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getUpdatedNodeTypes();
+            }
+        });
+        metrics.put("runs", runs);
+        return metrics;
+    }
+
+    private void updateScores() {
+        long start = System.currentTimeMillis();
+        log.info("Updating node type scores.");
+        processedNodeTypes.set(0);
+        // count the topologies that uses every node-type
+        Map<String, Long> usages = alienESDAO.countByTerms(Topology.class, null, USAGE_FIELD);
+
+        // get the latest version of every node type (latest version of a node is better than previous version)
+        final List<NodeTypeScore> nodeTypeScores = Lists.newArrayList();
+        final Map<String, Version> latestVersions = Maps.newHashMap();
+        alienESDAO.scroll(IndexedNodeType.class, null, null, new IDocumentConsumer<IndexedNodeType>() {
+            @Override
+            public void accept(IndexedNodeType nodeType) {
+                NodeTypeScore nodeTypeScore = new NodeTypeScore(nodeType);
+                nodeTypeScores.add(nodeTypeScore);
+                Version latestVersion = latestVersions.get(nodeType.getElementId());
+                if (latestVersion == null || latestVersion.compareTo(nodeTypeScore.version) < 0) {
+                    latestVersions.put(nodeType.getElementId(), nodeTypeScore.version);
+                }
+            }
+        });
+        totalNodeTypes = nodeTypeScores.size();
+
+        List<NodeTypeScore> changedScores = Lists.newArrayList();
+        for (NodeTypeScore nodeTypeScore : nodeTypeScores) {
+            long usageFactor = usageBoost * getUsage(usages, nodeTypeScore.elementId);
+            long versionFactor = nodeTypeScore.version.compareTo(latestVersions.get(nodeTypeScore.elementId)) < 0 ? 0 : versionBoost;
             // default boost (boost node types that have a default capability)
-            long defaultFactor = nodeType.getDefaultCapabilities() == null || nodeType.getDefaultCapabilities().isEmpty() ? 0 : defaultBoost;
-            // update the score for the node type.
-            nodeType.setAlienScore(usageFactor + defaultFactor + versionFactor);
-            alienESDAO.save(nodeType);
+            long defaultFactor = nodeTypeScore.hasDefaultCapabilities ? defaultBoost : 0;
+            long score = usageFactor + defaultFactor + versionFactor;
+            if (score != nodeTypeScore.score) {
+                nodeTypeScore.score = score;
+                changedScores.add(nodeTypeScore);
+            }
+            processedNodeTypes.incrementAndGet();
         }
-    }
+        writeScores(changedScores);
 
-    private boolean isLatestVersion(IndexedNodeType nodeType) {
-        Map<String, String[]> filters = MapUtil.newHashMap(new String[] { "elementId" }, new String[][] { new String[] { nodeType.getElementId() } });
-        // TODO get a single element and order by version.
-        Version nodeVersion = new Version(((IndexedNodeType) nodeType).getArchiveVersion());
+        updatedNodeTypes = changedScores.size();
+        long duration = System.currentTimeMillis() - start;
+        runs.update(duration, TimeUnit.MILLISECONDS);
+        log.info("Updated the scores of {} node types out of {} in {} ms.", updatedNodeTypes, totalNodeTypes, duration);
+    }
 
-        for (Object otherVersionNodeType : alienESDAO.find(IndexedNodeType.class, filters, Constants.DEFAULT_ES_SEARCH_SIZE).getData()) {
-            Version otherVersion = new Version(((IndexedNodeType) otherVersionNodeType).getArchiveVersion());
-            if (nodeVersion.compareTo(otherVersion) < 0) {
-                return false;
+    /**
+     * Write the scores with bulk partial updates, the index is refreshed only once the last bulk is written.
+     */
+    private void writeScores(List<NodeTypeScore> changedScores) {
+        List<List<NodeTypeScore>> bulks = Lists.partition(changedScores, Math.max(1, bulkSize));
+        for (int i = 0; i < bulks.size(); i++) {
+            IBulkSession bulkSession = alienESDAO.newBulkSession(i == bulks.size() - 1 ? WriteConsistency.IMMEDIATE : WriteConsistency.NEAR_REAL_TIME);
+            for (NodeTypeScore nodeTypeScore : bulks.get(i)) {
+                bulkSession.update(IndexedNodeType.class, nodeTypeScore.id,
+                        MapUtil.newHashMap(new String[] { SCORE_FIELD }, new Object[] { nodeTypeScore.score }));
             }
+            bulkSession.flush();
+        }
+    }
+
+    private static long getUsage(Map<String, Long> usages, String elementId) {
+        Long usage = usages.get(elementId);
+        if (usage == null) {
+            // values of the analyzed type field are aggregated as lower case terms.
+            usage = usages.get(elementId.toLowerCase());
+        }
+        return usage == null ? 0 : usage;
+    }
+
+    /** The elements of a node type that are used to compute its score. */
+    private static class NodeTypeScore {
+        private final String id;
+        private final String elementId;
+        private final Version version;
+        private final boolean hasDefaultCapabilities;
+        private long score;
+
+        private NodeTypeScore(IndexedNodeType nodeType) {
+            this.id = nodeType.getId();
+            this.elementId = nodeType.getElementId();
+            this.version = new Version(nodeType.getArchiveVersion());
+            this.hasDefaultCapabilities = nodeType.getDefaultCapabilities() != null && !nodeType.getDefaultCapabilities().isEmpty();
+            this.score = nodeType.getAlienScore();
         }
-        return true;
     }
 }
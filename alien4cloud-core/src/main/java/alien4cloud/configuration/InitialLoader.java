@@ -35,10 +35,15 @@ import org.springframework.util.StreamUtils;
 
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.component.repository.CsarFileRepository;
-import alien4cloud.component.repository.exception.CSARVersionAlreadyExistsException;
 import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.components.Csar;
+import alien4cloud.tosca.ArchiveBulkImportService;
 import alien4cloud.tosca.ArchiveUploadService;
-import alien4cloud.tosca.parser.ParsingException;
+import alien4cloud.tosca.model.ArchiveImportReport;
+import alien4cloud.tosca.parser.ParsingError;
+import alien4cloud.tosca.parser.ParsingErrorLevel;
+import alien4cloud.tosca.parser.ParsingResult;
+import alien4cloud.tosca.parser.impl.ErrorCode;
 import alien4cloud.utils.FileUtil;
 
 /** Load archives and plugins at bootstrap to initialize alien 4 cloud repository. */
@@ -49,7 +54,7 @@ public class InitialLoader {
     private static final String PLUGINS_FOLDER = "plugins";
 
     @Inject
-    private ArchiveUploadService csarUploadService;
+    private ArchiveBulkImportService bulkImportService;
     @Inject
     private PluginManager pluginManager;
 
@@ -91,14 +96,16 @@ public class InitialLoader {
         // archives must be in zip format and placed in the actual folder
         try {
             List<Path> archives = FileUtil.listFiles(rootDirectory, ".+\\.(zip|csar)");
-            for (Path archive : archives) {
-                try {
-                    log.debug("Initial load of archives from <{}>.", archive.toString());
-                    csarUploadService.upload(archive);
-                } catch (CSARVersionAlreadyExistsException e) {
-                    log.debug("Skipping initial upload of archive <{}>. Archive has already been loaded.", archive.toString(), e);
-                } catch (ParsingException e) {
-                    log.error("Initial upload of archive <{}> has failed.", archive.toString(), e);
+            log.debug("Initial load of archives from <{}>.", rootDirectory.toString());
+            // archives are imported in the order of their dependencies, released archives that have already been loaded are skipped.
+            for (ArchiveImportReport report : bulkImportService.importArchives(archives, false)) {
+                ParsingResult<Csar> result = report.getParsingResult();
+                if (result == null || !ArchiveUploadService.hasError(result, ParsingErrorLevel.ERROR)) {
+                    log.debug("Initial upload of archive {}", report);
+                } else if (isAlreadyLoaded(result)) {
+                    log.debug("Skipping initial upload of archive <{}>. Archive has already been loaded.", report.getPath().toString());
+                } else {
+                    log.error("Initial upload of archive <{}> has failed: {}", report.getPath().toString(), result.getContext().getParsingErrors());
                 }
             }
         } catch (IOException e) {
@@ -109,6 +116,15 @@ public class InitialLoader {
         }
     }
 
+    private boolean isAlreadyLoaded(ParsingResult<Csar> result) {
+        for (ParsingError error : result.getContext().getParsingErrors()) {
+            if (ErrorCode.CSAR_ALREADY_EXISTS.equals(error.getErrorCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Load plugins from the initialiaztion plugins folder.
      */
@@ -1,6 +1,7 @@
 package alien4cloud.configuration;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -13,22 +14,37 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 @EnableAsync
 @EnableScheduling
 public class SchedulingConfiguration {
-    @Value("${paas_monitor.threadpool_size}")
-    private int paasMonitorThreadPoolSize;
+    @Bean(name = "node-type-score-scheduler")
+    public Executor getNodeTypeScoreScheduler() {
+        ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
+        threadPoolTaskScheduler.setPoolSize(1);
+        threadPoolTaskScheduler.setThreadNamePrefix("node-type-score-");
+        return threadPoolTaskScheduler;
+    }
 
-    @Bean(name = "paas-monitor-scheduler")
-    public Executor getPaaSScheduler() {
+    @Bean(name = "deployment-status-scheduler")
+    public Executor getDeploymentStatusScheduler() {
         ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
-        threadPoolTaskScheduler.setPoolSize(paasMonitorThreadPoolSize);
-        threadPoolTaskScheduler.setThreadNamePrefix("paas-monitor-");
+        threadPoolTaskScheduler.setPoolSize(1);
+        threadPoolTaskScheduler.setThreadNamePrefix("deployment-status-");
         return threadPoolTaskScheduler;
     }
 
-    @Bean(name = "node-type-score-scheduler")
-    public Executor getNodeTypeScoreScheduler() {
+    @Bean(name = "suggestion-loader")
+    public Executor getSuggestionLoader() {
         ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
         threadPoolTaskScheduler.setPoolSize(1);
-        threadPoolTaskScheduler.setThreadNamePrefix("node-type-score-");
+        threadPoolTaskScheduler.setThreadNamePrefix("suggestion-loader-");
         return threadPoolTaskScheduler;
     }
-}
\ No newline at end of file
+
+    /**
+     * Pool shared by the matching of the nodes and of the locations of a topology.
+     *
+     * @param parallelism Maximum number of nodes or locations matched concurrently, 0 to use the number of available processors.
+     */
+    @Bean(name = "matching-executor", destroyMethod = "shutdown")
+    public ForkJoinPool getMatchingExecutor(@Value("${matching.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
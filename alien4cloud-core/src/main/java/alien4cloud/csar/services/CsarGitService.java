@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -19,17 +18,13 @@ import org.springframework.util.FileSystemUtils;
 
 import com.google.common.collect.Lists;
 
-import alien4cloud.component.repository.exception.CSARVersionAlreadyExistsException;
 import alien4cloud.dao.IGenericSearchDAO;
-import alien4cloud.exception.GitException;
 import alien4cloud.git.RepositoryManager;
-import alien4cloud.model.components.CSARDependency;
 import alien4cloud.model.components.Csar;
-import alien4cloud.model.git.CsarDependenciesBean;
 import alien4cloud.model.git.CsarGitCheckoutLocation;
 import alien4cloud.model.git.CsarGitRepository;
-import alien4cloud.tosca.ArchiveUploadService;
-import alien4cloud.tosca.parser.ParsingException;
+import alien4cloud.tosca.ArchiveBulkImportService;
+import alien4cloud.tosca.model.ArchiveImportReport;
 import alien4cloud.tosca.parser.ParsingResult;
 import alien4cloud.utils.FileUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -42,7 +37,7 @@ public class CsarGitService {
     @Inject
     private CsarFinderService csarFinderService;
     @Inject
-    private ArchiveUploadService uploadService;
+    private ArchiveBulkImportService bulkImportService;
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
     @Resource
@@ -129,7 +124,6 @@ public class CsarGitService {
                 csarGitCheckoutLocation.setLastImportedHash(hash);
                 alienDAO.save(csarGitRepository); // update the hash for this location.
             }
-            // TODO best would be to provide with a better result to show that we didn't retried import
             return results;
         } finally {
             if (git != null) {
@@ -144,77 +138,15 @@ public class CsarGitService {
         Path archiveGitRoot = tempDirPath.resolve(csarGitRepository.getId());
         Set<Path> archivePaths = csarFinderService.prepare(archiveGitRoot, archiveZipRoot, csarGitCheckoutLocation.getSubPath());
 
-        // TODO code review has to be completed to further cleanup below processing.
+        // archives are parsed in parallel and imported in the order of their dependencies, if nothing has been committed since last import the archives
+        // that still exist in the repository are not imported again (their result only contains an information message).
+        boolean skipExisting = gitHash.equals(csarGitCheckoutLocation.getLastImportedHash());
         List<ParsingResult<Csar>> parsingResult = Lists.newArrayList();
-        try {
-            Map<CSARDependency, CsarDependenciesBean> csarDependenciesBeans = uploadService.preParsing(archivePaths);
-            List<CsarDependenciesBean> sorted = sort(csarDependenciesBeans);
-            for (CsarDependenciesBean csarBean : sorted) {
-                if (csarGitCheckoutLocation.getLastImportedHash() != null && csarGitCheckoutLocation.getLastImportedHash().equals(gitHash)) {
-                    if (csarService.getIfExists(csarBean.getSelf().getName(), csarBean.getSelf().getVersion()) != null) {
-                        // no commit since last import and the archive still exist in the repo, so do not import
-                        // TODO notify the user that the archive has already been imported
-                        continue;
-                    }
-                }
-                ParsingResult<Csar> result = uploadService.upload(csarBean.getPath());
-                parsingResult.add(result);
-            }
-            return parsingResult;
-        } catch (ParsingException e) {
-            // TODO Actually add a parsing result with error.
-            throw new GitException("Failed to import archive from git as it cannot be parsed", e);
-        } catch (CSARVersionAlreadyExistsException e) {
-            return parsingResult;
-        }
-    }
-
-    private List<CsarDependenciesBean> sort(Map<CSARDependency, CsarDependenciesBean> elements) {
-        List<CsarDependenciesBean> sortedCsars = Lists.newArrayList();
-
-        List<CsarDependenciesBean> independents = Lists.newArrayList();
-        for (Map.Entry<CSARDependency, CsarDependenciesBean> entry : elements.entrySet()) {
-            CsarDependenciesBean csar = entry.getValue();
-            if (csar.getDependencies() == null) {
-                // the element has no dependencies
-                independents.add(csar);
-            } else {
-                // complete the list of dependent elements
-                List<CSARDependency> toClears = Lists.newArrayList();
-                for (CSARDependency dependent : csar.getDependencies()) {
-                    CsarDependenciesBean providedDependency = elements.get(dependent);
-                    if (providedDependency == null) {
-                        // remove the dependency as it may be in the alien repo
-                        toClears.add(dependent);
-                    } else {
-                        providedDependency.getDependents().add(entry.getValue());
-                    }
-                }
-                for (CSARDependency toClear : toClears) {
-                    csar.getDependencies().remove(toClear);
-                }
-                if (csar.getDependencies().isEmpty()) {
-                    independents.add(csar);
-                }
-            }
-        }
-
-        while (independents.size() > 0) {
-            CsarDependenciesBean independent = independents.remove(0);
-            elements.remove(independent.getSelf()); // remove from the elements
-            sortedCsars.add(independent); // element has no more dependencies
-            for (CsarDependenciesBean dependent : independent.getDependents()) {
-                dependent.getDependencies().remove(independent.getSelf());
-                if (dependent.getDependencies().isEmpty()) {
-                    independents.add(dependent);
-                }
+        for (ArchiveImportReport report : bulkImportService.importArchives(archivePaths, skipExisting)) {
+            if (report.getParsingResult() != null) {
+                parsingResult.add(report.getParsingResult());
             }
         }
-
-        if (elements.size() > 0) {
-            // TODO there is looping dependencies throw exception or ignore ?
-        }
-
-        return sortedCsars;
+        return parsingResult;
     }
-}
\ No newline at end of file
+}
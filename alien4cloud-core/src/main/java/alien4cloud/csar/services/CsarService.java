@@ -28,6 +28,7 @@ import alien4cloud.model.components.Csar;
 import alien4cloud.model.templates.TopologyTemplate;
 import alien4cloud.model.topology.Topology;
 import alien4cloud.topology.TopologyService;
+import alien4cloud.tosca.ArchiveParsingCache;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -52,6 +53,8 @@ public class CsarService implements ICsarDependencyLoader {
     private TopologyService topologyService;
     @Resource
     private ApplicationService applicationService;
+    @Resource
+    private ArchiveParsingCache parsingCache;
 
     /**
      * Get a cloud service if exists in Dao.
@@ -207,6 +210,8 @@ public class CsarService implements ICsarDependencyLoader {
 
         // physically delete files
         alienRepository.removeCSAR(csar.getName(), csar.getVersion());
+        // cached parsing results may have been resolved against the deleted archive.
+        parsingCache.clear();
 
     }
 
@@ -226,6 +231,7 @@ public class CsarService implements ICsarDependencyLoader {
 
             // physically delete files
             alienRepository.removeCSAR(csar.getName(), csar.getVersion());
+            parsingCache.clear();
         }
         return relatedResourceList;
     }
@@ -115,10 +115,12 @@ public class DeployService {
         // change the Id before saving
         deploymentTopology.setId(deployment.getId());
         alienMonitorDao.save(deploymentTopology);
+        deploymentContextService.invalidateRuntimeContext(deployment.getId());
         // put back the old Id for deployment
         deploymentTopology.setId(deploymentTopologyId);
         // Build the context for deployment and deploy
         orchestratorPlugin.deploy(deploymentContextService.buildTopologyDeploymentContext(deployment, locations, deploymentTopology), null);
+        orchestratorPluginService.wakeUpMonitor(deployment.getOrchestratorId());
         log.info("Deployed topology [{}] on location [{}], generated deployment with id [{}]", deploymentTopology.getInitialTopologyId(), firstLocation.getId(),
                 deployment.getId());
         return deployment.getId();
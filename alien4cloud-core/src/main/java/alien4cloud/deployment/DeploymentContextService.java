@@ -1,26 +1,69 @@
 package alien4cloud.deployment;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 import javax.inject.Inject;
 
+import lombok.AllArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.model.deployment.Deployment;
 import alien4cloud.model.deployment.DeploymentTopology;
 import alien4cloud.model.orchestrators.locations.Location;
 import alien4cloud.paas.model.PaaSTopology;
 import alien4cloud.paas.model.PaaSTopologyDeploymentContext;
 import alien4cloud.paas.plan.TopologyTreeBuilderService;
+import alien4cloud.utils.CacheMetricSet;
 import alien4cloud.utils.TypeMap;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
 /**
  * Utility to build the deployment context.
+ *
+ * The contexts of active deployments (runtime topology, locations and processed PaaS topology) are kept in memory as the runtime topology doesn't change
+ * until the deployment is scaled or undeployed, the services that update the runtime topology must call {@link #invalidateRuntimeContext(String)}.
  */
 @Service
-public class DeploymentContextService {
+public class DeploymentContextService implements MetricSet {
     @Inject
     private TopologyTreeBuilderService topologyTreeBuilderService;
+    @Resource(name = "alien-monitor-es-dao")
+    private IGenericSearchDAO alienMonitorDao;
+    @Inject
+    private DeploymentTopologyService deploymentTopologyService;
+
+    /** Maximum number of runtime contexts kept in memory (0 disables the cache). */
+    @Value("${deployment.runtime_context_cache.max_size:100}")
+    private int runtimeCacheMaxSize = 100;
+    /** Time in minutes after which the context of a deployment that is not queried anymore is removed from memory. */
+    @Value("${deployment.runtime_context_cache.ttl_minutes:30}")
+    private int runtimeCacheTtlMinutes = 30;
+
+    private Cache<String, RuntimeContext> runtimeContexts;
+    /** Incremented on every invalidation so a context built from a runtime topology that has been updated meanwhile is not cached. */
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter buildTimeSaved = new Counter();
+
+    @PostConstruct
+    public void init() {
+        if (runtimeCacheMaxSize > 0) {
+            runtimeContexts = CacheBuilder.newBuilder().maximumSize(runtimeCacheMaxSize).expireAfterAccess(runtimeCacheTtlMinutes, TimeUnit.MINUTES)
+                    .recordStats().build();
+        }
+    }
 
     /**
      * Build a topology deployment context from a given topology and deployment.
@@ -46,6 +89,93 @@ public class DeploymentContextService {
         return buildTopologyDeploymentContext(deployment, locations, topology, topologyTreeBuilderService.buildPaaSTopology(topology, cache));
     }
 
+    /**
+     * Get the topology deployment context of an active deployment from its runtime topology. The returned context shares the runtime topology and PaaS
+     * topology with other callers and must not be modified.
+     *
+     * @param deployment The active deployment.
+     * @return A PaaSTopologyDeploymentContext built from the runtime topology of the deployment.
+     */
+    public PaaSTopologyDeploymentContext getRuntimeTopologyDeploymentContext(Deployment deployment) {
+        RuntimeContext runtimeContext = runtimeContexts == null ? null : runtimeContexts.getIfPresent(deployment.getId());
+        if (runtimeContext == null) {
+            long currentGeneration = generation.get();
+            runtimeContext = buildRuntimeContext(deployment.getId());
+            if (runtimeContexts != null && runtimeContext.runtimeTopology != null && currentGeneration == generation.get()) {
+                runtimeContexts.put(deployment.getId(), runtimeContext);
+            }
+        } else {
+            buildTimeSaved.inc(runtimeContext.buildTime);
+        }
+        return buildTopologyDeploymentContext(deployment, runtimeContext.locations, runtimeContext.runtimeTopology, runtimeContext.paaSTopology);
+    }
+
+    /**
+     * Get the runtime topology of a deployment, from memory if its context has already been built.
+     *
+     * @param deploymentId The id of the deployment.
+     * @return The runtime topology of the deployment, must not be modified.
+     */
+    public DeploymentTopology getRuntimeTopology(String deploymentId) {
+        RuntimeContext runtimeContext = runtimeContexts == null ? null : runtimeContexts.getIfPresent(deploymentId);
+        if (runtimeContext == null) {
+            return alienMonitorDao.findById(DeploymentTopology.class, deploymentId);
+        }
+        return runtimeContext.runtimeTopology;
+    }
+
+    /**
+     * Remove the context of a deployment from memory, must be called when the runtime topology of a deployment is updated.
+     *
+     * @param deploymentId The id of the deployment.
+     */
+    public void invalidateRuntimeContext(String deploymentId) {
+        generation.incrementAndGet();
+        if (runtimeContexts != null) {
+            runtimeContexts.invalidate(deploymentId);
+        }
+    }
+
+    /**
+     * Remove the contexts of all deployments from memory, must be called when deployments may have been modified directly in elastic search.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        if (runtimeContexts != null) {
+            runtimeContexts.invalidateAll();
+        }
+    }
+
+    public CacheStats getRuntimeCacheStats() {
+        return runtimeContexts == null ? new CacheStats(0, 0, 0, 0, 0, 0) : runtimeContexts.stats();
+    }
+
+    public long getRuntimeCacheSize() {
+        return runtimeContexts == null ? 0 : runtimeContexts.size();
+    }
+
+    /**
+     * @return The time in milliseconds saved by using contexts from memory rather than building them.
+     */
+    public long getBuildTimeSaved() {
+        return buildTimeSaved.getCount();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new CacheMetricSet(runtimeContexts).getMetrics();
+        metrics.put("time_saved_ms", buildTimeSaved);
+        return metrics;
+    }
+
+    private RuntimeContext buildRuntimeContext(String deploymentId) {
+        long start = System.currentTimeMillis();
+        DeploymentTopology runtimeTopology = alienMonitorDao.findById(DeploymentTopology.class, deploymentId);
+        Map<String, Location> locations = deploymentTopologyService.getLocations(runtimeTopology);
+        PaaSTopology paaSTopology = topologyTreeBuilderService.buildPaaSTopology(runtimeTopology);
+        return new RuntimeContext(runtimeTopology, locations, paaSTopology, System.currentTimeMillis() - start);
+    }
+
     private PaaSTopologyDeploymentContext buildTopologyDeploymentContext(Deployment deployment, Map<String, Location> locations, DeploymentTopology topology,
             PaaSTopology paaSTopology) {
         PaaSTopologyDeploymentContext topologyDeploymentContext = new PaaSTopologyDeploymentContext();
@@ -56,4 +186,13 @@ public class DeploymentContextService {
         topologyDeploymentContext.setDeployment(deployment);
         return topologyDeploymentContext;
     }
-}
\ No newline at end of file
+
+    /** The elements of a deployment context that are built from the runtime topology. */
+    @AllArgsConstructor
+    private static class RuntimeContext {
+        private final DeploymentTopology runtimeTopology;
+        private final Map<String, Location> locations;
+        private final PaaSTopology paaSTopology;
+        private final long buildTime;
+    }
+}
@@ -107,8 +107,10 @@ public class DeploymentRuntimeService {
         log.info("Scaling <{}> node from <{}> to <{}>. Updating runtime topology...", nodeTemplateId, previousInitialInstances, newInitialInstances);
         TopologyUtils.setScalingProperty(NormativeComputeConstants.SCALABLE_DEFAULT_INSTANCES, newInitialInstances, capability);
         alienMonitorDao.save(topology);
+        deploymentContextService.invalidateRuntimeContext(deployment.getId());
         IOrchestratorPlugin orchestratorPlugin = orchestratorPluginService.getOrFail(deployment.getOrchestratorId());
         PaaSDeploymentContext deploymentContext = new PaaSDeploymentContext(deployment, deploymentTopology);
+        orchestratorPluginService.wakeUpMonitor(deployment.getOrchestratorId());
         orchestratorPlugin.scale(deploymentContext, nodeTemplateId, instances, new IPaaSCallback() {
             @Override
             public void onFailure(Throwable throwable) {
@@ -116,6 +118,7 @@ public class DeploymentRuntimeService {
                         previousInitialInstances);
                 TopologyUtils.setScalingProperty(NormativeComputeConstants.SCALABLE_DEFAULT_INSTANCES, previousInitialInstances, capability);
                 alienMonitorDao.save(topology);
+                deploymentContextService.invalidateRuntimeContext(topology.getId());
                 callback.onFailure(throwable);
             }
 
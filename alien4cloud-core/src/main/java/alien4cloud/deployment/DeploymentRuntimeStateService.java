@@ -47,8 +47,6 @@ public class DeploymentRuntimeStateService {
     private OrchestratorPluginService orchestratorPluginService;
     @Inject
     private DeploymentContextService deploymentContextService;
-    @Inject
-    private DeploymentTopologyService deploymentTopologyService;
 
     /**
      * Get the deployed (runtime) topology of an application from the environment id
@@ -98,7 +96,7 @@ public class DeploymentRuntimeStateService {
         }
         IOrchestratorPlugin orchestratorPlugin = orchestratorPluginService.getOrFail(deployment.getOrchestratorId());
 
-        PaaSDeploymentContext deploymentContext = new PaaSDeploymentContext(deployment, getRuntimeTopology(deployment.getId()));
+        PaaSDeploymentContext deploymentContext = new PaaSDeploymentContext(deployment, deploymentContextService.getRuntimeTopology(deployment.getId()));
         IPaaSCallback<DeploymentStatus> esCallback = new IPaaSCallback<DeploymentStatus>() {
             @Override
             public void onSuccess(DeploymentStatus data) {
@@ -131,9 +129,7 @@ public class DeploymentRuntimeStateService {
             callback.onSuccess(instancesInformation);
             return;
         }
-        DeploymentTopology runtimeTopology = alienMonitorDao.findById(DeploymentTopology.class, deployment.getId());
-        PaaSTopologyDeploymentContext deploymentContext = deploymentContextService.buildTopologyDeploymentContext(deployment,
-                deploymentTopologyService.getLocations(runtimeTopology), runtimeTopology);
+        PaaSTopologyDeploymentContext deploymentContext = deploymentContextService.getRuntimeTopologyDeploymentContext(deployment);
         IOrchestratorPlugin orchestratorPlugin = orchestratorPluginService.getOrFail(deployment.getOrchestratorId());
         orchestratorPlugin.getInstancesInformation(deploymentContext, callback);
     }
@@ -0,0 +1,312 @@
+package alien4cloud.deployment;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.inject.Inject;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.model.application.ApplicationEnvironment;
+import alien4cloud.model.deployment.Deployment;
+import alien4cloud.paas.IPaaSCallback;
+import alien4cloud.paas.IPaasEventListener;
+import alien4cloud.paas.IPaasEventService;
+import alien4cloud.paas.model.AbstractMonitorEvent;
+import alien4cloud.paas.model.DeploymentStatus;
+import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
+import alien4cloud.utils.MapUtil;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Keeps the status of the active deployments in memory so the statuses of many environments can be returned without querying the orchestrators.
+ *
+ * The view is updated by the deployment status events of the orchestrators. Deployments that are not known yet (no event received since startup) are
+ * queried concurrently from their orchestrator, bounded by query_timeout_ms after which the status is UNKNOWN. The known statuses are periodically
+ * reconciled with the orchestrators to recover from missed events.
+ */
+@Slf4j
+@Service
+public class DeploymentStatusService implements IPaasEventListener<AbstractMonitorEvent>, MetricSet {
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO alienDAO;
+    @Resource
+    private IPaasEventService paasEventService;
+    @Inject
+    private DeploymentRuntimeStateService deploymentRuntimeStateService;
+    @Resource(name = "deployment-status-scheduler")
+    private TaskScheduler scheduler;
+
+    /** Disable to query the orchestrators for every status request. */
+    @Value("${deployment.status.view.enabled:true}")
+    private boolean enabled = true;
+    /** Maximum number of statuses queried concurrently from the orchestrators. */
+    @Value("${deployment.status.query_parallelism:8}")
+    private int queryParallelism = 8;
+    /** Maximum time in milliseconds to wait for the orchestrators when statuses are not known. */
+    @Value("${deployment.status.query_timeout_ms:5000}")
+    private long queryTimeoutMs = 5000;
+    /** Interval in milliseconds between two reconciliations of the view with the orchestrators (0 disables the reconciliation). */
+    @Value("${deployment.status.reconcile_interval_ms:60000}")
+    private long reconcileIntervalMs = 60000;
+
+    /** Status of the active deployments by deployment id. */
+    private final ConcurrentMap<String, DeploymentStatus> statuses = new ConcurrentHashMap<>();
+    private final Counter hits = new Counter();
+    private final Counter queries = new Counter();
+    private final Counter timeouts = new Counter();
+    private final Timer reconciliations = new Timer();
+    private ExecutorService queryExecutor;
+
+    @PostConstruct
+    public void init() {
+        queryExecutor = Executors.newFixedThreadPool(Math.max(1, queryParallelism),
+                new ThreadFactoryBuilder().setNameFormat("deployment-status-query-%d").setDaemon(true).build());
+        if (!enabled) {
+            return;
+        }
+        paasEventService.addListener(this);
+        if (reconcileIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    reconcile();
+                }
+            }, new Date(System.currentTimeMillis() + reconcileIntervalMs), reconcileIntervalMs);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (queryExecutor != null) {
+            queryExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Get the status of the active deployment of a set of environments.
+     *
+     * @param environments The environments for which to get the deployment status.
+     * @return A map of environment id to the status of its active deployment (UNDEPLOYED if the environment is not deployed, UNKNOWN if the orchestrator
+     *         cannot provide the status in time).
+     */
+    public Map<String, DeploymentStatus> getStatuses(Collection<ApplicationEnvironment> environments) {
+        Map<String, DeploymentStatus> environmentStatuses = Maps.newHashMap();
+        if (environments.isEmpty()) {
+            return environmentStatuses;
+        }
+        String[] environmentIds = new String[environments.size()];
+        int i = 0;
+        for (ApplicationEnvironment environment : environments) {
+            environmentIds[i++] = environment.getId();
+            environmentStatuses.put(environment.getId(), DeploymentStatus.UNDEPLOYED);
+        }
+        Map<String, Deployment> unknownDeployments = Maps.newHashMap();
+        for (Deployment deployment : getActiveDeployments(environmentIds)) {
+            DeploymentStatus status = enabled ? statuses.get(deployment.getId()) : null;
+            if (status == null) {
+                unknownDeployments.put(deployment.getEnvironmentId(), deployment);
+            } else {
+                hits.inc();
+                environmentStatuses.put(deployment.getEnvironmentId(), status);
+            }
+        }
+        environmentStatuses.putAll(queryStatuses(unknownDeployments));
+        return environmentStatuses;
+    }
+
+    /**
+     * Forget all the known statuses, must be called when deployments may have been modified directly in elastic search.
+     */
+    public void invalidateAll() {
+        statuses.clear();
+    }
+
+    /**
+     * @return The number of deployments which status is known.
+     */
+    public long getSize() {
+        return statuses.size();
+    }
+
+    /**
+     * @return The number of statuses returned from memory.
+     */
+    public long getHits() {
+        return hits.getCount();
+    }
+
+    /**
+     * @return The number of statuses queried from the orchestrators.
+     */
+    public long getQueries() {
+        return queries.getCount();
+    }
+
+    /**
+     * @return The number of statuses that the orchestrators did not provide in time.
+     */
+    public long getTimeouts() {
+        return timeouts.getCount();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        metrics.put("size", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getSize();
+            }
+        });
+        metrics.put("hits", hits);
+        metrics.put("queries", queries);
+        metrics.put("timeouts", timeouts);
+        metrics.put("reconciliations", reconciliations);
+        return metrics;
+    }
+
+    private List<Deployment> getActiveDeployments(String[] environmentIds) {
+        GetMultipleDataResult<Deployment> dataResult = alienDAO.search(Deployment.class, null,
+                MapUtil.newHashMap(new String[] { "environmentId", "endDate" }, new String[][] { environmentIds, new String[] { null } }),
+                environmentIds.length);
+        if (dataResult.getData() == null) {
+            return Lists.newArrayList();
+        }
+        return Lists.newArrayList(dataResult.getData());
+    }
+
+    /**
+     * Query the status of deployments from their orchestrator, waiting for all of them at most query_timeout_ms.
+     */
+    private <K> Map<K, DeploymentStatus> queryStatuses(Map<K, Deployment> deployments) {
+        Map<K, Future<DeploymentStatus>> futures = Maps.newHashMap();
+        for (Map.Entry<K, Deployment> entry : deployments.entrySet()) {
+            futures.put(entry.getKey(), queryStatus(entry.getValue()));
+        }
+        long deadline = System.currentTimeMillis() + queryTimeoutMs;
+        Map<K, DeploymentStatus> queriedStatuses = Maps.newHashMap();
+        for (Map.Entry<K, Future<DeploymentStatus>> entry : futures.entrySet()) {
+            DeploymentStatus status = DeploymentStatus.UNKNOWN;
+            try {
+                status = entry.getValue().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                timeouts.inc();
+                log.debug("Status of the deployment <{}> not received in time. Returned status is UNKNOWN.", deployments.get(entry.getKey()).getId());
+            } catch (ExecutionException e) {
+                log.debug("Getting status for the deployment <" + deployments.get(entry.getKey()).getId()
+                        + "> failed because the associated orchestrator seems disabled. Returned status is UNKNOWN.", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            queriedStatuses.put(entry.getKey(), status);
+        }
+        return queriedStatuses;
+    }
+
+    private Future<DeploymentStatus> queryStatus(final Deployment deployment) {
+        queries.inc();
+        final SettableFuture<DeploymentStatus> future = SettableFuture.create();
+        try {
+            queryExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        deploymentRuntimeStateService.getDeploymentStatus(deployment, new IPaaSCallback<DeploymentStatus>() {
+                            @Override
+                            public void onSuccess(DeploymentStatus data) {
+                                update(deployment.getId(), data);
+                                future.set(data);
+                            }
+
+                            @Override
+                            public void onFailure(Throwable throwable) {
+                                future.setException(throwable);
+                            }
+                        });
+                    } catch (Exception e) {
+                        future.setException(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.setException(e);
+        }
+        return future;
+    }
+
+    private void update(String deploymentId, DeploymentStatus status) {
+        if (!enabled || deploymentId == null || status == null) {
+            return;
+        }
+        if (DeploymentStatus.UNDEPLOYED.equals(status)) {
+            // the deployment is not active anymore
+            statuses.remove(deploymentId);
+        } else {
+            statuses.put(deploymentId, status);
+        }
+    }
+
+    /**
+     * Query the orchestrators for the status of the known deployments and forget the deployments that are not active anymore.
+     */
+    private void reconcile() {
+        Timer.Context reconciliation = reconciliations.time();
+        try {
+            Map<String, Deployment> activeDeployments = Maps.newHashMap();
+            if (!statuses.isEmpty()) {
+                for (Deployment deployment : alienDAO.findByIds(Deployment.class, statuses.keySet().toArray(new String[0]))) {
+                    if (deployment != null && deployment.getEndDate() == null) {
+                        activeDeployments.put(deployment.getId(), deployment);
+                    }
+                }
+            }
+            statuses.keySet().retainAll(activeDeployments.keySet());
+            queryStatuses(activeDeployments);
+        } catch (Exception e) {
+            log.warn("Unable to reconcile the deployment statuses with the orchestrators", e);
+        } finally {
+            long duration = TimeUnit.NANOSECONDS.toMillis(reconciliation.stop());
+            log.debug("Reconciled the status of {} deployments in {} ms.", statuses.size(), duration);
+        }
+    }
+
+    @Override
+    public void eventHappened(AbstractMonitorEvent event) {
+        update(event.getDeploymentId(), ((PaaSDeploymentStatusMonitorEvent) event).getDeploymentStatus());
+    }
+
+    @Override
+    public boolean canHandle(AbstractMonitorEvent event) {
+        return event instanceof PaaSDeploymentStatusMonitorEvent;
+    }
+}
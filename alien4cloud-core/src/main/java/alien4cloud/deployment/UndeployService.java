@@ -28,6 +28,8 @@ public class UndeployService {
     private IGenericSearchDAO alienDao;
     @Inject
     private DeploymentRuntimeStateService deploymentRuntimeStateService;
+    @Inject
+    private DeploymentContextService deploymentContextService;
 
     /**
      * Un-deploy a deployment object
@@ -64,7 +66,9 @@ public class UndeployService {
         DeploymentTopology deployedTopology = deploymentRuntimeStateService.getRuntimeTopology(deployment.getId());
         PaaSDeploymentContext deploymentContext = new PaaSDeploymentContext(deployment, deployedTopology);
         orchestratorPlugin.undeploy(deploymentContext, null);
+        orchestratorPluginService.wakeUpMonitor(deployment.getOrchestratorId());
         alienDao.save(deployment);
+        deploymentContextService.invalidateRuntimeContext(deployment.getId());
         log.info("Un-deployed deployment [{}] on cloud [{}]", deployment.getId(), deployment.getOrchestratorId());
     }
 }
@@ -1,7 +1,9 @@
 package alien4cloud.deployment.matching.services.location;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
@@ -44,6 +46,8 @@ public class DefaultLocationMatcher implements ILocationMatcher {
     private OrchestratorService orchestratorService;
     @Resource
     private LocationMatchNodeFilter locationMatchNodeFilter;
+    @Resource
+    private LocationMatchCache locationMatchCache;
 
     @Override
     public List<ILocationMatch> match(Topology topology) throws LocationMatchingException {
@@ -62,8 +66,19 @@ public class DefaultLocationMatcher implements ILocationMatcher {
                 matched.add(new LocationMatch(location, orchestratorMap.get(location.getOrchestratorId()), null));
             }
 
-            // filter on supported artifacts
-            locationMatchNodeFilter.filter(matched, topology);
+            String cacheKey = locationMatchCache.getKey(topology, matched);
+            Set<String> eligibleLocationIds = locationMatchCache.get(cacheKey);
+            if (eligibleLocationIds == null) {
+                // filter on supported artifacts
+                locationMatchNodeFilter.filter(matched, topology);
+                locationMatchCache.put(cacheKey, matched);
+            } else {
+                for (Iterator<ILocationMatch> it = matched.iterator(); it.hasNext();) {
+                    if (!eligibleLocationIds.contains(it.next().getLocation().getId())) {
+                        it.remove();
+                    }
+                }
+            }
 
             return matched;
         } catch (Exception e) {
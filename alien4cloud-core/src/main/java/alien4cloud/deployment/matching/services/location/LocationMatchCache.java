@@ -0,0 +1,169 @@
+package alien4cloud.deployment.matching.services.location;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.deployment.matching.ILocationMatch;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.utils.CacheMetricSet;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Keeps the ids of the locations that can host a topology so the node filters don't have to be evaluated again when the deployment setup of a topology is
+ * displayed.
+ *
+ * Results are keyed by a hash of the elements of the topology that are used for matching (types and dependencies) and by a hash of the configuration of the
+ * candidate locations (location ids and update dates, orchestrator plugins), so any change of the topology or of the locations leads to a new key.
+ */
+@Component
+public class LocationMatchCache implements MetricSet {
+    private static final Comparator<ILocationMatch> LOCATION_ID_COMPARATOR = new Comparator<ILocationMatch>() {
+        @Override
+        public int compare(ILocationMatch left, ILocationMatch right) {
+            return left.getLocation().getId().compareTo(right.getLocation().getId());
+        }
+    };
+
+    /** Maximum number of location matching results kept in memory (0 disables the cache). */
+    @Value("${matching.locations_cache.max_size:1000}")
+    private int maxSize;
+    /** Time in minutes after which a result is computed again, bounds the use of results for archives that have been overridden (snapshots). */
+    @Value("${matching.locations_cache.ttl_minutes:10}")
+    private int ttlMinutes;
+
+    private Cache<String, Set<String>> eligibleLocations;
+
+    @PostConstruct
+    public void init() {
+        if (maxSize > 0) {
+            eligibleLocations = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(ttlMinutes, TimeUnit.MINUTES).recordStats().build();
+        }
+    }
+
+    /**
+     * Compute the key of the matching of a topology against a set of locations.
+     *
+     * @param topology The topology to match.
+     * @param candidates The candidate locations.
+     * @return The key of the matching or null if the cache is disabled.
+     */
+    public String getKey(Topology topology, List<ILocationMatch> candidates) {
+        if (eligibleLocations == null) {
+            return null;
+        }
+        return getTopologyVersionHash(topology) + "/" + getLocationsVersionHash(candidates);
+    }
+
+    /**
+     * Get the ids of the locations that can host the topology.
+     *
+     * @param key The key of the matching, as returned by {@link #getKey(Topology, List)}.
+     * @return The ids of the eligible locations or null if not in cache.
+     */
+    public Set<String> get(String key) {
+        return key == null ? null : eligibleLocations.getIfPresent(key);
+    }
+
+    /**
+     * Keep the locations that can host a topology.
+     *
+     * @param key The key of the matching, as returned by {@link #getKey(Topology, List)}.
+     * @param eligibles The locations that can host the topology.
+     */
+    public void put(String key, List<ILocationMatch> eligibles) {
+        if (key == null) {
+            return;
+        }
+        Set<String> locationIds = Sets.newHashSet();
+        for (ILocationMatch eligible : eligibles) {
+            locationIds.add(eligible.getLocation().getId());
+        }
+        eligibleLocations.put(key, Collections.unmodifiableSet(locationIds));
+    }
+
+    /**
+     * Remove all the matching results, must be called when locations may have been modified directly in elastic search.
+     */
+    public void invalidateAll() {
+        if (eligibleLocations != null) {
+            eligibleLocations.invalidateAll();
+        }
+    }
+
+    public CacheStats getCacheStats() {
+        return eligibleLocations == null ? new CacheStats(0, 0, 0, 0, 0, 0) : eligibleLocations.stats();
+    }
+
+    public long getCacheSize() {
+        return eligibleLocations == null ? 0 : eligibleLocations.size();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return new CacheMetricSet(eligibleLocations).getMetrics();
+    }
+
+    private String getTopologyVersionHash(Topology topology) {
+        SortedSet<String> elements = Sets.newTreeSet();
+        if (topology.getDependencies() != null) {
+            for (CSARDependency dependency : topology.getDependencies()) {
+                elements.add("d:" + dependency.getName() + ":" + dependency.getVersion());
+            }
+        }
+        if (topology.getNodeTemplates() != null) {
+            for (NodeTemplate nodeTemplate : topology.getNodeTemplates().values()) {
+                elements.add("n:" + nodeTemplate.getType());
+                if (nodeTemplate.getRelationships() != null) {
+                    for (RelationshipTemplate relationshipTemplate : nodeTemplate.getRelationships().values()) {
+                        elements.add("r:" + relationshipTemplate.getType());
+                    }
+                }
+            }
+        }
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (String element : elements) {
+            hasher.putString(element, Charsets.UTF_8).putChar('\n');
+        }
+        return hasher.hash().toString();
+    }
+
+    private String getLocationsVersionHash(List<ILocationMatch> candidates) {
+        List<ILocationMatch> sortedCandidates = Lists.newArrayList(candidates);
+        Collections.sort(sortedCandidates, LOCATION_ID_COMPARATOR);
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (ILocationMatch candidate : sortedCandidates) {
+            hasher.putString(candidate.getLocation().getId(), Charsets.UTF_8).putChar('\n');
+            if (candidate.getLocation().getLastUpdateDate() != null) {
+                hasher.putLong(candidate.getLocation().getLastUpdateDate().getTime());
+            }
+            if (candidate.getOrchestrator() != null) {
+                hasher.putString(String.valueOf(candidate.getOrchestrator().getPluginId()), Charsets.UTF_8).putChar('\n');
+                hasher.putString(String.valueOf(candidate.getOrchestrator().getPluginBean()), Charsets.UTF_8).putChar('\n');
+            }
+        }
+        return hasher.hash().toString();
+    }
+}
@@ -1,14 +1,17 @@
 package alien4cloud.deployment.matching.services.location;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import org.springframework.stereotype.Component;
@@ -22,8 +25,14 @@ import alien4cloud.model.topology.Topology;
 import alien4cloud.orchestrators.plugin.IOrchestratorPluginFactory;
 import alien4cloud.orchestrators.services.OrchestratorService;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+/**
+ * Filter the locations that don't support the artifacts of the nodes of a topology.
+ *
+ * Locations are evaluated concurrently, the TOSCA types of the topology are resolved once per filtering and shared by the evaluation of all locations.
+ */
 @Component
 public class LocationMatchNodeFilter extends AbstractLocationMatchFilterWithElector {
     @Resource
@@ -32,22 +41,84 @@ public class LocationMatchNodeFilter extends AbstractLocationMatchFilterWithElec
     private OrchestratorService orchestratorService;
     @Inject
     private LocationMatchNodesArtifactsElector artifactsElector;
+    @Resource(name = "matching-executor")
+    private ForkJoinPool matchingPool;
 
     @Override
     public void filter(List<ILocationMatch> toFilter, Topology topology) {
-
         // create a context to keep requested tosca elements.
-        NodeMatchContext nodeMatchContext = new NodeMatchContext();
-        nodeMatchContext.topology = topology;
-
-        for (Entry<String, NodeTemplate> entry : topology.getNodeTemplates().entrySet()) {
-            nodeMatchContext.template = entry.getValue();
+        final TypeResolutionContext typeResolutionContext = new TypeResolutionContext(topology);
+        if (toFilter.size() < 2) {
             for (Iterator<ILocationMatch> it = toFilter.iterator(); it.hasNext();) {
-                nodeMatchContext.locationMatch = it.next();
-                if (!artifactsElector.isEligible(nodeMatchContext)) {
+                if (!isEligible(typeResolutionContext, it.next())) {
                     it.remove();
                 }
             }
+            return;
+        }
+
+        List<Callable<Boolean>> matchingTasks = Lists.newArrayList();
+        for (final ILocationMatch locationMatch : toFilter) {
+            matchingTasks.add(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return isEligible(typeResolutionContext, locationMatch);
+                }
+            });
+        }
+        List<Future<Boolean>> futures = matchingPool.invokeAll(matchingTasks);
+        List<ILocationMatch> eligibles = Lists.newArrayList();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                if (futures.get(i).get()) {
+                    eligibles.add(toFilter.get(i));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while matching locations", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Unable to match location <" + toFilter.get(i).getLocation().getId() + ">", e.getCause());
+            }
+        }
+        toFilter.retainAll(eligibles);
+    }
+
+    private boolean isEligible(TypeResolutionContext typeResolutionContext, ILocationMatch locationMatch) {
+        if (typeResolutionContext.topology.getNodeTemplates() == null) {
+            return true;
+        }
+        for (NodeTemplate nodeTemplate : typeResolutionContext.topology.getNodeTemplates().values()) {
+            if (!artifactsElector.isEligible(new NodeMatchContext(typeResolutionContext, nodeTemplate, locationMatch))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * TOSCA elements resolved from the dependencies of a topology, shared by the evaluation of all locations against the topology.
+     */
+    private class TypeResolutionContext {
+        private final ConcurrentMap<String, IndexedToscaElement> toscaTypesCache = Maps.newConcurrentMap();
+        private final Topology topology;
+
+        private TypeResolutionContext(Topology topology) {
+            this.topology = topology;
+        }
+
+        private <T extends IndexedToscaElement> T getElement(Class<T> elementClass, String elementId) {
+            String key = elementClass.getSimpleName() + ":" + elementId;
+            // find in local-cache
+            T element = (T) toscaTypesCache.get(key);
+            if (element == null) {
+                // concurrent evaluations may fetch the same element, they will get the same result from ES.
+                element = csarSearchService.getRequiredElementInDependencies(elementClass, elementId, topology.getDependencies());
+                toscaTypesCache.putIfAbsent(key, element);
+            }
+            return element;
         }
     }
 
@@ -56,36 +127,29 @@ public class LocationMatchNodeFilter extends AbstractLocationMatchFilterWithElec
      */
     @Getter
     public class NodeMatchContext {
-        private Map<String, Map<String, IndexedToscaElement>> toscaTypesCache = Maps.newHashMap();
-        private Topology topology;
-        private NodeTemplate template;
-        private ILocationMatch locationMatch;
+        private final Topology topology;
+        private final NodeTemplate template;
+        private final ILocationMatch locationMatch;
+        @Getter(AccessLevel.NONE)
+        private final TypeResolutionContext typeResolutionContext;
+
+        private NodeMatchContext(TypeResolutionContext typeResolutionContext, NodeTemplate template, ILocationMatch locationMatch) {
+            this.typeResolutionContext = typeResolutionContext;
+            this.topology = typeResolutionContext.topology;
+            this.template = template;
+            this.locationMatch = locationMatch;
+        }
 
         /**
          * Get an element from the local-cache or from ES.
-         * 
+         *
          * @param elementClass The class of the element to look for.
          * @param elementId The id of the element to look for.
          * @param <T> The type of element.
          * @return The requested element.
          */
         public <T extends IndexedToscaElement> T getElement(Class<T> elementClass, String elementId) {
-            String elementType = elementClass.getSimpleName();
-            Map<String, IndexedToscaElement> typeElements = toscaTypesCache.get(elementType);
-            if (typeElements == null) {
-                typeElements = new HashMap<>();
-                toscaTypesCache.put(elementType, typeElements);
-            } else {
-                // find in local-cache
-                T element = (T) typeElements.get(elementId);
-                if (element != null) {
-                    return element;
-                }
-            }
-
-            T element = csarSearchService.getRequiredElementInDependencies(elementClass, elementId, topology.getDependencies());
-            typeElements.put(elementId, element);
-            return element;
+            return typeResolutionContext.getElement(elementClass, elementId);
         }
 
         public ArtifactSupport getArtifactSupport() {
@@ -93,4 +157,4 @@ public class LocationMatchNodeFilter extends AbstractLocationMatchFilterWithElec
             return orchestratorFactory.getArtifactSupport();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,246 @@
+package alien4cloud.deployment.matching.services.nodes;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import alien4cloud.model.components.AbstractPropertyValue;
+import alien4cloud.model.components.IndexedCapabilityType;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.PropertyDefinition;
+import alien4cloud.model.components.ScalarPropertyValue;
+import alien4cloud.model.components.constraints.IMatchPropertyConstraint;
+import alien4cloud.model.deployment.matching.MatchingConfiguration;
+import alien4cloud.model.deployment.matching.MatchingFilterDefinition;
+import alien4cloud.model.orchestrators.locations.LocationResourceTemplate;
+import alien4cloud.model.orchestrators.locations.LocationResources;
+import alien4cloud.model.topology.Capability;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.tosca.normative.IPropertyType;
+import alien4cloud.tosca.normative.ToscaType;
+import alien4cloud.tosca.properties.constraints.exception.ConstraintValueDoNotMatchPropertyTypeException;
+import alien4cloud.tosca.properties.constraints.exception.ConstraintViolationException;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * The on-demand resources of a location compiled with the matching configurations of the location so node templates can be matched against them.
+ * <p>
+ * Candidates are indexed by their type and the types they derive from, and the matching filters are compiled into constraints initialized with the values of
+ * the candidates. Instances are immutable and can be used concurrently to match several node templates.
+ */
+@Slf4j
+public final class CompiledLocationResources {
+    /** Candidates per node type they can substitute (their own type and parent types). */
+    private final Map<String, List<CompiledCandidate>> candidatesByType;
+
+    private CompiledLocationResources(Map<String, List<CompiledCandidate>> candidatesByType) {
+        this.candidatesByType = candidatesByType;
+    }
+
+    /**
+     * Compile the resources of a location.
+     *
+     * @param locationResources The resources configured for the location.
+     * @param matchingConfigurations The matching configurations of the location per type, may be null when the associated orchestrator is disabled.
+     * @return The compiled location resources.
+     */
+    public static CompiledLocationResources compile(LocationResources locationResources, Map<String, MatchingConfiguration> matchingConfigurations) {
+        if (matchingConfigurations == null) {
+            // no resources can be matched
+            return new CompiledLocationResources(Collections.<String, List<CompiledCandidate>> emptyMap());
+        }
+        Map<String, List<CompiledCandidate>> candidatesByType = Maps.newHashMap();
+        for (LocationResourceTemplate candidate : locationResources.getNodeTemplates()) {
+            IndexedNodeType candidateType = locationResources.getNodeTypes().get(candidate.getTemplate().getType());
+            CompiledCandidate compiledCandidate = compileCandidate(candidate, candidateType, locationResources.getCapabilityTypes(),
+                    matchingConfigurations.get(candidateType.getElementId()));
+            addToIndex(candidatesByType, candidateType.getElementId(), compiledCandidate);
+            if (candidateType.getDerivedFrom() != null) {
+                for (String parentType : candidateType.getDerivedFrom()) {
+                    addToIndex(candidatesByType, parentType, compiledCandidate);
+                }
+            }
+        }
+        ImmutableMap.Builder<String, List<CompiledCandidate>> builder = ImmutableMap.builder();
+        for (Map.Entry<String, List<CompiledCandidate>> entry : candidatesByType.entrySet()) {
+            builder.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+        }
+        return new CompiledLocationResources(builder.build());
+    }
+
+    private static void addToIndex(Map<String, List<CompiledCandidate>> candidatesByType, String type, CompiledCandidate candidate) {
+        List<CompiledCandidate> candidates = candidatesByType.get(type);
+        if (candidates == null) {
+            candidates = Lists.newArrayList();
+            candidatesByType.put(type, candidates);
+        }
+        if (!candidates.contains(candidate)) {
+            candidates.add(candidate);
+        }
+    }
+
+    /**
+     * Get the on-demand resources that can substitute a node template.
+     *
+     * @param nodeTemplate The node template to match.
+     * @return The matching resources.
+     */
+    public List<LocationResourceTemplate> matchOnDemands(NodeTemplate nodeTemplate) {
+        List<CompiledCandidate> candidates = candidatesByType.get(nodeTemplate.getType());
+        if (candidates == null) {
+            return Lists.newArrayList();
+        }
+        List<LocationResourceTemplate> matchingResults = Lists.newArrayList();
+        for (CompiledCandidate candidate : candidates) {
+            if (candidate.matches(nodeTemplate)) {
+                matchingResults.add(candidate.candidate);
+            }
+        }
+        return matchingResults;
+    }
+
+    private static CompiledCandidate compileCandidate(LocationResourceTemplate candidate, IndexedNodeType candidateType,
+            Map<String, IndexedCapabilityType> capabilityTypes, MatchingConfiguration matchingConfiguration) {
+        if (matchingConfiguration == null) {
+            // the candidate matches all the nodes of a compatible type
+            return new CompiledCandidate(candidate, null, Collections.<String, CompiledFilter> emptyMap());
+        }
+        CompiledFilter propertiesFilter = compileFilter(matchingConfiguration.getProperties(), candidate.getTemplate().getProperties(),
+                candidateType.getProperties());
+        Map<String, CompiledFilter> capabilityFilters = Maps.newHashMap();
+        if (matchingConfiguration.getCapabilities() != null) {
+            for (Map.Entry<String, MatchingFilterDefinition> capabilityFilterEntry : matchingConfiguration.getCapabilities().entrySet()) {
+                Capability candidateCapability = candidate.getTemplate().getCapabilities() == null ? null : candidate.getTemplate().getCapabilities()
+                        .get(capabilityFilterEntry.getKey());
+                if (candidateCapability == null) {
+                    continue;
+                }
+                IndexedCapabilityType capabilityType = capabilityTypes.get(candidateCapability.getType());
+                capabilityFilters.put(capabilityFilterEntry.getKey(), compileFilter(capabilityFilterEntry.getValue().getProperties(),
+                        candidateCapability.getProperties(), capabilityType.getProperties()));
+            }
+        }
+        return new CompiledCandidate(candidate, propertiesFilter, ImmutableMap.copyOf(capabilityFilters));
+    }
+
+    /**
+     * Create the constraints of a filter with the values of the candidate. Constraints of the matching configuration are used as prototypes and are never
+     * modified, each candidate has its own instances.
+     */
+    private static CompiledFilter compileFilter(Map<String, List<IMatchPropertyConstraint>> sourceFilters, Map<String, AbstractPropertyValue> propertyValues,
+            Map<String, PropertyDefinition> propertyDefinitions) {
+        Map<String, CompiledPropertyFilter> propertyFilters = Maps.newHashMap();
+        if (sourceFilters == null || propertyValues == null) {
+            return new CompiledFilter(propertyFilters);
+        }
+        for (Map.Entry<String, List<IMatchPropertyConstraint>> filterEntry : sourceFilters.entrySet()) {
+            AbstractPropertyValue candidatePropertyValue = propertyValues.get(filterEntry.getKey());
+            PropertyDefinition propertyDefinition = propertyDefinitions == null ? null : propertyDefinitions.get(filterEntry.getKey());
+            if (!(candidatePropertyValue instanceof ScalarPropertyValue) || propertyDefinition == null) {
+                continue;
+            }
+            IPropertyType<?> toscaType = ToscaType.fromYamlTypeName(propertyDefinition.getType());
+            if (toscaType == null) {
+                continue;
+            }
+            List<IMatchPropertyConstraint> constraints = Lists.newArrayList();
+            for (IMatchPropertyConstraint prototype : filterEntry.getValue()) {
+                try {
+                    IMatchPropertyConstraint constraint = prototype.getClass().newInstance();
+                    constraint.setConstraintValue(toscaType, ((ScalarPropertyValue) candidatePropertyValue).getValue());
+                    constraints.add(constraint);
+                } catch (ConstraintValueDoNotMatchPropertyTypeException e) {
+                    // following constraints of the property are ignored
+                    log.debug("The value of property for a constraint is not valid.", e);
+                    break;
+                } catch (InstantiationException | IllegalAccessException e) {
+                    log.warn("Unable to create matching constraint of type <" + prototype.getClass().getName() + ">", e);
+                    break;
+                }
+            }
+            if (!constraints.isEmpty()) {
+                propertyFilters.put(filterEntry.getKey(), new CompiledPropertyFilter(toscaType, ImmutableList.copyOf(constraints)));
+            }
+        }
+        return new CompiledFilter(ImmutableMap.copyOf(propertyFilters));
+    }
+
+    /** A candidate resource with its compiled filters. */
+    private static final class CompiledCandidate {
+        private final LocationResourceTemplate candidate;
+        /** Filter on the node properties, null if the candidate has no matching configuration. */
+        private final CompiledFilter propertiesFilter;
+        private final Map<String, CompiledFilter> capabilityFilters;
+
+        private CompiledCandidate(LocationResourceTemplate candidate, CompiledFilter propertiesFilter, Map<String, CompiledFilter> capabilityFilters) {
+            this.candidate = candidate;
+            this.propertiesFilter = propertiesFilter;
+            this.capabilityFilters = capabilityFilters;
+        }
+
+        private boolean matches(NodeTemplate nodeTemplate) {
+            if (propertiesFilter == null) {
+                return true;
+            }
+            if (!propertiesFilter.matches(nodeTemplate.getProperties())) {
+                return false;
+            }
+            for (Map.Entry<String, CompiledFilter> capabilityFilterEntry : capabilityFilters.entrySet()) {
+                Capability templateCapability = nodeTemplate.getCapabilities() == null ? null : nodeTemplate.getCapabilities().get(
+                        capabilityFilterEntry.getKey());
+                if (templateCapability != null && !capabilityFilterEntry.getValue().matches(templateCapability.getProperties())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Constraints on a set of properties. */
+    private static final class CompiledFilter {
+        private final Map<String, CompiledPropertyFilter> propertyFilters;
+
+        private CompiledFilter(Map<String, CompiledPropertyFilter> propertyFilters) {
+            this.propertyFilters = propertyFilters;
+        }
+
+        private boolean matches(Map<String, AbstractPropertyValue> templateValues) {
+            for (Map.Entry<String, CompiledPropertyFilter> propertyFilterEntry : propertyFilters.entrySet()) {
+                AbstractPropertyValue templatePropertyValue = templateValues == null ? null : templateValues.get(propertyFilterEntry.getKey());
+                if (templatePropertyValue instanceof ScalarPropertyValue
+                        && !propertyFilterEntry.getValue().matches(((ScalarPropertyValue) templatePropertyValue).getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Constraints on a property, initialized with the value of the candidate. */
+    private static final class CompiledPropertyFilter {
+        private final IPropertyType<?> toscaType;
+        private final List<IMatchPropertyConstraint> constraints;
+
+        private CompiledPropertyFilter(IPropertyType<?> toscaType, List<IMatchPropertyConstraint> constraints) {
+            this.toscaType = toscaType;
+            this.constraints = constraints;
+        }
+
+        private boolean matches(String value) {
+            for (IMatchPropertyConstraint constraint : constraints) {
+                try {
+                    constraint.validate(toscaType, value);
+                } catch (ConstraintViolationException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -3,32 +3,48 @@ package alien4cloud.deployment.matching.services.nodes;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Resource;
 import javax.inject.Inject;
 
-import alien4cloud.model.deployment.matching.MatchingConfiguration;
-import alien4cloud.model.orchestrators.locations.Location;
-import alien4cloud.orchestrators.locations.services.LocationMatchingConfigurationService;
-import alien4cloud.orchestrators.locations.services.LocationService;
+import lombok.extern.slf4j.Slf4j;
+
 import org.springframework.stereotype.Service;
 
 import alien4cloud.deployment.matching.plugins.INodeMatcherPlugin;
 import alien4cloud.exception.InvalidArgumentException;
 import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.deployment.matching.MatchingConfiguration;
+import alien4cloud.model.orchestrators.locations.Location;
 import alien4cloud.model.orchestrators.locations.LocationResourceTemplate;
 import alien4cloud.model.orchestrators.locations.LocationResources;
 import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.orchestrators.locations.services.LocationMatchingConfigurationService;
 import alien4cloud.orchestrators.locations.services.LocationResourceService;
+import alien4cloud.orchestrators.locations.services.LocationService;
 
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 /**
  * Node matcher service will filter location resources for all substitutable nodes of the topology. It will return only location resources that can substitute a
  * node.
+ * <p>
+ * When the default matcher is used, the matching configurations of the location are compiled once per matching run, then the nodes are matched concurrently
+ * against the compiled location. Other matcher plugins match the nodes one after the other with the raw matching configurations.
  */
+@Slf4j
 @Service
-public class NodeMatcherService {
+public class NodeMatcherService implements MetricSet {
 
     @Inject
     private DefaultNodeMatcher defaultNodeMatcher;
@@ -38,6 +54,10 @@ public class NodeMatcherService {
     private LocationResourceService locationResourceService;
     @Inject
     private LocationMatchingConfigurationService locationMatchingConfigurationService;
+    @Resource(name = "matching-executor")
+    private ForkJoinPool matchingPool;
+
+    private final Timer matchingTimer = new Timer();
 
     private INodeMatcherPlugin getNodeMatcherPlugin() {
         // TODO manage plugins
@@ -46,27 +66,94 @@ public class NodeMatcherService {
 
     public Map<String, List<LocationResourceTemplate>> match(Map<String, IndexedNodeType> nodesTypes, Map<String, NodeTemplate> nodesToMatch,
             String locationId) {
-        Map<String, List<LocationResourceTemplate>> matchingResult = Maps.newHashMap();
+        long start = System.nanoTime();
         Location location = locationService.getOrFail(locationId);
         LocationResources locationResources = locationResourceService.getLocationResources(location);
         Map<String, MatchingConfiguration> matchingConfigurations = locationMatchingConfigurationService.getMatchingConfiguration(location);
+        INodeMatcherPlugin nodeMatcherPlugin = getNodeMatcherPlugin();
+
         Set<String> typesManagedByLocation = Sets.newHashSet();
         for (IndexedNodeType nodeType : locationResources.getNodeTypes().values()) {
             typesManagedByLocation.add(nodeType.getElementId());
             typesManagedByLocation.addAll(nodeType.getDerivedFrom());
         }
-        INodeMatcherPlugin nodeMatcherPlugin = getNodeMatcherPlugin();
+        Map<String, NodeTemplate> nodesManagedByLocation = Maps.newLinkedHashMap();
         for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : nodesToMatch.entrySet()) {
-            String nodeTemplateId = nodeTemplateEntry.getKey();
-            NodeTemplate nodeTemplate = nodeTemplateEntry.getValue();
-            if (typesManagedByLocation.contains(nodeTemplate.getType())) {
-                IndexedNodeType nodeTemplateType = nodesTypes.get(nodeTemplate.getType());
-                if (nodeTemplateType == null) {
+            if (typesManagedByLocation.contains(nodeTemplateEntry.getValue().getType())) {
+                if (!nodesTypes.containsKey(nodeTemplateEntry.getValue().getType())) {
                     throw new InvalidArgumentException("The given node types map must contain the type of the node template");
                 }
-                matchingResult.put(nodeTemplateId, nodeMatcherPlugin.matchNode(nodeTemplate, nodeTemplateType, locationResources, matchingConfigurations));
+                nodesManagedByLocation.put(nodeTemplateEntry.getKey(), nodeTemplateEntry.getValue());
             }
         }
+
+        Map<String, List<LocationResourceTemplate>> matchingResult;
+        if (nodeMatcherPlugin instanceof DefaultNodeMatcher) {
+            long compilationStart = System.nanoTime();
+            DefaultNodeMatcher nodeMatcher = (DefaultNodeMatcher) nodeMatcherPlugin;
+            CompiledLocationResources compiledLocationResources = nodeMatcher.compile(locationResources, matchingConfigurations);
+            log.debug("Compiled resources of location <{}> in {} ms", locationId, (System.nanoTime() - compilationStart) / 1000000);
+            matchingResult = matchNodes(nodeMatcher, nodesTypes, nodesManagedByLocation, locationResources, compiledLocationResources);
+        } else {
+            // the plugin may not be thread safe
+            matchingResult = Maps.newHashMap();
+            for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : nodesManagedByLocation.entrySet()) {
+                NodeTemplate nodeTemplate = nodeTemplateEntry.getValue();
+                matchingResult.put(nodeTemplateEntry.getKey(),
+                        nodeMatcherPlugin.matchNode(nodeTemplate, nodesTypes.get(nodeTemplate.getType()), locationResources, matchingConfigurations));
+            }
+        }
+        long time = System.nanoTime() - start;
+        matchingTimer.update(time, TimeUnit.NANOSECONDS);
+        log.debug("Matched {} nodes against location <{}> in {} ms", nodesManagedByLocation.size(), locationId, time / 1000000);
         return matchingResult;
     }
+
+    private Map<String, List<LocationResourceTemplate>> matchNodes(final DefaultNodeMatcher nodeMatcher, final Map<String, IndexedNodeType> nodesTypes,
+            Map<String, NodeTemplate> nodesToMatch, final LocationResources locationResources, final CompiledLocationResources compiledLocationResources) {
+        Map<String, List<LocationResourceTemplate>> matchingResult = Maps.newHashMap();
+        if (nodesToMatch.size() < 2) {
+            // not worth dispatching to the pool
+            for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : nodesToMatch.entrySet()) {
+                NodeTemplate nodeTemplate = nodeTemplateEntry.getValue();
+                matchingResult.put(nodeTemplateEntry.getKey(),
+                        nodeMatcher.matchNode(nodeTemplate, nodesTypes.get(nodeTemplate.getType()), locationResources, compiledLocationResources));
+            }
+            return matchingResult;
+        }
+        List<String> nodeTemplateIds = Lists.newArrayList();
+        List<Callable<List<LocationResourceTemplate>>> matchingTasks = Lists.newArrayList();
+        for (Map.Entry<String, NodeTemplate> nodeTemplateEntry : nodesToMatch.entrySet()) {
+            final NodeTemplate nodeTemplate = nodeTemplateEntry.getValue();
+            nodeTemplateIds.add(nodeTemplateEntry.getKey());
+            matchingTasks.add(new Callable<List<LocationResourceTemplate>>() {
+                @Override
+                public List<LocationResourceTemplate> call() {
+                    return nodeMatcher.matchNode(nodeTemplate, nodesTypes.get(nodeTemplate.getType()), locationResources, compiledLocationResources);
+                }
+            });
+        }
+        List<Future<List<LocationResourceTemplate>>> futures = matchingPool.invokeAll(matchingTasks);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                matchingResult.put(nodeTemplateIds.get(i), futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while matching nodes", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("Unable to match node <" + nodeTemplateIds.get(i) + ">", e.getCause());
+            }
+        }
+        return matchingResult;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        metrics.put("runs", matchingTimer);
+        return metrics;
+    }
 }
@@ -24,11 +24,12 @@ public interface IImageDAO {
     void writeImage(ImageData imageData);
 
     /**
-     * Get an image as a byte array based on the image id.
+     * Get an image as a byte array based on the image id. Recently read images are served from memory, the returned instance may be shared and must not be
+     * modified.
      * 
      * @param id The id of the image to read.
      * @param imageQuality The level of quality of the image to get.
-     * @return The image as a byte array.
+     * @return The image as a byte array with the hash of its content.
      */
     ImageData readImage(String id, ImageQuality imageQuality);
 
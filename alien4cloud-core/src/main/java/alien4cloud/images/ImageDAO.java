@@ -26,6 +26,12 @@ import alien4cloud.images.exception.ImageUploadException;
 import alien4cloud.utils.ImageQuality;
 import alien4cloud.utils.ImageResizeUtil;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.Hashing;
+
 /**
  * A dao to store/load images.
  */
@@ -35,6 +41,12 @@ public class ImageDAO extends ESGenericIdDAO implements IImageDAO {
     @Resource
     private MappingBuilder mappingBuilder;
     private Path rootPath;
+    /** Maximum total size in bytes of the images kept in memory (0 disables the cache). */
+    @Value("${images.cache.max_size:33554432}")
+    private long cacheMaxSize = 33554432;
+
+    /** Images are immutable once written (a new image gets a new id) so they can be cached until they are deleted. */
+    private Cache<String, ImageData> imagesCache;
 
     @Required
     @Value("${directories.alien}/${directories.images}")
@@ -56,6 +68,14 @@ public class ImageDAO extends ESGenericIdDAO implements IImageDAO {
         // init indexes and mapped classes
         initIndices(ImageData.class.getSimpleName().toLowerCase(), null, ImageData.class);
         initCompleted();
+        if (cacheMaxSize > 0) {
+            imagesCache = CacheBuilder.newBuilder().maximumWeight(cacheMaxSize).weigher(new Weigher<String, ImageData>() {
+                @Override
+                public int weigh(String key, ImageData value) {
+                    return value.getData().length;
+                }
+            }).recordStats().build();
+        }
     }
 
     @Override
@@ -95,23 +115,28 @@ public class ImageDAO extends ESGenericIdDAO implements IImageDAO {
     }
 
     private void saveAsPng(String imageId, BufferedImage target) throws IOException {
-        FileOutputStream fos = new FileOutputStream(rootPath.resolve(imageId + ".png").toFile());
-        try {
-            ImageIO.write(target, "png", fos);
-            fos.flush();
-        } finally {
-            fos.close();
-        }
+        ByteArrayOutputStream pngStream = new ByteArrayOutputStream();
+        ImageIO.write(target, "png", pngStream);
+        byte[] pngBytes = pngStream.toByteArray();
+        Files.write(rootPath.resolve(imageId + ".png"), pngBytes);
         // save in elastic search
         ImageData imageData = new ImageData();
         imageData.setId(imageId);
         imageData.setMime("image/png");
+        imageData.setHash(hash(pngBytes));
         this.save(imageData);
     }
 
     @Override
     public ImageData readImage(final String id, ImageQuality imageQuality) {
-        ImageData imageData = findById(ImageData.class, getImageId(imageQuality, id));
+        String imageId = getImageId(imageQuality, id);
+        if (imagesCache != null) {
+            ImageData cachedImage = imagesCache.getIfPresent(imageId);
+            if (cachedImage != null) {
+                return cachedImage;
+            }
+        }
+        ImageData imageData = findById(ImageData.class, imageId);
         if (imageData == null) {
             throw new NotFoundException("Unable to find image.");
         }
@@ -122,12 +147,44 @@ public class ImageDAO extends ESGenericIdDAO implements IImageDAO {
                 throw new NotFoundException("Unable to find image on disk.");
             }
         }
+        if (imageData.getHash() == null) {
+            // images written before the hash was stored
+            imageData.setHash(hash(imageData.getData()));
+        }
+        if (imagesCache != null) {
+            imagesCache.put(imageId, imageData);
+        }
         return imageData;
     }
 
     @Override
     public void delete(String id) {
         delete(ImageData.class, id);
+        if (imagesCache != null) {
+            for (ImageQuality imageQuality : ImageQuality.values()) {
+                imagesCache.invalidate(getImageId(imageQuality, id));
+            }
+        }
+    }
+
+    /**
+     * Get the statistics of the images cache.
+     *
+     * @return The hits, misses and evictions of the cache.
+     */
+    public CacheStats getCacheStats() {
+        return imagesCache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : imagesCache.stats();
+    }
+
+    /**
+     * @return The number of images currently in cache.
+     */
+    public long getCacheSize() {
+        return imagesCache == null ? 0 : imagesCache.size();
+    }
+
+    private static String hash(byte[] data) {
+        return Hashing.sha1().hashBytes(data).toString();
     }
 
     private String getImageId(final ImageQuality imageQuality, final String id) {
@@ -14,4 +14,6 @@ public class ImageData {
     private String id;
     private byte[] data;
     private String mime;
+    /** Hash of the content of the image, used as entity tag by the http layer. */
+    private String hash;
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package alien4cloud.paas;
+
+import java.util.Date;
+
+import alien4cloud.paas.model.AbstractMonitorEvent;
+
+/**
+ * A PaaS provider that is able to push monitor events to alien as soon as they happen instead of being polled through
+ * {@link IPaaSProvider#getEventsSince(Date, int, IPaaSCallback)}.
+ */
+public interface IEventPushingPaaSProvider extends IPaaSProvider {
+
+    /**
+     * Start to push monitor events to alien. The provider should first deliver the events that occurred after the given date (if it can) and then deliver new
+     * events as they happen. Events must be delivered in date order.
+     *
+     * @param since The date of the last event known by alien.
+     * @param eventsCallback The callback to call with every batch of events. {@link IPaaSCallback#onFailure(Throwable)} must be called if the provider cannot
+     *            push events anymore, alien will then try to restart the push on next monitoring tick.
+     */
+    void startEventsPush(Date since, IPaaSCallback<AbstractMonitorEvent[]> eventsCallback);
+
+    /**
+     * Stop to push monitor events to alien.
+     */
+    void stopEventsPush();
+}
@@ -1,18 +1,22 @@
 package alien4cloud.paas;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
 import alien4cloud.dao.IGenericSearchDAO;
@@ -20,28 +24,48 @@ import alien4cloud.exception.AlreadyExistException;
 import alien4cloud.orchestrators.plugin.IOrchestratorPlugin;
 import alien4cloud.paas.exception.OrchestratorDisabledException;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Manages the paas providers currently used by an enabled Cloud in ALIEN.
+ *
+ * Every registered provider is monitored by its own single threaded executor so a slow or unreachable orchestrator doesn't delay the monitoring of the
+ * others.
  */
 @Slf4j
 @Component
-public class OrchestratorPluginService implements IPaasEventService {
+public class OrchestratorPluginService implements IPaasEventService, MetricSet {
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDao;
     @Resource(name = "alien-monitor-es-dao")
     private IGenericSearchDAO alienMonitorDao;
-    @Resource(name = "paas-monitor-scheduler")
-    private TaskScheduler scheduler;
     /** Interval in milliseconds on which to retrieve monitoring events from a PaaS provider. */
     @Value("${paas_monitor.monitor_interval_ms}")
     private long monitorIntervalMs = 1000 * 30;
+    /** Maximum interval in milliseconds between two polls of a PaaS provider that is idle or failing. */
+    @Value("${paas_monitor.max_interval_ms:10000}")
+    private long maxMonitorIntervalMs = 10000;
+    /** If true, orchestrators that are able to push their events are not polled. */
+    @Value("${paas_monitor.push.enabled:false}")
+    private boolean eventsPushEnabled = false;
+    /** Maximum number of pushed events waiting to be dispatched to listeners, events are dropped once reached. */
+    @Value("${paas_monitor.push.queue_capacity:10000}")
+    private int eventsQueueCapacity = 10000;
+    /** Number of pushed events after which they are bulk-indexed. */
+    @Value("${paas_monitor.push.bulk_size:500}")
+    private int eventsBulkSize = 500;
+    /** Maximum delay in milliseconds before pushed events are bulk-indexed. */
+    @Value("${paas_monitor.push.flush_interval_ms:1000}")
+    private long eventsFlushIntervalMs = 1000;
 
-    private Map<String, Registration> monitorRegistrations = Maps.newHashMap();
+    private final ConcurrentMap<String, Registration> monitorRegistrations = new ConcurrentHashMap<>();
 
     @SuppressWarnings("rawtypes")
-    private List<IPaasEventListener> listeners = Collections.synchronizedList(new ArrayList<IPaasEventListener>());
+    private final List<IPaasEventListener> listeners = new CopyOnWriteArrayList<>();
 
     public OrchestratorPluginService() {
         log.info("Create new PaaSProvider instance.");
@@ -58,16 +82,30 @@ public class OrchestratorPluginService implements IPaasEventService {
      * @param orchestratorId Id of the cloud.
      * @param instance Instance of the IOrchestratorPlugin for the given cloud.
      */
-    public void register(String orchestratorId, IOrchestratorPlugin instance) {
+    public synchronized void register(String orchestratorId, IOrchestratorPlugin instance) {
         log.info("Register provider with id {}", orchestratorId);
         if (monitorRegistrations.containsKey(orchestratorId)) {
             throw new AlreadyExistException("Cloud [" + orchestratorId + "] has already been registered");
         }
         // create the polling monitor responsible to monitor this instance.
         PaaSProviderPollingMonitor monitor = new PaaSProviderPollingMonitor(alienDao, alienMonitorDao, instance, listeners, orchestratorId);
-        ScheduledFuture<?> monitorFuture = scheduler.scheduleAtFixedRate(monitor, monitorIntervalMs);
-        Registration registration = new Registration(instance, monitorFuture);
+        if (eventsPushEnabled && instance instanceof IEventPushingPaaSProvider) {
+            log.info("Orchestrator {} pushes it's events, they will be processed by an events pipeline", orchestratorId);
+            monitor.enableEventsPush(new PaaSEventsPipeline(alienMonitorDao, listeners, orchestratorId, eventsQueueCapacity, eventsBulkSize,
+                    eventsFlushIntervalMs));
+        }
+        monitor.setPollingIntervals(monitorIntervalMs, maxMonitorIntervalMs);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("paas-monitor-" + orchestratorId).setDaemon(true).build());
+        final Registration registration = new Registration(instance, monitor, executor);
+        monitor.setPollListener(new Runnable() {
+            @Override
+            public void run() {
+                registration.schedule(registration.monitor.getPollingInterval());
+            }
+        });
         monitorRegistrations.put(orchestratorId, registration);
+        registration.schedule(monitorIntervalMs);
     }
 
     /**
@@ -75,11 +113,12 @@ public class OrchestratorPluginService implements IPaasEventService {
      *
      * @param orchestratorId The id of the cloud for which to remove registration.
      */
-    public IOrchestratorPlugin unregister(String orchestratorId) {
+    public synchronized IOrchestratorPlugin unregister(String orchestratorId) {
         log.info("Unregister provider with id {}", orchestratorId);
         Registration registration = monitorRegistrations.remove(orchestratorId);
         if (registration != null) {
-            registration.registration.cancel(false);
+            registration.cancel();
+            registration.monitor.stop();
             return registration.instance;
         } else {
             return null;
@@ -112,11 +151,185 @@ public class OrchestratorPluginService implements IPaasEventService {
     }
 
     /**
-     * A registration for a paasProvider and the associated monitoring registration.
+     * Poll the events of an orchestrator at the minimum interval, to be called when events are expected from a deployment operation.
+     *
+     * @param orchestratorId The id of the orchestrator.
+     */
+    public void wakeUpMonitor(String orchestratorId) {
+        Registration registration = monitorRegistrations.get(orchestratorId);
+        if (registration != null && registration.monitor.getPollingInterval() > monitorIntervalMs) {
+            registration.monitor.wakeUp();
+            registration.schedule(0);
+        }
+    }
+
+    /**
+     * @return The monitors of the registered orchestrators by orchestrator id.
+     */
+    public Map<String, PaaSProviderPollingMonitor> getMonitors() {
+        Map<String, PaaSProviderPollingMonitor> monitors = Maps.newHashMap();
+        for (Map.Entry<String, Registration> entry : monitorRegistrations.entrySet()) {
+            monitors.put(entry.getKey(), entry.getValue().monitor);
+        }
+        return monitors;
+    }
+
+    /**
+     * Get the gauges of the monitoring of the orchestrators, every gauge provides the values of all registered orchestrators by orchestrator id. The gauges
+     * of the events pipelines (events_*) only provide the values of the orchestrators which events are pushed.
+     */
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        metrics.put("poll_latency_ms", new MonitorGauge<Long>() {
+            @Override
+            protected Long getValue(PaaSProviderPollingMonitor monitor) {
+                return monitor.getLastPollLatency();
+            }
+        });
+        metrics.put("events_per_poll", new MonitorGauge<Integer>() {
+            @Override
+            protected Integer getValue(PaaSProviderPollingMonitor monitor) {
+                return monitor.getLastPollEvents();
+            }
+        });
+        metrics.put("consecutive_failures", new MonitorGauge<Integer>() {
+            @Override
+            protected Integer getValue(PaaSProviderPollingMonitor monitor) {
+                return monitor.getConsecutiveFailures();
+            }
+        });
+        metrics.put("polling_interval_ms", new MonitorGauge<Long>() {
+            @Override
+            protected Long getValue(PaaSProviderPollingMonitor monitor) {
+                return monitor.getPollingInterval();
+            }
+        });
+        metrics.put("events_queue_depth", new PipelineGauge<Integer>() {
+            @Override
+            protected Integer getValue(PaaSEventsPipeline eventsPipeline) {
+                return eventsPipeline.getQueueDepth();
+            }
+        });
+        metrics.put("events_lag_ms", new PipelineGauge<Long>() {
+            @Override
+            protected Long getValue(PaaSEventsPipeline eventsPipeline) {
+                return eventsPipeline.getLastEventLagMs();
+            }
+        });
+        metrics.put("events_max_lag_ms", new PipelineGauge<Long>() {
+            @Override
+            protected Long getValue(PaaSEventsPipeline eventsPipeline) {
+                return eventsPipeline.getMaxEventLagMs();
+            }
+        });
+        metrics.put("events_dropped", new PipelineGauge<Long>() {
+            @Override
+            protected Long getValue(PaaSEventsPipeline eventsPipeline) {
+                return eventsPipeline.getDroppedEvents();
+            }
+        });
+        metrics.put("events_failed", new PipelineGauge<Long>() {
+            @Override
+            protected Long getValue(PaaSEventsPipeline eventsPipeline) {
+                return eventsPipeline.getFailedEvents();
+            }
+        });
+        return metrics;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (String orchestratorId : monitorRegistrations.keySet()) {
+            unregister(orchestratorId);
+        }
+    }
+
+    /**
+     * A registration for a paasProvider and the associated monitoring executor, the monitor is scheduled again with its current polling interval after every
+     * run, or once the poll completes when the provider returns the events asynchronously.
      */
-    @AllArgsConstructor
-    private class Registration {
-        private IOrchestratorPlugin instance;
-        private ScheduledFuture<?> registration;
+    private class Registration implements Runnable {
+        private final IOrchestratorPlugin instance;
+        private final PaaSProviderPollingMonitor monitor;
+        private final ScheduledExecutorService executor;
+        private ScheduledFuture<?> nextRun;
+
+        private Registration(IOrchestratorPlugin instance, PaaSProviderPollingMonitor monitor, ScheduledExecutorService executor) {
+            this.instance = instance;
+            this.monitor = monitor;
+            this.executor = executor;
+        }
+
+        private synchronized void schedule(long delayMs) {
+            if (executor.isShutdown()) {
+                return;
+            }
+            if (nextRun != null) {
+                nextRun.cancel(false);
+            }
+            try {
+                nextRun = executor.schedule(this, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("Monitor executor has been stopped", e);
+            }
+        }
+
+        private synchronized void cancel() {
+            if (nextRun != null) {
+                nextRun.cancel(false);
+            }
+            // let the current run complete
+            executor.shutdown();
+        }
+
+        @Override
+        public void run() {
+            try {
+                monitor.run();
+            } catch (Exception e) {
+                log.error("Error while monitoring orchestrator", e);
+            } finally {
+                // when the poll is still in progress, the monitor is scheduled again by the poll listener once the events are received
+                if (!monitor.isPollInProgress()) {
+                    schedule(monitor.getPollingInterval());
+                }
+            }
+        }
+    }
+
+    /**
+     * Gauge of a value of the monitors of all registered orchestrators, by orchestrator id.
+     */
+    private abstract class MonitorGauge<T> implements Gauge<Map<String, T>> {
+        @Override
+        public Map<String, T> getValue() {
+            Map<String, T> values = Maps.newHashMap();
+            for (Map.Entry<String, Registration> entry : monitorRegistrations.entrySet()) {
+                values.put(entry.getKey(), getValue(entry.getValue().monitor));
+            }
+            return values;
+        }
+
+        protected abstract T getValue(PaaSProviderPollingMonitor monitor);
+    }
+
+    /**
+     * Gauge of a value of the events pipelines of the registered orchestrators that push their events, by orchestrator id.
+     */
+    private abstract class PipelineGauge<T> implements Gauge<Map<String, T>> {
+        @Override
+        public Map<String, T> getValue() {
+            Map<String, T> values = Maps.newHashMap();
+            for (Map.Entry<String, Registration> entry : monitorRegistrations.entrySet()) {
+                PaaSEventsPipeline eventsPipeline = entry.getValue().monitor.getEventsPipeline();
+                if (eventsPipeline != null) {
+                    values.put(entry.getKey(), getValue(eventsPipeline));
+                }
+            }
+            return values;
+        }
+
+        protected abstract T getValue(PaaSEventsPipeline eventsPipeline);
     }
 }
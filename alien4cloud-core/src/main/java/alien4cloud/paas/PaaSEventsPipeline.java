@@ -0,0 +1,278 @@
+package alien4cloud.paas;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.WriteConsistency;
+import alien4cloud.paas.model.AbstractMonitorEvent;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Ingestion pipeline for monitor events pushed by a {@link IEventPushingPaaSProvider}.
+ *
+ * Events are first stored in a bounded queue (events are dropped when the queue is full so a flood of events cannot exhaust alien's memory), then dispatched
+ * to the listeners on a dedicated thread and finally persisted by a writer thread that bulk-indexes the events once a given number of events has been
+ * received or after a given delay, without forcing a refresh of the index.
+ */
+@SuppressWarnings("unchecked")
+@Slf4j
+public class PaaSEventsPipeline {
+    /** Maximum time the stages wait for an event before checking if the pipeline has been stopped. */
+    private static final long POLL_TIMEOUT_MS = 100;
+    private final IGenericSearchDAO monitorDAO;
+    @SuppressWarnings("rawtypes")
+    private final List<IPaasEventListener> listeners;
+    private final String orchestratorId;
+    private final int bulkSize;
+    private final long flushIntervalMs;
+
+    private final BlockingQueue<AbstractMonitorEvent> toDispatchEvents;
+    private final BlockingQueue<AbstractMonitorEvent> toPersistEvents;
+    private final ExecutorService dispatchExecutor;
+    private final ExecutorService writerExecutor;
+    private volatile boolean running = false;
+    private volatile boolean dispatchCompleted = false;
+
+    private final AtomicLong receivedEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong dispatchedEvents = new AtomicLong();
+    private final AtomicLong persistedEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong bulkRequests = new AtomicLong();
+    private volatile long lastEventLagMs = 0;
+    private volatile long maxEventLagMs = 0;
+
+    /**
+     * Create a new events pipeline.
+     *
+     * @param monitorDAO The dao used to persist the events.
+     * @param listeners The listeners to notify for every event.
+     * @param orchestratorId The id of the orchestrator that push the events.
+     * @param queueCapacity The maximum number of events that can wait for dispatch (and for persistence), events are dropped once reached.
+     * @param bulkSize The number of events after which the pending events are written to elastic search.
+     * @param flushIntervalMs The maximum delay in milliseconds before pending events are written to elastic search.
+     */
+    @SuppressWarnings("rawtypes")
+    public PaaSEventsPipeline(IGenericSearchDAO monitorDAO, List<IPaasEventListener> listeners, String orchestratorId, int queueCapacity, int bulkSize,
+            long flushIntervalMs) {
+        this.monitorDAO = monitorDAO;
+        this.listeners = listeners;
+        this.orchestratorId = orchestratorId;
+        this.bulkSize = bulkSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.toDispatchEvents = new ArrayBlockingQueue<>(queueCapacity);
+        this.toPersistEvents = new ArrayBlockingQueue<>(queueCapacity);
+        this.dispatchExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("paas-events-dispatch-" + orchestratorId)
+                .setDaemon(true).build());
+        this.writerExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("paas-events-writer-" + orchestratorId)
+                .setDaemon(true).build());
+    }
+
+    /**
+     * Start the dispatch and writer stages of the pipeline.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        dispatchExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                dispatchLoop();
+            }
+        });
+        writerExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        });
+        log.info("Events pipeline started for orchestrator {}", orchestratorId);
+    }
+
+    /**
+     * Stop the pipeline. Events already queued are dispatched and persisted before the stages terminates. A stopped pipeline cannot be restarted.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        dispatchExecutor.shutdown();
+        writerExecutor.shutdown();
+        try {
+            if (!dispatchExecutor.awaitTermination(30, TimeUnit.SECONDS) || !writerExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Events pipeline for orchestrator {} did not terminate in time, some events may not be persisted", orchestratorId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Events pipeline stopped for orchestrator {}", orchestratorId);
+    }
+
+    /**
+     * Add events to the pipeline. This method never blocks, events that cannot be queued are dropped.
+     *
+     * @param events The events to process.
+     */
+    public void offer(AbstractMonitorEvent[] events) {
+        if (events == null) {
+            return;
+        }
+        for (AbstractMonitorEvent event : events) {
+            receivedEvents.incrementAndGet();
+            if (!toDispatchEvents.offer(event)) {
+                long dropped = droppedEvents.incrementAndGet();
+                if (dropped == 1 || dropped % 1000 == 0) {
+                    log.warn("Events queue is full for orchestrator {}, {} events dropped so far", orchestratorId, dropped);
+                }
+            }
+        }
+    }
+
+    private void dispatchLoop() {
+        try {
+            while (running || !toDispatchEvents.isEmpty()) {
+                AbstractMonitorEvent event = toDispatchEvents.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    dispatch(event);
+                    toPersistEvents.put(event);
+                }
+            }
+        } catch (InterruptedException e) {
+            log.warn("Events dispatch interrupted for orchestrator {}", orchestratorId);
+            Thread.currentThread().interrupt();
+        } finally {
+            dispatchCompleted = true;
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void dispatch(AbstractMonitorEvent event) {
+        for (IPaasEventListener listener : listeners) {
+            try {
+                if (listener.canHandle(event)) {
+                    listener.eventHappened(event);
+                }
+            } catch (Exception e) {
+                log.error("Listener failed to handle event " + event, e);
+            }
+        }
+        dispatchedEvents.incrementAndGet();
+    }
+
+    private void writeLoop() {
+        List<AbstractMonitorEvent> pendingEvents = Lists.newArrayListWithCapacity(bulkSize);
+        long lastFlush = System.currentTimeMillis();
+        try {
+            while (!dispatchCompleted || !toPersistEvents.isEmpty() || !pendingEvents.isEmpty()) {
+                long waitMs = Math.min(POLL_TIMEOUT_MS, Math.max(1, flushIntervalMs - (System.currentTimeMillis() - lastFlush)));
+                AbstractMonitorEvent event = toPersistEvents.poll(waitMs, TimeUnit.MILLISECONDS);
+                if (event != null) {
+                    pendingEvents.add(event);
+                    toPersistEvents.drainTo(pendingEvents, bulkSize - pendingEvents.size());
+                }
+                boolean intervalElapsed = System.currentTimeMillis() - lastFlush >= flushIntervalMs;
+                boolean draining = dispatchCompleted && toPersistEvents.isEmpty();
+                if (pendingEvents.size() >= bulkSize || ((intervalElapsed || draining) && !pendingEvents.isEmpty())) {
+                    flush(pendingEvents);
+                    pendingEvents.clear();
+                }
+                if (intervalElapsed || pendingEvents.isEmpty()) {
+                    lastFlush = System.currentTimeMillis();
+                }
+            }
+        } catch (InterruptedException e) {
+            log.warn("Events writer interrupted for orchestrator {}, {} events not persisted", orchestratorId, pendingEvents.size() + toPersistEvents.size());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush(List<AbstractMonitorEvent> events) {
+        try {
+            monitorDAO.save(events.toArray(new AbstractMonitorEvent[events.size()]), WriteConsistency.NEAR_REAL_TIME);
+            persistedEvents.addAndGet(events.size());
+            bulkRequests.incrementAndGet();
+            long lag = System.currentTimeMillis() - events.get(events.size() - 1).getDate();
+            lastEventLagMs = lag;
+            maxEventLagMs = Math.max(maxEventLagMs, lag);
+        } catch (Exception e) {
+            failedEvents.addAndGet(events.size());
+            log.error("Failed to persist " + events.size() + " events for orchestrator " + orchestratorId, e);
+        }
+    }
+
+    /**
+     * @return The number of events waiting to be dispatched or persisted.
+     */
+    public int getQueueDepth() {
+        return toDispatchEvents.size() + toPersistEvents.size();
+    }
+
+    /**
+     * @return The number of events received by the pipeline.
+     */
+    public long getReceivedEvents() {
+        return receivedEvents.get();
+    }
+
+    /**
+     * @return The number of events that have been dropped because the queue was full.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * @return The number of events dispatched to the listeners.
+     */
+    public long getDispatchedEvents() {
+        return dispatchedEvents.get();
+    }
+
+    /**
+     * @return The number of events persisted in elastic search.
+     */
+    public long getPersistedEvents() {
+        return persistedEvents.get();
+    }
+
+    /**
+     * @return The number of events that failed to be persisted.
+     */
+    public long getFailedEvents() {
+        return failedEvents.get();
+    }
+
+    /**
+     * @return The number of bulk requests sent to elastic search.
+     */
+    public long getBulkRequests() {
+        return bulkRequests.get();
+    }
+
+    /**
+     * @return The delay in milliseconds between the date of the last persisted event and it's persistence.
+     */
+    public long getLastEventLagMs() {
+        return lastEventLagMs;
+    }
+
+    /**
+     * @return The maximum delay in milliseconds observed between the date of an event and it's persistence.
+     */
+    public long getMaxEventLagMs() {
+        return maxEventLagMs;
+    }
+}
@@ -21,6 +21,10 @@ import com.google.common.collect.Sets;
 
 /**
  * Monitor service to watch a deployed topologies for a given PaaS provider.
+ *
+ * The polling interval adapts to the activity of the provider: it is reset to the minimum interval as soon as events are received and doubled (up to the
+ * maximum interval) when a poll returns no events, when there is no active deployment or when the provider fails. As providers may return the events of a
+ * poll asynchronously, the poll listener is notified once such a poll completes so the next poll is scheduled with the updated interval.
  */
 @SuppressWarnings("unchecked")
 @Slf4j
@@ -36,6 +40,20 @@ public class PaaSProviderPollingMonitor implements Runnable {
     private String orchestratorId;
     private boolean hasDeployments = false;
     private boolean getEventsInProgress = false;
+    /** True while the monitor thread is running a tick, polls completed during the tick don't have to be notified. */
+    private boolean tickInProgress = false;
+    /** Notified when a poll completes after the end of the tick that started it. */
+    private Runnable pollListener;
+    /** Pipeline used to process events when the provider pushes them, null when events are polled. */
+    private PaaSEventsPipeline eventsPipeline;
+    private boolean eventsPushStarted = false;
+    private long minPollingIntervalMs = 1000;
+    private long maxPollingIntervalMs = 1000;
+    private volatile long pollingIntervalMs = 1000;
+    private long pollStart;
+    private volatile long lastPollLatency;
+    private volatile int lastPollEvents;
+    private volatile int consecutiveFailures;
 
     /**
      * Create a new instance of the {@link PaaSProviderPollingMonitor} to monitor the given paas provider.
@@ -76,10 +94,167 @@ public class PaaSProviderPollingMonitor implements Runnable {
         paaSEventsCallback = new PaaSEventsCallback();
     }
 
+    /**
+     * Configure the bounds of the polling interval.
+     *
+     * @param minPollingIntervalMs Interval in milliseconds between two polls while events are received.
+     * @param maxPollingIntervalMs Maximum interval in milliseconds between two polls when the provider is idle or failing.
+     */
+    public synchronized void setPollingIntervals(long minPollingIntervalMs, long maxPollingIntervalMs) {
+        this.minPollingIntervalMs = minPollingIntervalMs;
+        this.maxPollingIntervalMs = Math.max(minPollingIntervalMs, maxPollingIntervalMs);
+        this.pollingIntervalMs = minPollingIntervalMs;
+    }
+
+    /**
+     * Set the listener to notify when a poll that was still in progress at the end of its tick completes.
+     *
+     * @param pollListener The listener to notify.
+     */
+    public synchronized void setPollListener(Runnable pollListener) {
+        this.pollListener = pollListener;
+    }
+
+    /**
+     * @return True if events are being retrieved from the provider.
+     */
+    public synchronized boolean isPollInProgress() {
+        return getEventsInProgress;
+    }
+
+    /**
+     * @return The interval in milliseconds to wait before the next poll.
+     */
+    public long getPollingInterval() {
+        return pollingIntervalMs;
+    }
+
+    /**
+     * Poll at the minimum interval again, to be used when events are expected (deployment operations).
+     */
+    public void wakeUp() {
+        pollingIntervalMs = minPollingIntervalMs;
+    }
+
+    /**
+     * @return The duration in milliseconds of the last poll.
+     */
+    public long getLastPollLatency() {
+        return lastPollLatency;
+    }
+
+    /**
+     * @return The number of events received by the last poll.
+     */
+    public int getLastPollEvents() {
+        return lastPollEvents;
+    }
+
+    /**
+     * @return The number of polls that failed since the last successful poll.
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    private void backOff() {
+        pollingIntervalMs = Math.min(maxPollingIntervalMs, pollingIntervalMs * 2);
+    }
+
+    /**
+     * End the current poll.
+     *
+     * @return The listener to notify once the lock is released, null if the poll completed during its tick.
+     */
+    private Runnable completePoll() {
+        getEventsInProgress = false;
+        return tickInProgress ? null : pollListener;
+    }
+
+    private void notifyPollListener(Runnable listener) {
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.run();
+        } catch (Exception e) {
+            log.error("Error while notifying the end of a poll of orchestrator " + orchestratorId, e);
+        }
+    }
+
+    /**
+     * Switch the monitor to push mode: events pushed by the provider are processed by the given pipeline rather than being polled.
+     *
+     * @param eventsPipeline The pipeline that will dispatch and persist the events pushed by the provider.
+     */
+    public synchronized void enableEventsPush(PaaSEventsPipeline eventsPipeline) {
+        if (!(paaSProvider instanceof IEventPushingPaaSProvider)) {
+            throw new IllegalStateException("Orchestrator [" + orchestratorId + "] is not able to push events.");
+        }
+        this.eventsPipeline = eventsPipeline;
+        eventsPipeline.start();
+    }
+
+    /**
+     * @return The pipeline that processes the events pushed by the provider or null if the monitor polls events.
+     */
+    public PaaSEventsPipeline getEventsPipeline() {
+        return eventsPipeline;
+    }
+
+    /**
+     * Stop the events push (if any) and wait for the pushed events to be processed.
+     */
+    public void stop() {
+        PaaSEventsPipeline pipeline;
+        synchronized (this) {
+            pipeline = eventsPipeline;
+            if (pipeline != null && eventsPushStarted) {
+                ((IEventPushingPaaSProvider) paaSProvider).stopEventsPush();
+                eventsPushStarted = false;
+            }
+        }
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    private class PaaSEventsPushCallback implements IPaaSCallback<AbstractMonitorEvent[]> {
+
+        @Override
+        public void onSuccess(AbstractMonitorEvent[] events) {
+            if (events == null || events.length == 0) {
+                return;
+            }
+            synchronized (PaaSProviderPollingMonitor.this) {
+                for (AbstractMonitorEvent event : events) {
+                    event.setOrchestratorId(orchestratorId);
+                    if (event.getDate() > 0) {
+                        Date eventDate = new Date(event.getDate());
+                        lastPollingDate = eventDate.after(lastPollingDate) ? eventDate : lastPollingDate;
+                    } else {
+                        event.setDate(System.currentTimeMillis());
+                    }
+                }
+            }
+            eventsPipeline.offer(events);
+        }
+
+        @Override
+        public void onFailure(Throwable throwable) {
+            synchronized (PaaSProviderPollingMonitor.this) {
+                // push will be restarted on next tick from the last received event.
+                eventsPushStarted = false;
+                log.error("Events push from PaaS provider has been interrupted", throwable);
+            }
+        }
+    }
+
     private class PaaSEventsCallback implements IPaaSCallback<AbstractMonitorEvent[]> {
 
         @Override
         public void onSuccess(AbstractMonitorEvent[] auditEvents) {
+            Runnable listener;
             synchronized (PaaSProviderPollingMonitor.this) {
                 if (log.isTraceEnabled()) {
                     log.trace("Polled from date {}", lastPollingDate);
@@ -90,6 +265,14 @@ public class PaaSProviderPollingMonitor implements Runnable {
                         log.debug(event.toString());
                     }
                 }
+                lastPollLatency = System.currentTimeMillis() - pollStart;
+                lastPollEvents = auditEvents == null ? 0 : auditEvents.length;
+                consecutiveFailures = 0;
+                if (lastPollEvents > 0) {
+                    pollingIntervalMs = minPollingIntervalMs;
+                } else {
+                    backOff();
+                }
                 if (auditEvents != null && auditEvents.length > 0) {
                     for (AbstractMonitorEvent event : auditEvents) {
                         // Enrich event with cloud id before saving them
@@ -110,34 +293,67 @@ public class PaaSProviderPollingMonitor implements Runnable {
                     }
                     monitorDAO.save(auditEvents);
                 }
-                getEventsInProgress = false;
+                listener = completePoll();
             }
+            notifyPollListener(listener);
         }
 
         @Override
         public void onFailure(Throwable throwable) {
+            Runnable listener;
             synchronized (PaaSProviderPollingMonitor.this) {
-                getEventsInProgress = false;
+                listener = completePoll();
+                lastPollLatency = System.currentTimeMillis() - pollStart;
+                lastPollEvents = 0;
+                consecutiveFailures++;
+                backOff();
                 // Make it re-verify if has deployment returns something in order to no loop infinitely
                 // If the PaaS is down, there might be a chance that the deployment has been marked as failed
                 hasDeployments = false;
                 log.error("Error happened while trying to retrieve events from PaaS provider", throwable);
             }
+            notifyPollListener(listener);
         }
     }
 
     @Override
     public synchronized void run() {
+        if (eventsPipeline != null) {
+            if (!eventsPushStarted) {
+                eventsPushStarted = true;
+                log.info("Starting events push for orchestrator {} from date {}", orchestratorId, lastPollingDate);
+                try {
+                    ((IEventPushingPaaSProvider) paaSProvider).startEventsPush(lastPollingDate, new PaaSEventsPushCallback());
+                } catch (Exception e) {
+                    eventsPushStarted = false;
+                    log.error("Unable to start events push for orchestrator " + orchestratorId, e);
+                }
+            }
+            return;
+        }
         if (getEventsInProgress) {
             // Get events since is running
             return;
         }
         getEventsInProgress = true;
         if (hasDeployments) {
-            paaSProvider.getEventsSince(lastPollingDate, MAX_POLLED_EVENTS, paaSEventsCallback);
+            pollStart = System.currentTimeMillis();
+            tickInProgress = true;
+            try {
+                paaSProvider.getEventsSince(lastPollingDate, MAX_POLLED_EVENTS, paaSEventsCallback);
+            } catch (Exception e) {
+                paaSEventsCallback.onFailure(e);
+            } finally {
+                tickInProgress = false;
+            }
         } else {
             getEventsInProgress = false;
             hasDeployments = getActiveDeployment() != null;
+            if (hasDeployments) {
+                pollingIntervalMs = minPollingIntervalMs;
+            } else {
+                backOff();
+            }
         }
     }
 
@@ -1,6 +1,5 @@
 package alien4cloud.paas.wf;
 
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -202,14 +201,15 @@ public abstract class AbstractWorkflowBuilder {
     }
 
     public void removeStep(Workflow wf, String stepId, boolean force) {
-        AbstractStep step = wf.getSteps().remove(stepId);
+        AbstractStep step = wf.getSteps().get(stepId);
         if (step == null) {
             throw new InconsistentWorkflowException(String.format(
                     "Inconsistent workflow: a step nammed '%s' can not be found while it's referenced else where ...", stepId));
         }
         if (!force && step instanceof NodeActivityStep && ((NodeActivityStep) step).getActivity() instanceof DelegateWorkflowActivity) {
             throw new BadWorkflowOperationException("Native steps can not be removed from workflow");
-        }        
+        }
+        wf.removeStep(stepId);
         if (step.getPrecedingSteps() != null) {
             if (step.getFollowingSteps() != null) {
                 // connect all preceding to all following
@@ -238,9 +238,7 @@ public abstract class AbstractWorkflowBuilder {
         if (wf.getSteps().containsKey(newStepName)) {
             throw new AlreadyExistException(String.format("A step nammed ''{0}'' already exists", newStepName));
         }
-        AbstractStep step = wf.getSteps().remove(stepId);
-        step.setName(newStepName);
-        wf.getSteps().put(newStepName, step);
+        AbstractStep step = wf.renameStep(stepId, newStepName);
         // now explore the links
         if (step.getPrecedingSteps() != null) {
             for (String precedingId : step.getPrecedingSteps()) {
@@ -259,12 +257,8 @@ public abstract class AbstractWorkflowBuilder {
     }
 
     public void removeNode(Workflow wf, String nodeName) {
-        AbstractStep[] steps = new AbstractStep[wf.getSteps().size()];
-        steps = wf.getSteps().values().toArray(steps);
-        for (AbstractStep step : steps) {
-            if (step instanceof NodeActivityStep && ((NodeActivityStep) step).getNodeId().equals(nodeName)) {
-                removeStep(wf, step.getName(), true);
-            }
+        for (NodeActivityStep step : wf.getNodeSteps(nodeName)) {
+            removeStep(wf, step.getName(), true);
         }
     }
 
@@ -280,26 +274,22 @@ public abstract class AbstractWorkflowBuilder {
      * @param relationhipTarget
      */
     public void removeRelationship(Workflow wf, String nodeId, String relationhipTarget) {
-        Iterator<AbstractStep> steps = wf.getSteps().values().iterator();
-        while(steps.hasNext()) {
-            AbstractStep step = steps.next();
-            if (step instanceof NodeActivityStep && ((NodeActivityStep) step).getNodeId().equals(nodeId)) {
-                if (step.getFollowingSteps() != null) {
-                    Object[] followingStepIds = step.getFollowingSteps().toArray();
-                    for (Object followingId : followingStepIds) {
-                        AbstractStep followingStep = wf.getSteps().get(followingId);
-                        if (followingStep instanceof NodeActivityStep && ((NodeActivityStep) followingStep).getNodeId().equals(relationhipTarget)) {
-                            unlinkSteps(step, followingStep);
-                        }
+        for (NodeActivityStep step : wf.getNodeSteps(nodeId)) {
+            if (step.getFollowingSteps() != null) {
+                Object[] followingStepIds = step.getFollowingSteps().toArray();
+                for (Object followingId : followingStepIds) {
+                    AbstractStep followingStep = wf.getSteps().get(followingId);
+                    if (followingStep instanceof NodeActivityStep && ((NodeActivityStep) followingStep).getNodeId().equals(relationhipTarget)) {
+                        unlinkSteps(step, followingStep);
                     }
                 }
-                if (step.getPrecedingSteps() != null) {
-                    Object precedings[] = step.getPrecedingSteps().toArray();
-                    for (Object precedingId : precedings) {
-                        AbstractStep precedingStep = wf.getSteps().get(precedingId);
-                        if (precedingStep instanceof NodeActivityStep && ((NodeActivityStep) precedingStep).getNodeId().equals(relationhipTarget)) {
-                            unlinkSteps(precedingStep, step);
-                        }
+            }
+            if (step.getPrecedingSteps() != null) {
+                Object precedings[] = step.getPrecedingSteps().toArray();
+                for (Object precedingId : precedings) {
+                    AbstractStep precedingStep = wf.getSteps().get(precedingId);
+                    if (precedingStep instanceof NodeActivityStep && ((NodeActivityStep) precedingStep).getNodeId().equals(relationhipTarget)) {
+                        unlinkSteps(precedingStep, step);
                     }
                 }
             }
@@ -372,12 +362,7 @@ public abstract class AbstractWorkflowBuilder {
 
     public void renameNode(Workflow wf, String oldName, String newName) {
         if (wf.getSteps() != null) {
-            for (AbstractStep step : wf.getSteps().values()) {
-                if (step instanceof NodeActivityStep && ((NodeActivityStep) step).getNodeId().equals(oldName)) {
-                    ((NodeActivityStep) step).setNodeId(newName);
-                    ((NodeActivityStep) step).getActivity().setNodeId(newName);
-                }
-            }
+            wf.renameNode(oldName, newName);
         }
     }
 
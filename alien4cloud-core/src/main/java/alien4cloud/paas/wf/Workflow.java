@@ -1,12 +1,16 @@
 package alien4cloud.paas.wf;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -33,11 +37,253 @@ public class Workflow {
      */
     private Map<String, AbstractStep> steps = new LinkedHashMap<String, AbstractStep>();
 
+    /**
+     * Names of the {@link NodeActivityStep}s per node id. This index is not persisted, it is built on first use and then maintained by the step mutation
+     * methods of the workflow ({@link #addStep(AbstractStep)}, {@link #removeStep(String)}, {@link #renameStep(String, String)} and
+     * {@link #renameNode(String, String)}).
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Map<String, Set<String>> stepsByNode;
+
+    /** Names of the {@link NodeActivityStep}s per host id, built on first use and maintained by {@link #setHostId(NodeActivityStep, String)}. */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Map<String, Set<String>> stepsByHost;
+
+    public void setSteps(Map<String, AbstractStep> steps) {
+        this.steps = steps;
+        invalidateIndexes();
+    }
+
     public <S extends AbstractStep> S addStep(S step) {
-        steps.put(step.getName(), step);
+        AbstractStep replaced = steps.put(step.getName(), step);
+        if (replaced != null) {
+            unindex(replaced);
+        }
+        index(step);
         return step;
     }
 
+    /**
+     * Remove a step from the workflow (links from and to the step are not updated).
+     *
+     * @param stepName The name of the step to remove.
+     * @return The removed step or null if no step has this name.
+     */
+    public AbstractStep removeStep(String stepName) {
+        AbstractStep step = steps.remove(stepName);
+        if (step != null) {
+            unindex(step);
+        }
+        return step;
+    }
+
+    /**
+     * Change the name of a step in the workflow (links from and to the step are not updated).
+     *
+     * @param stepName The current name of the step.
+     * @param newStepName The new name of the step.
+     * @return The renamed step or null if no step has the given name.
+     */
+    public AbstractStep renameStep(String stepName, String newStepName) {
+        AbstractStep step = removeStep(stepName);
+        if (step != null) {
+            step.setName(newStepName);
+            addStep(step);
+        }
+        return step;
+    }
+
+    /**
+     * Change the node of all the steps of a node.
+     *
+     * @param nodeId The current id of the node.
+     * @param newNodeId The new id of the node.
+     */
+    public void renameNode(String nodeId, String newNodeId) {
+        for (NodeActivityStep step : getNodeSteps(nodeId)) {
+            unindex(step);
+            step.setNodeId(newNodeId);
+            step.getActivity().setNodeId(newNodeId);
+            index(step);
+        }
+    }
+
+    /**
+     * Get the steps of a node in their order of insertion in the workflow.
+     *
+     * @param nodeId The id of the node.
+     * @return The steps that belong to the node, an empty list if there is none.
+     */
+    public List<NodeActivityStep> getNodeSteps(String nodeId) {
+        List<NodeActivityStep> result = resolve(getStepsByNode().get(nodeId), nodeId, false);
+        if (result == null) {
+            invalidateIndexes();
+            result = resolve(getStepsByNode().get(nodeId), nodeId, false);
+        }
+        return result;
+    }
+
+    /**
+     * Get the steps that run on a given host.
+     *
+     * @param hostId The id of the host.
+     * @return The steps that have the given host id, an empty list if there is none.
+     */
+    public List<NodeActivityStep> getHostSteps(String hostId) {
+        List<NodeActivityStep> result = resolve(getStepsByHost().get(hostId), hostId, true);
+        if (result == null) {
+            invalidateIndexes();
+            result = resolve(getStepsByHost().get(hostId), hostId, true);
+        }
+        return result;
+    }
+
+    /**
+     * Get the first step of a node that sets a given state.
+     *
+     * @param nodeId The id of the node.
+     * @param stateName The state.
+     * @return The first step of the node that sets the state or null if none.
+     */
+    public NodeActivityStep getStateStep(String nodeId, String stateName) {
+        for (NodeActivityStep step : getNodeSteps(nodeId)) {
+            if (step.getActivity() instanceof SetStateActivity && stateName.equals(((SetStateActivity) step.getActivity()).getStateName())) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param nodeId The id of a node.
+     * @return True if the workflow contains steps of the given node.
+     */
+    public boolean containsNode(String nodeId) {
+        return !getNodeSteps(nodeId).isEmpty();
+    }
+
+    /**
+     * Update the host id of a step and the hosts of the workflow.
+     *
+     * @param step The step to update.
+     * @param hostId The host of the step.
+     */
+    public void setHostId(NodeActivityStep step, String hostId) {
+        Map<String, Set<String>> index = getStepsByHost();
+        String previousHostId = step.getHostId();
+        removeFromIndex(index, previousHostId, step.getName());
+        step.setHostId(hostId);
+        addToIndex(index, hostId, step.getName());
+        if (hostId != null) {
+            hosts.add(hostId);
+        }
+        if (previousHostId != null && !index.containsKey(previousHostId)) {
+            hosts.remove(previousHostId);
+        }
+    }
+
+    /**
+     * Re-compute the hosts of the workflow from the host ids of its steps.
+     */
+    public void refreshHosts() {
+        hosts.clear();
+        hosts.addAll(getStepsByHost().keySet());
+    }
+
+    /**
+     * Get the steps for a set of indexed names.
+     *
+     * @return The steps or null if the index is not consistent with the steps (the steps map has been modified without going through the workflow).
+     */
+    private List<NodeActivityStep> resolve(Set<String> stepNames, String key, boolean byHost) {
+        if (stepNames == null || stepNames.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<NodeActivityStep> result = new ArrayList<NodeActivityStep>(stepNames.size());
+        for (String stepName : stepNames) {
+            AbstractStep step = steps.get(stepName);
+            if (!(step instanceof NodeActivityStep) || !key.equals(byHost ? ((NodeActivityStep) step).getHostId() : ((NodeActivityStep) step).getNodeId())) {
+                return null;
+            }
+            result.add((NodeActivityStep) step);
+        }
+        return result;
+    }
+
+    private Map<String, Set<String>> getStepsByNode() {
+        if (stepsByNode == null) {
+            buildIndexes();
+        }
+        return stepsByNode;
+    }
+
+    private Map<String, Set<String>> getStepsByHost() {
+        if (stepsByHost == null) {
+            buildIndexes();
+        }
+        return stepsByHost;
+    }
+
+    private void buildIndexes() {
+        stepsByNode = new HashMap<String, Set<String>>();
+        stepsByHost = new HashMap<String, Set<String>>();
+        if (steps != null) {
+            for (AbstractStep step : steps.values()) {
+                index(step);
+            }
+        }
+    }
+
+    private void invalidateIndexes() {
+        stepsByNode = null;
+        stepsByHost = null;
+    }
+
+    private void index(AbstractStep step) {
+        if (stepsByNode == null || !(step instanceof NodeActivityStep)) {
+            return;
+        }
+        NodeActivityStep nodeStep = (NodeActivityStep) step;
+        addToIndex(stepsByNode, nodeStep.getNodeId(), step.getName());
+        addToIndex(stepsByHost, nodeStep.getHostId(), step.getName());
+    }
+
+    private void unindex(AbstractStep step) {
+        if (stepsByNode == null || !(step instanceof NodeActivityStep)) {
+            return;
+        }
+        NodeActivityStep nodeStep = (NodeActivityStep) step;
+        removeFromIndex(stepsByNode, nodeStep.getNodeId(), step.getName());
+        removeFromIndex(stepsByHost, nodeStep.getHostId(), step.getName());
+    }
+
+    private static void addToIndex(Map<String, Set<String>> index, String key, String stepName) {
+        if (key == null) {
+            return;
+        }
+        Set<String> stepNames = index.get(key);
+        if (stepNames == null) {
+            stepNames = new LinkedHashSet<String>();
+            index.put(key, stepNames);
+        }
+        stepNames.add(stepName);
+    }
+
+    private static void removeFromIndex(Map<String, Set<String>> index, String key, String stepName) {
+        if (key == null) {
+            return;
+        }
+        Set<String> stepNames = index.get(key);
+        if (stepNames != null) {
+            stepNames.remove(stepName);
+            if (stepNames.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
     public void clearErrors() {
         errors = new ArrayList<AbstractWorkflowError>();
     }
@@ -2,6 +2,7 @@ package alien4cloud.paas.wf;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
@@ -103,13 +104,22 @@ public class WorkflowsBuilderService {
         return workflowValidator.validate(topologyContext, workflow);
     }
 
+    /**
+     * Add a node to the workflows.
+     * <p>
+     * Host ids are only re-computed for the added node (and nodes hosted on it) and a workflow is only validated again if it contains steps of the node: the
+     * validation rules only depend on the steps graph and on the existence of the nodes referenced by steps.
+     */
     public void addNode(TopologyContext topologyContext, String nodeName, NodeTemplate nodeTemplate) {
         boolean forceOperation = WorkflowUtils.isComputeOrNetwork(nodeName, topologyContext);
+        Set<String> impactedNodes = WorkflowUtils.getHostedNodes(nodeName, topologyContext);
         for (Workflow wf : topologyContext.getTopology().getWorkflows().values()) {
             AbstractWorkflowBuilder builder = getWorkflowBuilder(wf);
             builder.addNode(wf, nodeName, topologyContext, forceOperation);
-            WorkflowUtils.fillHostId(wf, topologyContext);
-            workflowValidator.validate(topologyContext, wf);
+            WorkflowUtils.fillHostId(wf, impactedNodes, topologyContext);
+            if (wf.containsNode(nodeName)) {
+                workflowValidator.validate(topologyContext, wf);
+            }
         }
         debugWorkflow(topologyContext.getTopology());
     }
@@ -117,10 +127,14 @@ public class WorkflowsBuilderService {
     public void removeNode(Topology topology, String nodeName, NodeTemplate nodeTemplate) {
         TopologyContext topologyContext = buildTopologyContext(topology);
         for (Workflow wf : topology.getWorkflows().values()) {
+            boolean impacted = wf.containsNode(nodeName);
             AbstractWorkflowBuilder builder = getWorkflowBuilder(wf);
             builder.removeNode(wf, nodeName);
+            // relationships targeting the node are already removed from the topology so we can't find the nodes that were hosted on it.
             WorkflowUtils.fillHostId(wf, topologyContext);
-            workflowValidator.validate(topologyContext, wf);
+            if (impacted) {
+                workflowValidator.validate(topologyContext, wf);
+            }
         }
         debugWorkflow(topology);
     }
@@ -128,11 +142,14 @@ public class WorkflowsBuilderService {
     public void addRelationship(TopologyContext topologyContext, String nodeTemplateName, String relationshipName) {
         NodeTemplate nodeTemplate = topologyContext.getTopology().getNodeTemplates().get(nodeTemplateName);
         RelationshipTemplate relationshipTemplate = nodeTemplate.getRelationships().get(relationshipName);
+        Set<String> impactedNodes = WorkflowUtils.getHostedNodes(nodeTemplateName, topologyContext);
         for (Workflow wf : topologyContext.getTopology().getWorkflows().values()) {
             AbstractWorkflowBuilder builder = getWorkflowBuilder(wf);
             builder.addRelationship(wf, nodeTemplateName, nodeTemplate, relationshipTemplate, topologyContext);
-            WorkflowUtils.fillHostId(wf, topologyContext);
-            workflowValidator.validate(topologyContext, wf);
+            WorkflowUtils.fillHostId(wf, impactedNodes, topologyContext);
+            if (wf.containsNode(nodeTemplateName) || wf.containsNode(relationshipTemplate.getTarget())) {
+                workflowValidator.validate(topologyContext, wf);
+            }
         }
         debugWorkflow(topologyContext.getTopology());
     }
@@ -140,11 +157,14 @@ public class WorkflowsBuilderService {
     public void removeRelationship(Topology topology, String nodeTemplateName, String relationshipName, RelationshipTemplate relationshipTemplate) {
         TopologyContext topologyContext = buildTopologyContext(topology);
         String relationhipTarget = relationshipTemplate.getTarget();
+        Set<String> impactedNodes = WorkflowUtils.getHostedNodes(nodeTemplateName, topologyContext);
         for (Workflow wf : topology.getWorkflows().values()) {
             AbstractWorkflowBuilder builder = getWorkflowBuilder(wf);
             builder.removeRelationship(wf, nodeTemplateName, relationhipTarget);
-            WorkflowUtils.fillHostId(wf, topologyContext);
-            workflowValidator.validate(topologyContext, wf);
+            WorkflowUtils.fillHostId(wf, impactedNodes, topologyContext);
+            if (wf.containsNode(nodeTemplateName) && wf.containsNode(relationhipTarget)) {
+                workflowValidator.validate(topologyContext, wf);
+            }
         }
     }
 
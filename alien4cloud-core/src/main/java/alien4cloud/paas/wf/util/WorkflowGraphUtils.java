@@ -1,8 +1,16 @@
 package alien4cloud.paas.wf.util;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.elasticsearch.common.collect.Lists;
@@ -29,6 +37,9 @@ public class WorkflowGraphUtils {
      * Build the paths of the graph starting from the entry points (steps without predecessors, so connected to 'start').
      * <p>
      * Will also detect orphans brothers in the entire graph (cycles not connected to start).
+     * <p>
+     * The number of paths grows exponentially with forks and joins, validation rules should rather rely on {@link #getStronglyConnectedComponents(Workflow)},
+     * {@link #getTopologicalOrder(Workflow)} and {@link #isReachable(Workflow, AbstractStep, AbstractStep, Map)}.
      */
     public static List<Path> getWorkflowGraphPaths(Workflow workflow) {
         // the result
@@ -108,4 +119,190 @@ public class WorkflowGraphUtils {
         return entries;
     }
 
+    /**
+     * Compute the strongly connected components of the workflow graph (Tarjan's algorithm, iterative so that long workflows don't overflow the stack).
+     * <p>
+     * Runs in O(steps + links).
+     *
+     * @return The components that contain a cycle: components of more than one step or a step that follows itself.
+     */
+    public static List<List<AbstractStep>> getStronglyConnectedComponents(Workflow workflow) {
+        List<List<AbstractStep>> components = new ArrayList<List<AbstractStep>>();
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+        Map<String, Integer> lowLinks = new HashMap<String, Integer>();
+        Deque<AbstractStep> componentStack = new ArrayDeque<AbstractStep>();
+        Set<String> onComponentStack = new HashSet<String>();
+        Deque<Visit> visits = new ArrayDeque<Visit>();
+        for (AbstractStep root : workflow.getSteps().values()) {
+            if (indexes.containsKey(root.getName())) {
+                continue;
+            }
+            visits.push(startVisit(root, indexes, lowLinks, componentStack, onComponentStack));
+            while (!visits.isEmpty()) {
+                Visit visit = visits.peek();
+                String stepName = visit.step.getName();
+                if (visit.followers.hasNext()) {
+                    AbstractStep following = getRequiredStep(workflow, visit.followers.next());
+                    if (!indexes.containsKey(following.getName())) {
+                        visits.push(startVisit(following, indexes, lowLinks, componentStack, onComponentStack));
+                    } else if (onComponentStack.contains(following.getName())) {
+                        lowLinks.put(stepName, Math.min(lowLinks.get(stepName), indexes.get(following.getName())));
+                    }
+                    continue;
+                }
+                visits.pop();
+                if (!visits.isEmpty()) {
+                    String parentName = visits.peek().step.getName();
+                    lowLinks.put(parentName, Math.min(lowLinks.get(parentName), lowLinks.get(stepName)));
+                }
+                if (lowLinks.get(stepName).equals(indexes.get(stepName))) {
+                    // the step is the root of a component
+                    List<AbstractStep> component = new ArrayList<AbstractStep>();
+                    AbstractStep member;
+                    do {
+                        member = componentStack.pop();
+                        onComponentStack.remove(member.getName());
+                        component.add(member);
+                    } while (member != visit.step);
+                    if (component.size() > 1 || (visit.step.getFollowingSteps() != null && visit.step.getFollowingSteps().contains(stepName))) {
+                        // the root is the last popped step, put it first
+                        Collections.reverse(component);
+                        components.add(component);
+                    }
+                }
+            }
+        }
+        return components;
+    }
+
+    private static Visit startVisit(AbstractStep step, Map<String, Integer> indexes, Map<String, Integer> lowLinks, Deque<AbstractStep> componentStack,
+            Set<String> onComponentStack) {
+        int index = indexes.size();
+        indexes.put(step.getName(), index);
+        lowLinks.put(step.getName(), index);
+        componentStack.push(step);
+        onComponentStack.add(step.getName());
+        return new Visit(step);
+    }
+
+    /**
+     * Find a cycle inside a strongly connected component (shortest cycle starting from the first step of the component).
+     *
+     * @param component A component as returned by {@link #getStronglyConnectedComponents(Workflow)}.
+     * @return The names of the steps of the cycle, the first step being repeated at the end.
+     */
+    public static List<String> getCycle(Workflow workflow, List<AbstractStep> component) {
+        AbstractStep root = component.get(0);
+        Set<String> members = new HashSet<String>();
+        for (AbstractStep step : component) {
+            members.add(step.getName());
+        }
+        // breadth first search from the root until we come back to it
+        Map<String, String> parents = new HashMap<String, String>();
+        Deque<String> toVisit = new ArrayDeque<String>();
+        toVisit.add(root.getName());
+        String last = null;
+        while (last == null && !toVisit.isEmpty()) {
+            AbstractStep step = getRequiredStep(workflow, toVisit.poll());
+            for (String following : step.getFollowingSteps()) {
+                if (following.equals(root.getName())) {
+                    last = step.getName();
+                    break;
+                }
+                if (members.contains(following) && !parents.containsKey(following)) {
+                    parents.put(following, step.getName());
+                    toVisit.add(following);
+                }
+            }
+        }
+        LinkedList<String> cycle = new LinkedList<String>();
+        cycle.add(root.getName());
+        for (String stepName = last; !stepName.equals(root.getName()); stepName = parents.get(stepName)) {
+            cycle.addFirst(stepName);
+        }
+        cycle.addFirst(root.getName());
+        return cycle;
+    }
+
+    /**
+     * Sort the steps of the workflow so that each step comes after all its predecessors (Kahn's algorithm, O(steps + links)).
+     *
+     * @return The position of the steps in the topological order. Steps that are part of a cycle or that follow a cycle have no position.
+     */
+    public static Map<String, Integer> getTopologicalOrder(Workflow workflow) {
+        Map<String, Integer> order = new LinkedHashMap<String, Integer>();
+        Map<String, Integer> remainingPredecessors = new HashMap<String, Integer>();
+        Deque<AbstractStep> ready = new ArrayDeque<AbstractStep>();
+        for (AbstractStep step : workflow.getSteps().values()) {
+            int predecessorCount = step.getPrecedingSteps() == null ? 0 : step.getPrecedingSteps().size();
+            remainingPredecessors.put(step.getName(), predecessorCount);
+            if (predecessorCount == 0) {
+                ready.add(step);
+            }
+        }
+        while (!ready.isEmpty()) {
+            AbstractStep step = ready.poll();
+            order.put(step.getName(), order.size());
+            if (step.getFollowingSteps() != null) {
+                for (String followingName : step.getFollowingSteps()) {
+                    AbstractStep following = getRequiredStep(workflow, followingName);
+                    int remaining = remainingPredecessors.get(followingName) - 1;
+                    remainingPredecessors.put(followingName, remaining);
+                    if (remaining == 0) {
+                        ready.add(following);
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Check if a step can be reached from another one. The search only explores steps that are before the target in the topological order so it stays
+     * local to the part of the graph between the two steps.
+     *
+     * @param from The step to start from.
+     * @param to The step to reach.
+     * @param topologicalOrder The topological order of the workflow as returned by {@link #getTopologicalOrder(Workflow)}.
+     * @return True if there is a path from 'from' to 'to'.
+     */
+    public static boolean isReachable(Workflow workflow, AbstractStep from, AbstractStep to, Map<String, Integer> topologicalOrder) {
+        Integer toPosition = topologicalOrder.get(to.getName());
+        Integer fromPosition = topologicalOrder.get(from.getName());
+        if (toPosition == null || fromPosition == null || fromPosition >= toPosition) {
+            return false;
+        }
+        Set<String> visited = new HashSet<String>();
+        Deque<AbstractStep> toVisit = new ArrayDeque<AbstractStep>();
+        toVisit.push(from);
+        while (!toVisit.isEmpty()) {
+            AbstractStep step = toVisit.pop();
+            if (step.getFollowingSteps() == null) {
+                continue;
+            }
+            for (String followingName : step.getFollowingSteps()) {
+                if (followingName.equals(to.getName())) {
+                    return true;
+                }
+                Integer position = topologicalOrder.get(followingName);
+                if (position != null && position < toPosition && visited.add(followingName)) {
+                    toVisit.push(getRequiredStep(workflow, followingName));
+                }
+            }
+        }
+        return false;
+    }
+
+    /** A step being explored by the strongly connected components search. */
+    private static final class Visit {
+        private final AbstractStep step;
+        private final Iterator<String> followers;
+
+        private Visit(AbstractStep step) {
+            this.step = step;
+            Set<String> followingSteps = step.getFollowingSteps();
+            this.followers = followingSteps == null ? Collections.<String> emptyIterator() : followingSteps.iterator();
+        }
+    }
+
 }
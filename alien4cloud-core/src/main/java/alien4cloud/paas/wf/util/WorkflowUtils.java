@@ -1,6 +1,14 @@
 package alien4cloud.paas.wf.util;
 
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.collect.Maps;
+import org.elasticsearch.common.collect.Sets;
 
 import alien4cloud.model.components.IndexedInheritableToscaElement;
 import alien4cloud.model.components.IndexedNodeType;
@@ -55,17 +63,73 @@ public class WorkflowUtils {
      * The hostId is the first (and normally unique) compute found in the ascendency.
      */
     public static void fillHostId(Workflow wf, TopologyContext topologyContext) {
-        wf.getHosts().clear();
+        Map<String, String> hostIds = Maps.newHashMap();
         for (AbstractStep step : wf.getSteps().values()) {
             if (step instanceof NodeActivityStep) {
                 NodeActivityStep dstep = (NodeActivityStep) step;
-                String hostId = WorkflowUtils.getRootHostNode(dstep.getNodeId(), topologyContext);
-                dstep.setHostId(hostId);
-                if (hostId != null) {
-                    wf.getHosts().add(hostId);
+                // the host is resolved once per node rather than once per step
+                if (!hostIds.containsKey(dstep.getNodeId())) {
+                    hostIds.put(dstep.getNodeId(), WorkflowUtils.getRootHostNode(dstep.getNodeId(), topologyContext));
+                }
+                wf.setHostId(dstep, hostIds.get(dstep.getNodeId()));
+            }
+        }
+        wf.refreshHosts();
+    }
+
+    /**
+     * Update the hostId property of the steps of the given nodes only.
+     *
+     * @param wf The workflow to update.
+     * @param nodeIds The nodes for which the host may have changed (see {@link #getHostedNodes(String, TopologyContext)}).
+     * @param topologyContext The topology context.
+     */
+    public static void fillHostId(Workflow wf, Collection<String> nodeIds, TopologyContext topologyContext) {
+        for (String nodeId : nodeIds) {
+            List<NodeActivityStep> nodeSteps = wf.getNodeSteps(nodeId);
+            if (nodeSteps.isEmpty()) {
+                continue;
+            }
+            String hostId = WorkflowUtils.getRootHostNode(nodeId, topologyContext);
+            for (NodeActivityStep step : nodeSteps) {
+                wf.setHostId(step, hostId);
+            }
+        }
+    }
+
+    /**
+     * Get a node and all the nodes that are (directly or transitively) hosted on it, that is to say the nodes which host changes when the node's host changes.
+     *
+     * @param nodeId The id of the node.
+     * @param topologyContext The topology context.
+     * @return The node id and the ids of the nodes hosted on it.
+     */
+    public static Set<String> getHostedNodes(String nodeId, TopologyContext topologyContext) {
+        Map<String, List<String>> childrenPerParent = Maps.newHashMap();
+        Map<String, NodeTemplate> nodeTemplates = topologyContext.getTopology().getNodeTemplates();
+        if (nodeTemplates != null) {
+            for (String childId : nodeTemplates.keySet()) {
+                String parentId = getParentId(null, childId, topologyContext);
+                if (parentId != null) {
+                    List<String> children = childrenPerParent.get(parentId);
+                    if (children == null) {
+                        children = Lists.newArrayList();
+                        childrenPerParent.put(parentId, children);
+                    }
+                    children.add(childId);
                 }
             }
         }
+        Set<String> hostedNodes = Sets.newLinkedHashSet();
+        LinkedList<String> toVisit = Lists.newLinkedList();
+        toVisit.add(nodeId);
+        while (!toVisit.isEmpty()) {
+            String current = toVisit.removeFirst();
+            if (hostedNodes.add(current) && childrenPerParent.containsKey(current)) {
+                toVisit.addAll(childrenPerParent.get(current));
+            }
+        }
+        return hostedNodes;
     }
 
     /**
@@ -221,10 +285,8 @@ public class WorkflowUtils {
         for (String host : wf.getHosts()) {
             stringBuilder.append("\n  subgraph cluster_").append(++subgraphCount).append(" {");
             stringBuilder.append("\n    label = \"").append(host).append("\";\n    color=blue;");
-            for (AbstractStep step : wf.getSteps().values()) {
-                if (step instanceof NodeActivityStep && host.equals(((NodeActivityStep) step).getHostId())) {
-                    stringBuilder.append("\n    \"").append(step.getName()).append("\";");
-                }
+            for (NodeActivityStep step : wf.getHostSteps(host)) {
+                stringBuilder.append("\n    \"").append(step.getName()).append("\";");
             }
             stringBuilder.append("\n  }\n");
         }
@@ -286,27 +348,16 @@ public class WorkflowUtils {
     }
 
     public static AbstractStep getDelegateWorkflowStepByNode(Workflow wf, String nodeName) {
-        for (AbstractStep step : wf.getSteps().values()) {
-            if (step instanceof NodeActivityStep) {
-                NodeActivityStep defaultStep = (NodeActivityStep) step;
-                if (defaultStep.getNodeId().equals(nodeName) && (defaultStep.getActivity() instanceof DelegateWorkflowActivity)) {
-                    return defaultStep;
-                }
+        for (NodeActivityStep step : wf.getNodeSteps(nodeName)) {
+            if (step.getActivity() instanceof DelegateWorkflowActivity) {
+                return step;
             }
         }
         return null;
     }
 
     public static NodeActivityStep getStateStepByNode(Workflow wf, String nodeName, String stateName) {
-        for (AbstractStep step : wf.getSteps().values()) {
-            if (step instanceof NodeActivityStep) {
-                NodeActivityStep defaultStep = (NodeActivityStep) step;
-                if (defaultStep.getActivity().getNodeId().equals(nodeName) && isStateStep(defaultStep, stateName)) {
-                    return defaultStep;
-                }
-            }
-        }
-        return null;
+        return wf.getStateStep(nodeName, stateName);
     }
 
     public static boolean isStateStep(NodeActivityStep defaultStep, String stateName) {
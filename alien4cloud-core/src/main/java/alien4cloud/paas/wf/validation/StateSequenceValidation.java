@@ -1,22 +1,18 @@
 package alien4cloud.paas.wf.validation;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.elasticsearch.common.collect.Lists;
 import org.elasticsearch.common.collect.Maps;
-import org.elasticsearch.common.collect.Sets;
 
 import alien4cloud.paas.plan.ToscaNodeLifecycleConstants;
 import alien4cloud.paas.wf.AbstractStep;
 import alien4cloud.paas.wf.NodeActivityStep;
-import alien4cloud.paas.wf.Path;
 import alien4cloud.paas.wf.SetStateActivity;
 import alien4cloud.paas.wf.Workflow;
 import alien4cloud.paas.wf.WorkflowsBuilderService.TopologyContext;
@@ -39,14 +35,13 @@ import alien4cloud.paas.wf.util.WorkflowGraphUtils;
  * <p>
  * Actually the rule is: for each node, all set state steps must be <b>at least on a same path</b> and they should be in the <b>correct order</b> on this path.
  * <p>
- * To achieve such check, for each node we:
+ * To achieve such check without enumerating the paths of the workflow (their number grows exponentially with forks and joins) we:
  * <ul>
- * <li>list the state step states and the paths they are found on (a step can be on several paths).
- * <li>get the intersection of all these path : this way we should have at least 1 path containing all steps.
- * <li>check the order on these paths.
+ * <li>sort the steps of the workflow in topological order and group the set state steps per node in this order.
+ * <li>check that each step of a node can be reached from the previous one: the steps are then on a same path (in this order).
+ * <li>check the order of the states along this path.
  * </ul>
- * <p>
- * Maybe a more efficient algo can be found (1 pass ?) ... Feel free to have fun !
+ * Steps that are part of (or follow) a cycle are ignored, cycles are reported by {@link CycleDetection}.
  */
 @Slf4j
 public class StateSequenceValidation implements Rule {
@@ -83,111 +78,72 @@ public class StateSequenceValidation implements Rule {
             return null;
         }
         List<AbstractWorkflowError> errors = Lists.newArrayList();
-        List<Path> paths = WorkflowGraphUtils.getWorkflowGraphPaths(workflow);
-        Map<String, Map<NodeActivityStep, Set<Path>>> pathsPerNodePerStepMap = getPathsPerNodePerStepMap(paths);
-        Map<String, Set<Path>> pathsPerNodeMap = getPathsPerNodeIntersectionMap(pathsPerNodePerStepMap);
-        // now we have to ensure that for the remaining paths, the order is correct between steps
-        for (Entry<String, Set<Path>> pathSetEntry : pathsPerNodeMap.entrySet()) {
-            String nodeId = pathSetEntry.getKey();
-            if (pathSetEntry.getValue().isEmpty()) {
-                // the intersection is empty : this means that step are in parallel
+        Map<String, Integer> topologicalOrder = WorkflowGraphUtils.getTopologicalOrder(workflow);
+        for (Entry<String, List<NodeActivityStep>> stateStepsEntry : getStateStepsPerNode(workflow, topologicalOrder).entrySet()) {
+            String nodeId = stateStepsEntry.getKey();
+            List<NodeActivityStep> stateSteps = stateStepsEntry.getValue();
+            if (!isOnSamePath(workflow, stateSteps, topologicalOrder)) {
+                // the steps are in parallel
                 // TODO: which one ?
                 errors.add(new ParallelSetStatesError(nodeId));
-            }
-            for (Path path : pathSetEntry.getValue()) {
-                ensureOrderIsCorrect(nodeId, path, stateSequence, errors);
+            } else {
+                ensureOrderIsCorrect(stateSteps, stateSequence, errors);
             }
         }
         return errors;
     }
 
-    private void ensureOrderIsCorrect(String nodeId, Path path, Map<String, Integer> stateSequence, List<AbstractWorkflowError> errors) {
-        Iterator<AbstractStep> steps = path.iterator();
-        NodeActivityStep lastDetectedStep = null;
-        while (steps.hasNext()) {
-            AbstractStep step = steps.next();
-            if (step instanceof NodeActivityStep && ((NodeActivityStep) step).getNodeId().equals(nodeId)
-                    && ((NodeActivityStep) step).getActivity() instanceof SetStateActivity) {
-                String stateName = ((SetStateActivity)((NodeActivityStep) step).getActivity()).getStateName();
-                Integer stateIdx = stateSequence.get(stateName);
-                if (stateIdx == null) {
-                 // if the state is null, it can be a custom state, we don't care about it
-                    continue;
-                }
-                if (lastDetectedStep == null) {
-                    lastDetectedStep = (NodeActivityStep) step;
-                } else {
-                    String lastDetectedState = ((SetStateActivity) ((NodeActivityStep) lastDetectedStep).getActivity()).getStateName();
-                    Integer lastDetectedStateIdx = stateSequence.get(lastDetectedState);
-                    Integer currentDetectedStateIdx = stateSequence.get(stateName);
-                    if (lastDetectedStateIdx.compareTo(currentDetectedStateIdx) > 0) {
-                        errors.add(new BadStateSequenceError(lastDetectedStep.getName(), step.getName()));
-                        // throw new BadStateOrderException(String.format("Issue in the state sequence for node '%s': '%s' can not be set after the state '%s'",
-                        // nodeId, stateName,
-                        // lastDetectedState));
-                    } else {
-                        lastDetectedStep = (NodeActivityStep) step;
-                    }
-                }
+    /**
+     * Set state steps sorted in topological order are on a same path if each of them can be reached from the previous one.
+     */
+    private boolean isOnSamePath(Workflow workflow, List<NodeActivityStep> stateSteps, Map<String, Integer> topologicalOrder) {
+        for (int i = 1; i < stateSteps.size(); i++) {
+            if (!WorkflowGraphUtils.isReachable(workflow, stateSteps.get(i - 1), stateSteps.get(i), topologicalOrder)) {
+                return false;
             }
         }
+        return true;
     }
 
-    /**
-     * Per node, just keep the intersection between all the {@link Path} sets.
-     */
-    private Map<String, Set<Path>> getPathsPerNodeIntersectionMap(Map<String, Map<NodeActivityStep, Set<Path>>> pathsPerNodePerStepMap) {
-        Map<String, Set<Path>> pathsPerNodeIntersectionMap = Maps.newHashMap();
-        for (Entry<String, Map<NodeActivityStep, Set<Path>>> entry : pathsPerNodePerStepMap.entrySet()) {
-            String nodeId = entry.getKey();
-            Map<NodeActivityStep, Set<Path>> pathsPerStep = entry.getValue();
-            Iterator<Set<Path>> paths = pathsPerStep.values().iterator();
-            if (pathsPerStep.size() == 1) {
-                pathsPerNodeIntersectionMap.put(nodeId, paths.next());
-                paths.remove();
+    private void ensureOrderIsCorrect(List<NodeActivityStep> stateSteps, Map<String, Integer> stateSequence, List<AbstractWorkflowError> errors) {
+        NodeActivityStep lastDetectedStep = null;
+        Integer lastDetectedStateIdx = null;
+        for (NodeActivityStep step : stateSteps) {
+            Integer stateIdx = stateSequence.get(((SetStateActivity) step.getActivity()).getStateName());
+            if (stateIdx == null) {
+                // if the state is null, it can be a custom state, we don't care about it
+                continue;
+            }
+            if (lastDetectedStep != null && lastDetectedStateIdx.compareTo(stateIdx) > 0) {
+                errors.add(new BadStateSequenceError(lastDetectedStep.getName(), step.getName()));
             } else {
-                Set<Path> lastPaths = paths.next();
-                paths.remove();
-                while (paths.hasNext()) {
-                    Set<Path> intersection = Sets.intersection(lastPaths, paths.next());
-                    paths.remove();
-                    lastPaths = intersection;
-                }
-                pathsPerNodeIntersectionMap.put(nodeId, lastPaths);
+                lastDetectedStep = step;
+                lastDetectedStateIdx = stateIdx;
             }
         }
-        return pathsPerNodeIntersectionMap;
     }
 
     /**
-     * For each node / step, constitute a set containing all the paths in which this node has steps of type 'set state'.
-     * 
-     * @return a map using nodeId as key and the list of concerned {@link Path}s as value.
+     * Group the set state steps per node, in topological order.
+     *
+     * @return a map using nodeId as key and the set state steps of the node, sorted in topological order, as value.
      */
-    private Map<String, Map<NodeActivityStep, Set<Path>>> getPathsPerNodePerStepMap(List<Path> paths) {
-        Map<String, Map<NodeActivityStep, Set<Path>>> pathsPerNodePerStepMap = Maps.newHashMap();
-        for (Path path : paths) {
-            Iterator<AbstractStep> steps = path.iterator();
-            while (steps.hasNext()) {
-                AbstractStep step = steps.next();
-                if (step instanceof NodeActivityStep && ((NodeActivityStep) step).getActivity() instanceof SetStateActivity) {
-                    NodeActivityStep nodeActivityStep = (NodeActivityStep) step;
-                    String node = nodeActivityStep.getNodeId();
-                    Map<NodeActivityStep, Set<Path>> pathsPerStepMap = pathsPerNodePerStepMap.get(node);
-                    if (pathsPerStepMap == null) {
-                        pathsPerStepMap = Maps.newHashMap();
-                        pathsPerNodePerStepMap.put(node, pathsPerStepMap);
-                    }
-                    Set<Path> pathsPerStep = pathsPerStepMap.get(nodeActivityStep);
-                    if (pathsPerStep == null) {
-                        pathsPerStep = Sets.newHashSet();
-                        pathsPerStepMap.put(nodeActivityStep, pathsPerStep);
-                    }
-                    pathsPerStep.add(path);
+    private Map<String, List<NodeActivityStep>> getStateStepsPerNode(Workflow workflow, Map<String, Integer> topologicalOrder) {
+        Map<String, List<NodeActivityStep>> stateStepsPerNode = Maps.newHashMap();
+        // the topological order map iterates over the steps in order
+        for (String stepName : topologicalOrder.keySet()) {
+            AbstractStep step = workflow.getSteps().get(stepName);
+            if (step instanceof NodeActivityStep && ((NodeActivityStep) step).getActivity() instanceof SetStateActivity) {
+                NodeActivityStep nodeActivityStep = (NodeActivityStep) step;
+                List<NodeActivityStep> stateSteps = stateStepsPerNode.get(nodeActivityStep.getNodeId());
+                if (stateSteps == null) {
+                    stateSteps = Lists.newArrayList();
+                    stateStepsPerNode.put(nodeActivityStep.getNodeId(), stateSteps);
                 }
+                stateSteps.add(nodeActivityStep);
             }
         }
-        return pathsPerNodePerStepMap;
+        return stateStepsPerNode;
     }
 
     private Map<String, Integer> getStateSequence(Workflow workflow) {
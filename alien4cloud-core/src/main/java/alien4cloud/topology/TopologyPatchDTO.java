@@ -0,0 +1,42 @@
+package alien4cloud.topology;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.IndexedCapabilityType;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedRelationshipType;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.paas.wf.Workflow;
+
+/**
+ * Changes applied to a topology by an edition operation. Unlike {@link TopologyDTO} it contains only the node templates impacted by the operation and their
+ * types so it can be merged into the topology already known by the client.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@SuppressWarnings("PMD.UnusedPrivateField")
+public class TopologyPatchDTO {
+    private String topologyId;
+    /** Last update date of the topology after the operation. */
+    private Date lastUpdateDate;
+    /** Node templates added or updated by the operation (including their relationships). */
+    private Map<String, NodeTemplate> nodeTemplates;
+    /** Names of the node templates removed by the operation. */
+    private Set<String> removedNodeTemplates;
+    /** The dependencies of the topology that may have changed as types are loaded or unloaded. */
+    private Set<CSARDependency> dependencies;
+    /** The workflows of the topology after the operation. */
+    private Map<String, Workflow> workflows;
+    /** Types of the updated node templates and of their relationships and capabilities. */
+    private Map<String, IndexedNodeType> nodeTypes;
+    private Map<String, IndexedRelationshipType> relationshipTypes;
+    private Map<String, IndexedCapabilityType> capabilityTypes;
+}
@@ -314,6 +314,45 @@ public class TopologyService {
         return new TopologyDTO(topology, nodeTypes, relationshipTypes, capabilityTypes, outputCapabilityProperties);
     }
 
+    /**
+     * Build a patch of the topology that contains only the node templates impacted by an operation and their types.
+     *
+     * @param topology The topology after the operation.
+     * @param updatedNodeTemplates The names of the node templates added or updated by the operation.
+     * @param removedNodeTemplates The names of the node templates removed by the operation.
+     * @return The patch to apply on the topology known by the client.
+     */
+    public TopologyPatchDTO buildTopologyPatchDTO(Topology topology, Collection<String> updatedNodeTemplates, Collection<String> removedNodeTemplates) {
+        Map<String, NodeTemplate> nodeTemplates = Maps.newHashMap();
+        Map<String, IndexedRelationshipType> relationshipTypes = Maps.newHashMap();
+        for (String nodeTemplateName : updatedNodeTemplates) {
+            NodeTemplate nodeTemplate = topologyServiceCore.getNodeTemplate(topology, nodeTemplateName);
+            nodeTemplates.put(nodeTemplateName, nodeTemplate);
+            if (nodeTemplate.getRelationships() != null) {
+                for (RelationshipTemplate relationshipTemplate : nodeTemplate.getRelationships().values()) {
+                    if (!relationshipTypes.containsKey(relationshipTemplate.getType())) {
+                        relationshipTypes.put(relationshipTemplate.getType(), csarRepoSearchService.getRequiredElementInDependencies(
+                                IndexedRelationshipType.class, relationshipTemplate.getType(), topology.getDependencies()));
+                    }
+                }
+            }
+        }
+        Map<String, IndexedNodeType> nodeTypes = topologyServiceCore.getIndexedNodeTypesFromDependencies(nodeTemplates, topology.getDependencies(), false,
+                false);
+
+        TopologyPatchDTO patch = new TopologyPatchDTO();
+        patch.setTopologyId(topology.getId());
+        patch.setLastUpdateDate(topology.getLastUpdateDate());
+        patch.setNodeTemplates(nodeTemplates);
+        patch.setRemovedNodeTemplates(Sets.newHashSet(removedNodeTemplates));
+        patch.setDependencies(topology.getDependencies());
+        patch.setWorkflows(topology.getWorkflows());
+        patch.setNodeTypes(nodeTypes);
+        patch.setRelationshipTypes(relationshipTypes);
+        patch.setCapabilityTypes(getIndexedCapabilityTypes(nodeTypes.values(), topology.getDependencies()));
+        return patch;
+    }
+
     /**
      * Build a node template
      *
@@ -67,6 +67,9 @@ public class TopologyServiceCore {
     @Resource
     private ICSARRepositoryIndexerService indexerService;
 
+    @Resource
+    private TopologyWorkingCopyService workingCopyService;
+
     /**
      * The default tosca element finder will search into repo.
      */
@@ -77,8 +80,26 @@ public class TopologyServiceCore {
         }
     };
 
+    /**
+     * Get a topology given its id.
+     *
+     * @param topologyId id of the topology
+     * @return the topology or null if not found. If the topology is edited by the current thread, the in-memory working copy of the topology is returned,
+     *         else a copy of the working copy if the topology is in memory.
+     */
     public Topology getTopology(String topologyId) {
-        return alienDAO.findById(Topology.class, topologyId);
+        if (!workingCopyService.isEdited(topologyId)) {
+            Topology snapshot = workingCopyService.getSnapshot(topologyId);
+            return snapshot == null ? alienDAO.findById(Topology.class, topologyId) : snapshot;
+        }
+        Topology topology = workingCopyService.get(topologyId);
+        if (topology == null) {
+            topology = alienDAO.findById(Topology.class, topologyId);
+            if (topology != null) {
+                workingCopyService.put(topology);
+            }
+        }
+        return topology;
     }
 
     /**
@@ -421,6 +442,17 @@ public class TopologyServiceCore {
     public void save(Topology topology) {
         topology.setLastUpdateDate(new Date());
         this.alienDAO.save(topology);
+        workingCopyService.onSave(topology);
+    }
+
+    /**
+     * Delete a topology.
+     *
+     * @param topologyId The id of the topology to delete.
+     */
+    public void delete(String topologyId) {
+        workingCopyService.evict(topologyId);
+        alienDAO.delete(Topology.class, topologyId);
     }
 
     public void updateSubstitutionType(final Topology topology) {
@@ -0,0 +1,222 @@
+package alien4cloud.topology;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import javax.annotation.PostConstruct;
+
+import lombok.SneakyThrows;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.dao.ElasticSearchMapper;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.utils.CacheMetricSet;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * Keeps in memory a working copy of the topologies under edition so successive edition requests on a topology don't have to fetch and de-serialize it from
+ * elastic search.
+ *
+ * The working copy is only handed to the thread editing the topology: an edition (started by {@link #startEdition(String)}) is exclusive and must end on the
+ * thread that started it. Readers get their own copy of the working copy ({@link #getSnapshot(String)}), taken while no edition is running, so they never
+ * share the mutable instance nor hold a lock while they use it. Topologies are still written to elastic search on every save so other services (deployment,
+ * composition, search) always read an up-to-date topology.
+ */
+@Component
+public class TopologyWorkingCopyService implements MetricSet {
+    /** Maximum number of topologies kept in memory (0 disables the working copies). */
+    @Value("${topology.working_copy.max_size:100}")
+    private int maxSize;
+    /** Time in minutes after which a topology that is not edited anymore is removed from memory. */
+    @Value("${topology.working_copy.ttl_minutes:10}")
+    private int ttlMinutes;
+
+    private Cache<String, Topology> workingCopies;
+    private final Striped<ReadWriteLock> editionLocks = Striped.readWriteLock(64);
+    private final ThreadLocal<Edition> currentEdition = new ThreadLocal<Edition>();
+    /** Mapper used to copy the working copies handed to readers, creating a mapper is expensive so it is shared. */
+    private final ObjectMapper mapper = ElasticSearchMapper.getInstance();
+
+    @PostConstruct
+    public void init() {
+        if (maxSize > 0) {
+            workingCopies = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterAccess(ttlMinutes, TimeUnit.MINUTES).recordStats().build();
+        }
+    }
+
+    /**
+     * Start the edition of a topology by the current thread, waiting for the other editions of the topology to complete.
+     *
+     * @param topologyId The id of the edited topology.
+     * @return True if the edition has been started, false if working copies are disabled or if the thread is already editing a topology.
+     */
+    public boolean startEdition(String topologyId) {
+        if (workingCopies == null || currentEdition.get() != null) {
+            return false;
+        }
+        Lock lock = editionLocks.get(topologyId).writeLock();
+        lock.lock();
+        currentEdition.set(new Edition(topologyId, lock));
+        return true;
+    }
+
+    /**
+     * End the edition of a topology by the current thread (the one that started it).
+     *
+     * @param failed True if the edition failed.
+     */
+    public void endEdition(boolean failed) {
+        Edition edition = currentEdition.get();
+        if (edition == null) {
+            return;
+        }
+        try {
+            if (failed || !edition.saved) {
+                // the working copy may have been partially modified and differ from the persisted topology.
+                workingCopies.invalidate(edition.topologyId);
+            }
+        } finally {
+            currentEdition.remove();
+            edition.lock.unlock();
+        }
+    }
+
+    /**
+     * @param topologyId The id of a topology.
+     * @return True if the topology is edited by the current thread.
+     */
+    public boolean isEdited(String topologyId) {
+        Edition edition = currentEdition.get();
+        return edition != null && edition.topologyId.equals(topologyId);
+    }
+
+    /**
+     * Get the working copy of the topology edited by the current thread.
+     *
+     * @param topologyId The id of the topology.
+     * @return The working copy or null if the topology is not edited by the current thread or not yet in memory.
+     */
+    public Topology get(String topologyId) {
+        if (!isEdited(topologyId)) {
+            return null;
+        }
+        return workingCopies.getIfPresent(topologyId);
+    }
+
+    /**
+     * Get a copy of the working copy of a topology for a reader that doesn't edit the topology. The copy is taken once the running edition of the topology
+     * (if any) completes.
+     *
+     * @param topologyId The id of the topology.
+     * @return A copy of the working copy or null if working copies are disabled or if the topology is not in memory.
+     */
+    public Topology getSnapshot(String topologyId) {
+        if (workingCopies == null) {
+            return null;
+        }
+        Lock lock = editionLocks.get(topologyId).readLock();
+        lock.lock();
+        try {
+            Topology topology = workingCopies.getIfPresent(topologyId);
+            return topology == null ? null : copy(topology);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @SneakyThrows({ IOException.class })
+    private Topology copy(Topology topology) {
+        return mapper.readValue(mapper.writeValueAsBytes(topology), Topology.class);
+    }
+
+    /**
+     * Register the topology edited by the current thread as a working copy.
+     *
+     * @param topology The topology as loaded from elastic search.
+     */
+    public void put(Topology topology) {
+        if (isEdited(topology.getId())) {
+            workingCopies.put(topology.getId(), topology);
+        }
+    }
+
+    /**
+     * Notify that a topology has been persisted.
+     *
+     * @param topology The persisted topology.
+     */
+    public void onSave(Topology topology) {
+        if (workingCopies == null) {
+            return;
+        }
+        if (isEdited(topology.getId()) && workingCopies.getIfPresent(topology.getId()) == topology) {
+            currentEdition.get().saved = true;
+        } else {
+            // the topology has been updated from another instance, the working copy is outdated.
+            evict(topology.getId());
+        }
+    }
+
+    /**
+     * Remove the working copy of a topology (for example when the topology is deleted).
+     *
+     * @param topologyId The id of the topology.
+     */
+    public void evict(String topologyId) {
+        if (workingCopies != null) {
+            workingCopies.invalidate(topologyId);
+        }
+    }
+
+    /**
+     * Remove all the working copies, must be called when topologies may have been modified directly in elastic search.
+     */
+    public void invalidateAll() {
+        if (workingCopies != null) {
+            workingCopies.invalidateAll();
+        }
+    }
+
+    /**
+     * @return The hits, misses and evictions of the working copies.
+     */
+    public CacheStats getCacheStats() {
+        return workingCopies == null ? new CacheStats(0, 0, 0, 0, 0, 0) : workingCopies.stats();
+    }
+
+    /**
+     * @return The number of topologies currently in memory.
+     */
+    public long getCacheSize() {
+        return workingCopies == null ? 0 : workingCopies.size();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return new CacheMetricSet(workingCopies).getMetrics();
+    }
+
+    /** Edition of a topology by a thread. */
+    private static final class Edition {
+        private final String topologyId;
+        private final Lock lock;
+        private boolean saved;
+
+        private Edition(String topologyId, Lock lock) {
+            this.topologyId = topologyId;
+            this.lock = lock;
+        }
+    }
+}
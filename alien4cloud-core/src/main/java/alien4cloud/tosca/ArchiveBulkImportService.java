@@ -0,0 +1,263 @@
+package alien4cloud.tosca;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.inject.Inject;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.component.repository.exception.CSARVersionAlreadyExistsException;
+import alien4cloud.csar.services.CsarService;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.Csar;
+import alien4cloud.model.git.CsarDependenciesBean;
+import alien4cloud.tosca.model.ArchiveImportReport;
+import alien4cloud.tosca.model.ArchiveRoot;
+import alien4cloud.tosca.parser.ParsingContext;
+import alien4cloud.tosca.parser.ParsingError;
+import alien4cloud.tosca.parser.ParsingErrorLevel;
+import alien4cloud.tosca.parser.ParsingException;
+import alien4cloud.tosca.parser.ParsingResult;
+import alien4cloud.tosca.parser.impl.ErrorCode;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Import a set of archives that may depend on each others.
+ *
+ * Archives are parsed in parallel, then imported level by level in the order of their dependencies. Archives of a level are parsed again (in parallel) only
+ * if they depend on an archive of the set as their dependencies could not be resolved before being imported.
+ */
+@Slf4j
+@Component
+public class ArchiveBulkImportService {
+    @Inject
+    private ArchiveParser parser;
+    @Inject
+    private ArchiveUploadService uploadService;
+    @Inject
+    private CsarService csarService;
+    /** Maximum number of archives parsed concurrently. */
+    @Value("${archive.import.parallelism:4}")
+    private int parallelism = 4;
+
+    /**
+     * Import a set of archives.
+     *
+     * @param paths The paths of the archives to import.
+     * @param skipExisting True if the archives that already exists in the repository should not be imported again.
+     * @return The reports of the import of every archive, ordered by import order (archives that cannot be imported are at the end). Skipped archives have
+     *         an {@link ParsingErrorLevel#INFO} {@link ErrorCode#CSAR_ALREADY_EXISTS} message in their parsing result.
+     */
+    public List<ArchiveImportReport> importArchives(Collection<Path> paths, boolean skipExisting) {
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            Map<Path, ArchiveImportReport> reports = Maps.newLinkedHashMap();
+            for (Path path : paths) {
+                reports.put(path, new ArchiveImportReport(path));
+            }
+            ConcurrentMap<Path, ParsingResult<ArchiveRoot>> parsingResults = parse(pool, reports.values());
+
+            List<ArchiveImportReport> importedReports = Lists.newArrayList();
+            Map<CsarDependenciesBean, Integer> remainingDependencies = Maps.newHashMap();
+            List<CsarDependenciesBean> level = buildDependencyGraph(reports, parsingResults, remainingDependencies);
+            boolean firstLevel = true;
+            while (!level.isEmpty()) {
+                if (!firstLevel) {
+                    // archives of the level depend on archives that were not yet imported when they have been parsed.
+                    List<ArchiveImportReport> toParse = Lists.newArrayList();
+                    for (CsarDependenciesBean bean : level) {
+                        ArchiveImportReport report = reports.get(bean.getPath());
+                        if (report.getParsingResult() == null) {
+                            toParse.add(report);
+                        }
+                    }
+                    parsingResults.putAll(parse(pool, toParse));
+                }
+                List<CsarDependenciesBean> nextLevel = Lists.newArrayList();
+                for (CsarDependenciesBean bean : level) {
+                    ArchiveImportReport report = reports.get(bean.getPath());
+                    boolean available = importArchive(report, parsingResults.get(bean.getPath()), skipExisting);
+                    importedReports.add(report);
+                    for (CsarDependenciesBean dependent : bean.getDependents()) {
+                        if (!available) {
+                            addError(reports.get(dependent.getPath()), ErrorCode.MISSING_DEPENDENCY, "Dependency " + bean.getSelf().getName() + ":"
+                                    + bean.getSelf().getVersion() + " cannot be imported.");
+                        }
+                        int remaining = remainingDependencies.get(dependent) - 1;
+                        remainingDependencies.put(dependent, remaining);
+                        if (remaining == 0) {
+                            nextLevel.add(dependent);
+                        }
+                    }
+                }
+                sortByName(nextLevel);
+                level = nextLevel;
+                firstLevel = false;
+            }
+
+            for (Map.Entry<CsarDependenciesBean, Integer> remaining : remainingDependencies.entrySet()) {
+                if (remaining.getValue() > 0) {
+                    addError(reports.get(remaining.getKey().getPath()), ErrorCode.MISSING_DEPENDENCY, "Archive is part of a dependency cycle.");
+                }
+            }
+            for (ArchiveImportReport report : reports.values()) {
+                if (!importedReports.contains(report)) {
+                    importedReports.add(report);
+                }
+            }
+            log.info("Imported {} archives in {} ms", paths.size(), System.currentTimeMillis() - start);
+            return importedReports;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private ConcurrentMap<Path, ParsingResult<ArchiveRoot>> parse(ForkJoinPool pool, Collection<ArchiveImportReport> reports) {
+        final ConcurrentMap<Path, ParsingResult<ArchiveRoot>> parsingResults = Maps.newConcurrentMap();
+        List<Callable<Void>> parsingTasks = Lists.newArrayList();
+        for (final ArchiveImportReport report : reports) {
+            parsingTasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    long start = System.currentTimeMillis();
+                    try {
+                        parsingResults.put(report.getPath(), parser.parse(report.getPath()));
+                    } catch (ParsingException e) {
+                        log.debug("Not able to parse archive <" + report.getPath() + ">", e);
+                        ParsingContext context = new ParsingContext(report.getPath().getFileName().toString());
+                        context.getParsingErrors().addAll(e.getParsingErrors());
+                        report.setParsingResult(new ParsingResult<Csar>(null, context));
+                    } catch (RuntimeException e) {
+                        log.error("Unexpected error while parsing archive <" + report.getPath() + ">", e);
+                        addError(report, ErrorCode.ERRONEOUS_ARCHIVE_FILE, e.getMessage());
+                    } finally {
+                        report.setParsingTime(report.getParsingTime() + System.currentTimeMillis() - start);
+                    }
+                    return null;
+                }
+            });
+        }
+        pool.invokeAll(parsingTasks);
+        return parsingResults;
+    }
+
+    /**
+     * Build the dependency graph of the parsed archives.
+     *
+     * @return The archives that doesn't depend on any other archive of the set.
+     */
+    private List<CsarDependenciesBean> buildDependencyGraph(Map<Path, ArchiveImportReport> reports, Map<Path, ParsingResult<ArchiveRoot>> parsingResults,
+            Map<CsarDependenciesBean, Integer> remainingDependencies) {
+        Map<String, CsarDependenciesBean> beans = Maps.newHashMap();
+        for (Map.Entry<Path, ParsingResult<ArchiveRoot>> parsingResult : parsingResults.entrySet()) {
+            Csar archive = parsingResult.getValue().getResult().getArchive();
+            CsarDependenciesBean bean = new CsarDependenciesBean();
+            bean.setPath(parsingResult.getKey());
+            bean.setSelf(new CSARDependency(archive.getName(), archive.getVersion()));
+            bean.setDependencies(archive.getDependencies() == null ? Sets.<CSARDependency> newHashSet() : Sets.newHashSet(archive.getDependencies()));
+            reports.get(bean.getPath()).setArchive(bean.getSelf());
+            if (beans.containsKey(getKey(bean.getSelf()))) {
+                addError(reports.get(bean.getPath()), ErrorCode.CSAR_ALREADY_EXISTS, "Archive is defined more than once in the imported archives.");
+                continue;
+            }
+            beans.put(getKey(bean.getSelf()), bean);
+        }
+
+        List<CsarDependenciesBean> independents = Lists.newArrayList();
+        for (CsarDependenciesBean bean : beans.values()) {
+            int count = 0;
+            for (CSARDependency dependency : bean.getDependencies()) {
+                // dependencies that are not part of the set must already be in the repository.
+                CsarDependenciesBean providedDependency = beans.get(getKey(dependency));
+                if (providedDependency != null && providedDependency.getDependents().add(bean)) {
+                    count++;
+                }
+            }
+            remainingDependencies.put(bean, count);
+            if (count == 0) {
+                independents.add(bean);
+            }
+        }
+        sortByName(independents);
+        return independents;
+    }
+
+    /**
+     * Import a parsed archive.
+     *
+     * @return True if the archive is available in the repository after the import.
+     */
+    private boolean importArchive(ArchiveImportReport report, ParsingResult<ArchiveRoot> parsingResult, boolean skipExisting) {
+        if (report.getParsingResult() != null && ArchiveUploadService.hasError(report.getParsingResult(), ParsingErrorLevel.ERROR)) {
+            // a dependency cannot be imported or the archive cannot be parsed anymore.
+            return false;
+        }
+        CSARDependency archive = report.getArchive();
+        if (skipExisting && csarService.getIfExists(archive.getName(), archive.getVersion()) != null) {
+            report.setSkipped(true);
+            addIssue(report, ParsingErrorLevel.INFO, ErrorCode.CSAR_ALREADY_EXISTS,
+                    "Archive already exists in the repository, it has not been imported again.");
+            return true;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            ParsingResult<Csar> result = uploadService.upload(report.getPath(), parsingResult);
+            report.setParsingResult(result);
+            return !ArchiveUploadService.hasError(result, ParsingErrorLevel.ERROR);
+        } catch (CSARVersionAlreadyExistsException e) {
+            log.debug("Skipping import of archive <{}>. Archive has already been imported.", report.getPath());
+            addError(report, ErrorCode.CSAR_ALREADY_EXISTS, e.getMessage());
+            // the released version is in the repository so dependent archives can be imported.
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to import archive <" + report.getPath() + ">", e);
+            addError(report, ErrorCode.ERRONEOUS_ARCHIVE_FILE, e.getMessage());
+            return false;
+        } finally {
+            report.setImportTime(System.currentTimeMillis() - start);
+        }
+    }
+
+    private void addError(ArchiveImportReport report, ErrorCode errorCode, String problem) {
+        addIssue(report, ParsingErrorLevel.ERROR, errorCode, problem);
+    }
+
+    private void addIssue(ArchiveImportReport report, ParsingErrorLevel level, ErrorCode errorCode, String problem) {
+        synchronized (report) {
+            if (report.getParsingResult() == null) {
+                report.setParsingResult(new ParsingResult<Csar>(null, new ParsingContext(report.getPath().getFileName().toString())));
+            }
+            report.getParsingResult().getContext().getParsingErrors()
+                    .add(new ParsingError(level, errorCode, "Bulk import", null, problem, null, report.getPath().toString()));
+        }
+    }
+
+    private static String getKey(CSARDependency dependency) {
+        return dependency.getName() + ":" + dependency.getVersion();
+    }
+
+    private static void sortByName(List<CsarDependenciesBean> beans) {
+        // import archives of a level in a predictable order.
+        Collections.sort(beans, new Comparator<CsarDependenciesBean>() {
+            @Override
+            public int compare(CsarDependenciesBean left, CsarDependenciesBean right) {
+                return getKey(left.getSelf()).compareTo(getKey(right.getSelf()));
+            }
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package alien4cloud.tosca;
 
+import alien4cloud.component.ArchiveIndexingReport;
 import alien4cloud.component.ICSARRepositoryIndexerService;
 import alien4cloud.component.ICSARRepositorySearchService;
 import alien4cloud.component.repository.ICsarRepositry;
@@ -21,13 +22,17 @@ import alien4cloud.tosca.parser.ParsingErrorLevel;
 import alien4cloud.tosca.parser.ToscaParsingUtil;
 import alien4cloud.tosca.parser.impl.ErrorCode;
 import alien4cloud.utils.VersionUtil;
+import com.google.common.collect.Lists;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @Component
 public class ArchiveIndexer {
     @Inject
@@ -138,56 +143,39 @@ public class ArchiveIndexer {
      * @param archiveVersion The version of the archive.
      * @param root           The archive root.
      * @param update         true if the archive is updated, false if the archive is just indexed.
+     * @return The timings of the indexing.
      */
-    public void indexArchive(String archiveName, String archiveVersion, ArchiveRoot root, boolean update) {
+    public ArchiveIndexingReport indexArchive(String archiveName, String archiveVersion, ArchiveRoot root, boolean update) {
+        Collection<IndexedToscaElement> previousElements = null;
         if (update) {
             // get element from the archive so we get the creation date.
-            Map<String, IndexedToscaElement> previousElements = indexerService.getArchiveElements(archiveName, archiveVersion);
-            prepareForUpdate(archiveName, archiveVersion, root, previousElements);
-            // delete all previous elements and their images
-            indexerService.deleteElements(previousElements.values());
+            previousElements = indexerService.getArchiveElements(archiveName, archiveVersion).values();
         }
-
-        performIndexing(archiveName, archiveVersion, root);
+        List<IndexedInheritableToscaElement> elements = Lists.newArrayList();
+        collectElements(root, elements);
+        ArchiveIndexingReport report = indexerService.indexArchiveElements(archiveName, archiveVersion, elements, root.getArchive().getDependencies(),
+                previousElements);
+        log.info("Indexed archive {}", report);
+        return report;
     }
 
-    private void prepareForUpdate(String archiveName, String archiveVersion, ArchiveRoot root, Map<String, IndexedToscaElement> previousElements) {
-        updateCreationDates(root.getArtifactTypes(), previousElements);
-        updateCreationDates(root.getCapabilityTypes(), previousElements);
-        updateCreationDates(root.getNodeTypes(), previousElements);
-        updateCreationDates(root.getRelationshipTypes(), previousElements);
-        updateCreationDates(root.getDataTypes(), previousElements);
+    private void collectElements(ArchiveRoot root, List<IndexedInheritableToscaElement> elements) {
+        addElements(root.getArtifactTypes(), elements);
+        addElements(root.getCapabilityTypes(), elements);
+        addElements(root.getNodeTypes(), elements);
+        addElements(root.getRelationshipTypes(), elements);
+        addElements(root.getDataTypes(), elements);
 
         if (root.getLocalImports() != null) {
             for (ArchiveRoot child : root.getLocalImports()) {
-                prepareForUpdate(archiveName, archiveVersion, child, previousElements);
-            }
-        }
-    }
-
-    private void updateCreationDates(Map<String, ? extends IndexedInheritableToscaElement> newElements, Map<String, IndexedToscaElement> previousElements) {
-        if (newElements == null) {
-            return;
-        }
-        for (IndexedInheritableToscaElement newElement : newElements.values()) {
-            IndexedToscaElement previousElement = previousElements.get(newElement.getId());
-            if (previousElement != null) {
-                newElement.setCreationDate(previousElement.getCreationDate());
+                collectElements(child, elements);
             }
         }
     }
 
-    private void performIndexing(String archiveName, String archiveVersion, ArchiveRoot root) {
-        indexerService.indexInheritableElements(archiveName, archiveVersion, root.getArtifactTypes(), root.getArchive().getDependencies());
-        indexerService.indexInheritableElements(archiveName, archiveVersion, root.getCapabilityTypes(), root.getArchive().getDependencies());
-        indexerService.indexInheritableElements(archiveName, archiveVersion, root.getNodeTypes(), root.getArchive().getDependencies());
-        indexerService.indexInheritableElements(archiveName, archiveVersion, root.getRelationshipTypes(), root.getArchive().getDependencies());
-        indexerService.indexInheritableElements(archiveName, archiveVersion, root.getDataTypes(), root.getArchive().getDependencies());
-
-        if (root.getLocalImports() != null) {
-            for (ArchiveRoot child : root.getLocalImports()) {
-                performIndexing(archiveName, archiveVersion, child);
-            }
+    private void addElements(Map<String, ? extends IndexedInheritableToscaElement> archiveElements, List<IndexedInheritableToscaElement> elements) {
+        if (archiveElements != null) {
+            elements.addAll(archiveElements.values());
         }
     }
-}
\ No newline at end of file
+}
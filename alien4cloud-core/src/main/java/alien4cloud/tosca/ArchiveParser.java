@@ -40,6 +40,8 @@ public class ArchiveParser {
     private Validator validator;
     @Inject
     private ArchivePostProcessor postProcessor;
+    @Inject
+    private ArchiveParsingCache parsingCache;
 
     /**
      * Parse an archive file from a zip.
@@ -49,6 +51,19 @@ public class ArchiveParser {
      * @throws ParsingException
      */
     public ParsingResult<ArchiveRoot> parse(Path archiveFile) throws ParsingException {
+        String cacheKey = parsingCache.getKey(archiveFile);
+        ParsingResult<ArchiveRoot> parsingResult = parsingCache.get(cacheKey);
+        if (parsingResult != null) {
+            log.debug("Parsing result of archive [{}] retrieved from cache", archiveFile);
+            return parsingResult;
+        }
+        long start = System.currentTimeMillis();
+        parsingResult = doParse(archiveFile);
+        parsingCache.put(cacheKey, parsingResult, System.currentTimeMillis() - start);
+        return parsingResult;
+    }
+
+    private ParsingResult<ArchiveRoot> doParse(Path archiveFile) throws ParsingException {
         FileSystem csarFS;
         try {
             csarFS = FileSystems.newFileSystem(archiveFile, null);
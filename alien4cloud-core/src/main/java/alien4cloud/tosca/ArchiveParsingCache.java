@@ -0,0 +1,366 @@
+package alien4cloud.tosca;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.annotation.PostConstruct;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.dao.ElasticSearchMapper;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.Csar;
+import alien4cloud.tosca.model.ArchiveRoot;
+import alien4cloud.tosca.parser.ParsingErrorLevel;
+import alien4cloud.tosca.parser.ParsingResult;
+import alien4cloud.utils.VersionUtil;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Content addressed cache of the results of archives parsing.
+ *
+ * Parsing results are stored on disk, serialized in json and identified by the SHA-256 of the parser version and of the archive file, so results of a previous
+ * version of the parser or of the model are never reused (they are evicted as least recently used entries). The cache is bounded by the total size of its
+ * entries, least recently used entries being evicted first.
+ *
+ * As the parsing of an archive resolves types from its dependencies, only results without errors whose dependencies are all released are cached (released
+ * archives cannot be overridden). The cache has to be cleared when an archive is deleted from the repository.
+ */
+@Slf4j
+@Component
+public class ArchiveParsingCache implements MetricSet {
+    private static final String ENTRY_EXTENSION = ".json";
+    private static final String TEMP_EXTENSION = ".tmp";
+    /** Version of the cached parsing results, to increment when a change of the parser or of the model changes the result of the parsing of an archive. */
+    private static final int CACHE_FORMAT_VERSION = 1;
+
+    /** Directory in which the parsing results are stored. */
+    @Value("${directories.alien}/parsing_cache")
+    private String cacheDirectory;
+    /** Maximum total size in bytes of the cached parsing results (0 disables the cache). */
+    @Value("${archive.parsing_cache.max_size:268435456}")
+    private long maxSize;
+
+    private final ObjectMapper mapper = ElasticSearchMapper.getInstance();
+    private Path cachePath;
+    /** Version of alien4cloud and of the cache format, part of the key of the entries. */
+    private String parserVersion;
+    /** Size of the cached entries by key, in access order. */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long size;
+
+    private final Counter hitCount = new Counter();
+    private final Counter missCount = new Counter();
+    private final Counter timeSaved = new Counter();
+
+    @PostConstruct
+    public void init() {
+        if (maxSize <= 0) {
+            log.info("Archive parsing cache is disabled");
+            return;
+        }
+        cachePath = Paths.get(cacheDirectory);
+        parserVersion = CACHE_FORMAT_VERSION + "/" + getAlienVersion();
+        try {
+            Files.createDirectories(cachePath);
+            List<Path> entryPaths = Lists.newArrayList();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(cachePath)) {
+                for (Path path : stream) {
+                    String fileName = path.getFileName().toString();
+                    if (fileName.endsWith(ENTRY_EXTENSION)) {
+                        entryPaths.add(path);
+                    } else if (fileName.endsWith(TEMP_EXTENSION)) {
+                        // temporary file of an interrupted write.
+                        Files.deleteIfExists(path);
+                    }
+                }
+            }
+            // restore the access order from the last modification date of the entries.
+            Collections.sort(entryPaths, new Comparator<Path>() {
+                @Override
+                public int compare(Path left, Path right) {
+                    return Long.compare(left.toFile().lastModified(), right.toFile().lastModified());
+                }
+            });
+            synchronized (entries) {
+                for (Path path : entryPaths) {
+                    String fileName = path.getFileName().toString();
+                    register(fileName.substring(0, fileName.length() - ENTRY_EXTENSION.length()), Files.size(path));
+                }
+            }
+            log.info("Archive parsing cache initialized in <{}> with {} entries ({} bytes)", cachePath, entries.size(), size);
+        } catch (IOException e) {
+            log.warn("Unable to initialize archive parsing cache in <" + cacheDirectory + ">, cache is disabled", e);
+            cachePath = null;
+        }
+    }
+
+    /**
+     * Compute the key of an archive in the cache.
+     *
+     * @param archiveFile The archive file.
+     * @return The SHA-256 of the parser version and of the archive file or null if the cache is disabled or if the file cannot be read.
+     */
+    public String getKey(Path archiveFile) {
+        if (cachePath == null || !Files.isRegularFile(archiveFile)) {
+            return null;
+        }
+        try {
+            Hasher hasher = Hashing.sha256().newHasher().putString(parserVersion, StandardCharsets.UTF_8);
+            com.google.common.io.Files.asByteSource(archiveFile.toFile()).copyTo(Funnels.asOutputStream(hasher));
+            return hasher.hash().toString();
+        } catch (IOException e) {
+            log.debug("Unable to compute hash of archive <" + archiveFile + ">", e);
+            return null;
+        }
+    }
+
+    /**
+     * Get the cached parsing result of an archive.
+     *
+     * @param key The key of the archive as returned by {@link #getKey(Path)}.
+     * @return A new instance of the cached parsing result or null if the archive is not in the cache.
+     */
+    public ParsingResult<ArchiveRoot> get(String key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (entries) {
+            if (entries.get(key) == null) {
+                missCount.inc();
+                return null;
+            }
+        }
+        long start = System.currentTimeMillis();
+        Path entryPath = getEntryPath(key);
+        try {
+            CachedParsingResult cached = mapper.readValue(entryPath.toFile(), CachedParsingResult.class);
+            // keep track of the access order on disk.
+            Files.setLastModifiedTime(entryPath, FileTime.fromMillis(System.currentTimeMillis()));
+            hitCount.inc();
+            timeSaved.inc(Math.max(0, cached.getParsingTime() - (System.currentTimeMillis() - start)));
+            return cached.getParsingResult();
+        } catch (IOException e) {
+            // entry has been evicted or cannot be read anymore (model may have changed).
+            log.debug("Unable to read cached parsing result <" + entryPath + ">", e);
+            synchronized (entries) {
+                unregister(key);
+            }
+            missCount.inc();
+            return null;
+        }
+    }
+
+    /**
+     * Add the parsing result of an archive to the cache if it can be reused for later parsing of the same archive.
+     *
+     * @param key The key of the archive as returned by {@link #getKey(Path)}.
+     * @param parsingResult The result of the parsing of the archive.
+     * @param parsingTime The time in milliseconds spent to parse the archive.
+     */
+    public void put(String key, ParsingResult<ArchiveRoot> parsingResult, long parsingTime) {
+        if (key == null || !isCacheable(parsingResult)) {
+            return;
+        }
+        Path tempPath = null;
+        try {
+            tempPath = Files.createTempFile(cachePath, key, TEMP_EXTENSION);
+            mapper.writeValue(tempPath.toFile(), new CachedParsingResult(parsingResult, parsingTime));
+            Path entryPath = getEntryPath(key);
+            Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (entries) {
+                unregister(key);
+                register(key, Files.size(entryPath));
+            }
+        } catch (IOException | RuntimeException e) {
+            // parsing result cannot be serialized, the archive will just be parsed again.
+            log.debug("Unable to cache parsing result of archive <" + parsingResult.getContext().getFileName() + ">", e);
+            deleteQuietly(tempPath);
+        }
+    }
+
+    /**
+     * Remove all the parsing results from the cache.
+     */
+    public void clear() {
+        if (cachePath == null) {
+            return;
+        }
+        synchronized (entries) {
+            for (String key : Lists.newArrayList(entries.keySet())) {
+                unregister(key);
+            }
+        }
+    }
+
+    private String getAlienVersion() {
+        ClassPathResource versionResource = new ClassPathResource("version.yml");
+        if (!versionResource.exists()) {
+            return null;
+        }
+        YamlPropertiesFactoryBean propertiesFactoryBean = new YamlPropertiesFactoryBean();
+        propertiesFactoryBean.setResources(new Resource[] { versionResource });
+        Properties properties = propertiesFactoryBean.getObject();
+        return properties.getProperty("version");
+    }
+
+    private boolean isCacheable(ParsingResult<ArchiveRoot> parsingResult) {
+        if (ArchiveUploadService.hasError(parsingResult, ParsingErrorLevel.ERROR)) {
+            // errors may be related to dependencies that are not yet in the repository.
+            return false;
+        }
+        Csar archive = parsingResult.getResult().getArchive();
+        if (archive.getName() == null || archive.getVersion() == null) {
+            return false;
+        }
+        if (archive.getDependencies() != null) {
+            for (CSARDependency dependency : archive.getDependencies()) {
+                if (VersionUtil.isSnapshot(dependency.getVersion())) {
+                    // snapshot dependencies may be updated and change the result of the parsing.
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void register(String key, long entrySize) {
+        entries.put(key, entrySize);
+        size += entrySize;
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.getValue();
+            deleteQuietly(getEntryPath(eldest.getKey()));
+        }
+    }
+
+    private void unregister(String key) {
+        Long entrySize = entries.remove(key);
+        if (entrySize != null) {
+            size -= entrySize;
+            deleteQuietly(getEntryPath(key));
+        }
+    }
+
+    private Path getEntryPath(String key) {
+        return cachePath.resolve(key + ENTRY_EXTENSION);
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete archive parsing cache file <" + path + ">", e);
+        }
+    }
+
+    /**
+     * @return The number of parsing results retrieved from the cache.
+     */
+    public long getHitCount() {
+        return hitCount.getCount();
+    }
+
+    /**
+     * @return The number of archives that have not been found in the cache.
+     */
+    public long getMissCount() {
+        return missCount.getCount();
+    }
+
+    /**
+     * @return The time in milliseconds saved by retrieving parsing results from the cache rather than parsing the archives.
+     */
+    public long getTimeSaved() {
+        return timeSaved.getCount();
+    }
+
+    /**
+     * @return The number of parsing results in the cache.
+     */
+    public int getEntryCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return The total size in bytes of the parsing results in the cache.
+     */
+    public long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("time_saved_ms", timeSaved);
+        metrics.put("entries", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return getEntryCount();
+            }
+        });
+        metrics.put("size_bytes", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getSize();
+            }
+        });
+        return metrics;
+    }
+
+    /** Entry of the cache stored on disk. */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @SuppressWarnings("PMD.UnusedPrivateField")
+    private static class CachedParsingResult {
+        private ParsingResult<ArchiveRoot> parsingResult;
+        /** Time in milliseconds spent to parse the archive. */
+        private long parsingTime;
+    }
+}
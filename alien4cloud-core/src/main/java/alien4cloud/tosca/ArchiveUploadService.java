@@ -1,8 +1,6 @@
 package alien4cloud.tosca;
 
 import java.nio.file.Path;
-import java.util.Map;
-import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -11,9 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import alien4cloud.component.repository.exception.CSARVersionAlreadyExistsException;
-import alien4cloud.model.components.CSARDependency;
 import alien4cloud.model.components.Csar;
-import alien4cloud.model.git.CsarDependenciesBean;
 import alien4cloud.security.AuthorizationUtil;
 import alien4cloud.security.model.Role;
 import alien4cloud.topology.TopologyServiceCore;
@@ -25,8 +21,6 @@ import alien4cloud.tosca.parser.ParsingErrorLevel;
 import alien4cloud.tosca.parser.ParsingException;
 import alien4cloud.tosca.parser.ParsingResult;
 
-import com.google.common.collect.Maps;
-
 @Component
 @Slf4j
 public class ArchiveUploadService {
@@ -51,7 +45,18 @@ public class ArchiveUploadService {
     public ParsingResult<Csar> upload(Path path) throws ParsingException, CSARVersionAlreadyExistsException {
         // parse the archive.
         ParsingResult<ArchiveRoot> parsingResult = parser.parse(path);
+        return upload(path, parsingResult);
+    }
 
+    /**
+     * Index the components of an already parsed TOSCA archive.
+     * 
+     * @param path The archive path.
+     * @param parsingResult The result of the parsing of the archive.
+     * @return The Csar object from the parsing.
+     * @throws CSARVersionAlreadyExistsException
+     */
+    public ParsingResult<Csar> upload(Path path, ParsingResult<ArchiveRoot> parsingResult) throws CSARVersionAlreadyExistsException {
         final ArchiveRoot archiveRoot = parsingResult.getResult();
         if (archiveRoot.hasToscaTopologyTemplate()) {
             AuthorizationUtil.checkHasOneRoleIn(Role.ARCHITECT, Role.ADMIN);
@@ -73,25 +78,6 @@ public class ArchiveUploadService {
         return toSimpleResult(parsingResult);
     }
 
-    public Map<CSARDependency, CsarDependenciesBean> preParsing(Set<Path> paths) throws ParsingException {
-        Map<CSARDependency, CsarDependenciesBean> csarDependenciesBeans = Maps.newHashMap();
-        for (Path path : paths) {
-            try {
-                ParsingResult<ArchiveRoot> parsingResult = parser.parse(path);
-                CsarDependenciesBean csarDepContainer = new CsarDependenciesBean();
-                csarDepContainer.setPath(path);
-                csarDepContainer.setSelf(new CSARDependency(parsingResult.getResult().getArchive().getName(), parsingResult.getResult().getArchive()
-                        .getVersion()));
-                csarDepContainer.setDependencies(parsingResult.getResult().getArchive().getDependencies());
-                csarDependenciesBeans.put(csarDepContainer.getSelf(), csarDepContainer);
-            } catch (Exception e) {
-                // TODO: error should be returned in a way or another
-                log.debug("Not able to parse archive, ignoring it", e);
-            }
-        }
-        return csarDependenciesBeans;
-    }
-
     /**
      * Create a simple result without all the parsed data but just the {@link Csar} object as well as the eventual errors.
      * 
@@ -0,0 +1,37 @@
+package alien4cloud.tosca.model;
+
+import java.nio.file.Path;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.Csar;
+import alien4cloud.tosca.parser.ParsingResult;
+
+/**
+ * Result of the import of an archive as part of a bulk import.
+ */
+@Getter
+@Setter
+@ToString(exclude = "parsingResult")
+@SuppressWarnings("PMD.UnusedPrivateField")
+public class ArchiveImportReport {
+    /** Path of the imported archive file. */
+    private final Path path;
+    /** Name and version of the archive, null if the archive cannot be parsed. */
+    private CSARDependency archive;
+    /** Result of the import of the archive including parsing errors. */
+    private ParsingResult<Csar> parsingResult;
+    /** True if the archive has been skipped as it already exists in the repository. */
+    private boolean skipped;
+    /** Time in milliseconds spent to parse the archive (including re-parsing once its dependencies have been imported). */
+    private long parsingTime;
+    /** Time in milliseconds spent to import the archive in the repository. */
+    private long importTime;
+
+    public ArchiveImportReport(Path path) {
+        this.path = path;
+    }
+}
@@ -0,0 +1,75 @@
+package alien4cloud.common;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Test;
+
+/**
+ * Test the search of values in the suggestion index and its cost on a large catalog.
+ */
+@Slf4j
+public class SuggestionIndexTest {
+
+    @Test
+    public void valuesContainingTextAreFoundIgnoringCase() {
+        SuggestionIndex index = new SuggestionIndex();
+        for (String value : new String[] { "tosca.nodes.Root", "fastconnect.nodes.Java", "tosca.nodes.Compute", "alien.nodes.Apache" }) {
+            index.add(value);
+        }
+        assertEquals(Arrays.asList("tosca.nodes.Root"), index.findContaining("root", 10));
+        assertEquals(Arrays.asList("alien.nodes.Apache", "fastconnect.nodes.Java", "tosca.nodes.Compute", "tosca.nodes.Root"),
+                index.findContaining("NODES", 10));
+        assertEquals(Arrays.asList("alien.nodes.Apache", "fastconnect.nodes.Java"), index.findContaining("a", 2));
+        assertEquals(Arrays.asList("tosca.nodes.Compute"), index.findContaining("s.comp", 10));
+        assertEquals(Collections.emptyList(), index.findContaining("nodes.x", 10));
+    }
+
+    @Test
+    public void valuesStartingWithPrefixAreFound() {
+        SuggestionIndex index = new SuggestionIndex();
+        for (String value : new String[] { "maturity", "mature", "maturation", "recommended", "version" }) {
+            index.add(value);
+        }
+        assertEquals(Arrays.asList("maturation", "mature", "maturity"), index.findStartingWith("matur", 10));
+        assertEquals(Arrays.asList("maturation"), index.findStartingWith("matur", 1));
+        assertEquals(Collections.emptyList(), index.findStartingWith("Matur", 10));
+    }
+
+    @Test
+    public void valuesAreRemovedWhenNoSourceProvidesThemAnymore() {
+        SuggestionIndex index = new SuggestionIndex();
+        index.add("tosca.nodes.Compute");
+        index.add("tosca.nodes.Compute");
+        index.remove("tosca.nodes.Compute");
+        assertEquals(1, index.findContaining("compute", 10).size());
+        index.remove("tosca.nodes.Compute");
+        assertEquals(0, index.findContaining("compute", 10).size());
+        assertEquals(0, index.findStartingWith("tosca", 10).size());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void benchmarkSearchOnLargeCatalog() {
+        SuggestionIndex index = new SuggestionIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < 50000; i++) {
+            index.add("org.catalog.vendor" + (i % 100) + ".nodes.Component" + i);
+        }
+        log.info("Indexed {} values in {} ms", index.size(), (System.nanoTime() - start) / 1000000);
+        String[] searches = { "c", "ven", "vendor42", "component4999", "nodes.component12345", "unknown" };
+        for (String search : searches) {
+            start = System.nanoTime();
+            int iterations = 1000;
+            for (int i = 0; i < iterations; i++) {
+                index.findContaining(search, 10);
+            }
+            log.info("Search of <{}>: {} us", search, (System.nanoTime() - start) / iterations / 1000);
+        }
+        assertEquals(1, index.findContaining("Component12345", 10).size());
+    }
+}
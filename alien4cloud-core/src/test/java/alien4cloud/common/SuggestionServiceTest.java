@@ -0,0 +1,176 @@
+package alien4cloud.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.mapping.MappingBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.dao.IDocumentConsumer;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.application.Application;
+import alien4cloud.model.common.Tag;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedToscaElement;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Test the background loading of the suggestion indexes.
+ */
+public class SuggestionServiceTest {
+    private static final String NODE_TYPE = MappingBuilder.indexTypeFromClass(IndexedNodeType.class);
+
+    private IGenericSearchDAO alienDAO;
+    private SuggestionService suggestionService;
+    /** Tasks submitted to the loader, run explicitly by the tests. */
+    private final List<Runnable> loaderTasks = Lists.newArrayList();
+    private final List<IndexedToscaElement> elements = Lists.newArrayList();
+    private final List<Application> applications = Lists.newArrayList();
+    private RuntimeException scrollFailure;
+    private Runnable onApplicationsScroll;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() {
+        alienDAO = mock(IGenericSearchDAO.class);
+        when(alienDAO.scroll(eq(IndexedToscaElement.class), any(QueryBuilder.class), any(SortBuilder.class), any(IDocumentConsumer.class))).thenAnswer(
+                new ScrollAnswer<IndexedToscaElement>(elements));
+        when(alienDAO.scroll(eq(Application.class), any(QueryBuilder.class), any(SortBuilder.class), any(IDocumentConsumer.class))).thenAnswer(
+                new ScrollAnswer<Application>(applications));
+        suggestionService = new SuggestionService();
+        ReflectionTestUtils.setField(suggestionService, "alienDAO", alienDAO);
+        ReflectionTestUtils.setField(suggestionService, "loader", new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                loaderTasks.add(command);
+            }
+        });
+        elements.add(createNodeType("tosca.nodes.Compute", "tosca-normative-types", new Tag("icon", "compute.png")));
+        applications.add(createApplication("application", new Tag("owner", "team")));
+    }
+
+    @Test
+    public void suggestionsAreServedWithoutWaitingForTheLoad() {
+        suggestionService.init();
+        assertEquals(Collections.emptyList(), suggestionService.suggestElementIds(NODE_TYPE, "compute", 10));
+        assertFalse(suggestionService.isLoaded());
+        verifyZeroInteractions(alienDAO);
+
+        runLoaderTasks();
+        assertTrue(suggestionService.isLoaded());
+        assertEquals(Lists.newArrayList("tosca.nodes.Compute"), suggestionService.suggestElementIds(NODE_TYPE, "compute", 10));
+        assertEquals(Lists.newArrayList("icon", "owner"), suggestionService.suggestTags(SuggestionService.TAG_NAME, "", 10));
+    }
+
+    @Test
+    public void modifiedArchiveIsReloadedInBackground() {
+        suggestionService.init();
+        runLoaderTasks();
+
+        elements.clear();
+        elements.add(createNodeType("tosca.nodes.BlockStorage", "tosca-normative-types"));
+        suggestionService.invalidateArchive("tosca-normative-types");
+        // the current indexes are served until the archive is reloaded
+        assertEquals(Lists.newArrayList("tosca.nodes.Compute"), suggestionService.suggestElementIds(NODE_TYPE, "tosca", 10));
+
+        runLoaderTasks();
+        assertEquals(Lists.newArrayList("tosca.nodes.BlockStorage"), suggestionService.suggestElementIds(NODE_TYPE, "tosca", 10));
+        assertEquals(Lists.newArrayList("owner"), suggestionService.suggestTags(SuggestionService.TAG_NAME, "", 10));
+    }
+
+    @Test
+    public void applicationUpdatedDuringLoadIsNotLost() {
+        onApplicationsScroll = new Runnable() {
+            @Override
+            public void run() {
+                // the load reads the application before its update
+                suggestionService.updateApplication(createApplication("application", new Tag("reviewer", "team")));
+            }
+        };
+        suggestionService.init();
+        runLoaderTasks();
+
+        assertEquals(Lists.newArrayList("icon", "reviewer"), suggestionService.suggestTags(SuggestionService.TAG_NAME, "", 10));
+    }
+
+    @Test
+    public void failedLoadIsRetried() {
+        scrollFailure = new RuntimeException("elastic search is not available");
+        suggestionService.init();
+        runLoaderTasks();
+        assertFalse(suggestionService.isLoaded());
+
+        scrollFailure = null;
+        assertEquals(Collections.emptyList(), suggestionService.suggestElementIds(NODE_TYPE, "compute", 10));
+        runLoaderTasks();
+        assertTrue(suggestionService.isLoaded());
+        assertEquals(Lists.newArrayList("tosca.nodes.Compute"), suggestionService.suggestElementIds(NODE_TYPE, "compute", 10));
+    }
+
+    private void runLoaderTasks() {
+        List<Runnable> tasks = Lists.newArrayList(loaderTasks);
+        loaderTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private static IndexedNodeType createNodeType(String elementId, String archiveName, Tag... tags) {
+        IndexedNodeType nodeType = new IndexedNodeType();
+        nodeType.setElementId(elementId);
+        nodeType.setArchiveName(archiveName);
+        nodeType.setArchiveVersion("1.0.0");
+        nodeType.setTags(Lists.newArrayList(tags));
+        return nodeType;
+    }
+
+    private static Application createApplication(String id, Tag... tags) {
+        Application application = new Application();
+        application.setId(id);
+        application.setName(id);
+        application.setTags(Lists.newArrayList(tags));
+        return application;
+    }
+
+    /** Stream the given documents to the consumer of a scroll. */
+    private class ScrollAnswer<T> implements Answer<Long> {
+        private final List<T> documents;
+
+        private ScrollAnswer(List<T> documents) {
+            this.documents = documents;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Long answer(InvocationOnMock invocation) throws Throwable {
+            if (scrollFailure != null) {
+                throw scrollFailure;
+            }
+            IDocumentConsumer<T> consumer = (IDocumentConsumer<T>) invocation.getArguments()[3];
+            for (T document : documents) {
+                consumer.accept(document);
+            }
+            if (documents == applications && onApplicationsScroll != null) {
+                onApplicationsScroll.run();
+            }
+            return (long) documents.size();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package alien4cloud.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import alien4cloud.component.dao.AbstractDAOTest;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedToscaElement;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Test the indexing of the elements of an archive in a single batch: resolution of the parents and update of the versions properties.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:application-context-test.xml")
+public class CSARRepositoryIndexerServiceTest extends AbstractDAOTest {
+    private static final String ARCHIVE_NAME = "test-types";
+    private static final Set<CSARDependency> DEPENDENCIES = Sets.newHashSet(new CSARDependency("tosca-normative-types", "1.0.0"));
+
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO dao;
+    @Resource
+    private ICSARRepositoryIndexerService indexerService;
+
+    @Test
+    public void newArchiveIsIndexedWithItsParents() {
+        dao.save(createNodeType("tosca.nodes.Root", "tosca-normative-types", "1.0.0"));
+        IndexedNodeType root = createNodeType("test.nodes.Root", ARCHIVE_NAME, "1.0.0", "tosca.nodes.Root");
+        IndexedNodeType child = createNodeType("test.nodes.Child", ARCHIVE_NAME, "1.0.0", "test.nodes.Root");
+
+        ArchiveIndexingReport report = indexerService.indexArchiveElements(ARCHIVE_NAME, "1.0.0", Lists.newArrayList(child, root), DEPENDENCIES, null);
+        assertEquals(2, report.getIndexedElements());
+        assertEquals(0, report.getDeletedElements());
+
+        // parents are resolved in the archive itself and in its dependencies
+        IndexedNodeType indexedChild = dao.findById(IndexedNodeType.class, "test.nodes.Child:1.0.0");
+        assertEquals(Lists.newArrayList("test.nodes.Root", "tosca.nodes.Root"), indexedChild.getDerivedFrom());
+        assertTrue(indexedChild.isHighestVersion());
+        assertNull(indexedChild.getOlderVersions());
+        assertTrue(dao.findById(IndexedNodeType.class, "test.nodes.Root:1.0.0").isHighestVersion());
+    }
+
+    @Test
+    public void newVersionBecomesTheHighestVersion() {
+        indexVersion("1.0.0", "test.nodes.Root", "test.nodes.Removed");
+        indexVersion("2.0.0", "test.nodes.Root");
+
+        IndexedNodeType version1 = dao.findById(IndexedNodeType.class, "test.nodes.Root:1.0.0");
+        assertFalse(version1.isHighestVersion());
+        assertNull(version1.getOlderVersions());
+        IndexedNodeType version2 = dao.findById(IndexedNodeType.class, "test.nodes.Root:2.0.0");
+        assertTrue(version2.isHighestVersion());
+        assertEquals(Sets.newHashSet("1.0.0"), version2.getOlderVersions());
+        // an element that is not part of the new version remains the highest version of this element
+        assertTrue(dao.findById(IndexedNodeType.class, "test.nodes.Removed:1.0.0").isHighestVersion());
+    }
+
+    @Test
+    public void olderVersionDoesNotBecomeTheHighestVersion() {
+        indexVersion("2.0.0", "test.nodes.Root");
+        indexVersion("1.0.0", "test.nodes.Root");
+
+        assertFalse(dao.findById(IndexedNodeType.class, "test.nodes.Root:1.0.0").isHighestVersion());
+        IndexedNodeType version2 = dao.findById(IndexedNodeType.class, "test.nodes.Root:2.0.0");
+        assertTrue(version2.isHighestVersion());
+        assertEquals(Sets.newHashSet("1.0.0"), version2.getOlderVersions());
+    }
+
+    @Test
+    public void overriddenVersionIsReindexed() {
+        Date creationDate = new Date(System.currentTimeMillis() - 3600000);
+        IndexedNodeType root = createNodeType("test.nodes.Root", ARCHIVE_NAME, "1.0.0");
+        root.setCreationDate(creationDate);
+        indexerService.indexArchiveElements(ARCHIVE_NAME, "1.0.0",
+                Lists.newArrayList(root, createNodeType("test.nodes.Removed", ARCHIVE_NAME, "1.0.0")), DEPENDENCIES, null);
+        indexVersion("2.0.0", "test.nodes.Root", "test.nodes.Removed");
+
+        // the snapshot version 1.0.0 is overridden without test.nodes.Removed
+        List<IndexedToscaElement> previousElements = Lists.newArrayList(indexerService.getArchiveElements(ARCHIVE_NAME, "1.0.0").values());
+        assertEquals(2, previousElements.size());
+        ArchiveIndexingReport report = indexerService.indexArchiveElements(ARCHIVE_NAME, "1.0.0",
+                Lists.newArrayList(createNodeType("test.nodes.Root", ARCHIVE_NAME, "1.0.0")), DEPENDENCIES, previousElements);
+        assertEquals(1, report.getIndexedElements());
+        assertEquals(1, report.getDeletedElements());
+
+        assertNull(dao.findById(IndexedNodeType.class, "test.nodes.Removed:1.0.0"));
+        assertEquals(1, indexerService.getArchiveElements(ARCHIVE_NAME, "1.0.0").size());
+        IndexedNodeType reindexed = dao.findById(IndexedNodeType.class, "test.nodes.Root:1.0.0");
+        // the creation date of the overridden element is kept
+        assertEquals(creationDate.getTime(), reindexed.getCreationDate().getTime());
+        assertFalse(reindexed.isHighestVersion());
+        // the older versions of the other versions are updated
+        assertEquals(Sets.newHashSet("1.0.0"), dao.findById(IndexedNodeType.class, "test.nodes.Root:2.0.0").getOlderVersions());
+        assertNull(dao.findById(IndexedNodeType.class, "test.nodes.Removed:2.0.0").getOlderVersions());
+        assertTrue(dao.findById(IndexedNodeType.class, "test.nodes.Removed:2.0.0").isHighestVersion());
+    }
+
+    @Test
+    public void deletedHighestVersionIsReplacedByThePreviousOne() {
+        indexVersion("1.0.0", "test.nodes.Root");
+        indexVersion("1.1.0", "test.nodes.Root");
+        indexVersion("2.0.0", "test.nodes.Root");
+
+        indexerService.deleteElements(ARCHIVE_NAME, "2.0.0");
+        assertNull(dao.findById(IndexedNodeType.class, "test.nodes.Root:2.0.0"));
+        IndexedNodeType version11 = dao.findById(IndexedNodeType.class, "test.nodes.Root:1.1.0");
+        assertTrue(version11.isHighestVersion());
+        assertEquals(Sets.newHashSet("1.0.0"), version11.getOlderVersions());
+        assertFalse(dao.findById(IndexedNodeType.class, "test.nodes.Root:1.0.0").isHighestVersion());
+    }
+
+    private void indexVersion(String version, String... elementIds) {
+        List<IndexedNodeType> elements = Lists.newArrayList();
+        for (String elementId : elementIds) {
+            elements.add(createNodeType(elementId, ARCHIVE_NAME, version));
+        }
+        indexerService.indexArchiveElements(ARCHIVE_NAME, version, elements, DEPENDENCIES, null);
+    }
+
+    private IndexedNodeType createNodeType(String elementId, String archiveName, String archiveVersion, String... derivedFrom) {
+        IndexedNodeType nodeType = new IndexedNodeType();
+        nodeType.setElementId(elementId);
+        nodeType.setArchiveName(archiveName);
+        nodeType.setArchiveVersion(archiveVersion);
+        if (derivedFrom.length > 0) {
+            nodeType.setDerivedFrom(Lists.newArrayList(derivedFrom));
+        }
+        return nodeType;
+    }
+}
@@ -0,0 +1,146 @@
+package alien4cloud.component;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import alien4cloud.dao.IAsyncSearchDAO;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedToscaElement;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Test the caches of elements resolved in dependencies and of elements read by id.
+ */
+public class CSARRepositorySearchServiceCacheTest {
+    private IGenericSearchDAO searchDAO;
+    private IAsyncSearchDAO asyncSearchDAO;
+    private ApplicationEventPublisher eventPublisher;
+    private CSARRepositorySearchService searchService;
+    private Set<CSARDependency> dependencies = Sets.newHashSet(new CSARDependency("tosca-normative-types", "1.0.0"));
+
+    @Before
+    public void before() {
+        searchDAO = mock(IGenericSearchDAO.class);
+        searchService = new CSARRepositorySearchService();
+        ReflectionTestUtils.setField(searchService, "searchDAO", searchDAO);
+        asyncSearchDAO = mock(IAsyncSearchDAO.class);
+        ReflectionTestUtils.setField(searchService, "asyncSearchDAO", asyncSearchDAO);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(searchService, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(searchService, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(searchService, "detailsCacheMaxSize", 100);
+        searchService.initCache();
+
+        IndexedNodeType nodeType = new IndexedNodeType();
+        nodeType.setElementId("tosca.nodes.Compute");
+        nodeType.setArchiveName("tosca-normative-types");
+        nodeType.setArchiveVersion("1.0.0");
+        List<IndexedNodeType> result = Lists.newArrayList(nodeType);
+        when(searchDAO.customFindAll(eq(IndexedNodeType.class), any(QueryBuilder.class))).thenReturn(result);
+        Answer<ListenableFuture<IndexedToscaElement>> readAnswer = new Answer<ListenableFuture<IndexedToscaElement>>() {
+            @Override
+            public ListenableFuture<IndexedToscaElement> answer(InvocationOnMock invocation) throws Throwable {
+                IndexedNodeType readNodeType = new IndexedNodeType();
+                readNodeType.setElementId("tosca.nodes.Compute");
+                readNodeType.setArchiveName("tosca-normative-types");
+                readNodeType.setArchiveVersion("1.0.0");
+                SettableListenableFuture<IndexedToscaElement> future = new SettableListenableFuture<IndexedToscaElement>();
+                future.set(readNodeType);
+                return future;
+            }
+        };
+        when(asyncSearchDAO.findByIdAsync(IndexedToscaElement.class, "tosca.nodes.Compute:1.0.0")).thenAnswer(readAnswer);
+    }
+
+    @Test
+    public void resolvedElementsAreCached() {
+        IndexedNodeType first = searchService.getElementInDependencies(IndexedNodeType.class, "tosca.nodes.Compute", dependencies);
+        IndexedNodeType second = searchService.getElementInDependencies(IndexedNodeType.class, "tosca.nodes.Compute", dependencies);
+
+        assertEquals("tosca.nodes.Compute", second.getElementId());
+        assertNotSame("Every call must get its own instance", first, second);
+        verify(searchDAO, times(1)).customFindAll(eq(IndexedNodeType.class), any(QueryBuilder.class));
+        assertEquals(1, searchService.getCacheStats().hitCount());
+        assertEquals(1, searchService.getCacheStats().missCount());
+    }
+
+    @Test
+    public void cacheIsInvalidatedWhenArchiveChanges() {
+        searchService.getElementInDependencies(IndexedNodeType.class, "tosca.nodes.Compute", dependencies);
+        searchService.invalidateArchive("another-archive");
+        searchService.getElementInDependencies(IndexedNodeType.class, "tosca.nodes.Compute", dependencies);
+        verify(searchDAO, times(1)).customFindAll(eq(IndexedNodeType.class), any(QueryBuilder.class));
+
+        searchService.invalidateArchive("tosca-normative-types");
+        assertEquals(0, searchService.getCacheSize());
+        searchService.getElementInDependencies(IndexedNodeType.class, "tosca.nodes.Compute", dependencies);
+        verify(searchDAO, times(2)).customFindAll(eq(IndexedNodeType.class), any(QueryBuilder.class));
+    }
+
+    @Test
+    public void invalidationsArePublished() {
+        searchService.invalidateArchive("tosca-normative-types");
+        searchService.invalidateAll();
+
+        ArgumentCaptor<ArchiveInvalidatedEvent> events = ArgumentCaptor.forClass(ArchiveInvalidatedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals("tosca-normative-types", events.getAllValues().get(0).getArchiveName());
+        assertNull("A null archive name invalidates all the archives", events.getAllValues().get(1).getArchiveName());
+    }
+
+    @Test
+    public void cachedElementsAreCopies() {
+        IndexedNodeType first = searchService.getElementInDependencies(IndexedNodeType.class, "tosca.nodes.Compute", dependencies);
+        first.setElementId("altered");
+        first.setDerivedFrom(Lists.newArrayList("tosca.nodes.Root"));
+
+        IndexedNodeType second = searchService.getElementInDependencies(IndexedNodeType.class, "tosca.nodes.Compute", dependencies);
+        assertEquals("tosca.nodes.Compute", second.getElementId());
+        assertNull(second.getDerivedFrom());
+    }
+
+    @Test
+    public void detailsAreCachedWithTheirHash() throws Exception {
+        String id = "tosca.nodes.Compute:1.0.0";
+        HashedElement first = searchService.getElementByIdAsync(id).get();
+        HashedElement second = searchService.getElementByIdAsync(id).get();
+
+        assertEquals(IndexedNodeType.class, second.getElement().getClass());
+        assertNotSame("Every call must get its own instance", first.getElement(), second.getElement());
+        assertEquals(first.getHash(), second.getHash());
+        verify(asyncSearchDAO, times(1)).findByIdAsync(IndexedToscaElement.class, id);
+
+        searchService.invalidateArchive("another-archive");
+        searchService.getElementByIdAsync(id).get();
+        verify(asyncSearchDAO, times(1)).findByIdAsync(IndexedToscaElement.class, id);
+
+        searchService.invalidateArchive("tosca-normative-types");
+        assertEquals(0, searchService.getDetailsCacheSize());
+        // same content, same hash
+        assertEquals(first.getHash(), searchService.getElementByIdAsync(id).get().getHash());
+        verify(asyncSearchDAO, times(2)).findByIdAsync(IndexedToscaElement.class, id);
+    }
+}
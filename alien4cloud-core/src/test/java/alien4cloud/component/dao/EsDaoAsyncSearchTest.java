@@ -0,0 +1,214 @@
+package alien4cloud.component.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import alien4cloud.dao.ElasticSearchDAO;
+import alien4cloud.dao.IAsyncSearchDAO;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.FacetedSearchResult;
+import alien4cloud.dao.model.FetchContext;
+import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.dao.model.ScoredSearchResult;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedToscaElement;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Check that the non blocking DAO returns the same results as the blocking one, and compare the throughput of both with a fixed pool of request threads.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:application-context-test.xml")
+@Slf4j
+public class EsDaoAsyncSearchTest extends AbstractDAOTest {
+    private static final int NODE_TYPES = 20;
+    private static final int REQUEST_THREADS = 2;
+    private static final int REQUESTS = 2000;
+
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO dao;
+    @Resource(name = "alien-es-dao")
+    private IAsyncSearchDAO asyncDAO;
+
+    private final List<String> ids = Lists.newArrayList();
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        super.before();
+        ids.clear();
+        for (int i = 0; i < NODE_TYPES; i++) {
+            IndexedNodeType nodeType = new IndexedNodeType();
+            nodeType.setElementId("async.nodes.Type" + i);
+            nodeType.setArchiveName("async-types");
+            nodeType.setArchiveVersion("1.0.0");
+            nodeType.setDescription("async node type " + i);
+            nodeType.setCreationDate(new Date());
+            nodeType.setLastUpdateDate(new Date());
+            dao.save(nodeType);
+            ids.add(nodeType.getId());
+        }
+        refresh();
+    }
+
+    @Test
+    public void asyncResultsMatchBlockingResults() throws Exception {
+        IndexedNodeType expected = dao.findById(IndexedNodeType.class, ids.get(0));
+        IndexedNodeType found = asyncDAO.findByIdAsync(IndexedNodeType.class, ids.get(0)).get();
+        assertNotNull(found);
+        assertEquals(expected.getId(), found.getId());
+        // abstract classes are resolved from the elastic search type of the document.
+        IndexedToscaElement element = asyncDAO.findByIdAsync(IndexedToscaElement.class, ids.get(0)).get();
+        assertEquals(IndexedNodeType.class, element.getClass());
+        assertNull(asyncDAO.findByIdAsync(IndexedNodeType.class, "missing:1.0.0").get());
+
+        FacetedSearchResult expectedResult = dao.facetedSearch(IndexedNodeType.class, null, null, null, FetchContext.SUMMARY, 0, 5);
+        FacetedSearchResult result = asyncDAO.facetedSearchAsync(IndexedNodeType.class, null, null, null, FetchContext.SUMMARY, 0, 5).get();
+        assertEquals(expectedResult.getTotalResults(), result.getTotalResults());
+        assertEquals(expectedResult.getData().length, result.getData().length);
+        assertEquals(5, result.getData().length);
+
+        FacetedSearchResult emptyResult = asyncDAO.facetedSearchAsync(IndexedNodeType.class, "nothingmatches", null, null, FetchContext.SUMMARY, 0, 5)
+                .get();
+        assertEquals(0, emptyResult.getTotalResults());
+        assertEquals(0, emptyResult.getData().length);
+    }
+
+    @Test
+    public void asyncSearchReturnsScoredResults() throws Exception {
+        String[] indices = new String[] { ElasticSearchDAO.TOSCA_ELEMENT_INDEX };
+        Class<?>[] classes = new Class<?>[] { IndexedNodeType.class };
+        GetMultipleDataResult<Object> expectedResult = dao.search(indices, classes, "async", null, null, FetchContext.QUICK_SEARCH, 0, 5);
+        ScoredSearchResult result = asyncDAO.searchAsync(indices, classes, "async", null, null, FetchContext.QUICK_SEARCH, 0, 5).get();
+        assertEquals(expectedResult.getTotalResults(), result.getTotalResults());
+        assertEquals(5, result.getData().length);
+        assertEquals(result.getData().length, result.getScores().length);
+        for (int i = 0; i < result.getData().length; i++) {
+            assertEquals(((IndexedNodeType) expectedResult.getData()[i]).getId(), ((IndexedNodeType) result.getData()[i]).getId());
+            // hits are ordered by relevance
+            assertTrue(i == 0 || result.getScores()[i - 1] >= result.getScores()[i]);
+        }
+
+        ScoredSearchResult emptyResult = asyncDAO.searchAsync(indices, classes, "nothingmatches", null, null, FetchContext.QUICK_SEARCH, 0, 5).get();
+        assertEquals(0, emptyResult.getTotalResults());
+        assertEquals(0, emptyResult.getData().length);
+        assertEquals(0, emptyResult.getScores().length);
+    }
+
+    @Test
+    public void compareThroughputWithFixedThreadPool() throws Exception {
+        // warm up
+        runBlocking(REQUESTS / 10);
+        runAsync(REQUESTS / 10);
+
+        long blockingDuration = runBlocking(REQUESTS);
+        AtomicInteger maxPendingRequests = new AtomicInteger();
+        long asyncDuration = runAsync(REQUESTS, maxPendingRequests);
+        log.info("{} findById with {} request threads: blocking {} ms ({} req/s), async {} ms ({} req/s), up to {} async requests pending", REQUESTS,
+                REQUEST_THREADS, blockingDuration, REQUESTS * 1000 / Math.max(1, blockingDuration), asyncDuration,
+                REQUESTS * 1000 / Math.max(1, asyncDuration), maxPendingRequests.get());
+        // blocking requests hold a request thread each, async requests don't: more requests than request threads are sent to elastic search at once.
+        assertTrue("Async requests must not hold request threads", maxPendingRequests.get() > REQUEST_THREADS);
+    }
+
+    /**
+     * Every request holds a request thread until elastic search responds.
+     */
+    private long runBlocking(int requests) throws Exception {
+        ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+        long start = System.currentTimeMillis();
+        List<Future<IndexedNodeType>> futures = Lists.newArrayList();
+        for (int i = 0; i < requests; i++) {
+            final String id = ids.get(i % ids.size());
+            futures.add(requestThreads.submit(new Callable<IndexedNodeType>() {
+                @Override
+                public IndexedNodeType call() throws Exception {
+                    return dao.findById(IndexedNodeType.class, id);
+                }
+            }));
+        }
+        for (Future<IndexedNodeType> future : futures) {
+            assertNotNull(future.get());
+        }
+        long duration = System.currentTimeMillis() - start;
+        requestThreads.shutdown();
+        requestThreads.awaitTermination(1, TimeUnit.MINUTES);
+        return duration;
+    }
+
+    private long runAsync(int requests) throws Exception {
+        return runAsync(requests, new AtomicInteger());
+    }
+
+    /**
+     * Request threads are released as soon as the request is sent to elastic search, responses are handled by the elastic search listener threads.
+     */
+    private long runAsync(int requests, final AtomicInteger maxPendingRequests) throws Exception {
+        ExecutorService requestThreads = Executors.newFixedThreadPool(REQUEST_THREADS);
+        final CountDownLatch completedRequests = new CountDownLatch(requests);
+        final AtomicInteger pendingRequests = new AtomicInteger();
+        final AtomicInteger foundElements = new AtomicInteger();
+        final ListenableFutureCallback<IndexedNodeType> callback = new ListenableFutureCallback<IndexedNodeType>() {
+            @Override
+            public void onSuccess(IndexedNodeType element) {
+                if (element != null) {
+                    foundElements.incrementAndGet();
+                }
+                pendingRequests.decrementAndGet();
+                completedRequests.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                log.error("Async request failed", e);
+                pendingRequests.decrementAndGet();
+                completedRequests.countDown();
+            }
+        };
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < requests; i++) {
+            final String id = ids.get(i % ids.size());
+            requestThreads.submit(new Runnable() {
+                @Override
+                public void run() {
+                    int pending = pendingRequests.incrementAndGet();
+                    int max = maxPendingRequests.get();
+                    while (pending > max && !maxPendingRequests.compareAndSet(max, pending)) {
+                        max = maxPendingRequests.get();
+                    }
+                    asyncDAO.findByIdAsync(IndexedNodeType.class, id).addCallback(callback);
+                }
+            });
+        }
+        assertTrue(completedRequests.await(1, TimeUnit.MINUTES));
+        long duration = System.currentTimeMillis() - start;
+        assertEquals(requests, foundElements.get());
+        requestThreads.shutdown();
+        requestThreads.awaitTermination(1, TimeUnit.MINUTES);
+        return duration;
+    }
+}
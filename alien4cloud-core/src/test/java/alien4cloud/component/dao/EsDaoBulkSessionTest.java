@@ -0,0 +1,115 @@
+package alien4cloud.component.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Date;
+import java.util.Map;
+
+import javax.annotation.Resource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import alien4cloud.dao.IBulkSession;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.WriteConsistency;
+import alien4cloud.dao.model.WriteStatistics;
+import alien4cloud.exception.IndexingServiceException;
+import alien4cloud.model.application.Application;
+import alien4cloud.model.components.IndexedNodeType;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Test the bulk sessions and the consistency levels of the writes.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:application-context-test.xml")
+public class EsDaoBulkSessionTest extends AbstractDAOTest {
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO dao;
+
+    @Test
+    public void bulkSessionWritesAllTypesInASingleRequest() {
+        WriteStatistics statistics = dao.getWriteStatistics();
+        long bulkRequests = statistics.getBulkRequests();
+        long refreshes = statistics.getRefreshes();
+        long writes = statistics.getWrites();
+
+        IBulkSession bulkSession = dao.newBulkSession(WriteConsistency.IMMEDIATE);
+        bulkSession.save(createNodeType()).save(createApplication());
+        assertEquals(2, bulkSession.size());
+        bulkSession.flush();
+        assertEquals(0, bulkSession.size());
+
+        assertEquals(bulkRequests + 1, statistics.getBulkRequests());
+        assertEquals(refreshes + 1, statistics.getRefreshes());
+        assertEquals(writes + 2, statistics.getWrites());
+        // the index is refreshed once the bulk completes
+        assertEquals(1, dao.count(IndexedNodeType.class, null, null));
+        assertEquals(1, dao.count(Application.class, null, null));
+    }
+
+    @Test
+    public void bulkSessionUpdatesAndDeletes() {
+        IndexedNodeType nodeType = createNodeType();
+        Application application = createApplication();
+        dao.newBulkSession(WriteConsistency.IMMEDIATE).save(nodeType).save(application).flush();
+
+        Map<String, Object> fields = Maps.newHashMap();
+        fields.put("description", "updated");
+        IBulkSession bulkSession = dao.newBulkSession(WriteConsistency.IMMEDIATE);
+        bulkSession.update(Application.class, application.getId(), fields).delete(IndexedNodeType.class, nodeType.getId()).flush();
+
+        assertEquals("updated", dao.findById(Application.class, application.getId()).getDescription());
+        assertNull(dao.findById(IndexedNodeType.class, nodeType.getId()));
+        assertEquals(0, dao.count(IndexedNodeType.class, null, null));
+    }
+
+    @Test(expected = IndexingServiceException.class)
+    public void failedSynchronousBulkThrows() {
+        Map<String, Object> fields = Maps.newHashMap();
+        fields.put("description", "updated");
+        dao.newBulkSession(WriteConsistency.NEAR_REAL_TIME).update(Application.class, "missing", fields).flush();
+    }
+
+    @Test
+    public void nearRealTimeWriteDoesNotRefreshTheIndex() {
+        WriteStatistics statistics = dao.getWriteStatistics();
+        long refreshes = statistics.getRefreshes();
+
+        IndexedNodeType nodeType = createNodeType();
+        dao.save(nodeType, WriteConsistency.NEAR_REAL_TIME);
+        assertEquals(refreshes, statistics.getRefreshes());
+        // get requests are real time
+        assertNotNull(dao.findById(IndexedNodeType.class, nodeType.getId()));
+        refresh();
+        assertEquals(1, dao.count(IndexedNodeType.class, null, null));
+
+        dao.delete(IndexedNodeType.class, nodeType.getId(), WriteConsistency.IMMEDIATE);
+        assertEquals(refreshes + 1, statistics.getRefreshes());
+        assertEquals(0, dao.count(IndexedNodeType.class, null, null));
+    }
+
+    private IndexedNodeType createNodeType() {
+        IndexedNodeType nodeType = new IndexedNodeType();
+        nodeType.setElementId("bulk.nodes.Type");
+        nodeType.setArchiveName("bulk-types");
+        nodeType.setArchiveVersion("1.0.0");
+        nodeType.setCreationDate(new Date());
+        nodeType.setLastUpdateDate(new Date());
+        return nodeType;
+    }
+
+    private Application createApplication() {
+        Application application = new Application();
+        application.setId("bulk-application");
+        application.setName("bulk-application");
+        application.setDescription("created");
+        return application;
+    }
+}
@@ -23,6 +23,7 @@ import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsRespon
 import org.elasticsearch.action.admin.indices.exists.types.TypesExistsRequest;
 import org.elasticsearch.action.admin.indices.exists.types.TypesExistsResponse;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -31,6 +32,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import alien4cloud.dao.ElasticSearchDAO;
 import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.DeleteByQueryReport;
 import alien4cloud.dao.model.FetchContext;
 import alien4cloud.exception.IndexingServiceException;
 import alien4cloud.model.application.Application;
@@ -187,6 +189,23 @@ public class EsDaoCrudTest extends AbstractDAOTest {
         assertDocumentExisit(ElasticSearchDAO.TOSCA_ELEMENT_INDEX, typeName1, indexedNodeTypeTest.getId(), false);
     }
 
+    @Test
+    public void deleteByQueryTest() {
+        saveApplications();
+        DeleteByQueryReport report = dao.delete(Application.class, QueryBuilders.idsQuery().ids("1", "2"));
+        assertEquals(2, report.getMatched());
+        assertEquals(2, report.getDeleted());
+        assertEquals(0, report.getFailed());
+        assertEquals(1, report.getBulkRequests());
+        // deletions must be visible without any additional refresh.
+        assertEquals(1, dao.count(Application.class, QueryBuilders.matchAllQuery()));
+        assertNotNull(dao.findById(Application.class, "3"));
+
+        report = dao.delete(Application.class, QueryBuilders.idsQuery().ids("1", "2"));
+        assertEquals(0, report.getMatched());
+        assertEquals(0, report.getBulkRequests());
+    }
+
     @Test(expected = IndexingServiceException.class)
     public void unsupportedIndexedDeletionTest() throws JsonProcessingException, IndexingServiceException {
         saveDataToES(indexedNodeTypeTest);
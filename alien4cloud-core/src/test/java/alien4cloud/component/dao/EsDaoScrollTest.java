@@ -0,0 +1,107 @@
+package alien4cloud.component.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.dao.IDocumentConsumer;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.application.Application;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Test the reads of all the documents matching a query when they don't fit in a single page.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:application-context-test.xml")
+public class EsDaoScrollTest extends AbstractDAOTest {
+    private static final int PAGE_SIZE = 2;
+    private static final int APPLICATIONS = 5;
+
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO dao;
+
+    private Object initialPageSize;
+
+    @Override
+    @Before
+    public void before() throws Exception {
+        super.before();
+        initialPageSize = ReflectionTestUtils.getField(dao, "scrollPageSize");
+        ReflectionTestUtils.setField(dao, "scrollPageSize", PAGE_SIZE);
+        for (int i = 0; i < APPLICATIONS; i++) {
+            Application application = new Application();
+            application.setId("application-" + i);
+            application.setName("application-" + i);
+            dao.save(application);
+        }
+        refresh();
+    }
+
+    @After
+    public void restorePageSize() {
+        ReflectionTestUtils.setField(dao, "scrollPageSize", initialPageSize);
+    }
+
+    @Test
+    public void customFindAllReturnsDocumentsOfASinglePage() {
+        List<Application> applications = dao.customFindAll(Application.class, QueryBuilders.idsQuery().ids("application-1", "application-3"));
+        assertEquals(2, applications.size());
+    }
+
+    @Test
+    public void customFindAllScrollsWhenDocumentsDoNotFitInAPage() {
+        List<Application> applications = dao.customFindAll(Application.class, null);
+        assertEquals(APPLICATIONS, applications.size());
+        // the first page is not read twice
+        Set<String> ids = Sets.newHashSet();
+        for (Application application : applications) {
+            ids.add(application.getId());
+        }
+        assertEquals(APPLICATIONS, ids.size());
+    }
+
+    @Test
+    public void customFindAllScrollsInTheRequestedOrder() {
+        List<Application> applications = dao.customFindAll(Application.class, null, SortBuilders.fieldSort("name").order(SortOrder.DESC));
+        assertEquals(APPLICATIONS, applications.size());
+        for (int i = 0; i < APPLICATIONS; i++) {
+            assertEquals("application-" + (APPLICATIONS - 1 - i), applications.get(i).getName());
+        }
+    }
+
+    @Test
+    public void customFindAllReturnsNullWhenNothingMatches() {
+        assertNull(dao.customFindAll(Application.class, QueryBuilders.idsQuery().ids("unknown")));
+    }
+
+    @Test
+    public void scrollStreamsEveryDocument() {
+        final List<String> ids = Lists.newArrayList();
+        long count = dao.scroll(Application.class, null, null, 1, new IDocumentConsumer<Application>() {
+            @Override
+            public void accept(Application document) {
+                ids.add(document.getId());
+            }
+        });
+        assertEquals(APPLICATIONS, count);
+        assertEquals(APPLICATIONS, ids.size());
+    }
+}
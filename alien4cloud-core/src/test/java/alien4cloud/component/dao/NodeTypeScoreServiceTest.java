@@ -87,6 +87,13 @@ public class NodeTypeScoreServiceTest {
         Assert.assertEquals(1000, ((IndexedNodeType) data.getData()[2]).getAlienScore());
         Assert.assertEquals(mordor100Id, ((IndexedNodeType) data.getData()[3]).getId());
         Assert.assertEquals(10, ((IndexedNodeType) data.getData()[3]).getAlienScore());
+        Assert.assertEquals(4, scoreService.getTotalNodeTypes());
+        Assert.assertEquals(4, scoreService.getUpdatedNodeTypes());
+
+        // unchanged scores are not written again
+        scoreService.run();
+        Assert.assertEquals(4, scoreService.getProcessedNodeTypes());
+        Assert.assertEquals(0, scoreService.getUpdatedNodeTypes());
     }
 
 }
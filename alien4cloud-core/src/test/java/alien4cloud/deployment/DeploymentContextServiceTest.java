@@ -0,0 +1,72 @@
+package alien4cloud.deployment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.deployment.Deployment;
+import alien4cloud.model.deployment.DeploymentTopology;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.paas.model.PaaSTopology;
+import alien4cloud.paas.model.PaaSTopologyDeploymentContext;
+import alien4cloud.paas.plan.TopologyTreeBuilderService;
+
+/**
+ * Test the cache of the contexts of active deployments.
+ */
+public class DeploymentContextServiceTest {
+    private IGenericSearchDAO alienMonitorDao;
+    private TopologyTreeBuilderService topologyTreeBuilderService;
+    private DeploymentContextService deploymentContextService;
+    private Deployment deployment;
+
+    @Before
+    public void before() {
+        alienMonitorDao = mock(IGenericSearchDAO.class);
+        topologyTreeBuilderService = mock(TopologyTreeBuilderService.class);
+        deploymentContextService = new DeploymentContextService();
+        ReflectionTestUtils.setField(deploymentContextService, "alienMonitorDao", alienMonitorDao);
+        ReflectionTestUtils.setField(deploymentContextService, "topologyTreeBuilderService", topologyTreeBuilderService);
+        ReflectionTestUtils.setField(deploymentContextService, "deploymentTopologyService", mock(DeploymentTopologyService.class));
+        deploymentContextService.init();
+
+        deployment = new Deployment();
+        deployment.setId("deployment");
+        DeploymentTopology runtimeTopology = new DeploymentTopology();
+        runtimeTopology.setId("deployment");
+        when(alienMonitorDao.findById(DeploymentTopology.class, "deployment")).thenReturn(runtimeTopology);
+        when(topologyTreeBuilderService.buildPaaSTopology(any(Topology.class))).thenReturn(new PaaSTopology());
+    }
+
+    @Test
+    public void runtimeContextIsBuiltOnce() {
+        PaaSTopologyDeploymentContext first = deploymentContextService.getRuntimeTopologyDeploymentContext(deployment);
+        PaaSTopologyDeploymentContext second = deploymentContextService.getRuntimeTopologyDeploymentContext(deployment);
+
+        assertSame(first.getPaaSTopology(), second.getPaaSTopology());
+        assertSame(deployment, second.getDeployment());
+        assertSame(first.getDeploymentTopology(), deploymentContextService.getRuntimeTopology("deployment"));
+        verify(alienMonitorDao, times(1)).findById(DeploymentTopology.class, "deployment");
+        verify(topologyTreeBuilderService, times(1)).buildPaaSTopology(any(Topology.class));
+        assertEquals(1, deploymentContextService.getRuntimeCacheStats().hitCount());
+    }
+
+    @Test
+    public void runtimeContextIsBuiltAgainOnceInvalidated() {
+        deploymentContextService.getRuntimeTopologyDeploymentContext(deployment);
+        deploymentContextService.invalidateRuntimeContext("deployment");
+        deploymentContextService.getRuntimeTopologyDeploymentContext(deployment);
+
+        verify(topologyTreeBuilderService, times(2)).buildPaaSTopology(any(Topology.class));
+        assertEquals(1, deploymentContextService.getRuntimeCacheSize());
+    }
+}
@@ -0,0 +1,122 @@
+package alien4cloud.deployment;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.model.application.ApplicationEnvironment;
+import alien4cloud.model.deployment.Deployment;
+import alien4cloud.paas.IPaaSCallback;
+import alien4cloud.paas.IPaasEventService;
+import alien4cloud.paas.model.DeploymentStatus;
+import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Test the in memory view of the deployment statuses.
+ */
+public class DeploymentStatusServiceTest {
+    private IGenericSearchDAO alienDAO;
+    private DeploymentRuntimeStateService deploymentRuntimeStateService;
+    private DeploymentStatusService deploymentStatusService;
+    private ApplicationEnvironment deployedEnvironment;
+    private ApplicationEnvironment undeployedEnvironment;
+
+    @Before
+    public void before() {
+        alienDAO = mock(IGenericSearchDAO.class);
+        deploymentRuntimeStateService = mock(DeploymentRuntimeStateService.class);
+        deploymentStatusService = new DeploymentStatusService();
+        ReflectionTestUtils.setField(deploymentStatusService, "alienDAO", alienDAO);
+        ReflectionTestUtils.setField(deploymentStatusService, "deploymentRuntimeStateService", deploymentRuntimeStateService);
+        ReflectionTestUtils.setField(deploymentStatusService, "paasEventService", mock(IPaasEventService.class));
+        ReflectionTestUtils.setField(deploymentStatusService, "reconcileIntervalMs", 0L);
+        ReflectionTestUtils.setField(deploymentStatusService, "queryTimeoutMs", 200L);
+        deploymentStatusService.init();
+
+        deployedEnvironment = new ApplicationEnvironment();
+        deployedEnvironment.setId("deployed-env");
+        undeployedEnvironment = new ApplicationEnvironment();
+        undeployedEnvironment.setId("undeployed-env");
+        Deployment deployment = new Deployment();
+        deployment.setId("deployment");
+        deployment.setEnvironmentId("deployed-env");
+        when(alienDAO.search(eq(Deployment.class), anyString(), anyMap(), anyInt())).thenReturn(
+                new GetMultipleDataResult<Deployment>(new String[] { "deployment" }, new Deployment[] { deployment }));
+    }
+
+    @After
+    public void after() {
+        deploymentStatusService.destroy();
+    }
+
+    @Test
+    public void unknownStatusesAreQueriedOnceFromTheOrchestrator() throws Exception {
+        answerStatus(DeploymentStatus.DEPLOYED);
+
+        Map<String, DeploymentStatus> statuses = deploymentStatusService.getStatuses(Lists.newArrayList(deployedEnvironment, undeployedEnvironment));
+        assertEquals(DeploymentStatus.DEPLOYED, statuses.get("deployed-env"));
+        assertEquals(DeploymentStatus.UNDEPLOYED, statuses.get("undeployed-env"));
+
+        statuses = deploymentStatusService.getStatuses(Lists.newArrayList(deployedEnvironment));
+        assertEquals(DeploymentStatus.DEPLOYED, statuses.get("deployed-env"));
+        verify(deploymentRuntimeStateService, times(1)).getDeploymentStatus(any(Deployment.class), any(IPaaSCallback.class));
+        assertEquals(1, deploymentStatusService.getQueries());
+        assertEquals(1, deploymentStatusService.getHits());
+    }
+
+    @Test
+    public void statusesAreUpdatedFromEvents() throws Exception {
+        answerStatus(DeploymentStatus.DEPLOYMENT_IN_PROGRESS);
+        deploymentStatusService.getStatuses(Lists.newArrayList(deployedEnvironment));
+
+        PaaSDeploymentStatusMonitorEvent event = new PaaSDeploymentStatusMonitorEvent();
+        event.setDeploymentId("deployment");
+        event.setDeploymentStatus(DeploymentStatus.DEPLOYED);
+        deploymentStatusService.eventHappened(event);
+
+        Map<String, DeploymentStatus> statuses = deploymentStatusService.getStatuses(Lists.newArrayList(deployedEnvironment));
+        assertEquals(DeploymentStatus.DEPLOYED, statuses.get("deployed-env"));
+        verify(deploymentRuntimeStateService, times(1)).getDeploymentStatus(any(Deployment.class), any(IPaaSCallback.class));
+    }
+
+    @Test
+    public void statusIsUnknownWhenTheOrchestratorDoesNotAnswerInTime() throws Exception {
+        // the callback is never called
+        Map<String, DeploymentStatus> statuses = deploymentStatusService.getStatuses(Lists.newArrayList(deployedEnvironment));
+        assertEquals(DeploymentStatus.UNKNOWN, statuses.get("deployed-env"));
+        assertEquals(1, deploymentStatusService.getTimeouts());
+        assertEquals(0, deploymentStatusService.getSize());
+    }
+
+    private void answerStatus(final DeploymentStatus status) throws Exception {
+        doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((IPaaSCallback<DeploymentStatus>) invocation.getArguments()[1]).onSuccess(status);
+                return null;
+            }
+        }).when(deploymentRuntimeStateService).getDeploymentStatus(any(Deployment.class), any(IPaaSCallback.class));
+    }
+}
@@ -0,0 +1,86 @@
+package alien4cloud.deployment.matching.services.location;
+
+import static org.junit.Assert.*;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.deployment.matching.ILocationMatch;
+import alien4cloud.model.deployment.matching.LocationMatch;
+import alien4cloud.model.orchestrators.Orchestrator;
+import alien4cloud.model.orchestrators.locations.Location;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.Topology;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Check that the location matching results are not used anymore once the topology or the locations change.
+ */
+public class LocationMatchCacheTest {
+    private LocationMatchCache locationMatchCache;
+    private Topology topology;
+    private List<ILocationMatch> candidates;
+
+    @Before
+    public void before() {
+        locationMatchCache = new LocationMatchCache();
+        ReflectionTestUtils.setField(locationMatchCache, "maxSize", 10);
+        ReflectionTestUtils.setField(locationMatchCache, "ttlMinutes", 10);
+        locationMatchCache.init();
+
+        topology = new Topology();
+        topology.getDependencies().add(new CSARDependency("tosca-normative-types", "1.0.0"));
+        topology.setNodeTemplates(Maps.<String, NodeTemplate> newHashMap());
+        addNode("compute", "tosca.nodes.Compute");
+
+        Orchestrator orchestrator = new Orchestrator();
+        orchestrator.setPluginId("plugin");
+        orchestrator.setPluginBean("factory");
+        candidates = Lists.newArrayList();
+        for (String locationId : new String[] { "location_1", "location_2" }) {
+            Location location = new Location();
+            location.setId(locationId);
+            candidates.add(new LocationMatch(location, orchestrator, null));
+        }
+    }
+
+    @Test
+    public void resultIsReusedForSameTopologyTypes() {
+        String key = locationMatchCache.getKey(topology, candidates);
+        locationMatchCache.put(key, candidates.subList(0, 1));
+
+        // another node of the same type doesn't change the matching.
+        addNode("other_compute", "tosca.nodes.Compute");
+        assertEquals(key, locationMatchCache.getKey(topology, Lists.reverse(candidates)));
+        assertEquals(1, locationMatchCache.get(key).size());
+        assertTrue(locationMatchCache.get(key).contains("location_1"));
+    }
+
+    @Test
+    public void resultIsNotReusedWhenTopologyOrLocationsChange() {
+        String key = locationMatchCache.getKey(topology, candidates);
+        locationMatchCache.put(key, candidates);
+
+        addNode("apache", "alien.nodes.Apache");
+        String topologyChangedKey = locationMatchCache.getKey(topology, candidates);
+        assertNotEquals(key, topologyChangedKey);
+        assertNull(locationMatchCache.get(topologyChangedKey));
+
+        candidates.get(0).getLocation().setLastUpdateDate(new Date(0));
+        assertNotEquals(topologyChangedKey, locationMatchCache.getKey(topology, candidates));
+        assertNotEquals(topologyChangedKey, locationMatchCache.getKey(topology, candidates.subList(0, 1)));
+    }
+
+    private void addNode(String name, String type) {
+        NodeTemplate nodeTemplate = new NodeTemplate();
+        nodeTemplate.setType(type);
+        topology.getNodeTemplates().put(name, nodeTemplate);
+    }
+}
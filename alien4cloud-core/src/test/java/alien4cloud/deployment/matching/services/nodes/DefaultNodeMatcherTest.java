@@ -0,0 +1,158 @@
+package alien4cloud.deployment.matching.services.nodes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import alien4cloud.model.components.AbstractPropertyValue;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.PropertyDefinition;
+import alien4cloud.model.components.ScalarPropertyValue;
+import alien4cloud.model.components.constraints.GreaterOrEqualConstraint;
+import alien4cloud.model.components.constraints.IMatchPropertyConstraint;
+import alien4cloud.model.deployment.matching.MatchingConfiguration;
+import alien4cloud.model.orchestrators.locations.LocationResourceTemplate;
+import alien4cloud.model.orchestrators.locations.LocationResources;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.tosca.normative.ToscaType;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Check the matching of nodes against compiled location resources, concurrently and against the cost of matching without compilation.
+ */
+@Slf4j
+public class DefaultNodeMatcherTest {
+    private static final String ABSTRACT_TYPE = "alien.test.nodes.Compute";
+    private static final String CANDIDATE_TYPE = "alien.test.nodes.LocationCompute";
+
+    private DefaultNodeMatcher nodeMatcher = new DefaultNodeMatcher();
+    private IndexedNodeType abstractType;
+    private LocationResources locationResources;
+    private Map<String, MatchingConfiguration> matchingConfigurations;
+
+    @Before
+    public void before() {
+        abstractType = new IndexedNodeType();
+        abstractType.setElementId(ABSTRACT_TYPE);
+        abstractType.setDerivedFrom(Lists.newArrayList("tosca.nodes.Root"));
+
+        IndexedNodeType candidateType = new IndexedNodeType();
+        candidateType.setElementId(CANDIDATE_TYPE);
+        candidateType.setDerivedFrom(Lists.newArrayList(ABSTRACT_TYPE, "tosca.nodes.Root"));
+        PropertyDefinition memory = new PropertyDefinition();
+        memory.setType(ToscaType.INTEGER);
+        Map<String, PropertyDefinition> properties = Maps.newHashMap();
+        properties.put("memory", memory);
+        candidateType.setProperties(properties);
+
+        locationResources = new LocationResources();
+        locationResources.getNodeTypes().put(CANDIDATE_TYPE, candidateType);
+        for (int memorySize : new int[] { 1, 2, 4, 8 }) {
+            locationResources.getNodeTemplates().add(buildCandidate(memorySize));
+        }
+
+        MatchingConfiguration matchingConfiguration = new MatchingConfiguration();
+        matchingConfiguration.getProperties().put("memory", Lists.<IMatchPropertyConstraint> newArrayList(new GreaterOrEqualConstraint()));
+        matchingConfigurations = Maps.newHashMap();
+        matchingConfigurations.put(CANDIDATE_TYPE, matchingConfiguration);
+    }
+
+    @Test
+    public void nodesAreMatchedByTypeAndConstraints() {
+        CompiledLocationResources compiled = nodeMatcher.compile(locationResources, matchingConfigurations);
+        assertEquals(3, nodeMatcher.matchNode(buildNode(ABSTRACT_TYPE, 4), abstractType, locationResources, compiled).size());
+        assertEquals(4, nodeMatcher.matchNode(buildNode(ABSTRACT_TYPE, null), abstractType, locationResources, compiled).size());
+        assertEquals(0, nodeMatcher.matchNode(buildNode("alien.test.nodes.Other", 4), abstractType, locationResources, compiled).size());
+
+        // candidates match every node of a compatible type when there is no matching configuration
+        assertEquals(4, nodeMatcher.matchNode(buildNode(ABSTRACT_TYPE, 4), abstractType, locationResources, Maps.<String, MatchingConfiguration> newHashMap())
+                .size());
+        // and no node at all when the orchestrator is disabled
+        assertEquals(0, nodeMatcher.matchNode(buildNode(ABSTRACT_TYPE, 4), abstractType, locationResources, (Map<String, MatchingConfiguration>) null)
+                .size());
+    }
+
+    @Test
+    public void compiledResourcesCanBeUsedConcurrently() throws Exception {
+        final CompiledLocationResources compiled = nodeMatcher.compile(locationResources, matchingConfigurations);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = Lists.newArrayList();
+            for (int i = 0; i < 1000; i++) {
+                final int memorySize = i % 10;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return nodeMatcher.matchNode(buildNode(ABSTRACT_TYPE, memorySize), abstractType, locationResources, compiled).size();
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(expectedMatches(i % 10), futures.get(i).get().intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void benchmarkCompiledMatching() {
+        for (int i = 0; i < 200; i++) {
+            locationResources.getNodeTemplates().add(buildCandidate(i % 16));
+        }
+        int nodes = 1000;
+        long start = System.nanoTime();
+        for (int i = 0; i < nodes; i++) {
+            nodeMatcher.matchNode(buildNode(ABSTRACT_TYPE, i % 16), abstractType, locationResources, matchingConfigurations);
+        }
+        long uncompiledTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        CompiledLocationResources compiled = nodeMatcher.compile(locationResources, matchingConfigurations);
+        for (int i = 0; i < nodes; i++) {
+            nodeMatcher.matchNode(buildNode(ABSTRACT_TYPE, i % 16), abstractType, locationResources, compiled);
+        }
+        log.info("Matching of {} nodes against {} candidates: compiled per node {} ms, compiled once {} ms", nodes, locationResources.getNodeTemplates()
+                .size(), uncompiledTime / 1000000, (System.nanoTime() - start) / 1000000);
+    }
+
+    private int expectedMatches(int memorySize) {
+        int count = 0;
+        for (int candidateMemorySize : new int[] { 1, 2, 4, 8 }) {
+            if (candidateMemorySize <= memorySize) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private LocationResourceTemplate buildCandidate(int memorySize) {
+        NodeTemplate template = buildNode(CANDIDATE_TYPE, memorySize);
+        LocationResourceTemplate candidate = new LocationResourceTemplate();
+        candidate.setName("compute_" + memorySize);
+        candidate.setTemplate(template);
+        return candidate;
+    }
+
+    private NodeTemplate buildNode(String type, Integer memorySize) {
+        NodeTemplate nodeTemplate = new NodeTemplate();
+        nodeTemplate.setType(type);
+        Map<String, AbstractPropertyValue> properties = Maps.newHashMap();
+        if (memorySize != null) {
+            properties.put("memory", new ScalarPropertyValue(String.valueOf(memorySize)));
+        }
+        nodeTemplate.setProperties(properties);
+        return nodeTemplate;
+    }
+}
@@ -0,0 +1,71 @@
+package alien4cloud.paas;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.WriteConsistency;
+import alien4cloud.paas.model.AbstractMonitorEvent;
+import alien4cloud.paas.model.PaaSMessageMonitorEvent;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Test the dispatch and persistence of pushed events.
+ */
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public class PaaSEventsPipelineTest {
+
+    private AbstractMonitorEvent[] newEvents(int count) {
+        AbstractMonitorEvent[] events = new AbstractMonitorEvent[count];
+        for (int i = 0; i < count; i++) {
+            PaaSMessageMonitorEvent event = new PaaSMessageMonitorEvent();
+            event.setDate(System.currentTimeMillis());
+            event.setMessage("message " + i);
+            events[i] = event;
+        }
+        return events;
+    }
+
+    @Test
+    public void eventsAreDispatchedAndPersistedBeforeStop() {
+        IGenericSearchDAO dao = mock(IGenericSearchDAO.class);
+        IPaasEventListener listener = mock(IPaasEventListener.class);
+        when(listener.canHandle(any(AbstractMonitorEvent.class))).thenReturn(true);
+        List<IPaasEventListener> listeners = Lists.newArrayList(listener);
+
+        PaaSEventsPipeline pipeline = new PaaSEventsPipeline(dao, listeners, "orchestrator", 100, 10, 60000);
+        pipeline.start();
+        pipeline.offer(newEvents(25));
+        pipeline.stop();
+
+        assertEquals(25, pipeline.getReceivedEvents());
+        assertEquals(0, pipeline.getDroppedEvents());
+        assertEquals(25, pipeline.getDispatchedEvents());
+        assertEquals(25, pipeline.getPersistedEvents());
+        assertEquals(3, pipeline.getBulkRequests());
+        assertEquals(0, pipeline.getQueueDepth());
+        verify(dao, atLeastOnce()).save(any(AbstractMonitorEvent[].class), eq(WriteConsistency.NEAR_REAL_TIME));
+    }
+
+    @Test
+    public void eventsAreDroppedWhenQueueIsFull() {
+        IGenericSearchDAO dao = mock(IGenericSearchDAO.class);
+        PaaSEventsPipeline pipeline = new PaaSEventsPipeline(dao, Lists.<IPaasEventListener> newArrayList(), "orchestrator", 5, 10, 60000);
+        // pipeline is not started so the events are not consumed.
+        pipeline.offer(newEvents(8));
+
+        assertEquals(8, pipeline.getReceivedEvents());
+        assertEquals(3, pipeline.getDroppedEvents());
+        assertEquals(5, pipeline.getQueueDepth());
+    }
+}
@@ -1,11 +1,18 @@
 package alien4cloud.paas;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
 
@@ -14,17 +21,21 @@ import org.elasticsearch.mapping.ElasticSearchClient;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.paas.PaaSProviderPollingMonitor;
+import alien4cloud.paas.model.AbstractMonitorEvent;
 import alien4cloud.paas.model.DeploymentStatus;
 import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
 import alien4cloud.paas.model.PaaSMessageMonitorEvent;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
 
 /**
  * Test monitoring events recovery
@@ -118,6 +129,105 @@ public class PaaSProviderPollingMonitorTest {
         assertTrue(lastDate.after(new Date()));
     }
 
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void testPollingIntervalAdaptsToActivity() throws Exception {
+        IPaaSProvider paaSProvider = mock(IPaaSProvider.class);
+        PaaSProviderPollingMonitor paaSProviderPollingMonitor = new PaaSProviderPollingMonitor(alienDao, alienMonitorDao, paaSProvider,
+                Lists.<IPaasEventListener> newArrayList(), "CloudID");
+        paaSProviderPollingMonitor.setPollingIntervals(100, 400);
+        Field hasDeploymentsField = PaaSProviderPollingMonitor.class.getDeclaredField("hasDeployments");
+        hasDeploymentsField.setAccessible(true);
+        hasDeploymentsField.set(paaSProviderPollingMonitor, true);
+
+        // idle provider: the interval is doubled up to the maximum interval
+        answerEvents(paaSProvider, null);
+        paaSProviderPollingMonitor.run();
+        assertEquals(200, paaSProviderPollingMonitor.getPollingInterval());
+        paaSProviderPollingMonitor.run();
+        paaSProviderPollingMonitor.run();
+        assertEquals(400, paaSProviderPollingMonitor.getPollingInterval());
+        assertEquals(0, paaSProviderPollingMonitor.getLastPollEvents());
+
+        // events are received: back to the minimum interval
+        PaaSMessageMonitorEvent event = new PaaSMessageMonitorEvent();
+        event.setDeploymentId("ID-XXX");
+        event.setMessage("message");
+        event.setDate(new Date().getTime());
+        answerEvents(paaSProvider, new AbstractMonitorEvent[] { event });
+        paaSProviderPollingMonitor.run();
+        assertEquals(100, paaSProviderPollingMonitor.getPollingInterval());
+        assertEquals(1, paaSProviderPollingMonitor.getLastPollEvents());
+
+        // failing provider
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                throw new IllegalStateException("Orchestrator is not reachable");
+            }
+        }).when(paaSProvider).getEventsSince(any(Date.class), anyInt(), any(IPaaSCallback.class));
+        paaSProviderPollingMonitor.run();
+        assertEquals(1, paaSProviderPollingMonitor.getConsecutiveFailures());
+        assertEquals(200, paaSProviderPollingMonitor.getPollingInterval());
+
+        paaSProviderPollingMonitor.wakeUp();
+        assertEquals(100, paaSProviderPollingMonitor.getPollingInterval());
+    }
+
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testPollListenerIsNotifiedWhenAsynchronousPollCompletes() throws Exception {
+        IPaaSProvider paaSProvider = mock(IPaaSProvider.class);
+        PaaSProviderPollingMonitor paaSProviderPollingMonitor = new PaaSProviderPollingMonitor(alienDao, alienMonitorDao, paaSProvider,
+                Lists.<IPaasEventListener> newArrayList(), "CloudID");
+        paaSProviderPollingMonitor.setPollingIntervals(100, 400);
+        Field hasDeploymentsField = PaaSProviderPollingMonitor.class.getDeclaredField("hasDeployments");
+        hasDeploymentsField.setAccessible(true);
+        hasDeploymentsField.set(paaSProviderPollingMonitor, true);
+        final AtomicInteger notifications = new AtomicInteger();
+        paaSProviderPollingMonitor.setPollListener(new Runnable() {
+            @Override
+            public void run() {
+                notifications.incrementAndGet();
+            }
+        });
+
+        // synchronous poll: completed during the tick, nothing to notify
+        answerEvents(paaSProvider, null);
+        paaSProviderPollingMonitor.run();
+        assertFalse(paaSProviderPollingMonitor.isPollInProgress());
+        assertEquals(0, notifications.get());
+
+        // asynchronous poll: the listener is notified with the updated interval once the events are received
+        final AtomicReference<IPaaSCallback<AbstractMonitorEvent[]>> pendingCallback = new AtomicReference<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                pendingCallback.set((IPaaSCallback<AbstractMonitorEvent[]>) invocation.getArguments()[2]);
+                return null;
+            }
+        }).when(paaSProvider).getEventsSince(any(Date.class), anyInt(), any(IPaaSCallback.class));
+        paaSProviderPollingMonitor.run();
+        assertTrue(paaSProviderPollingMonitor.isPollInProgress());
+        assertEquals(0, notifications.get());
+
+        pendingCallback.get().onSuccess(null);
+        assertFalse(paaSProviderPollingMonitor.isPollInProgress());
+        assertEquals(1, notifications.get());
+        assertEquals(400, paaSProviderPollingMonitor.getPollingInterval());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void answerEvents(IPaaSProvider paaSProvider, final AbstractMonitorEvent[] events) {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((IPaaSCallback<AbstractMonitorEvent[]>) invocation.getArguments()[2]).onSuccess(events);
+                return null;
+            }
+        }).when(paaSProvider).getEventsSince(any(Date.class), anyInt(), any(IPaaSCallback.class));
+    }
+
     private Date addMinutesToDate(int minutes, Date beforeTime) {
         final long ONE_MINUTE_IN_MILLIS = 60000;// millisecs
         long curTimeInMs = beforeTime.getTime();
@@ -0,0 +1,129 @@
+package alien4cloud.paas.wf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.elasticsearch.common.collect.Lists;
+import org.junit.Test;
+
+import alien4cloud.paas.plan.ToscaNodeLifecycleConstants;
+import alien4cloud.paas.wf.util.WorkflowGraphUtils;
+import alien4cloud.paas.wf.util.WorkflowUtils;
+import alien4cloud.paas.wf.validation.AbstractWorkflowError;
+import alien4cloud.paas.wf.validation.BadStateSequenceError;
+import alien4cloud.paas.wf.validation.CycleDetection;
+import alien4cloud.paas.wf.validation.ParallelSetStatesError;
+import alien4cloud.paas.wf.validation.StateSequenceValidation;
+
+/**
+ * Run the graph validation rules on large synthetic workflows. The rules must not enumerate the paths of the workflow (a wide workflow of 1000 nodes has
+ * 1000^7 paths): the tests fail on timeout if they do.
+ */
+public class WorkflowValidationScalingTest {
+    private static final String[] STATES = { ToscaNodeLifecycleConstants.INITIAL, ToscaNodeLifecycleConstants.CREATING, ToscaNodeLifecycleConstants.CREATED,
+            ToscaNodeLifecycleConstants.CONFIGURING, ToscaNodeLifecycleConstants.CONFIGURED, ToscaNodeLifecycleConstants.STARTING,
+            ToscaNodeLifecycleConstants.STARTED };
+
+    private CycleDetection cycleDetection = new CycleDetection();
+    private StateSequenceValidation stateSequenceValidation = new StateSequenceValidation();
+
+    @Test(timeout = 30000)
+    public void wideWorkflowsAreValid() {
+        for (int width : new int[] { 2, 100, 1000 }) {
+            assertValid(buildWideWorkflow(width));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void deepWorkflowsAreValid() {
+        for (int depth : new int[] { 10, 1000 }) {
+            assertValid(buildDeepWorkflow(depth));
+        }
+    }
+
+    @Test
+    public void pathsOfSmallWideWorkflowAreEnumerated() {
+        // the shape of the generated workflows: one path per choice of node in each of the 7 layers
+        assertEquals(128, WorkflowGraphUtils.getWorkflowGraphPaths(buildWideWorkflow(2)).size());
+    }
+
+    @Test(timeout = 30000)
+    public void cycleInWideWorkflowIsDetected() {
+        Workflow wf = buildWideWorkflow(1000);
+        WorkflowUtils.linkSteps(wf.getStateStep("node_0", ToscaNodeLifecycleConstants.STARTED), wf.getSteps().get("join_0"));
+        assertEquals(1, cycleDetection.validate(null, wf).size());
+    }
+
+    @Test(timeout = 30000)
+    public void parallelStatesInWideWorkflowAreDetected() {
+        Workflow wf = buildWideWorkflow(1000);
+        // node_0 is set as configured by two parallel branches
+        AbstractStep parallelStep = WorkflowUtils.addStateStep(wf, "node_0", ToscaNodeLifecycleConstants.CONFIGURED);
+        WorkflowUtils.linkSteps(wf.getSteps().get("join_3"), parallelStep);
+        List<AbstractWorkflowError> errors = stateSequenceValidation.validate(null, wf);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof ParallelSetStatesError);
+    }
+
+    @Test(timeout = 30000)
+    public void badStateSequenceInDeepWorkflowIsDetected() {
+        Workflow wf = buildDeepWorkflow(1000);
+        // node_0 goes back to its initial state at the end of the workflow
+        AbstractStep lastStep = wf.getStateStep("node_999", ToscaNodeLifecycleConstants.STARTED);
+        WorkflowUtils.linkSteps(lastStep, WorkflowUtils.addStateStep(wf, "node_0", ToscaNodeLifecycleConstants.INITIAL));
+        List<AbstractWorkflowError> errors = stateSequenceValidation.validate(null, wf);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof BadStateSequenceError);
+    }
+
+    private void assertValid(Workflow wf) {
+        assertEquals(0, cycleDetection.validate(null, wf).size());
+        assertEquals(0, stateSequenceValidation.validate(null, wf).size());
+    }
+
+    /**
+     * Nodes installed in parallel, joining on a shared step between each state: the workflow has width^7 paths.
+     */
+    private Workflow buildWideWorkflow(int width) {
+        Workflow wf = newInstallWorkflow();
+        List<AbstractStep> previousLayer = Lists.newArrayList();
+        for (int i = 0; i < STATES.length; i++) {
+            AbstractStep join = i == 0 ? null : wf.addStep(new SimpleStep("join_" + (i - 1)));
+            for (AbstractStep previous : previousLayer) {
+                WorkflowUtils.linkSteps(previous, join);
+            }
+            previousLayer = Lists.newArrayList();
+            for (int node = 0; node < width; node++) {
+                AbstractStep step = WorkflowUtils.addStateStep(wf, "node_" + node, STATES[i]);
+                WorkflowUtils.linkSteps(join, step);
+                previousLayer.add(step);
+            }
+        }
+        return wf;
+    }
+
+    /**
+     * Nodes installed one after the other.
+     */
+    private Workflow buildDeepWorkflow(int depth) {
+        Workflow wf = newInstallWorkflow();
+        AbstractStep previous = null;
+        for (int node = 0; node < depth; node++) {
+            for (String state : STATES) {
+                AbstractStep step = WorkflowUtils.addStateStep(wf, "node_" + node, state);
+                WorkflowUtils.linkSteps(previous, step);
+                previous = step;
+            }
+        }
+        return wf;
+    }
+
+    private Workflow newInstallWorkflow() {
+        Workflow wf = new Workflow();
+        wf.setName(Workflow.INSTALL_WF);
+        wf.setStandard(true);
+        return wf;
+    }
+}
@@ -0,0 +1,179 @@
+package alien4cloud.paas.wf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.model.components.IndexedRelationshipType;
+import alien4cloud.model.components.IndexedToscaElement;
+import alien4cloud.model.topology.NodeTemplate;
+import alien4cloud.model.topology.RelationshipTemplate;
+import alien4cloud.model.topology.Topology;
+import alien4cloud.paas.wf.WorkflowsBuilderService.TopologyContext;
+import alien4cloud.paas.wf.util.WorkflowUtils;
+import alien4cloud.paas.wf.validation.WorkflowValidator;
+import alien4cloud.tosca.normative.NormativeComputeConstants;
+import alien4cloud.tosca.normative.NormativeRelationshipConstants;
+
+/**
+ * Check that the incremental update of the workflows gives the same result as a full rebuild on generated topologies.
+ */
+@Slf4j
+public class WorkflowsBuilderServiceTest {
+    private static final String SOFTWARE_TYPE = "alien.test.nodes.Software";
+
+    private WorkflowsBuilderService workflowsBuilderService;
+
+    @Before
+    public void before() {
+        workflowsBuilderService = new WorkflowsBuilderService();
+        ReflectionTestUtils.setField(workflowsBuilderService, "installWorkflowBuilder", new InstallWorkflowBuilder());
+        ReflectionTestUtils.setField(workflowsBuilderService, "uninstallWorkflowBuilder", new UninstallWorkflowBuilder());
+        ReflectionTestUtils.setField(workflowsBuilderService, "customWorkflowBuilder", new CustomWorkflowBuilder());
+        ReflectionTestUtils.setField(workflowsBuilderService, "workflowValidator", new WorkflowValidator());
+    }
+
+    @Test
+    public void incrementalUpdateMatchesFullRebuild() {
+        TopologyContext topologyContext = buildTopology(50);
+        Topology topology = topologyContext.getTopology();
+        Map<String, Workflow> incremental = Maps.newHashMap(topology.getWorkflows());
+
+        topology.setWorkflows(null);
+        workflowsBuilderService.initWorkflows(topologyContext);
+        for (String workflowName : Arrays.asList(Workflow.INSTALL_WF, Workflow.UNINSTALL_WF)) {
+            assertSameWorkflow(topology.getWorkflows().get(workflowName), incremental.get(workflowName));
+        }
+    }
+
+    @Test
+    public void removeNodeUpdatesIndexes() {
+        TopologyContext topologyContext = buildTopology(10);
+        Topology topology = topologyContext.getTopology();
+        Workflow install = topology.getWorkflows().get(Workflow.INSTALL_WF);
+        assertEquals(10, install.getNodeSteps("node_4").size());
+
+        topology.getNodeTemplates().remove("node_4");
+        topology.getNodeTemplates().get("node_5").getRelationships().clear();
+        new InstallWorkflowBuilder().removeNode(install, "node_4");
+        assertEquals(0, install.getNodeSteps("node_4").size());
+        assertNull(WorkflowUtils.getStateStepByNode(install, "node_4", "started"));
+    }
+
+    @Test
+    public void successiveIncrementalUpdatesMatchFullRebuild() {
+        for (int size : new int[] { 50, 200 }) {
+            TopologyContext topologyContext = buildTopology(size);
+            Topology topology = topologyContext.getTopology();
+            int iterations = 3;
+            long incrementalTime = 0;
+            long fullRebuildTime = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                addNode(topologyContext, "added_" + i, SOFTWARE_TYPE, "node_0");
+                incrementalTime += System.nanoTime() - start;
+                Map<String, Workflow> incremental = Maps.newHashMap(topology.getWorkflows());
+
+                start = System.nanoTime();
+                topology.setWorkflows(null);
+                workflowsBuilderService.initWorkflows(topologyContext);
+                fullRebuildTime += System.nanoTime() - start;
+                for (String workflowName : Arrays.asList(Workflow.INSTALL_WF, Workflow.UNINSTALL_WF)) {
+                    assertSameWorkflow(topology.getWorkflows().get(workflowName), incremental.get(workflowName));
+                }
+            }
+            log.debug("Topology of {} nodes: incremental update {} ms, full rebuild {} ms", size, incrementalTime / iterations / 1000000, fullRebuildTime
+                    / iterations / 1000000);
+        }
+    }
+
+    /**
+     * Generate a topology with one compute every 5 nodes, each compute hosting a chain of 4 software nodes.
+     */
+    private TopologyContext buildTopology(int size) {
+        Topology topology = new Topology();
+        topology.setNodeTemplates(Maps.<String, NodeTemplate> newLinkedHashMap());
+        TopologyContext topologyContext = workflowsBuilderService.buildCachedTopologyContext(new TestTopologyContext(topology));
+        workflowsBuilderService.initWorkflows(topologyContext);
+        for (int i = 0; i < size; i++) {
+            if (i % 5 == 0) {
+                addNode(topologyContext, "node_" + i, NormativeComputeConstants.COMPUTE_TYPE, null);
+            } else {
+                addNode(topologyContext, "node_" + i, SOFTWARE_TYPE, "node_" + (i - 1));
+            }
+        }
+        return topologyContext;
+    }
+
+    private void addNode(TopologyContext topologyContext, String nodeName, String type, String hostName) {
+        NodeTemplate nodeTemplate = new NodeTemplate();
+        nodeTemplate.setName(nodeName);
+        nodeTemplate.setType(type);
+        nodeTemplate.setRelationships(Maps.<String, RelationshipTemplate> newHashMap());
+        topologyContext.getTopology().getNodeTemplates().put(nodeName, nodeTemplate);
+        workflowsBuilderService.addNode(topologyContext, nodeName, nodeTemplate);
+        if (hostName != null) {
+            RelationshipTemplate relationshipTemplate = new RelationshipTemplate();
+            relationshipTemplate.setType(NormativeRelationshipConstants.HOSTED_ON);
+            relationshipTemplate.setTarget(hostName);
+            nodeTemplate.getRelationships().put("hostedOn", relationshipTemplate);
+            workflowsBuilderService.addRelationship(topologyContext, nodeName, "hostedOn");
+        }
+    }
+
+    private void assertSameWorkflow(Workflow expected, Workflow actual) {
+        assertEquals(expected.getSteps().keySet(), actual.getSteps().keySet());
+        assertEquals(expected.getHosts(), actual.getHosts());
+        for (AbstractStep expectedStep : expected.getSteps().values()) {
+            AbstractStep actualStep = actual.getSteps().get(expectedStep.getName());
+            assertEquals(expectedStep.getPrecedingSteps(), actualStep.getPrecedingSteps());
+            assertEquals(expectedStep.getFollowingSteps(), actualStep.getFollowingSteps());
+            assertEquals(((NodeActivityStep) expectedStep).getHostId(), ((NodeActivityStep) actualStep).getHostId());
+        }
+        assertEquals(expected.getErrors().size(), actual.getErrors().size());
+    }
+
+    /** Topology context that resolves the normative compute, hosted on and a software type without looking up in a repository. */
+    private static class TestTopologyContext implements TopologyContext {
+        private final Topology topology;
+        private final Map<String, IndexedToscaElement> types = Maps.newHashMap();
+
+        private TestTopologyContext(Topology topology) {
+            this.topology = topology;
+            IndexedNodeType compute = new IndexedNodeType();
+            compute.setElementId(NormativeComputeConstants.COMPUTE_TYPE);
+            compute.setDerivedFrom(Lists.newArrayList("tosca.nodes.Root"));
+            types.put(compute.getElementId(), compute);
+            IndexedNodeType software = new IndexedNodeType();
+            software.setElementId(SOFTWARE_TYPE);
+            software.setDerivedFrom(Lists.newArrayList("tosca.nodes.SoftwareComponent", "tosca.nodes.Root"));
+            types.put(software.getElementId(), software);
+            IndexedRelationshipType hostedOn = new IndexedRelationshipType();
+            hostedOn.setElementId(NormativeRelationshipConstants.HOSTED_ON);
+            types.put(hostedOn.getElementId(), hostedOn);
+        }
+
+        @Override
+        public Topology getTopology() {
+            return topology;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T extends IndexedToscaElement> T findElement(Class<T> clazz, String id) {
+            IndexedToscaElement element = types.get(id);
+            return clazz.isInstance(element) ? (T) element : null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package alien4cloud.topology;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.model.topology.Topology;
+
+/**
+ * Test the lifecycle of the working copies of the topologies under edition.
+ */
+public class TopologyWorkingCopyServiceTest {
+    private TopologyWorkingCopyService workingCopyService;
+    private Topology topology;
+
+    @Before
+    public void before() {
+        workingCopyService = new TopologyWorkingCopyService();
+        ReflectionTestUtils.setField(workingCopyService, "maxSize", 10);
+        ReflectionTestUtils.setField(workingCopyService, "ttlMinutes", 10);
+        workingCopyService.init();
+        topology = new Topology();
+        topology.setId("topology");
+    }
+
+    @Test
+    public void workingCopyIsOnlyVisibleInEdition() {
+        assertTrue(workingCopyService.startEdition("topology"));
+        workingCopyService.put(topology);
+        assertSame(topology, workingCopyService.get("topology"));
+        workingCopyService.onSave(topology);
+        workingCopyService.endEdition(false);
+
+        assertNull(workingCopyService.get("topology"));
+        assertTrue(workingCopyService.startEdition("topology"));
+        assertSame(topology, workingCopyService.get("topology"));
+        workingCopyService.onSave(topology);
+        workingCopyService.endEdition(false);
+    }
+
+    @Test
+    public void readersGetTheirOwnCopy() {
+        assertNull(workingCopyService.getSnapshot("topology"));
+        topology.setDelegateId("application");
+        workingCopyService.startEdition("topology");
+        workingCopyService.put(topology);
+        workingCopyService.onSave(topology);
+        workingCopyService.endEdition(false);
+
+        Topology snapshot = workingCopyService.getSnapshot("topology");
+        assertNotSame(topology, snapshot);
+        assertEquals("application", snapshot.getDelegateId());
+        snapshot.setDelegateId("modified");
+        assertEquals("application", workingCopyService.getSnapshot("topology").getDelegateId());
+    }
+
+    @Test
+    public void modifiedWorkingCopyIsKeptOnlyIfSaved() {
+        workingCopyService.startEdition("topology");
+        workingCopyService.put(topology);
+        workingCopyService.onSave(topology);
+        workingCopyService.endEdition(false);
+        assertEquals(1, workingCopyService.getCacheSize());
+
+        workingCopyService.startEdition("topology");
+        workingCopyService.get("topology");
+        workingCopyService.endEdition(false);
+        assertEquals(0, workingCopyService.getCacheSize());
+    }
+
+    @Test
+    public void workingCopyIsEvictedWhenTopologyIsSavedFromAnotherInstance() {
+        workingCopyService.startEdition("topology");
+        workingCopyService.put(topology);
+        workingCopyService.onSave(topology);
+        workingCopyService.endEdition(false);
+
+        Topology other = new Topology();
+        other.setId("topology");
+        workingCopyService.onSave(other);
+        assertEquals(0, workingCopyService.getCacheSize());
+    }
+
+    @Test
+    public void failedEditionDiscardsWorkingCopy() {
+        workingCopyService.startEdition("topology");
+        workingCopyService.put(topology);
+        workingCopyService.onSave(topology);
+        workingCopyService.endEdition(true);
+        assertEquals(0, workingCopyService.getCacheSize());
+    }
+
+    @Test
+    public void snapshotWaitsForTheRunningEdition() throws Exception {
+        assertTrue(workingCopyService.startEdition("topology"));
+        workingCopyService.put(topology);
+        workingCopyService.onSave(topology);
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                workingCopyService.getSnapshot("topology");
+            }
+        });
+        reader.start();
+        reader.join(200);
+        assertTrue("a reader must wait for the running edition", reader.isAlive());
+        workingCopyService.endEdition(false);
+        reader.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(reader.isAlive());
+    }
+}
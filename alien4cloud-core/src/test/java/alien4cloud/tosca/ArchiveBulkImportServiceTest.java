@@ -0,0 +1,209 @@
+package alien4cloud.tosca;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.csar.services.CsarService;
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.Csar;
+import alien4cloud.tosca.model.ArchiveImportReport;
+import alien4cloud.tosca.model.ArchiveRoot;
+import alien4cloud.tosca.parser.ParsingContext;
+import alien4cloud.tosca.parser.ParsingError;
+import alien4cloud.tosca.parser.ParsingErrorLevel;
+import alien4cloud.tosca.parser.ParsingResult;
+import alien4cloud.tosca.parser.impl.ErrorCode;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Test the import of archive sets in the order of their dependencies.
+ */
+public class ArchiveBulkImportServiceTest {
+    private ArchiveParser parser;
+    private ArchiveUploadService uploadService;
+    private CsarService csarService;
+    private ArchiveBulkImportService bulkImportService;
+    /** Parsing results of the archives, per path. */
+    private final Map<Path, ParsingResult<ArchiveRoot>> archives = Maps.newHashMap();
+    /** Names of the archives that fail to be uploaded. */
+    private final Set<String> failingUploads = Sets.newHashSet();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void before() throws Exception {
+        parser = mock(ArchiveParser.class);
+        uploadService = mock(ArchiveUploadService.class);
+        csarService = mock(CsarService.class);
+        bulkImportService = new ArchiveBulkImportService();
+        ReflectionTestUtils.setField(bulkImportService, "parser", parser);
+        ReflectionTestUtils.setField(bulkImportService, "uploadService", uploadService);
+        ReflectionTestUtils.setField(bulkImportService, "csarService", csarService);
+
+        when(parser.parse(any(Path.class))).thenAnswer(new Answer<ParsingResult<ArchiveRoot>>() {
+            @Override
+            public ParsingResult<ArchiveRoot> answer(InvocationOnMock invocation) throws Throwable {
+                return archives.get(invocation.getArguments()[0]);
+            }
+        });
+        when(uploadService.upload(any(Path.class), any(ParsingResult.class))).thenAnswer(new Answer<ParsingResult<Csar>>() {
+            @Override
+            public ParsingResult<Csar> answer(InvocationOnMock invocation) throws Throwable {
+                Csar csar = ((ParsingResult<ArchiveRoot>) invocation.getArguments()[1]).getResult().getArchive();
+                ParsingContext context = new ParsingContext(csar.getName());
+                if (failingUploads.contains(csar.getName())) {
+                    context.getParsingErrors().add(new ParsingError(ErrorCode.ERRONEOUS_ARCHIVE_FILE, "Upload", null, "failed", null, csar.getName()));
+                }
+                return new ParsingResult<Csar>(csar, context);
+            }
+        });
+    }
+
+    @Test
+    public void archivesAreImportedInTheOrderOfTheirDependencies() throws Exception {
+        Path c = addArchive("c", "b");
+        Path b = addArchive("b", "a");
+        Path d = addArchive("d");
+        Path a = addArchive("a", "tosca-normative-types");
+
+        List<ArchiveImportReport> reports = bulkImportService.importArchives(Lists.newArrayList(c, b, d, a), false);
+        assertEquals(Lists.newArrayList("a", "d", "b", "c"), getNames(reports));
+        for (ArchiveImportReport report : reports) {
+            assertFalse(report.isSkipped());
+            assertFalse(ArchiveUploadService.hasError(report.getParsingResult(), null));
+        }
+        // archives that depend on an archive of the set are parsed again once it has been imported
+        verify(parser, times(1)).parse(a);
+        verify(parser, times(1)).parse(d);
+        verify(parser, times(2)).parse(b);
+        verify(parser, times(2)).parse(c);
+    }
+
+    @Test
+    public void archivesAreParsedConcurrently() throws Exception {
+        final int parallelism = 4;
+        ReflectionTestUtils.setField(bulkImportService, "parallelism", parallelism);
+        final CountDownLatch parsingLatch = new CountDownLatch(parallelism);
+        final Set<String> parsingThreads = Collections.synchronizedSet(Sets.<String> newHashSet());
+        List<Path> paths = Lists.newArrayList();
+        for (int i = 0; i < parallelism; i++) {
+            paths.add(addArchive("archive-" + i));
+        }
+        when(parser.parse(any(Path.class))).thenAnswer(new Answer<ParsingResult<ArchiveRoot>>() {
+            @Override
+            public ParsingResult<ArchiveRoot> answer(InvocationOnMock invocation) throws Throwable {
+                parsingThreads.add(Thread.currentThread().getName());
+                parsingLatch.countDown();
+                // every parsing waits for the others: the import cannot complete if the archives are parsed one after the other
+                if (!parsingLatch.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Archives are not parsed concurrently");
+                }
+                return archives.get(invocation.getArguments()[0]);
+            }
+        });
+
+        List<ArchiveImportReport> reports = bulkImportService.importArchives(paths, false);
+        assertEquals(parallelism, parsingThreads.size());
+        for (ArchiveImportReport report : reports) {
+            assertFalse(ArchiveUploadService.hasError(report.getParsingResult(), null));
+        }
+    }
+
+    @Test
+    public void dependentsOfAFailedArchiveAreNotImported() throws Exception {
+        Path a = addArchive("a");
+        Path b = addArchive("b", "a");
+        Path c = addArchive("c");
+        failingUploads.add("a");
+
+        List<ArchiveImportReport> reports = bulkImportService.importArchives(Lists.newArrayList(a, b, c), false);
+        assertEquals(Lists.newArrayList("a", "c", "b"), getNames(reports));
+        assertTrue(ArchiveUploadService.hasError(reports.get(0).getParsingResult(), ParsingErrorLevel.ERROR));
+        assertFalse(ArchiveUploadService.hasError(reports.get(1).getParsingResult(), null));
+        assertErrorCode(reports.get(2), ParsingErrorLevel.ERROR, ErrorCode.MISSING_DEPENDENCY);
+        verify(uploadService, never()).upload(eq(b), any(ParsingResult.class));
+    }
+
+    @Test
+    public void existingArchivesAreSkipped() throws Exception {
+        Path a = addArchive("a");
+        Path b = addArchive("b", "a");
+        when(csarService.getIfExists("a", "1.0.0")).thenReturn(new Csar("a", "1.0.0"));
+
+        List<ArchiveImportReport> reports = bulkImportService.importArchives(Lists.newArrayList(a, b), true);
+        assertEquals(Lists.newArrayList("a", "b"), getNames(reports));
+        assertTrue(reports.get(0).isSkipped());
+        assertErrorCode(reports.get(0), ParsingErrorLevel.INFO, ErrorCode.CSAR_ALREADY_EXISTS);
+        verify(uploadService, never()).upload(eq(a), any(ParsingResult.class));
+        // dependents of a skipped archive are imported
+        assertFalse(reports.get(1).isSkipped());
+        assertFalse(ArchiveUploadService.hasError(reports.get(1).getParsingResult(), null));
+    }
+
+    @Test
+    public void dependencyCycleIsReported() throws Exception {
+        Path a = addArchive("a", "b");
+        Path b = addArchive("b", "a");
+        Path c = addArchive("c");
+
+        List<ArchiveImportReport> reports = bulkImportService.importArchives(Lists.newArrayList(a, b, c), false);
+        assertEquals("c", reports.get(0).getArchive().getName());
+        assertErrorCode(reports.get(1), ParsingErrorLevel.ERROR, ErrorCode.MISSING_DEPENDENCY);
+        assertErrorCode(reports.get(2), ParsingErrorLevel.ERROR, ErrorCode.MISSING_DEPENDENCY);
+        verify(uploadService, times(1)).upload(any(Path.class), any(ParsingResult.class));
+    }
+
+    private Path addArchive(String name, String... dependencies) {
+        ArchiveRoot archiveRoot = new ArchiveRoot();
+        archiveRoot.getArchive().setName(name);
+        archiveRoot.getArchive().setVersion("1.0.0");
+        Set<CSARDependency> csarDependencies = Sets.newHashSet();
+        for (String dependency : dependencies) {
+            csarDependencies.add(new CSARDependency(dependency, "1.0.0"));
+        }
+        archiveRoot.getArchive().setDependencies(csarDependencies);
+        Path path = Paths.get("target/bulk-import-test/" + name + ".zip");
+        archives.put(path, new ParsingResult<ArchiveRoot>(archiveRoot, new ParsingContext(name + ".zip")));
+        return path;
+    }
+
+    private List<String> getNames(List<ArchiveImportReport> reports) {
+        List<String> names = Lists.newArrayList();
+        for (ArchiveImportReport report : reports) {
+            names.add(report.getArchive().getName());
+        }
+        return names;
+    }
+
+    private void assertErrorCode(ArchiveImportReport report, ParsingErrorLevel level, ErrorCode errorCode) {
+        List<ParsingError> errors = report.getParsingResult().getContext().getParsingErrors();
+        assertEquals(1, errors.size());
+        assertEquals(level, errors.get(0).getErrorLevel());
+        assertEquals(errorCode, errors.get(0).getErrorCode());
+    }
+}
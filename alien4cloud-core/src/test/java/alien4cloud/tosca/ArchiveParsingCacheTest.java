@@ -0,0 +1,118 @@
+package alien4cloud.tosca;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.model.components.CSARDependency;
+import alien4cloud.model.components.IndexedNodeType;
+import alien4cloud.tosca.model.ArchiveRoot;
+import alien4cloud.tosca.parser.ParsingContext;
+import alien4cloud.tosca.parser.ParsingResult;
+import alien4cloud.utils.FileUtil;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Test the on disk cache of the archives parsing results.
+ */
+public class ArchiveParsingCacheTest {
+    private Path cacheDirectory = Paths.get("target/parsing-cache-test/cache");
+    private Path archiveFile = Paths.get("target/parsing-cache-test/archive.zip");
+
+    @Before
+    public void before() throws IOException {
+        FileUtil.delete(cacheDirectory.getParent());
+        Files.createDirectories(cacheDirectory);
+        Files.write(archiveFile, "archive content".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ArchiveParsingCache newCache(long maxSize) {
+        ArchiveParsingCache cache = new ArchiveParsingCache();
+        ReflectionTestUtils.setField(cache, "cacheDirectory", cacheDirectory.toString());
+        ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+        cache.init();
+        return cache;
+    }
+
+    private ParsingResult<ArchiveRoot> newParsingResult(String dependencyVersion) {
+        ArchiveRoot archiveRoot = new ArchiveRoot();
+        archiveRoot.getArchive().setName("test-archive");
+        archiveRoot.getArchive().setVersion("1.0.0");
+        archiveRoot.getArchive().setDependencies(Sets.newHashSet(new CSARDependency("tosca-normative-types", dependencyVersion)));
+        IndexedNodeType nodeType = new IndexedNodeType();
+        nodeType.setElementId("test.nodes.Test");
+        nodeType.setArchiveName("test-archive");
+        nodeType.setArchiveVersion("1.0.0");
+        archiveRoot.getNodeTypes().put(nodeType.getElementId(), nodeType);
+        return new ParsingResult<ArchiveRoot>(archiveRoot, new ParsingContext("archive.zip"));
+    }
+
+    @Test
+    public void parsingResultIsRetrievedFromCache() {
+        ArchiveParsingCache cache = newCache(1024 * 1024);
+        String key = cache.getKey(archiveFile);
+        assertNull(cache.get(key));
+
+        cache.put(key, newParsingResult("1.0.0"), 100);
+        ParsingResult<ArchiveRoot> cached = cache.get(key);
+        assertNotNull(cached);
+        assertEquals("test-archive", cached.getResult().getArchive().getName());
+        assertEquals("1.0.0", cached.getResult().getNodeTypes().get("test.nodes.Test").getArchiveVersion());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // entries are persisted on disk.
+        assertNotNull(newCache(1024 * 1024).get(key));
+    }
+
+    @Test
+    public void resultOfAnotherParserVersionIsNotReused() {
+        ArchiveParsingCache cache = newCache(1024 * 1024);
+        String key = cache.getKey(archiveFile);
+        cache.put(key, newParsingResult("1.0.0"), 100);
+
+        ArchiveParsingCache upgradedCache = newCache(1024 * 1024);
+        ReflectionTestUtils.setField(upgradedCache, "parserVersion", "upgraded");
+        String upgradedKey = upgradedCache.getKey(archiveFile);
+        assertNotEquals(key, upgradedKey);
+        assertNull(upgradedCache.get(upgradedKey));
+    }
+
+    @Test
+    public void resultWithSnapshotDependencyIsNotCached() {
+        ArchiveParsingCache cache = newCache(1024 * 1024);
+        String key = cache.getKey(archiveFile);
+        cache.put(key, newParsingResult("1.0.0-SNAPSHOT"), 100);
+        assertEquals(0, cache.getEntryCount());
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void entriesAreEvictedWhenCacheIsFull() {
+        ArchiveParsingCache cache = newCache(1);
+        String key = cache.getKey(archiveFile);
+        cache.put(key, newParsingResult("1.0.0"), 100);
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSize());
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void clearRemovesAllEntries() {
+        ArchiveParsingCache cache = newCache(1024 * 1024);
+        String key = cache.getKey(archiveFile);
+        cache.put(key, newParsingResult("1.0.0"), 100);
+        cache.clear();
+        assertEquals(0, cache.getEntryCount());
+        assertNull(cache.get(key));
+    }
+}
@@ -30,6 +30,7 @@ import alien4cloud.model.topology.NodeTemplate;
 import alien4cloud.model.topology.RelationshipTemplate;
 import alien4cloud.model.topology.ScalingPolicy;
 import alien4cloud.model.topology.Topology;
+import alien4cloud.paas.IEventPushingPaaSProvider;
 import alien4cloud.paas.IPaaSCallback;
 import alien4cloud.paas.exception.PluginConfigurationException;
 import alien4cloud.paas.model.AbstractMonitorEvent;
@@ -54,7 +55,7 @@ import alien4cloud.tosca.normative.NormativeRelationshipConstants;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 @Slf4j
-public abstract class MockPaaSProvider extends AbstractPaaSProvider {
+public abstract class MockPaaSProvider extends AbstractPaaSProvider implements IEventPushingPaaSProvider {
     public static final String PUBLIC_IP = "ip_address";
     public static final String TOSCA_ID = "tosca_id";
     public static final String TOSCA_NAME = "tosca_name";
@@ -69,6 +70,8 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
 
     private final List<AbstractMonitorEvent> toBeDeliveredEvents = Collections.synchronizedList(new ArrayList<AbstractMonitorEvent>());
 
+    private IPaaSCallback<AbstractMonitorEvent[]> eventsPushCallback;
+
     @Resource
     private ICSARRepositorySearchService csarRepoSearchService;
 
@@ -225,12 +228,12 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
                 event.setDeploymentStatus(status);
                 event.setDate((new Date()).getTime());
                 event.setDeploymentId(paaSDeploymentIdToAlienDeploymentIdMap.get(deploymentPaaSId));
-                toBeDeliveredEvents.add(event);
+                deliverEvent(event);
                 PaaSMessageMonitorEvent messageMonitorEvent = new PaaSMessageMonitorEvent();
                 messageMonitorEvent.setDate((new Date()).getTime());
                 messageMonitorEvent.setDeploymentId(paaSDeploymentIdToAlienDeploymentIdMap.get(deploymentPaaSId));
                 messageMonitorEvent.setMessage("APPLICATIONS.RUNTIME.EVENTS.MESSAGE_EVENT.STATUS_DEPLOYMENT_CHANGED");
-                toBeDeliveredEvents.add(messageMonitorEvent);
+                deliverEvent(messageMonitorEvent);
             }
         }, 2, TimeUnit.SECONDS);
 
@@ -261,19 +264,19 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
                 event.setDeploymentId(paaSDeploymentIdToAlienDeploymentIdMap.get(deploymentPaaSId));
                 event.setRuntimeProperties(cloned.getRuntimeProperties());
                 event.setAttributes(cloned.getAttributes());
-                toBeDeliveredEvents.add(event);
+                deliverEvent(event);
 
                 if (deployment.getSourceName().equals(BLOCKSTORAGE_APPLICATION) && cloned.getState().equalsIgnoreCase("created")) {
                     PaaSInstancePersistentResourceMonitorEvent prme = new PaaSInstancePersistentResourceMonitorEvent(nodeId, instanceId.toString(),
                             NormativeBlockStorageConstants.VOLUME_ID, UUID.randomUUID().toString());
-                    toBeDeliveredEvents.add(prme);
+                    deliverEvent(prme);
                 }
 
                 PaaSMessageMonitorEvent messageMonitorEvent = new PaaSMessageMonitorEvent();
                 messageMonitorEvent.setDate((new Date()).getTime());
                 messageMonitorEvent.setDeploymentId(paaSDeploymentIdToAlienDeploymentIdMap.get(deploymentPaaSId));
                 messageMonitorEvent.setMessage("APPLICATIONS.RUNTIME.EVENTS.MESSAGE_EVENT.INSTANCE_STATE_CHANGED");
-                toBeDeliveredEvents.add(messageMonitorEvent);
+                deliverEvent(messageMonitorEvent);
             }
         }, delay, TimeUnit.SECONDS);
     }
@@ -288,7 +291,7 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
                 event.setNodeTemplateId(nodeId);
                 event.setDate((new Date()).getTime());
                 event.setDeploymentId(paaSDeploymentIdToAlienDeploymentIdMap.get(deploymentPaaSId));
-                toBeDeliveredEvents.add(event);
+                deliverEvent(event);
             }
         }, delay, TimeUnit.SECONDS);
     }
@@ -450,9 +453,48 @@ public abstract class MockPaaSProvider extends AbstractPaaSProvider {
 
     @Override
     public void getEventsSince(Date date, int maxEvents, IPaaSCallback<AbstractMonitorEvent[]> eventsCallback) {
-        AbstractMonitorEvent[] events = toBeDeliveredEvents.toArray(new AbstractMonitorEvent[toBeDeliveredEvents.size()]);
-        toBeDeliveredEvents.clear();
-        eventsCallback.onSuccess(events);
+        eventsCallback.onSuccess(drainEvents());
+    }
+
+    @Override
+    public void startEventsPush(Date since, IPaaSCallback<AbstractMonitorEvent[]> eventsCallback) {
+        // the mock doesn't keep any history, only the events not yet delivered are pushed.
+        AbstractMonitorEvent[] pendingEvents;
+        synchronized (toBeDeliveredEvents) {
+            eventsPushCallback = eventsCallback;
+            pendingEvents = drainEvents();
+        }
+        if (pendingEvents.length > 0) {
+            eventsCallback.onSuccess(pendingEvents);
+        }
+    }
+
+    @Override
+    public void stopEventsPush() {
+        synchronized (toBeDeliveredEvents) {
+            eventsPushCallback = null;
+        }
+    }
+
+    private AbstractMonitorEvent[] drainEvents() {
+        synchronized (toBeDeliveredEvents) {
+            AbstractMonitorEvent[] events = toBeDeliveredEvents.toArray(new AbstractMonitorEvent[toBeDeliveredEvents.size()]);
+            toBeDeliveredEvents.clear();
+            return events;
+        }
+    }
+
+    private void deliverEvent(AbstractMonitorEvent event) {
+        IPaaSCallback<AbstractMonitorEvent[]> callback;
+        synchronized (toBeDeliveredEvents) {
+            callback = eventsPushCallback;
+            if (callback == null) {
+                // events are polled
+                toBeDeliveredEvents.add(event);
+                return;
+            }
+        }
+        callback.onSuccess(new AbstractMonitorEvent[] { event });
     }
 
     @Override
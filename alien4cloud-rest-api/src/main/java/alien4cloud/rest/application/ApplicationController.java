@@ -21,12 +21,14 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
 
 import alien4cloud.application.ApplicationEnvironmentService;
 import alien4cloud.application.ApplicationService;
 import alien4cloud.application.ApplicationVersionService;
 import alien4cloud.audit.annotation.Audit;
+import alien4cloud.dao.IAsyncSearchDAO;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.exception.DeleteDeployedException;
@@ -49,6 +51,7 @@ import alien4cloud.security.AuthorizationUtil;
 import alien4cloud.security.model.ApplicationRole;
 import alien4cloud.security.model.Role;
 import alien4cloud.topology.TopologyTemplateVersionService;
+import alien4cloud.utils.DeferredResultUtil;
 import alien4cloud.utils.ReflectionUtil;
 import alien4cloud.utils.services.ConstraintPropertyService;
 
@@ -69,6 +72,8 @@ public class ApplicationController {
     private IImageDAO imageDAO;
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
+    @Resource(name = "alien-es-dao")
+    private IAsyncSearchDAO alienAsyncDAO;
     @Resource
     private ApplicationService applicationService;
     @Resource
@@ -129,11 +134,10 @@ public class ApplicationController {
     @ApiOperation(value = "Search for applications", notes = "Returns a search result with that contains applications matching the request. A application is returned only if the connected user has at least one application role in [ APPLICATION_MANAGER | APPLICATION_USER | APPLICATION_DEVOPS | DEPLOYMENT_MANAGER ]")
     @RequestMapping(value = "/search", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<FacetedSearchResult> search(@RequestBody SearchRequest searchRequest) {
+    public DeferredResult<RestResponse<FacetedSearchResult>> search(@RequestBody SearchRequest searchRequest) {
         FilterBuilder authorizationFilter = AuthorizationUtil.getResourceAuthorizationFilters();
-        FacetedSearchResult searchResult = alienDAO.facetedSearch(Application.class, searchRequest.getQuery(), searchRequest.getFilters(), authorizationFilter,
-                null, searchRequest.getFrom(), searchRequest.getSize());
-        return RestResponseBuilder.<FacetedSearchResult> builder().data(searchResult).build();
+        return DeferredResultUtil.toRestResponse(alienAsyncDAO.facetedSearchAsync(Application.class, searchRequest.getQuery(), searchRequest.getFilters(),
+                authorizationFilter, null, searchRequest.getFrom(), searchRequest.getSize()));
     }
 
     /**
@@ -27,6 +27,7 @@ import alien4cloud.deployment.DeployService;
 import alien4cloud.deployment.DeploymentRuntimeService;
 import alien4cloud.deployment.DeploymentRuntimeStateService;
 import alien4cloud.deployment.DeploymentService;
+import alien4cloud.deployment.DeploymentStatusService;
 import alien4cloud.deployment.DeploymentTopologyService;
 import alien4cloud.deployment.UndeployService;
 import alien4cloud.deployment.WorkflowExecutionService;
@@ -56,6 +57,7 @@ import alien4cloud.security.model.ApplicationRole;
 import alien4cloud.security.model.DeployerRole;
 import alien4cloud.topology.TopologyValidationResult;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -85,6 +87,8 @@ public class ApplicationDeploymentController {
     private DeploymentRuntimeService deploymentRuntimeService;
     @Inject
     private WorkflowExecutionService workflowExecutionService;
+    @Inject
+    private DeploymentStatusService deploymentStatusService;
 
     /**
      * Trigger deployment of the application on the current configured PaaS.
@@ -196,25 +200,28 @@ public class ApplicationDeploymentController {
     @PreAuthorize("isAuthenticated()")
     public RestResponse<Map<String, Map<String, EnvironmentStatusDTO>>> getApplicationsStatuses(@RequestBody List<String> applicationIds) {
         Map<String, Map<String, EnvironmentStatusDTO>> statuses = Maps.newHashMap();
-
-        for (String applicationId : applicationIds) {
-            Map<String, EnvironmentStatusDTO> environmentStatuses = Maps.newHashMap();
-            Application application = applicationService.checkAndGetApplication(applicationId);
-            // get all environments status for the current application
-            ApplicationEnvironment[] environments = applicationEnvironmentService.getByApplicationId(application.getId());
-            for (ApplicationEnvironment env : environments) {
+        // get the applications and the environments that the user is allowed to see in two requests, then all their statuses at once
+        String[] ids = applicationIds.toArray(new String[applicationIds.size()]);
+        Map<String, List<ApplicationEnvironment>> environmentsByApplication = Maps.newHashMap();
+        for (String applicationId : applicationService.checkAndGetApplications(ids).keySet()) {
+            environmentsByApplication.put(applicationId, Lists.<ApplicationEnvironment> newArrayList());
+        }
+        List<ApplicationEnvironment> allEnvironments = Lists.newArrayList();
+        if (ids.length > 0) {
+            for (ApplicationEnvironment env : applicationEnvironmentService.getByApplicationIds(ids)) {
                 if (AuthorizationUtil.hasAuthorizationForEnvironment(env, ApplicationEnvironmentRole.values())) {
-                    DeploymentStatus status = DeploymentStatus.UNKNOWN;
-                    try {
-                        status = applicationEnvironmentService.getStatus(env);
-                    } catch (Exception e) {
-                        log.debug("Getting status for the environment <" + env.getId()
-                                + "> failed because the associated orchestrator seems disabled. Returned status is UNKNOWN.", e);
-                    }
-                    environmentStatuses.put(env.getId(), new EnvironmentStatusDTO(env.getName(), status));
+                    environmentsByApplication.get(env.getApplicationId()).add(env);
+                    allEnvironments.add(env);
                 }
             }
-            statuses.put(applicationId, environmentStatuses);
+        }
+        Map<String, DeploymentStatus> environmentStatuses = deploymentStatusService.getStatuses(allEnvironments);
+        for (Map.Entry<String, List<ApplicationEnvironment>> entry : environmentsByApplication.entrySet()) {
+            Map<String, EnvironmentStatusDTO> applicationStatuses = Maps.newHashMap();
+            for (ApplicationEnvironment env : entry.getValue()) {
+                applicationStatuses.put(env.getId(), new EnvironmentStatusDTO(env.getName(), environmentStatuses.get(env.getId())));
+            }
+            statuses.put(entry.getKey(), applicationStatuses);
         }
         return RestResponseBuilder.<Map<String, Map<String, EnvironmentStatusDTO>>> builder().data(statuses).build();
     }
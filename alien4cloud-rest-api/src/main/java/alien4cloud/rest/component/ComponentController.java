@@ -9,6 +9,7 @@ import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -16,10 +17,16 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import alien4cloud.Constants;
 import alien4cloud.audit.annotation.Audit;
+import alien4cloud.component.HashedElement;
 import alien4cloud.component.ICSARRepositorySearchService;
+import alien4cloud.component.NodeTypeScoreService;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.dao.model.GetMultipleDataResult;
@@ -31,6 +38,7 @@ import alien4cloud.rest.model.RestErrorBuilder;
 import alien4cloud.rest.model.RestErrorCode;
 import alien4cloud.rest.model.RestResponse;
 import alien4cloud.rest.model.RestResponseBuilder;
+import alien4cloud.utils.DeferredResultUtil;
 
 import com.google.common.collect.Lists;
 import io.swagger.annotations.ApiOperation;
@@ -50,19 +58,55 @@ public class ComponentController {
 
     @Resource
     private ICSARRepositorySearchService searchService;
+    @Resource
+    private NodeTypeScoreService nodeTypeScoreService;
 
     /**
      * Get details for a component.
      *
+     * The response carries the hash of the component as entity tag, a request which If-None-Match header matches the tag of a component served from memory
+     * gets a 304 response.
+     *
      * @param id unique id of the component for which to get details.
      * @return A {@link RestResponse} that contains an {@link IndexedToscaElement} .
      */
     @ApiOperation(value = "Get details for a component (tosca type).")
     @RequestMapping(value = "/{id:.+}", method = RequestMethod.GET)
     @PreAuthorize("hasAnyAuthority('ADMIN', 'COMPONENTS_MANAGER', 'COMPONENTS_BROWSER')")
-    public RestResponse<IndexedToscaElement> getComponent(@PathVariable String id) {
-        IndexedToscaElement component = dao.findById(IndexedToscaElement.class, id.trim());
-        return RestResponseBuilder.<IndexedToscaElement> builder().data(component).build();
+    public DeferredResult<ResponseEntity<RestResponse<IndexedToscaElement>>> getComponent(@PathVariable String id, WebRequest webRequest) {
+        final DeferredResult<ResponseEntity<RestResponse<IndexedToscaElement>>> deferredResult =
+                new DeferredResult<ResponseEntity<RestResponse<IndexedToscaElement>>>();
+        // when served from memory the entity tag is checked (and set on the response) before the content is written.
+        HashedElement cachedElement = searchService.getCachedElementById(id.trim());
+        if (cachedElement != null) {
+            if (webRequest.checkNotModified(toETag(cachedElement))) {
+                return null;
+            }
+            deferredResult.setResult(ResponseEntity.ok().body(RestResponseBuilder.<IndexedToscaElement> builder().data(cachedElement.getElement()).build()));
+            return deferredResult;
+        }
+        ListenableFuture<HashedElement> elementFuture = searchService.getElementByIdAsync(id.trim());
+        elementFuture.addCallback(new ListenableFutureCallback<HashedElement>() {
+            @Override
+            public void onSuccess(HashedElement element) {
+                ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok();
+                if (element != null) {
+                    responseBuilder.eTag(toETag(element));
+                }
+                deferredResult.setResult(responseBuilder.body(RestResponseBuilder.<IndexedToscaElement> builder()
+                        .data(element == null ? null : element.getElement()).build()));
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                deferredResult.setErrorResult(e);
+            }
+        });
+        return deferredResult;
+    }
+
+    private static String toETag(HashedElement element) {
+        return "\"" + element.getHash() + "\"";
     }
 
     @ApiOperation(value = "Get details for a component (tosca type).")
@@ -103,12 +147,12 @@ public class ComponentController {
     @ApiOperation(value = "Search for components (tosca types) in alien.")
     @RequestMapping(value = "/search", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasAnyAuthority('ADMIN', 'COMPONENTS_MANAGER', 'COMPONENTS_BROWSER')")
-    public RestResponse<FacetedSearchResult> search(@RequestBody SearchRequest searchRequest, @RequestParam(defaultValue = "false") boolean queryAllVersions) {
+    public DeferredResult<RestResponse<FacetedSearchResult>> search(@RequestBody SearchRequest searchRequest,
+            @RequestParam(defaultValue = "false") boolean queryAllVersions) {
         Class<? extends IndexedToscaElement> classNameToQuery = searchRequest.getType() == null ? IndexedToscaElement.class : searchRequest.getType()
                 .getIndexedToscaElementClass();
-        FacetedSearchResult searchResult = searchService.search(classNameToQuery, searchRequest.getQuery(), searchRequest.getFrom(), searchRequest.getSize(),
-                searchRequest.getFilters(), queryAllVersions);
-        return RestResponseBuilder.<FacetedSearchResult> builder().data(searchResult).build();
+        return DeferredResultUtil.toRestResponse(searchService.searchAsync(classNameToQuery, searchRequest.getQuery(), searchRequest.getFrom(),
+                searchRequest.getSize(), searchRequest.getFilters(), queryAllVersions));
     }
 
     /**
@@ -147,6 +191,7 @@ public class ComponentController {
             component.getDefaultCapabilities().add(recommendationRequest.getCapability());
             log.info("Defining the component <" + component.getId() + "> as default for the capability <" + recommendationRequest.getCapability() + ">.");
             dao.save(component);
+            searchService.invalidateArchive(component.getArchiveName());
         }
         return RestResponseBuilder.<IndexedNodeType> builder().data(component).build();
     }
@@ -167,6 +212,7 @@ public class ComponentController {
             component.getDefaultCapabilities().remove(recommendationRequest.getCapability());
             log.info("Undefining the component <" + component.getId() + "> as default for the capability <" + recommendationRequest.getCapability() + ">.");
             dao.save(component);
+            searchService.invalidateArchive(component.getArchiveName());
         }
         return RestResponseBuilder.<IndexedNodeType> builder().data(component).build();
     }
@@ -197,6 +243,7 @@ public class ComponentController {
                 }
                 component.getTags().add(newTag);
                 dao.save(component);
+                searchService.invalidateArchive(component.getArchiveName());
             } else {
                 updateComponantTagError = RestErrorBuilder.builder(RestErrorCode.COMPONENT_INTERNALTAG_ERROR)
                         .message("Tag update operation failed. Could not update internal alien tag  <" + Constants.ALIEN_INTERNAL_TAG + ">.").build();
@@ -224,6 +271,7 @@ public class ComponentController {
                 }
                 component.getTags().remove(new Tag(tagId, null));
                 dao.save(component);
+                searchService.invalidateArchive(component.getArchiveName());
             } else {
                 deleteComponantTagError = RestErrorBuilder.builder(RestErrorCode.COMPONENT_INTERNALTAG_ERROR)
                         .message("Tag delete operation failed. Could not delete internal alien tag  <" + Constants.ALIEN_INTERNAL_TAG + ">.").build();
@@ -236,11 +284,25 @@ public class ComponentController {
         return RestResponseBuilder.<Void> builder().error(deleteComponantTagError).build();
     }
 
+    /**
+     * Trigger an update of the scores of the node types (used to order search results) without waiting for the next scheduled update.
+     *
+     * @return A rest response that contains true if the update has been triggered, false if an update is already running.
+     */
+    @ApiOperation(value = "Trigger an update of the scores of the node types.", notes = "The update runs in background, returns false if an update is already running.")
+    @RequestMapping(value = "/scores/refresh", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @Audit
+    public RestResponse<Boolean> refreshScores() {
+        return RestResponseBuilder.<Boolean> builder().data(nodeTypeScoreService.trigger()).build();
+    }
+
     private void removeFromDefaultCapabilities(String capability) {
         IndexedNodeType component = getDefaultNodeForCapability(capability);
         if (component != null) {
             component.getDefaultCapabilities().remove(capability);
             dao.save(component);
+            searchService.invalidateArchive(component.getArchiveName());
         }
     }
 
@@ -12,6 +12,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 
 import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.deployment.DeploymentContextService;
 import alien4cloud.deployment.DeploymentService;
 import alien4cloud.deployment.DeploymentTopologyService;
 import alien4cloud.exception.NotFoundException;
@@ -47,6 +48,8 @@ public class BlockStorageEventHandler extends DeploymentEventHandler {
     private DeploymentService deploymentService;
     @Resource
     private DeploymentTopologyService deploymentTopologyService;
+    @Resource
+    private DeploymentContextService deploymentContextService;
 
     @Override
     public void eventHappened(AbstractMonitorEvent event) {
@@ -120,6 +123,7 @@ public class BlockStorageEventHandler extends DeploymentEventHandler {
         nodeTemplate.getProperties().put(persistentResourceEvent.getPropertyName(), getPropertyValue(propertyValue));
         log.debug("VolumeId to add: <{}>. New value is <{}>", persistentResourceEvent.getPropertyValue(), propertyValue);
         alienMonitorDao.save(runtimeTopo);
+        deploymentContextService.invalidateRuntimeContext(runtimeTopo.getId());
     }
 
     private PropertyValue getPropertyValue(Object propertyValue) {
@@ -0,0 +1,283 @@
+package alien4cloud.rest.deployment;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.elasticsearch.mapping.MappingBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.deployment.Deployment;
+import alien4cloud.paas.model.AbstractMonitorEvent;
+import alien4cloud.paas.model.DeploymentStatus;
+import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
+import alien4cloud.paas.model.PaaSInstanceStateMonitorEvent;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+
+/**
+ * Publishes the deployment events to the websocket topics out of the orchestrator monitoring threads.
+ *
+ * Events are added to a bounded queue (events are dropped when it is full) and published by a single dispatch thread. Instance state events are coalesced
+ * per deployment, node and instance during coalescing_window_ms so the clients receive the latest state of every instance rather than every intermediate
+ * state, the pending instance states of a deployment are published before its status events. The environment of the deployments is kept in memory to
+ * publish the deployment status events on the environment topics.
+ *
+ * Only the publication is asynchronous, the deployments are updated by the {@link DeploymentEventHandler} when the events are received.
+ */
+@Slf4j
+@Component
+public class DeploymentEventDispatcher implements MetricSet {
+    /** Environment id of the deployments that are not related to an environment. */
+    private static final String NO_ENVIRONMENT = "";
+
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO alienDAO;
+    @Resource
+    private SimpMessagingTemplate template;
+
+    /** Disable to publish the events on the orchestrator monitoring threads. */
+    @Value("${deployment.events.async.enabled:true}")
+    private boolean enabled = true;
+    /** Maximum number of events waiting to be published. */
+    @Value("${deployment.events.async.queue_capacity:10000}")
+    private int queueCapacity = 10000;
+    /** Time in milliseconds during which the instance state events are coalesced (0 disables the coalescing). */
+    @Value("${deployment.events.async.coalescing_window_ms:200}")
+    private long coalescingWindowMs = 200;
+    /** Maximum number of deployment to environment mappings kept in memory. */
+    @Value("${deployment.events.environment_cache_size:10000}")
+    private int environmentCacheSize = 10000;
+
+    private BlockingQueue<AbstractMonitorEvent> queue;
+    /** Latest instance state events waiting for the end of the coalescing window, by deployment, node and instance. */
+    private final ConcurrentMap<String, PaaSInstanceStateMonitorEvent> instanceStates = new ConcurrentHashMap<>();
+    private Cache<String, String> environmentIds;
+    private final Meter publishedEvents = new Meter();
+    private final Meter coalescedEvents = new Meter();
+    private final Meter droppedEvents = new Meter();
+    private Thread dispatchThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        environmentIds = CacheBuilder.newBuilder().maximumSize(Math.max(1, environmentCacheSize)).build();
+        if (!enabled) {
+            return;
+        }
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        dispatchThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                dispatchLoop();
+            }
+        }, "deployment-events-dispatch");
+        dispatchThread.setDaemon(true);
+        dispatchThread.start();
+    }
+
+    /**
+     * Stop the dispatch thread once the queued events are published.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (dispatchThread == null) {
+            return;
+        }
+        running = false;
+        dispatchThread.interrupt();
+        try {
+            dispatchThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Add an event to the events to publish (or publish it immediately if asynchronous dispatch is disabled).
+     *
+     * @param event The event to publish.
+     */
+    public void dispatch(AbstractMonitorEvent event) {
+        if (!enabled) {
+            publish(event);
+            return;
+        }
+        if (coalescingWindowMs > 0 && event instanceof PaaSInstanceStateMonitorEvent) {
+            PaaSInstanceStateMonitorEvent instanceStateEvent = (PaaSInstanceStateMonitorEvent) event;
+            if (instanceStates.put(getInstanceKey(instanceStateEvent), instanceStateEvent) != null) {
+                coalescedEvents.mark();
+            }
+            return;
+        }
+        if (!queue.offer(event)) {
+            droppedEvents.mark();
+            log.debug("Deployment events queue is full, dropping event {}", event);
+        }
+    }
+
+    /**
+     * @return The number of events published to the websocket topics.
+     */
+    public long getPublishedEvents() {
+        return publishedEvents.getCount();
+    }
+
+    /**
+     * @return The number of instance state events replaced by a more recent state before being published.
+     */
+    public long getCoalescedEvents() {
+        return coalescedEvents.getCount();
+    }
+
+    /**
+     * @return The number of events dropped because the queue was full.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.getCount();
+    }
+
+    /**
+     * @return The number of events waiting to be published.
+     */
+    public long getQueueDepth() {
+        return (queue == null ? 0 : queue.size()) + instanceStates.size();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        metrics.put("published", publishedEvents);
+        metrics.put("coalesced", coalescedEvents);
+        metrics.put("dropped", droppedEvents);
+        metrics.put("queue_depth", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getQueueDepth();
+            }
+        });
+        return metrics;
+    }
+
+    private void dispatchLoop() {
+        long windowMs = coalescingWindowMs > 0 ? coalescingWindowMs : TimeUnit.SECONDS.toMillis(1);
+        long lastFlush = System.currentTimeMillis();
+        while (running) {
+            try {
+                AbstractMonitorEvent event = queue.poll(Math.max(1, windowMs - (System.currentTimeMillis() - lastFlush)), TimeUnit.MILLISECONDS);
+                while (event != null) {
+                    publishSafely(event);
+                    // don't delay the coalesced instance states when events keep coming
+                    event = System.currentTimeMillis() - lastFlush < windowMs ? queue.poll() : null;
+                }
+            } catch (InterruptedException e) {
+                // stopping, publish the remaining events
+            }
+            if (System.currentTimeMillis() - lastFlush >= windowMs) {
+                publishInstanceStates();
+                lastFlush = System.currentTimeMillis();
+            }
+        }
+        AbstractMonitorEvent event;
+        while ((event = queue.poll()) != null) {
+            publishSafely(event);
+        }
+        publishInstanceStates();
+    }
+
+    private void publishInstanceStates() {
+        publishInstanceStates(null);
+    }
+
+    /**
+     * Publish the pending instance states of a deployment (or of all deployments if the deployment id is null).
+     */
+    private void publishInstanceStates(String deploymentId) {
+        String keyPrefix = deploymentId == null ? null : deploymentId + '/';
+        for (String key : instanceStates.keySet()) {
+            if (keyPrefix != null && !key.startsWith(keyPrefix)) {
+                continue;
+            }
+            PaaSInstanceStateMonitorEvent event = instanceStates.remove(key);
+            if (event != null) {
+                publishSafely(event);
+            }
+        }
+    }
+
+    private void publishSafely(AbstractMonitorEvent event) {
+        if (event instanceof PaaSDeploymentStatusMonitorEvent) {
+            // clients must not receive the status of a deployment before the last states of its instances
+            publishInstanceStates(event.getDeploymentId());
+        }
+        try {
+            publish(event);
+        } catch (Exception e) {
+            log.error("Unable to publish deployment event " + event, e);
+        }
+    }
+
+    private void publish(AbstractMonitorEvent event) {
+        String eventType = MappingBuilder.indexTypeFromClass(event.getClass());
+        String topicName = DeploymentEventHandler.TOPIC_PREFIX + '/' + event.getDeploymentId() + '/' + eventType;
+        if (log.isDebugEnabled()) {
+            log.debug("Send [" + event.getClass().getSimpleName() + "] to [" + topicName + "]: " + event);
+        }
+        template.convertAndSend(topicName, event);
+        publishedEvents.mark();
+
+        if (event instanceof PaaSDeploymentStatusMonitorEvent) {
+            String environmentId = getEnvironmentId(event.getDeploymentId());
+            if (DeploymentStatus.UNDEPLOYED.equals(((PaaSDeploymentStatusMonitorEvent) event).getDeploymentStatus())) {
+                // the deployment is not active anymore
+                environmentIds.invalidate(event.getDeploymentId());
+            }
+            if (environmentId != null) {
+                // dispatch an event on the environment topic
+                topicName = DeploymentEventHandler.ENV_TOPIC_PREFIX + "/" + environmentId;
+                if (log.isDebugEnabled()) {
+                    log.debug("Send [" + event.getClass().getSimpleName() + "] to [" + topicName + "]: " + event);
+                }
+                template.convertAndSend(topicName, event);
+                publishedEvents.mark();
+            }
+        }
+    }
+
+    private String getEnvironmentId(String deploymentId) {
+        String environmentId = environmentIds.getIfPresent(deploymentId);
+        if (environmentId == null) {
+            Deployment deployment = alienDAO.findById(Deployment.class, deploymentId);
+            if (deployment == null) {
+                // don't keep the mapping as the deployment may not be indexed yet
+                return null;
+            }
+            environmentId = deployment.getEnvironmentId() == null ? NO_ENVIRONMENT : deployment.getEnvironmentId();
+            environmentIds.put(deploymentId, environmentId);
+        }
+        return NO_ENVIRONMENT.equals(environmentId) ? null : environmentId;
+    }
+
+    private static String getInstanceKey(PaaSInstanceStateMonitorEvent event) {
+        return event.getDeploymentId() + '/' + event.getNodeTemplateId() + '/' + event.getInstanceId();
+    }
+}
@@ -9,9 +9,7 @@ import javax.annotation.Resource;
 
 import lombok.extern.slf4j.Slf4j;
 
-import org.elasticsearch.mapping.MappingBuilder;
 import org.springframework.beans.factory.InitializingBean;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
@@ -36,8 +34,8 @@ import alien4cloud.security.model.User;
 @Component
 public class DeploymentEventHandler implements IPaasEventListener<AbstractMonitorEvent>, ISecuredHandler, InitializingBean {
 
-    private static final String TOPIC_PREFIX = "/topic/deployment-events";
-    private static final String ENV_TOPIC_PREFIX = "/topic/environment-events";
+    static final String TOPIC_PREFIX = "/topic/deployment-events";
+    static final String ENV_TOPIC_PREFIX = "/topic/environment-events";
 
     private static final Pattern DESTINATION_PATTERN = Pattern.compile(TOPIC_PREFIX + "/(.*?)(:?/.*)?");
     private static final Pattern ENV_DESTINATION_PATTERN = Pattern.compile(ENV_TOPIC_PREFIX + "/(.*?)(:?/.*)?");
@@ -49,41 +47,7 @@ public class DeploymentEventHandler implements IPaasEventListener<AbstractMonito
     private IGenericSearchDAO alienDAO;
 
     @Resource
-    private SimpMessagingTemplate template;
-
-    protected void send(AbstractMonitorEvent event) {
-        String eventType = MappingBuilder.indexTypeFromClass(event.getClass());
-        String topicName = TOPIC_PREFIX + '/' + event.getDeploymentId() + '/' + eventType;
-        if (log.isDebugEnabled()) {
-            log.debug("Send [" + event.getClass().getSimpleName() + "] to [" + topicName + "]: " + event);
-        }
-        template.convertAndSend(topicName, event);
-
-        if (event instanceof PaaSDeploymentStatusMonitorEvent) {
-
-            Deployment deployment = alienDAO.findById(Deployment.class, event.getDeploymentId());
-
-            if (deployment != null) {
-                updateDeploymentStatus(deployment, ((PaaSDeploymentStatusMonitorEvent) event).getDeploymentStatus());
-
-                if (deployment.getEnvironmentId() != null) {
-                    // dispatch an event on the environment topic
-                    topicName = ENV_TOPIC_PREFIX + "/" + deployment.getEnvironmentId();
-                    if (log.isDebugEnabled()) {
-                        log.debug("Send [" + event.getClass().getSimpleName() + "] to [" + topicName + "]: " + event);
-                    }
-                    template.convertAndSend(topicName, event);
-                }
-            }
-        }
-    }
-
-    private void updateDeploymentStatus(Deployment deployment, DeploymentStatus newStatus) {
-        if (DeploymentStatus.UNDEPLOYED.equals(newStatus)) {
-            deployment.setEndDate(new Date());
-        }
-        alienDAO.save(deployment);
-    }
+    private DeploymentEventDispatcher deploymentEventDispatcher;
 
     /**
      * Check if the destination path can be handled by this event handler
@@ -150,9 +114,22 @@ public class DeploymentEventHandler implements IPaasEventListener<AbstractMonito
 
     @Override
     public void eventHappened(AbstractMonitorEvent event) {
-        send(event);
+        if (event instanceof PaaSDeploymentStatusMonitorEvent
+                && DeploymentStatus.UNDEPLOYED.equals(((PaaSDeploymentStatusMonitorEvent) event).getDeploymentStatus())) {
+            // the deployment must not stay active even if the websocket publication of the event is dropped
+            endDeployment(event.getDeploymentId());
+        }
+        deploymentEventDispatcher.dispatch(event);
         if (log.isTraceEnabled()) {
-            log.trace("Pushed event {} for deployment {}", event, event.getDeploymentId());
+            log.trace("Dispatched event {} for deployment {}", event, event.getDeploymentId());
+        }
+    }
+
+    private void endDeployment(String deploymentId) {
+        Deployment deployment = alienDAO.findById(Deployment.class, deploymentId);
+        if (deployment != null) {
+            deployment.setEndDate(new Date());
+            alienDAO.save(deployment);
         }
     }
 
@@ -12,11 +12,18 @@ import org.springframework.web.context.request.async.DeferredResult;
 
 import springfox.documentation.annotations.ApiIgnore;
 import alien4cloud.audit.annotation.Audit;
+import alien4cloud.component.ICSARRepositorySearchService;
 import alien4cloud.configuration.ApplicationBootstrap;
+import alien4cloud.deployment.DeploymentContextService;
+import alien4cloud.deployment.DeploymentStatusService;
+import alien4cloud.deployment.matching.services.location.LocationMatchCache;
 import alien4cloud.rest.model.RestErrorBuilder;
 import alien4cloud.rest.model.RestErrorCode;
 import alien4cloud.rest.model.RestResponse;
 import alien4cloud.rest.model.RestResponseBuilder;
+import alien4cloud.security.AuthorizationCache;
+import alien4cloud.topology.TopologyWorkingCopyService;
+import alien4cloud.tosca.ArchiveParsingCache;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
@@ -25,7 +32,8 @@ import io.swagger.annotations.ApiOperation;
 
 /**
  * Controllers that handle maintenance operations of the Alien platform.
- * For ex: disable/unload or enable/load all plugins and orchestrators in a migration/test scenario (hot swap data then reload).
+ * For ex: disable/unload or enable/load all plugins and orchestrators in a migration/test scenario (hot swap data then reload), or drop the data kept in
+ * memory once elastic search has been modified directly.
  * These operations should only be used with care, the user must know what they are doing, so for the moment it's not exposed in API doc.
  */
 @Slf4j
@@ -36,6 +44,20 @@ public class AlienMaintenanceController {
 
     @Resource
     private ApplicationBootstrap bootstrap;
+    @Resource
+    private ICSARRepositorySearchService searchService;
+    @Resource
+    private ArchiveParsingCache archiveParsingCache;
+    @Resource
+    private TopologyWorkingCopyService topologyWorkingCopyService;
+    @Resource
+    private LocationMatchCache locationMatchCache;
+    @Resource
+    private DeploymentContextService deploymentContextService;
+    @Resource
+    private DeploymentStatusService deploymentStatusService;
+    @Resource
+    private AuthorizationCache authorizationCache;
 
     @ApiOperation(value = "Initialize the platform.", notes = "Initialize the platform, load all enabled plugins and orchestrator, should only be used for testing or maintenance purpose. Role required [ ADMIN ]")
     @RequestMapping(value = "/init-platform", method = RequestMethod.POST)
@@ -76,4 +98,19 @@ public class AlienMaintenanceController {
                     .error(RestErrorBuilder.builder(RestErrorCode.ILLEGAL_STATE_OPERATION).message("Unable to teardown the platform").build()).build();
         }
     }
+
+    @ApiOperation(value = "Invalidate the caches.", notes = "Drop the data kept in memory so it is read again from elastic search, should only be used after elastic search has been modified directly. Role required [ ADMIN ]")
+    @RequestMapping(value = "/invalidate-caches", method = RequestMethod.POST)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @Audit
+    public RestResponse<Void> invalidateCaches() {
+        searchService.invalidateAll();
+        archiveParsingCache.clear();
+        topologyWorkingCopyService.invalidateAll();
+        locationMatchCache.invalidateAll();
+        deploymentContextService.invalidateAll();
+        deploymentStatusService.invalidateAll();
+        authorizationCache.invalidateAll();
+        return RestResponseBuilder.<Void> builder().build();
+    }
 }
@@ -1,11 +1,15 @@
 package alien4cloud.rest.quicksearch;
 
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Resource;
 
-import org.apache.commons.lang3.ArrayUtils;
+import lombok.extern.slf4j.Slf4j;
+
 import org.elasticsearch.index.query.FilterBuilder;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,11 +17,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import alien4cloud.dao.ElasticSearchDAO;
-import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.IAsyncSearchDAO;
 import alien4cloud.dao.model.FetchContext;
-import alien4cloud.dao.model.GetMultipleDataResult;
+import alien4cloud.dao.model.ScoredSearchResult;
 import alien4cloud.model.application.Application;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.rest.model.BasicSearchRequest;
@@ -26,70 +32,203 @@ import alien4cloud.rest.model.RestResponseBuilder;
 import alien4cloud.security.AuthorizationUtil;
 import alien4cloud.security.model.Role;
 
-import com.google.common.collect.Sets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import io.swagger.annotations.ApiOperation;
 
 /**
  * Handle Quick Search requests.
  *
+ * Every type of resource is searched in its own phase, all phases are sent concurrently to elastic search. Scores of different indexes are not comparable so
+ * results are merged by rank: the best result of every phase, then the second ones and so on (ordered by score within a rank). Every type of resource gets
+ * its share of a page as long as it has results, a large index cannot hide the results of the others. Every phase returns its first from + size results,
+ * enough to build the requested page. The request thread is released while the phases are running, the response is written once the last phase completes.
+ *
  * @author 'Igor Ngouagna'
  */
+@Slf4j
 @RestController
 @RequestMapping("/rest/quicksearch")
 public class QuickSearchController {
+    private static final String COMPONENTS_PHASE = "components";
+    private static final String APPLICATIONS_PHASE = "applications";
+    private static final Comparator<ScoredHit> SCORE_COMPARATOR = new Comparator<ScoredHit>() {
+        @Override
+        public int compare(ScoredHit left, ScoredHit right) {
+            return Float.compare(right.score, left.score);
+        }
+    };
+
     @Resource(name = "alien-es-dao")
-    private IGenericSearchDAO alienDAO;
+    private IAsyncSearchDAO alienAsyncDAO;
 
     @ApiOperation(value = "Search for applications or tosca elements in ALIEN's repository.")
     @RequestMapping(method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<GetMultipleDataResult> search(@RequestBody BasicSearchRequest requestObject) {
-
-        Set<String> authoIndexes = Sets.newHashSet();
-        Set<Class<?>> classes = Sets.newHashSet();
+    public DeferredResult<RestResponse<QuickSearchResult>> search(@RequestBody BasicSearchRequest requestObject) {
+        QuickSearch quickSearch = new QuickSearch(requestObject);
 
-        // First phase : COMPONENTS search, needed role Role.COMPONENTS_BROWSER or Role.ADMIN
+        // COMPONENTS search, needed role Role.COMPONENTS_BROWSER or Role.ADMIN
         if (AuthorizationUtil.hasOneRoleIn(Role.COMPONENTS_BROWSER)) {
-            authoIndexes.add(ElasticSearchDAO.TOSCA_ELEMENT_INDEX);
-            classes.add(IndexedNodeType.class);
+            quickSearch.phases.add(quickSearch.new SearchPhase(COMPONENTS_PHASE, ElasticSearchDAO.TOSCA_ELEMENT_INDEX, IndexedNodeType.class, null));
         }
 
-        GetMultipleDataResult searchResultComponents = searchByType(requestObject, authoIndexes, classes, null, null);
-
-        // Second phase : APPLICATION search (with rights filter) or with the Role.ADMIN
-        authoIndexes.clear();
-        classes.clear();
-        authoIndexes.add(Application.class.getSimpleName().toLowerCase());
-        classes.add(Application.class);
-
+        // APPLICATION search (with rights filter) or with the Role.ADMIN
         // Adding filters to get only authorized applications
         // only filter on users roles on the application if the current user is not an ADMIN
         FilterBuilder authorizationFilter = AuthorizationUtil.getResourceAuthorizationFilters();
+        quickSearch.phases.add(quickSearch.new SearchPhase(APPLICATIONS_PHASE, Application.class.getSimpleName().toLowerCase(), Application.class,
+                authorizationFilter));
 
-        GetMultipleDataResult<?> searchResultApplications = searchByType(requestObject, authoIndexes, classes, null, authorizationFilter);
-
-        // Final merge result : COMPONENTS + APPLICATIONS
-        GetMultipleDataResult searchResult = new GetMultipleDataResult();
-        searchResult.setQueryDuration(searchResultComponents.getQueryDuration() + searchResultApplications.getQueryDuration());
-        searchResult.setTypes(ArrayUtils.addAll(searchResultComponents.getTypes(), searchResultApplications.getTypes()));
-        searchResult.setData(ArrayUtils.addAll(searchResultComponents.getData(), searchResultApplications.getData()));
-        searchResult.setTotalResults(searchResultComponents.getTotalResults() + searchResultApplications.getTotalResults());
+        quickSearch.execute();
+        return quickSearch.deferredResult;
+    }
 
-        return RestResponseBuilder.<GetMultipleDataResult> builder().data(searchResult).build();
+    /**
+     * Merge the results of all phases by rank and keep the requested page. Sorting is stable so results of a rank with the same score keep the order of the
+     * phases.
+     */
+    private QuickSearchResult merge(List<QuickSearch.SearchPhase> phases, int from, int size) {
+        List<ScoredHit> hits = Lists.newArrayList();
+        Map<String, Long> phaseDurations = Maps.newLinkedHashMap();
+        long totalResults = 0;
+        int maxRank = 0;
+        for (QuickSearch.SearchPhase phase : phases) {
+            phaseDurations.put(phase.name, phase.duration);
+            totalResults += phase.result.getTotalResults();
+            maxRank = Math.max(maxRank, phase.result.getData().length);
+        }
+        for (int rank = 0; rank < maxRank && hits.size() < from + size; rank++) {
+            List<ScoredHit> rankHits = Lists.newArrayList();
+            for (QuickSearch.SearchPhase phase : phases) {
+                if (rank < phase.result.getData().length) {
+                    rankHits.add(new ScoredHit(phase.result.getScores()[rank], phase.result.getTypes()[rank], phase.result.getData()[rank]));
+                }
+            }
+            Collections.sort(rankHits, SCORE_COMPARATOR);
+            hits.addAll(rankHits);
+        }
+        // every phase returned the results from 0 to from + size, the page is extracted once results of all phases are merged
+        hits = hits.subList(Math.min(from, hits.size()), Math.min(from + size, hits.size()));
+
+        QuickSearchResult searchResult = new QuickSearchResult();
+        String[] types = new String[hits.size()];
+        Object[] data = new Object[hits.size()];
+        for (int i = 0; i < hits.size(); i++) {
+            types[i] = hits.get(i).type;
+            data[i] = hits.get(i).data;
+        }
+        searchResult.setTypes(types);
+        searchResult.setData(data);
+        searchResult.setFrom(from);
+        searchResult.setTo(from + hits.size() - 1);
+        searchResult.setTotalResults(totalResults);
+        searchResult.setPhaseDurations(phaseDurations);
+        return searchResult;
     }
 
-    private GetMultipleDataResult searchByType(BasicSearchRequest requestObject, Set<String> authoIndexes, Set<Class<?>> classes,
-            Map<String, String[]> filters, FilterBuilder filterBuilder) {
+    /**
+     * A quick search request, the response is set by the elastic search listener thread that completes the last phase.
+     */
+    private class QuickSearch {
+        private final BasicSearchRequest requestObject;
+        private final List<SearchPhase> phases = Lists.newArrayList();
+        private final DeferredResult<RestResponse<QuickSearchResult>> deferredResult = new DeferredResult<RestResponse<QuickSearchResult>>();
+        private AtomicInteger pendingPhases;
+        private long start;
+
+        private QuickSearch(BasicSearchRequest requestObject) {
+            this.requestObject = requestObject;
+        }
+
+        private void execute() {
+            pendingPhases = new AtomicInteger(phases.size());
+            start = System.currentTimeMillis();
+            for (SearchPhase phase : phases) {
+                phase.execute();
+            }
+        }
 
-        String[] indices = authoIndexes.toArray(new String[authoIndexes.size()]);
-        if (indices.length == 0) {
-            return new GetMultipleDataResult();
+        private void phaseDone() {
+            if (pendingPhases.decrementAndGet() > 0) {
+                return;
+            }
+            try {
+                for (SearchPhase phase : phases) {
+                    if (phase.failure != null) {
+                        deferredResult.setErrorResult(phase.failure);
+                        return;
+                    }
+                }
+                QuickSearchResult searchResult = merge(phases, requestObject.getFrom(), requestObject.getSize());
+                searchResult.setQueryDuration(System.currentTimeMillis() - start);
+                log.debug("Quick search <{}> done in {} ms, phases durations {}", requestObject.getQuery(), searchResult.getQueryDuration(),
+                        searchResult.getPhaseDurations());
+                deferredResult.setResult(RestResponseBuilder.<QuickSearchResult> builder().data(searchResult).build());
+            } catch (RuntimeException e) {
+                deferredResult.setErrorResult(e);
+            }
         }
-        Class<?>[] classesArray = classes.toArray(new Class<?>[classes.size()]);
 
-        GetMultipleDataResult searchResult = alienDAO.search(indices, classesArray, requestObject.getQuery(), filters, filterBuilder,
-                FetchContext.QUICK_SEARCH, requestObject.getFrom(), requestObject.getSize());
+        /**
+         * Search of a type of resource, notified once the response is received and de-serialized.
+         */
+        private class SearchPhase implements ListenableFutureCallback<ScoredSearchResult> {
+            private final String name;
+            private final String index;
+            private final Class<?> type;
+            private final FilterBuilder filter;
+            private long phaseStart;
+            private long duration;
+            private ScoredSearchResult result;
+            private Throwable failure;
+
+            private SearchPhase(String name, String index, Class<?> type, FilterBuilder filter) {
+                this.name = name;
+                this.index = index;
+                this.type = type;
+                this.filter = filter;
+            }
+
+            private void execute() {
+                phaseStart = System.currentTimeMillis();
+                try {
+                    alienAsyncDAO.searchAsync(new String[] { index }, new Class<?>[] { type }, requestObject.getQuery(), null, filter,
+                            FetchContext.QUICK_SEARCH, 0, requestObject.getFrom() + requestObject.getSize()).addCallback(this);
+                } catch (RuntimeException e) {
+                    // the request could not be sent, the phase is completed so the response is still written once the other phases complete
+                    onFailure(e);
+                }
+            }
+
+            @Override
+            public void onSuccess(ScoredSearchResult searchResult) {
+                result = searchResult;
+                duration = System.currentTimeMillis() - phaseStart;
+                phaseDone();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                failure = e;
+                duration = System.currentTimeMillis() - phaseStart;
+                phaseDone();
+            }
+        }
+    }
 
-        return searchResult;
+    /**
+     * A result of a phase with its relevance.
+     */
+    private static class ScoredHit {
+        private final float score;
+        private final String type;
+        private final Object data;
+
+        private ScoredHit(float score, String type, Object data) {
+            this.score = score;
+            this.type = type;
+            this.data = data;
+        }
     }
 }
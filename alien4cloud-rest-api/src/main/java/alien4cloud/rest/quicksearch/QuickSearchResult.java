@@ -0,0 +1,23 @@
+package alien4cloud.rest.quicksearch;
+
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import alien4cloud.dao.model.GetMultipleDataResult;
+
+/**
+ * Result of a quick search: the resources of all types ordered by relevance, with the duration of the search of every type of resource.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@SuppressWarnings("PMD.UnusedPrivateField")
+public class QuickSearchResult extends GetMultipleDataResult<Object> {
+    private static final long serialVersionUID = 1L;
+
+    /** Duration in milliseconds of the search of every type of resource, from the request to the reception of the response. */
+    private Map<String, Long> phaseDurations;
+}
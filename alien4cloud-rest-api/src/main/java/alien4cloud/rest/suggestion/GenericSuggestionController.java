@@ -1,6 +1,7 @@
 package alien4cloud.rest.suggestion;
 
 import java.io.IOException;
+import java.util.List;
 
 import javax.annotation.Resource;
 
@@ -15,6 +16,8 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import alien4cloud.common.SuggestionService;
+import alien4cloud.dao.ElasticSearchDAO;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.rest.model.RestResponse;
 import alien4cloud.rest.model.RestResponseBuilder;
@@ -25,8 +28,13 @@ import springfox.documentation.annotations.ApiIgnore;
 @RequestMapping("/rest/suggestions")
 public class GenericSuggestionController {
 
+    private static final int SUGGESTION_COUNT = 10;
+    private static final String ELEMENT_ID_PATH = "elementId";
+
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO alienDAO;
+    @Resource
+    private SuggestionService suggestionService;
 
     /**
      * Get suggestion from a particular index and type from a particular path
@@ -46,10 +54,14 @@ public class GenericSuggestionController {
         QueryBuilder queryBuilder;
         if (searchText == null || searchText.trim().isEmpty()) {
             return RestResponseBuilder.<String[]> builder().data(new String[0]).build();
+        } else if (suggestionService.isEnabled() && ElasticSearchDAO.TOSCA_ELEMENT_INDEX.equals(index) && ELEMENT_ID_PATH.equals(path)) {
+            // ids of tosca elements are indexed in memory, other paths are not used for suggestions by the ui.
+            List<String> suggestions = suggestionService.suggestElementIds(type, searchText, SUGGESTION_COUNT);
+            return RestResponseBuilder.<String[]> builder().data(suggestions.toArray(new String[suggestions.size()])).build();
         } else {
             queryBuilder = QueryBuilders.regexpQuery(path, ".*?" + searchText + ".*");
         }
-        return RestResponseBuilder.<String[]> builder().data(alienDAO.selectPath(index, new String[] { type }, queryBuilder, SortOrder.ASC, path, 0, 10))
-                .build();
+        return RestResponseBuilder.<String[]> builder()
+                .data(alienDAO.selectPath(index, new String[] { type }, queryBuilder, SortOrder.ASC, path, 0, SUGGESTION_COUNT)).build();
     }
 }
@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import alien4cloud.common.SuggestionService;
 import alien4cloud.dao.ElasticSearchDAO;
 import alien4cloud.dao.IGenericSearchDAO;
 import alien4cloud.dao.model.FetchContext;
@@ -35,7 +36,7 @@ import com.google.common.collect.Sets;
 import springfox.documentation.annotations.ApiIgnore;
 
 /**
- * Handle Suggestion requests.
+ * Handle Suggestion requests. Suggestions are served by the {@link SuggestionService} unless it is disabled.
  *
  * @author 'Igor Ngouagna'
  */
@@ -50,6 +51,8 @@ public class SuggestionController {
 
     @Resource(name = "alien-es-dao")
     private IGenericSearchDAO dao;
+    @Resource
+    private SuggestionService suggestionService;
 
     /**
      * Get suggestion for tags based on current tags defined on the components.
@@ -62,6 +65,10 @@ public class SuggestionController {
     @RequestMapping(value = "/tag/{tagName}/{searchPrefix}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
     public RestResponse<String[]> tagSuggest(@PathVariable String tagName, @PathVariable String searchPrefix) {
+        if (suggestionService.isEnabled()) {
+            List<String> tagsSuggestions = suggestionService.suggestTags(tagName, searchPrefix, SUGGESTION_COUNT);
+            return RestResponseBuilder.<String[]> builder().data(tagsSuggestions.toArray(new String[tagsSuggestions.size()])).build();
+        }
         String suggestFieldPath = TAG_FIELD.concat(".").concat(tagName);
         GetMultipleDataResult searchResult = dao.suggestSearch(INDEXES, CLASSES, suggestFieldPath, searchPrefix, FetchContext.TAG_SUGGESTION, 0,
                 SUGGESTION_COUNT);
@@ -103,6 +110,11 @@ public class SuggestionController {
         if (searchText == null || searchText.trim().isEmpty()) {
             return RestResponseBuilder.<String[]> builder().data(new String[0]).build();
         }
+        if (suggestionService.isEnabled()) {
+            List<String> suggestions = suggestionService.suggestElementIds(MappingBuilder.indexTypeFromClass(IndexedNodeType.class), searchText,
+                    SUGGESTION_COUNT);
+            return RestResponseBuilder.<String[]> builder().data(suggestions.toArray(new String[suggestions.size()])).build();
+        }
         QueryBuilder queryOnText = QueryBuilders.regexpQuery("elementId", ".*?" + searchText + ".*");
         QueryBuilder queryOnHighest = QueryBuilders.termQuery("highestVersion", true);
         QueryBuilder query = QueryBuilders.boolQuery().must(queryOnText).must(queryOnHighest);
@@ -34,6 +34,7 @@ import alien4cloud.rest.model.RestResponse;
 import alien4cloud.rest.model.RestResponseBuilder;
 import alien4cloud.security.model.ApplicationRole;
 import alien4cloud.topology.TopologyDTO;
+import alien4cloud.topology.TopologyPatchDTO;
 import alien4cloud.topology.TopologyService;
 import alien4cloud.topology.TopologyServiceCore;
 import alien4cloud.topology.TopologyTemplateVersionService;
@@ -56,6 +57,8 @@ import io.swagger.annotations.ApiOperation;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -162,12 +165,15 @@ public class TopologyController {
      *            The id of the topology for which to add the node template.
      * @param nodeTemplateRequest
      *            The request that contains the name and type of the node template to add.
-     * @return TopologyDTO The DTO of the modified topology.
+     * @param patch
+     *            If true only the added node template and its types are returned rather than the whole topology.
+     * @return TopologyDTO The DTO of the modified topology (or TopologyPatchDTO when patch is requested).
      */
     @ApiOperation(value = "Add a new node template in a topology.", notes = "Returns the details of the node template (computed from it's type). Application role required [ APPLICATION_MANAGER | APPLICATION_DEVOPS ]")
     @RequestMapping(value = "/{topologyId:.+}/nodetemplates", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<TopologyDTO> addNodeTemplate(@PathVariable String topologyId, @RequestBody @Valid NodeTemplateRequest nodeTemplateRequest) {
+    public RestResponse<?> addNodeTemplate(@PathVariable String topologyId, @RequestBody @Valid NodeTemplateRequest nodeTemplateRequest,
+            @RequestParam(value = "patch", required = false, defaultValue = "false") boolean patch) {
         Topology topology = topologyServiceCore.getOrFail(topologyId);
         topologyService.checkEditionAuthorizations(topology);
         topologyService.throwsErrorIfReleased(topology);
@@ -209,7 +215,7 @@ public class TopologyController {
         TopologyContext topologyContext = workflowBuilderService.buildTopologyContext(topology);
         workflowBuilderService.addNode(topologyContext, nodeTemplateRequest.getName(), nodeTemplate);
         topologyServiceCore.save(topology);
-        return RestResponseBuilder.<TopologyDTO> builder().data(topologyService.buildTopologyDTO(topology)).build();
+        return buildTopologyResponse(topology, patch, Collections.singleton(nodeTemplateRequest.getName()));
     }
 
     /**
@@ -354,13 +360,15 @@ public class TopologyController {
      * @param nodeTemplateName The name of the node template to which we should add the relationship.
      * @param relationshipName The name of the relationship to add.
      * @param relationshipTemplateRequest The relationship.
+     * @param patch If true only the source node template and its types are returned rather than the whole topology.
      * @return A rest response with no errors if successful.
      */
     @ApiOperation(value = "Add a relationship to a node template.", notes = "Returns a response with no errors in case of success. Application role required [ APPLICATION_MANAGER | APPLICATION_DEVOPS ]")
     @RequestMapping(value = "/{topologyId}/nodetemplates/{nodeTemplateName}/relationships/{relationshipName}", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<TopologyDTO> addRelationshipTemplate(@PathVariable String topologyId, @PathVariable String nodeTemplateName,
-            @PathVariable String relationshipName, @RequestBody AddRelationshipTemplateRequest relationshipTemplateRequest) {
+    public RestResponse<?> addRelationshipTemplate(@PathVariable String topologyId, @PathVariable String nodeTemplateName,
+            @PathVariable String relationshipName, @RequestBody AddRelationshipTemplateRequest relationshipTemplateRequest,
+            @RequestParam(value = "patch", required = false, defaultValue = "false") boolean patch) {
         Topology topology = topologyServiceCore.getOrFail(topologyId);
         topologyService.checkEditionAuthorizations(topology);
 
@@ -416,7 +424,7 @@ public class TopologyController {
         workflowBuilderService.addRelationship(topologyContext, nodeTemplateName, relationshipName);
         topologyServiceCore.save(topology);
         log.info("Added relationship to the topology [" + topologyId + "], node name [" + nodeTemplateName + "], relationship name [" + relationshipName + "]");
-        return RestResponseBuilder.<TopologyDTO> builder().data(topologyService.buildTopologyDTO(topology)).build();
+        return buildTopologyResponse(topology, patch, Collections.singleton(nodeTemplateName));
     }
 
     /**
@@ -436,12 +444,14 @@ public class TopologyController {
      *
      * @param topologyId Id of the topology from which to delete the node template.
      * @param nodeTemplateName Id of the node template to delete.
-     * @return NodeTemplateDTO The DTO containing the newly deleted node template and the related node type
+     * @param patch If true only the removed node template and the node templates that lost a relationship are returned rather than the whole topology.
+     * @return TopologyDTO The DTO of the modified topology (or TopologyPatchDTO when patch is requested).
      */
     @ApiOperation(value = "Delete a node tempalte from a topology", notes = "If successful returns a result containing the list of impacted nodes (that will loose relationships). Application role required [ APPLICATION_MANAGER | APPLICATION_DEVOPS ]")
     @RequestMapping(value = "/{topologyId:.+}/nodetemplates/{nodeTemplateName}", method = RequestMethod.DELETE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<TopologyDTO> deleteNodeTemplate(@PathVariable String topologyId, @PathVariable String nodeTemplateName) {
+    public RestResponse<?> deleteNodeTemplate(@PathVariable String topologyId, @PathVariable String nodeTemplateName,
+            @RequestParam(value = "patch", required = false, defaultValue = "false") boolean patch) {
         Topology topology = topologyServiceCore.getOrFail(topologyId);
         topologyService.checkEditionAuthorizations(topology);
         topologyService.throwsErrorIfReleased(topology);
@@ -470,7 +480,7 @@ public class TopologyController {
             }
         }
         topologyService.unloadType(topology, typesTobeUnloaded.toArray(new String[typesTobeUnloaded.size()]));
-        removeRelationShipReferences(nodeTemplateName, topology);
+        Map<String, NodeTemplate> impactedNodeTemplates = removeRelationShipReferences(nodeTemplateName, topology);
         nodeTemplates.remove(nodeTemplateName);
         removeOutputs(nodeTemplateName, topology);
         if (topology.getSubstitutionMapping() != null) {
@@ -484,7 +494,8 @@ public class TopologyController {
         workflowBuilderService.removeNode(topology, nodeTemplateName, template);
         topologyServiceCore.save(topology);
         topologyServiceCore.updateSubstitutionType(topology);
-        return RestResponseBuilder.<TopologyDTO> builder().data(topologyService.buildTopologyDTO(topology)).build();
+        Collection<String> updatedNodeTemplates = impactedNodeTemplates == null ? Collections.<String> emptySet() : impactedNodeTemplates.keySet();
+        return buildTopologyResponse(topology, patch, updatedNodeTemplates, Collections.singleton(nodeTemplateName));
     }
 
     /**
@@ -526,13 +537,14 @@ public class TopologyController {
      * @param topologyId The id of the topology that contains the node template for which to update a property.
      * @param nodeTemplateName The name of the node template for which to update a property.
      * @param updatePropertyRequest The key and value of the property to update. When value is null => "reset" (load the default value).
-     * @return a void rest response that contains no data if successful and an error if something goes wrong.
+     * @param patch If true the updated node template and its types are returned in case of success.
+     * @return a rest response that contains no data (or the TopologyPatchDTO when patch is requested) if successful and an error if something goes wrong.
      */
     @ApiOperation(value = "Update properties values.", notes = "Returns a topology with it's details. Application role required [ APPLICATION_MANAGER | APPLICATION_DEVOPS ]")
     @RequestMapping(value = "/{topologyId:.+}/nodetemplates/{nodeTemplateName}/properties", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<ConstraintInformation> updatePropertyValue(@PathVariable String topologyId, @PathVariable String nodeTemplateName,
-            @RequestBody UpdatePropertyRequest updatePropertyRequest) {
+    public RestResponse<?> updatePropertyValue(@PathVariable String topologyId, @PathVariable String nodeTemplateName,
+            @RequestBody UpdatePropertyRequest updatePropertyRequest, @RequestParam(value = "patch", required = false, defaultValue = "false") boolean patch) {
         Topology topology = topologyServiceCore.getOrFail(topologyId);
         topologyService.checkEditionAuthorizations(topology);
         topologyService.throwsErrorIfReleased(topology);
@@ -558,6 +570,9 @@ public class TopologyController {
             return RestConstraintValidator.fromException(e, propertyName, propertyValue);
         }
         topologyServiceCore.save(topology);
+        if (patch) {
+            return buildTopologyResponse(topology, true, Collections.singleton(nodeTemplateName));
+        }
         return RestResponseBuilder.<ConstraintInformation> builder().build();
     }
 
@@ -910,13 +925,14 @@ public class TopologyController {
      * @param topologyId The id of the topology in which the node template lies.
      * @param nodeTemplateName The name of the node template from which we should delete the relationship.
      * @param relationshipName The name of the relationship to delete.
+     * @param patch If true only the source node template and its types are returned rather than the whole topology.
      * @return A rest response with no errors if successful.
      */
     @ApiOperation(value = "Delete a relationship from a node template.", notes = "Returns a response with no errors in case of success. Application role required [ APPLICATION_MANAGER | APPLICATION_DEVOPS ]")
     @RequestMapping(value = "/{topologyId:.+}/nodetemplates/{nodeTemplateName}/relationships/{relationshipName}", method = RequestMethod.DELETE, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<TopologyDTO> deleteRelationshipTemplate(@PathVariable String topologyId, @PathVariable String nodeTemplateName,
-            @PathVariable String relationshipName) {
+    public RestResponse<?> deleteRelationshipTemplate(@PathVariable String topologyId, @PathVariable String nodeTemplateName,
+            @PathVariable String relationshipName, @RequestParam(value = "patch", required = false, defaultValue = "false") boolean patch) {
         Topology topology = topologyServiceCore.getOrFail(topologyId);
         topologyService.checkEditionAuthorizations(topology);
         topologyService.throwsErrorIfReleased(topology);
@@ -936,7 +952,7 @@ public class TopologyController {
         }
         workflowBuilderService.removeRelationship(topology, nodeTemplateName, relationshipName, relationshipTemplate);
         topologyServiceCore.save(topology);
-        return RestResponseBuilder.<TopologyDTO> builder().data(topologyService.buildTopologyDTO(topology)).build();
+        return buildTopologyResponse(topology, patch, Collections.singleton(nodeTemplateName));
     }
 
     @ApiOperation(value = "Activate a property as an output property.", notes = "Returns a response with no errors and no data in success case. Application role required [ APPLICATION_MANAGER | ARCHITECT ]")
@@ -1254,13 +1270,14 @@ public class TopologyController {
      * @param nodeTemplateName The name of the node template in which is the relationship to rename.
      * @param relationshipName The old name of the relationship to rename.
      * @param newRelationshipName The new name of the relationship
+     * @param patch If true only the node template and its types are returned rather than the whole topology.
      * @return {@link RestResponse}<{@link String}> an response with the new relationship name as data and no error if successful.
      */
     @ApiOperation(value = "Change the name of a node template in a topology.", notes = "Returns a response with no errors in case of success. Application role required [ APPLICATION_MANAGER | APPLICATION_DEVOPS ]")
     @RequestMapping(value = "/{topologyId:.+}/nodetemplates/{nodeTemplateName}/relationships/{relationshipName}/updateName", method = RequestMethod.PUT, produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
-    public RestResponse<TopologyDTO> updateRelationshipName(@PathVariable String topologyId, @PathVariable String nodeTemplateName,
-            @PathVariable String relationshipName, @RequestParam(value = "newName") String newRelationshipName) {
+    public RestResponse<?> updateRelationshipName(@PathVariable String topologyId, @PathVariable String nodeTemplateName,
+            @PathVariable String relationshipName, @RequestParam(value = "newName") String newRelationshipName, @RequestParam(value = "patch", required = false, defaultValue = "false") boolean patch) {
         Topology topology = topologyServiceCore.getOrFail(topologyId);
         topologyService.checkEditionAuthorizations(topology);
         topologyService.throwsErrorIfReleased(topology);
@@ -1282,7 +1299,7 @@ public class TopologyController {
                 nodeTemplateName, topologyId);
 
         topologyServiceCore.save(topology);
-        return RestResponseBuilder.<TopologyDTO> builder().data(topologyService.buildTopologyDTO(topology)).build();
+        return buildTopologyResponse(topology, patch, Collections.singleton(nodeTemplateName));
     }
 
     @ApiOperation(value = "", notes = "Returns a response with no errors in case of success. Application role required [ APPLICATION_MANAGER | APPLICATION_DEVOPS ]")
@@ -1449,4 +1466,34 @@ public class TopologyController {
         }
         return RestResponseBuilder.<AbstractTopologyVersion> builder().data(version).build();
     }
+
+    /**
+     * Build the response of an edition operation.
+     *
+     * @param topology The topology after the operation.
+     * @param patch True if only the changes applied to the node templates impacted by the operation should be returned.
+     * @param updatedNodeTemplates The names of the node templates impacted by the operation.
+     * @return A response that contains either the whole topology or the patch to apply.
+     */
+    private RestResponse<?> buildTopologyResponse(Topology topology, boolean patch, Collection<String> updatedNodeTemplates) {
+        return buildTopologyResponse(topology, patch, updatedNodeTemplates, Collections.<String> emptySet());
+    }
+
+    /**
+     * Build the response of an edition operation that removes node templates.
+     *
+     * @param topology The topology after the operation.
+     * @param patch True if only the changes applied to the node templates impacted by the operation should be returned.
+     * @param updatedNodeTemplates The names of the node templates updated by the operation.
+     * @param removedNodeTemplates The names of the node templates removed by the operation.
+     * @return A response that contains either the whole topology or the patch to apply.
+     */
+    private RestResponse<?> buildTopologyResponse(Topology topology, boolean patch, Collection<String> updatedNodeTemplates,
+            Collection<String> removedNodeTemplates) {
+        if (patch) {
+            return RestResponseBuilder.<TopologyPatchDTO> builder()
+                    .data(topologyService.buildTopologyPatchDTO(topology, updatedNodeTemplates, removedNodeTemplates)).build();
+        }
+        return RestResponseBuilder.<TopologyDTO> builder().data(topologyService.buildTopologyDTO(topology)).build();
+    }
 }
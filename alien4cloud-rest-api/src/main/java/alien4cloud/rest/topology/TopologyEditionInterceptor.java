@@ -0,0 +1,82 @@
+package alien4cloud.rest.topology;
+
+import java.util.Map;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import alien4cloud.topology.TopologyWorkingCopyService;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Wraps the requests that may modify a topology (any method but GET and HEAD) in an edition of the topology so they work on its in-memory working copy, and
+ * records the latency of every topology operation. Read requests are not part of an edition, they run concurrently on their own copy of the topology.
+ *
+ * An edition is bound to the request thread: if a handler starts asynchronous processing the edition ends when the request thread is released, and the
+ * asynchronous part works outside of the edition.
+ */
+@Component
+public class TopologyEditionInterceptor extends HandlerInterceptorAdapter {
+    private static final String METRICS_PREFIX = "topology.edition";
+    private static final String EDITION_ATTRIBUTE = TopologyEditionInterceptor.class.getName() + ".edition";
+    private static final String TIMER_ATTRIBUTE = TopologyEditionInterceptor.class.getName() + ".timer";
+
+    @Resource
+    private TopologyWorkingCopyService workingCopyService;
+    @Resource
+    private MetricRegistry metricRegistry;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Map<String, String> uriVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String topologyId = uriVariables == null ? null : uriVariables.get("topologyId");
+        if (topologyId == null || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        Timer timer = metricRegistry.timer(MetricRegistry.name(METRICS_PREFIX, handlerMethod.getBeanType().getSimpleName(), handlerMethod.getMethod()
+                .getName()));
+        request.setAttribute(TIMER_ATTRIBUTE, timer.time());
+        if (isModifying(request) && workingCopyService.startEdition(topologyId)) {
+            request.setAttribute(EDITION_ATTRIBUTE, Boolean.TRUE);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // the edition must end on the thread that started it, the working copy is discarded unless it has already been saved.
+        if (request.getAttribute(EDITION_ATTRIBUTE) != null) {
+            request.removeAttribute(EDITION_ATTRIBUTE);
+            workingCopyService.endEdition(false);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(EDITION_ATTRIBUTE) != null) {
+            request.removeAttribute(EDITION_ATTRIBUTE);
+            boolean failed = ex != null || response.getStatus() >= HttpStatus.BAD_REQUEST.value();
+            workingCopyService.endEdition(failed);
+        }
+        Timer.Context timerContext = (Timer.Context) request.getAttribute(TIMER_ATTRIBUTE);
+        if (timerContext != null) {
+            timerContext.stop();
+        }
+    }
+
+    private boolean isModifying(HttpServletRequest request) {
+        return !RequestMethod.GET.name().equals(request.getMethod()) && !RequestMethod.HEAD.name().equals(request.getMethod());
+    }
+}
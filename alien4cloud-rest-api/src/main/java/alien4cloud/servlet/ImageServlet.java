@@ -10,6 +10,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.support.WebApplicationContextUtils;
@@ -20,6 +21,9 @@ import alien4cloud.utils.ImageQuality;
 
 /**
  * A servlet that query an image by id and return's it.
+ *
+ * Responses carry the hash of the image as entity tag so browsers can revalidate their cached icons, a request which entity tag matches gets a 304 response
+ * (served from memory for recently read images).
  * 
  * @author luc boutier
  */
@@ -38,7 +42,7 @@ public class ImageServlet extends HttpServlet {
 
     @Override
     protected void doGet(final HttpServletRequest req, final HttpServletResponse resp) throws ServletException, IOException {
-        resp.setHeader("Cache-Control", "public");
+        // remove the no-cache headers set by spring security, the Cache-Control header is set by the cache filter
         resp.setHeader("Pragma", null);
         resp.setHeader("Expires", null);
 
@@ -53,6 +57,12 @@ public class ImageServlet extends HttpServlet {
 
         final ImageData imageData = this.imageDAO.readImage(imageId, imageQuality);
         if (imageData != null) {
+            String etag = "\"" + imageData.getHash() + "\"";
+            resp.setHeader(HttpHeaders.ETAG, etag);
+            if (isNotModified(req.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                resp.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
             // Set content type
             resp.setContentType(imageData.getMime());
             // Set content size
@@ -69,4 +79,24 @@ public class ImageServlet extends HttpServlet {
             resp.setStatus(HttpStatus.NOT_FOUND.value());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Check if one of the entity tags of an If-None-Match header matches the entity tag of the image.
+     */
+    private static boolean isNotModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String requestEtag : ifNoneMatch.split(",")) {
+            requestEtag = requestEtag.trim();
+            if (requestEtag.startsWith("W/")) {
+                // weak comparison is allowed for GET requests
+                requestEtag = requestEtag.substring(2);
+            }
+            if ("*".equals(requestEtag) || etag.equals(requestEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
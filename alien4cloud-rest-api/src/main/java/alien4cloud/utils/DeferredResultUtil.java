@@ -0,0 +1,39 @@
+package alien4cloud.utils;
+
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import alien4cloud.rest.model.RestResponse;
+import alien4cloud.rest.model.RestResponseBuilder;
+
+/**
+ * Bridge between the non blocking services and the rest controllers: the request thread is released while the future is running and the response is
+ * written once the future completes. Failures are processed by the exception handlers as if they were thrown by the controller.
+ */
+public final class DeferredResultUtil {
+    private DeferredResultUtil() {
+    }
+
+    /**
+     * Create a deferred rest response that is set when a future completes.
+     *
+     * @param future The future that computes the data of the response.
+     * @return A deferred result completed with a rest response that contains the data of the future.
+     */
+    public static <T> DeferredResult<RestResponse<T>> toRestResponse(ListenableFuture<T> future) {
+        final DeferredResult<RestResponse<T>> deferredResult = new DeferredResult<RestResponse<T>>();
+        future.addCallback(new ListenableFutureCallback<T>() {
+            @Override
+            public void onSuccess(T data) {
+                deferredResult.setResult(RestResponseBuilder.<T> builder().data(data).build());
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                deferredResult.setErrorResult(e);
+            }
+        });
+        return deferredResult;
+    }
+}
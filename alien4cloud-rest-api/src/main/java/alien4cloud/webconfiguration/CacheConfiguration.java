@@ -1,15 +1,20 @@
 package alien4cloud.webconfiguration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.embedded.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class CacheConfiguration {
+    /** Time in seconds during which browsers use cached images without revalidating them. */
+    @Value("${images.cache.max_age:3600}")
+    private long imagesMaxAge = 3600;
+
     @Bean
-    public FilterRegistrationBean metricsFilterRegistration() {
-        FilterRegistrationBean registrationBean = new FilterRegistrationBean(new CacheFilter());
+    public FilterRegistrationBean cacheFilterRegistration() {
+        FilterRegistrationBean registrationBean = new FilterRegistrationBean(new CacheFilter(imagesMaxAge));
         registrationBean.addUrlPatterns("/img");
         return registrationBean;
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,6 @@
 package alien4cloud.webconfiguration;
 
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -12,15 +11,18 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletResponse;
 
 /**
- * This filter is used in production, to put HTTP cache headers with a long (1 month) expiration time.
+ * This filter is used in production, to put HTTP cache headers on images. Browsers keep images for max-age seconds then revalidate them with the entity tag
+ * set by the image servlet, an unchanged image is not downloaded again.
  */
 public class CacheFilter implements Filter {
+    private final String cacheControl;
 
-    // Cache period is 1 month (in ms)
-    private final static long CACHE_PERIOD = TimeUnit.DAYS.toMillis(31L);
-
-    // We consider the last modified date is the start up time of the server
-    private final static long LAST_MODIFIED = System.currentTimeMillis();
+    /**
+     * @param maxAge Time in seconds during which a browser uses a cached image without revalidating it.
+     */
+    public CacheFilter(long maxAge) {
+        this.cacheControl = "public, max-age=" + maxAge;
+    }
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
@@ -35,16 +37,7 @@ public class CacheFilter implements Filter {
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         HttpServletResponse httpResponse = (HttpServletResponse) response;
-
-        httpResponse.setHeader("Cache-Control", "max-age=2678400000, public");
-        httpResponse.setHeader("Pragma", "cache");
-
-        // Setting Expires header, for proxy caching
-        httpResponse.setDateHeader("Expires", CACHE_PERIOD + System.currentTimeMillis());
-
-        // Setting the Last-Modified header, for browser caching
-        httpResponse.setDateHeader("Last-Modified", LAST_MODIFIED);
-
+        httpResponse.setHeader("Cache-Control", cacheControl);
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
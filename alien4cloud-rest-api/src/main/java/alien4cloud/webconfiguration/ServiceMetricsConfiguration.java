@@ -0,0 +1,88 @@
+package alien4cloud.webconfiguration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.annotation.Configuration;
+
+import alien4cloud.audit.AuditTraceWriter;
+import alien4cloud.common.SuggestionService;
+import alien4cloud.component.CSARRepositorySearchService;
+import alien4cloud.component.NodeTypeScoreService;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.deployment.DeploymentContextService;
+import alien4cloud.deployment.DeploymentStatusService;
+import alien4cloud.deployment.matching.services.location.LocationMatchCache;
+import alien4cloud.deployment.matching.services.nodes.NodeMatcherService;
+import alien4cloud.paas.OrchestratorPluginService;
+import alien4cloud.rest.deployment.DeploymentEventDispatcher;
+import alien4cloud.security.AuthorizationCache;
+import alien4cloud.topology.TopologyWorkingCopyService;
+import alien4cloud.tosca.ArchiveParsingCache;
+
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Register the metrics owned by the alien4cloud daos and services (caches, background writers and jobs) in the metric registry, each under its own prefix.
+ */
+@Slf4j
+@Configuration
+public class ServiceMetricsConfiguration {
+    @Resource
+    private MetricRegistry metricRegistry;
+    @Resource(name = "alien-es-dao")
+    private IGenericSearchDAO alienDAO;
+    @Resource(name = "alien-monitor-es-dao")
+    private IGenericSearchDAO alienMonitorDAO;
+    @Resource(name = "alien-audit-dao")
+    private IGenericSearchDAO alienAuditDAO;
+    @Resource
+    private AuditTraceWriter auditTraceWriter;
+    @Resource
+    private AuthorizationCache authorizationCache;
+    @Resource
+    private CSARRepositorySearchService csarRepositorySearchService;
+    @Resource
+    private ArchiveParsingCache archiveParsingCache;
+    @Resource
+    private TopologyWorkingCopyService topologyWorkingCopyService;
+    @Resource
+    private SuggestionService suggestionService;
+    @Resource
+    private DeploymentContextService deploymentContextService;
+    @Resource
+    private LocationMatchCache locationMatchCache;
+    @Resource
+    private NodeMatcherService nodeMatcherService;
+    @Resource
+    private NodeTypeScoreService nodeTypeScoreService;
+    @Resource
+    private DeploymentEventDispatcher deploymentEventDispatcher;
+    @Resource
+    private DeploymentStatusService deploymentStatusService;
+    @Resource
+    private OrchestratorPluginService orchestratorPluginService;
+
+    @PostConstruct
+    public void init() {
+        log.info("Registering services metrics");
+        metricRegistry.register("dao.alien.writes", alienDAO.getWriteStatistics());
+        metricRegistry.register("dao.monitor.writes", alienMonitorDAO.getWriteStatistics());
+        metricRegistry.register("dao.audit.writes", alienAuditDAO.getWriteStatistics());
+        metricRegistry.register("audit.writer", auditTraceWriter);
+        metricRegistry.register("cache.authorizations", authorizationCache);
+        metricRegistry.register("cache.elements", csarRepositorySearchService);
+        metricRegistry.register("cache.parsing", archiveParsingCache);
+        metricRegistry.register("cache.topologies", topologyWorkingCopyService);
+        metricRegistry.register("cache.suggestions", suggestionService);
+        metricRegistry.register("cache.deployment_contexts", deploymentContextService);
+        metricRegistry.register("cache.locations_matching", locationMatchCache);
+        metricRegistry.register("matching.nodes", nodeMatcherService);
+        metricRegistry.register("components.scoring", nodeTypeScoreService);
+        metricRegistry.register("deployment.events", deploymentEventDispatcher);
+        metricRegistry.register("deployment.statuses", deploymentStatusService);
+        metricRegistry.register("orchestrators.monitor", orchestratorPluginService);
+    }
+}
@@ -0,0 +1,23 @@
+package alien4cloud.webconfiguration;
+
+import javax.annotation.Resource;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import alien4cloud.rest.topology.TopologyEditionInterceptor;
+
+/**
+ * Register the interceptor that manages the edition of topologies on the topology endpoints.
+ */
+@Configuration
+public class TopologyEditionConfiguration extends WebMvcConfigurerAdapter {
+    @Resource
+    private TopologyEditionInterceptor topologyEditionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(topologyEditionInterceptor).addPathPatterns("/rest/topologies/**");
+    }
+}
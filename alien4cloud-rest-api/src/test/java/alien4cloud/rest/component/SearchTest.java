@@ -10,6 +10,9 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
 
@@ -25,6 +28,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.dao.ElasticSearchDAO;
@@ -69,7 +73,7 @@ public class SearchTest {
     }
 
     @Test
-    public void searchPostTest() {
+    public void searchPostTest() throws InterruptedException {
         String query = "positive";
         RestResponse<FacetedSearchResult> response;
         SearchRequest req;
@@ -77,7 +81,7 @@ public class SearchTest {
         String[] ids;
         // without filters
         req = new SearchRequest(QueryComponentType.NODE_TYPE, query, 0, NUMBER_ELEMENT, null);
-        response = componentController.search(req, true);
+        response = getResult(componentController.search(req, true));
         assertNotNull(response);
         assertNotNull(response.getData());
         assertNull(response.getError());
@@ -96,7 +100,7 @@ public class SearchTest {
         Map<String, String[]> filters = new HashMap<String, String[]>();
         filters.put("capabilities.type", new String[] { "container", "banana" });
         req = new SearchRequest(QueryComponentType.NODE_TYPE, query, 0, NUMBER_ELEMENT, filters);
-        response = componentController.search(req, true);
+        response = getResult(componentController.search(req, true));
         assertNotNull(response);
         assertNotNull(response.getData());
         assertNull(response.getError());
@@ -110,7 +114,7 @@ public class SearchTest {
         // test nothing found
         query = "pacpac";
         req = new SearchRequest(QueryComponentType.NODE_TYPE, query, 0, NUMBER_ELEMENT, null);
-        response = componentController.search(req, true);
+        response = getResult(componentController.search(req, true));
         assertNotNull(response);
         assertNotNull(response.getData());
         assertNull(response.getError());
@@ -121,6 +125,22 @@ public class SearchTest {
         assertEquals(0, data.getTypes().length);
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T> T getResult(DeferredResult<T> deferredResult) throws InterruptedException {
+        final CountDownLatch resultLatch = new CountDownLatch(1);
+        final AtomicReference<Object> result = new AtomicReference<>();
+        // the handler is called immediately if the result is already set
+        deferredResult.setResultHandler(new DeferredResult.DeferredResultHandler() {
+            @Override
+            public void handleResult(Object value) {
+                result.set(value);
+                resultLatch.countDown();
+            }
+        });
+        assertTrue(resultLatch.await(10, TimeUnit.SECONDS));
+        return (T) result.get();
+    }
+
     private void prepareToscaElement() {
         List<CapabilityDefinition> capa = Lists.newArrayList(new CapabilityDefinition("container", "container", 1), new CapabilityDefinition("container1",
                 "container1", 1), new CapabilityDefinition("container2", "container2", 1), new CapabilityDefinition("container3", "container3", 1),
@@ -0,0 +1,117 @@
+package alien4cloud.rest.deployment;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.deployment.Deployment;
+import alien4cloud.paas.model.DeploymentStatus;
+import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
+import alien4cloud.paas.model.PaaSInstanceStateMonitorEvent;
+
+/**
+ * Test the asynchronous publication of the deployment events.
+ */
+public class DeploymentEventDispatcherTest {
+    private IGenericSearchDAO alienDAO;
+    private SimpMessagingTemplate template;
+    private DeploymentEventDispatcher dispatcher;
+
+    @Before
+    public void before() {
+        alienDAO = mock(IGenericSearchDAO.class);
+        template = mock(SimpMessagingTemplate.class);
+        dispatcher = new DeploymentEventDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "alienDAO", alienDAO);
+        ReflectionTestUtils.setField(dispatcher, "template", template);
+        // instance states are only published before a status of their deployment or when the dispatcher stops
+        ReflectionTestUtils.setField(dispatcher, "coalescingWindowMs", TimeUnit.HOURS.toMillis(1));
+        dispatcher.init();
+
+        Deployment deployment = new Deployment();
+        deployment.setId("deployment");
+        deployment.setEnvironmentId("environment");
+        when(alienDAO.findById(Deployment.class, "deployment")).thenReturn(deployment);
+    }
+
+    @After
+    public void after() {
+        dispatcher.destroy();
+    }
+
+    @Test
+    public void instanceStatesAreCoalesced() throws Exception {
+        dispatcher.dispatch(instanceState("compute", "0", "creating"));
+        dispatcher.dispatch(instanceState("compute", "0", "configuring"));
+        dispatcher.dispatch(instanceState("compute", "0", "started"));
+        dispatcher.dispatch(instanceState("compute", "1", "started"));
+        dispatcher.destroy();
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(template, times(2)).convertAndSend(any(String.class), events.capture());
+        for (Object event : events.getAllValues()) {
+            assertEquals("started", ((PaaSInstanceStateMonitorEvent) event).getInstanceState());
+        }
+        assertEquals(2, dispatcher.getCoalescedEvents());
+        assertEquals(2, dispatcher.getPublishedEvents());
+    }
+
+    @Test
+    public void environmentOfDeploymentsIsKept() throws Exception {
+        dispatcher.dispatch(deploymentStatus(DeploymentStatus.DEPLOYMENT_IN_PROGRESS));
+        dispatcher.dispatch(deploymentStatus(DeploymentStatus.DEPLOYED));
+        dispatcher.destroy();
+
+        verify(template, times(2)).convertAndSend(eq(DeploymentEventHandler.ENV_TOPIC_PREFIX + "/environment"), any(Object.class));
+        verify(alienDAO, times(1)).findById(Deployment.class, "deployment");
+        verify(alienDAO, never()).save(any(Deployment.class));
+        assertEquals(4, dispatcher.getPublishedEvents());
+    }
+
+    @Test
+    public void instanceStatesArePublishedBeforeTheDeploymentStatus() throws Exception {
+        PaaSInstanceStateMonitorEvent instanceState = instanceState("compute", "0", "started");
+        PaaSDeploymentStatusMonitorEvent deploymentStatus = deploymentStatus(DeploymentStatus.DEPLOYED);
+        dispatcher.dispatch(instanceState);
+        dispatcher.dispatch(deploymentStatus);
+        dispatcher.destroy();
+
+        InOrder inOrder = inOrder(template);
+        inOrder.verify(template).convertAndSend(any(String.class), eq((Object) instanceState));
+        inOrder.verify(template, times(2)).convertAndSend(any(String.class), eq((Object) deploymentStatus));
+        assertEquals(0, dispatcher.getQueueDepth());
+    }
+
+    private PaaSInstanceStateMonitorEvent instanceState(String nodeTemplateId, String instanceId, String state) {
+        PaaSInstanceStateMonitorEvent event = new PaaSInstanceStateMonitorEvent();
+        event.setDeploymentId("deployment");
+        event.setNodeTemplateId(nodeTemplateId);
+        event.setInstanceId(instanceId);
+        event.setInstanceState(state);
+        return event;
+    }
+
+    private PaaSDeploymentStatusMonitorEvent deploymentStatus(DeploymentStatus status) {
+        PaaSDeploymentStatusMonitorEvent event = new PaaSDeploymentStatusMonitorEvent();
+        event.setDeploymentId("deployment");
+        event.setDeploymentStatus(status);
+        return event;
+    }
+}
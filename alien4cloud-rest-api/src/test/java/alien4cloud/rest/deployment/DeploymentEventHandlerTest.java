@@ -0,0 +1,64 @@
+package alien4cloud.rest.deployment;
+
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.model.deployment.Deployment;
+import alien4cloud.paas.model.DeploymentStatus;
+import alien4cloud.paas.model.PaaSDeploymentStatusMonitorEvent;
+
+/**
+ * Check that the deployments are updated when the events are received, whatever happens to their publication.
+ */
+public class DeploymentEventHandlerTest {
+    private IGenericSearchDAO alienDAO;
+    private DeploymentEventDispatcher dispatcher;
+    private DeploymentEventHandler handler;
+    private Deployment deployment;
+
+    @Before
+    public void before() {
+        alienDAO = mock(IGenericSearchDAO.class);
+        dispatcher = mock(DeploymentEventDispatcher.class);
+        handler = new DeploymentEventHandler();
+        ReflectionTestUtils.setField(handler, "alienDAO", alienDAO);
+        ReflectionTestUtils.setField(handler, "deploymentEventDispatcher", dispatcher);
+
+        deployment = new Deployment();
+        deployment.setId("deployment");
+        when(alienDAO.findById(Deployment.class, "deployment")).thenReturn(deployment);
+    }
+
+    @Test
+    public void undeployedDeploymentIsEndedBeforeDispatch() {
+        PaaSDeploymentStatusMonitorEvent event = deploymentStatus(DeploymentStatus.UNDEPLOYED);
+        handler.eventHappened(event);
+
+        assertNotNull(deployment.getEndDate());
+        verify(alienDAO).save(deployment);
+        verify(dispatcher).dispatch(event);
+    }
+
+    @Test
+    public void otherStatusesDoNotUpdateTheDeployment() {
+        handler.eventHappened(deploymentStatus(DeploymentStatus.DEPLOYED));
+
+        verify(alienDAO, never()).save(Matchers.any(Deployment.class));
+    }
+
+    private PaaSDeploymentStatusMonitorEvent deploymentStatus(DeploymentStatus status) {
+        PaaSDeploymentStatusMonitorEvent event = new PaaSDeploymentStatusMonitorEvent();
+        event.setDeploymentId("deployment");
+        event.setDeploymentStatus(status);
+        return event;
+    }
+}
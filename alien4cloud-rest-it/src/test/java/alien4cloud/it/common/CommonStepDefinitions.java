@@ -1,10 +1,13 @@
 package alien4cloud.it.common;
 
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.http.NameValuePair;
+import org.apache.http.message.BasicNameValuePair;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.collect.Lists;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -105,6 +108,7 @@ public class CommonStepDefinitions {
         for (String indice : indicesToClean) {
             esClient.prepareDeleteByQuery(new String[] { indice }).setQuery(QueryBuilders.matchAllQuery()).execute().get();
         }
+        invalidateCaches();
 
         // clean things in Context
         Context.getInstance().clearComponentsIds();
@@ -114,6 +118,20 @@ public class CommonStepDefinitions {
         Context.getInstance().takePreRegisteredOrchestratorProperties();
     }
 
+    /**
+     * Drop the data that the server keeps in memory as elastic search has just been cleaned behind its back.
+     */
+    private void invalidateCaches() throws Throwable {
+        List<NameValuePair> nvps = new ArrayList<NameValuePair>();
+        nvps.add(new BasicNameValuePair("username", "admin"));
+        nvps.add(new BasicNameValuePair("password", "admin"));
+        nvps.add(new BasicNameValuePair("submit", "Login"));
+        Context.getRestClientInstance().postUrlEncoded("/login", nvps);
+        RestResponse<?> restResponse = JsonUtil.read(Context.getRestClientInstance().postJSon("/rest/maintenance/invalidate-caches", ""));
+        Assert.assertNull(restResponse.getError());
+        Context.getRestClientInstance().postUrlEncoded("/logout", new ArrayList<NameValuePair>());
+    }
+
     @Then("^I should receive a RestResponse with no error$")
     public void I_should_receive_a_RestResponse_with_no_error() throws Throwable {
         RestResponse<?> restResponse = JsonUtil.read(Context.getInstance().getRestResponse());
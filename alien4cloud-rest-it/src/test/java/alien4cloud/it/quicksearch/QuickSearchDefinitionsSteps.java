@@ -17,7 +17,6 @@ import org.elasticsearch.mapping.MappingBuilder;
 
 import alien4cloud.dao.ElasticSearchDAO;
 import alien4cloud.dao.ElasticSearchMapper;
-import alien4cloud.dao.model.GetMultipleDataResult;
 import alien4cloud.it.Context;
 import alien4cloud.model.components.IndexedNodeType;
 import alien4cloud.model.components.IndexedRelationshipType;
@@ -25,6 +24,7 @@ import alien4cloud.model.components.IndexedToscaElement;
 import alien4cloud.rest.component.QueryComponentType;
 import alien4cloud.rest.model.BasicSearchRequest;
 import alien4cloud.rest.model.RestResponse;
+import alien4cloud.rest.quicksearch.QuickSearchResult;
 import alien4cloud.rest.utils.JsonUtil;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -73,20 +73,21 @@ public class QuickSearchDefinitionsSteps {
 
     @Then("^The quickSearch response should contains (\\d+) elements$")
     public void The_quickSearch_response_should_contains_elements(int expectedSize) throws Throwable {
-        RestResponse<GetMultipleDataResult> restResponse = JsonUtil.read(Context.getInstance().takeRestResponse(), GetMultipleDataResult.class);
-        GetMultipleDataResult searchResp = restResponse.getData();
+        RestResponse<QuickSearchResult> restResponse = JsonUtil.read(Context.getInstance().takeRestResponse(), QuickSearchResult.class);
+        QuickSearchResult searchResp = restResponse.getData();
 
         assertNotNull(searchResp);
         assertNotNull(searchResp.getTypes());
         assertNotNull(searchResp.getData());
+        assertNotNull(searchResp.getPhaseDurations());
         assertEquals(expectedSize, searchResp.getTypes().length);
         assertEquals(expectedSize, searchResp.getData().length);
     }
 
     @Then("^The quickSearch response should contains (\\d+) \"([^\"]*)\"$")
     public void The_quickSearch_response_should_contains(int expectedSize, String searchedType) throws Throwable {
-        RestResponse<GetMultipleDataResult> restResponse = JsonUtil.read(Context.getInstance().getRestResponse(), GetMultipleDataResult.class);
-        GetMultipleDataResult searchResp = restResponse.getData();
+        RestResponse<QuickSearchResult> restResponse = JsonUtil.read(Context.getInstance().getRestResponse(), QuickSearchResult.class);
+        QuickSearchResult searchResp = restResponse.getData();
 
         assertNotNull(searchResp);
         assertNotNull(searchResp.getTypes());
@@ -111,8 +112,8 @@ public class QuickSearchDefinitionsSteps {
 
     @Then("^The quickSearch response should only contains (\\d+) \"([^\"]*)\"$")
     public void The_quickSearch_response_should_only_contains(int expectedSize, String searchedType) throws Throwable {
-        RestResponse<GetMultipleDataResult> restResponse = JsonUtil.read(Context.getInstance().getRestResponse(), GetMultipleDataResult.class);
-        GetMultipleDataResult searchResp = restResponse.getData();
+        RestResponse<QuickSearchResult> restResponse = JsonUtil.read(Context.getInstance().getRestResponse(), QuickSearchResult.class);
+        QuickSearchResult searchResp = restResponse.getData();
 
         assertNotNull(searchResp);
         assertNotNull(searchResp.getTypes());
@@ -10,7 +10,7 @@ Scenario: quick search should return the expected number of result
   Given There is 15 "node types" indexed in ALIEN with 15 of them having "appli-node-type" in the "elementId"
   When I quickly search for "appli" from 0 with result size of 10
   Then I should receive a RestResponse with no error
-    And The quickSearch response should contains 11 elements
+    And The quickSearch response should contains 10 elements
 
 Scenario: quick search should be able to return the both application and node type
   Given There is 15 "node types" indexed in ALIEN with 6 of them having "newApplication-node-type" in the "elementId"
@@ -52,12 +52,12 @@ Scenario: quick search should be able to find applications or components regardl
   	Then I should receive a RestResponse with no error
   	And The quickSearch response should only contains 1 "applications" 
   	# 'type' is found in the application description
-  	And The quickSearch response should only contains 10 "node types"
+  	And The quickSearch response should only contains 9 "node types"
   When I quickly search for "node" from 0 with result size of 10
   	Then I should receive a RestResponse with no error
   	And The quickSearch response should only contains 1 "applications" 
   	# 'node' is found in the application name
-  	And The quickSearch response should only contains 10 "node types"
+  	And The quickSearch response should only contains 9 "node types"
   When I authenticate with "APPLICATIONS_MANAGER" role
     And I quickly search for "newnode" from 0 with result size of 10
   Then I should receive a RestResponse with no error
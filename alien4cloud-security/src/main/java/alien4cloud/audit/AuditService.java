@@ -1,6 +1,9 @@
 package alien4cloud.audit;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
@@ -23,6 +26,11 @@ import alien4cloud.dao.model.FacetedSearchResult;
 import alien4cloud.exception.NotFoundException;
 import alien4cloud.security.AuthorizationUtil;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import io.swagger.annotations.ApiOperation;
+
 @Component
 @Slf4j
 public class AuditService {
@@ -31,31 +39,118 @@ public class AuditService {
 
     @Resource(name = "alien-audit-dao")
     private IGenericSearchDAO alienDAO;
+    @Resource
+    private AuditTraceWriter auditTraceWriter;
 
-    /**
-     * Cache the instance of audit configuration bad idea ?
-     */
-    private AuditConfiguration auditConfiguration;
+    /** Immutable view of the current audit configuration, replaced when the configuration is saved. */
+    private volatile AuditSnapshot auditSnapshot;
+    /** Audit metadata of the controller methods, keyed by java method as handler methods resolved per request are new instances. */
+    private volatile Map<java.lang.reflect.Method, HandlerAuditMetadata> handlersMetadata = Collections.emptyMap();
 
     /**
      * Get the audit configuration, this method will cache the configuration in memory
      * 
      * @return the audit configuration
      */
-    public synchronized AuditConfiguration getAuditConfiguration() {
-        if (this.auditConfiguration == null) {
-            this.auditConfiguration = alienDAO.customFind(AuditConfiguration.class, null);
-        }
-        return this.auditConfiguration;
+    public AuditConfiguration getAuditConfiguration() {
+        return getAuditSnapshot().configuration;
     }
 
     public synchronized void saveAuditConfiguration(AuditConfiguration auditConfiguration) {
         alienDAO.save(auditConfiguration);
-        this.auditConfiguration = auditConfiguration;
+        this.auditSnapshot = new AuditSnapshot(auditConfiguration);
+    }
+
+    /**
+     * Check if some requests with the given http method may be audited, so requests that can't be audited don't have to be resolved to their handler.
+     * 
+     * @param httpMethod The http method of a request.
+     * @return True if audit is enabled and at least one audited controller method is mapped to the given http method.
+     */
+    public boolean isAuditEnabled(String httpMethod) {
+        AuditSnapshot snapshot = getAuditSnapshot();
+        return snapshot.enabled && snapshot.enabledHttpMethods.contains(httpMethod);
+    }
+
+    /**
+     * Check if a controller method is audited in the current audit configuration.
+     * 
+     * @param handlerMetadata The audit metadata of the controller method.
+     * @return True if the controller method is audited.
+     */
+    public boolean isMethodAudited(HandlerAuditMetadata handlerMetadata) {
+        AuditSnapshot snapshot = getAuditSnapshot();
+        return snapshot.enabled && snapshot.enabledMethods.contains(handlerMetadata.getMethod());
+    }
+
+    /**
+     * Compute the audit metadata of all the controller methods once, so they don't have to be computed for every request.
+     * 
+     * @param handlerMethods All the controller methods.
+     */
+    public void registerHandlerMethods(Collection<HandlerMethod> handlerMethods) {
+        Map<java.lang.reflect.Method, HandlerAuditMetadata> metadata = Maps.newHashMap();
+        for (HandlerMethod handlerMethod : handlerMethods) {
+            HandlerAuditMetadata handlerMetadata = computeHandlerMetadata(handlerMethod);
+            if (handlerMetadata != null) {
+                metadata.put(handlerMethod.getMethod(), handlerMetadata);
+            }
+        }
+        handlersMetadata = Collections.unmodifiableMap(metadata);
+    }
+
+    /**
+     * @return The audit metadata of all the controller methods that can be audited.
+     */
+    public Collection<HandlerAuditMetadata> getHandlersMetadata() {
+        return handlersMetadata.values();
+    }
+
+    /**
+     * Get the audit metadata of a controller method.
+     * 
+     * @param handlerMethod The controller method.
+     * @return The audit metadata of the method or null if the method cannot be audited.
+     */
+    public HandlerAuditMetadata getHandlerMetadata(HandlerMethod handlerMethod) {
+        HandlerAuditMetadata handlerMetadata = handlersMetadata.get(handlerMethod.getMethod());
+        if (handlerMetadata == null && !handlersMetadata.containsKey(handlerMethod.getMethod())) {
+            // method registered after startup.
+            handlerMetadata = computeHandlerMetadata(handlerMethod);
+        }
+        return handlerMetadata;
+    }
+
+    private AuditSnapshot getAuditSnapshot() {
+        AuditSnapshot snapshot = this.auditSnapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                if (this.auditSnapshot == null) {
+                    this.auditSnapshot = new AuditSnapshot(alienDAO.customFind(AuditConfiguration.class, null));
+                }
+                snapshot = this.auditSnapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    private HandlerAuditMetadata computeHandlerMetadata(HandlerMethod handlerMethod) {
+        Method auditedMethod = getAuditedMethod(handlerMethod);
+        if (auditedMethod == null) {
+            return null;
+        }
+        ApiOperation apiDoc = handlerMethod.getMethodAnnotation(ApiOperation.class);
+        Audit audit = handlerMethod.getMethodAnnotation(Audit.class);
+        return new HandlerAuditMetadata(auditedMethod, apiDoc == null ? null : apiDoc.value(), audit != null && audit.enabledByDefault());
     }
 
+    /**
+     * Save an audit trace, the trace is written in background (see {@link AuditTraceWriter}).
+     *
+     * @param auditTrace The trace to save.
+     */
     public void saveAuditTrace(AuditTrace auditTrace) {
-        alienDAO.save(auditTrace);
+        auditTraceWriter.write(auditTrace);
     }
 
     public AuditConfiguration getMandatoryAuditConfiguration() {
@@ -128,11 +223,6 @@ public class AuditService {
         return new Method(contextPath, httpMethod, getAuditCategoryName(controllerMethod, audit), getAuditActionName(controllerMethod, audit));
     }
 
-    public boolean isMethodAudited(AuditConfiguration auditConfiguration, HandlerMethod controllerMethod) {
-        Method method = getAuditedMethod(controllerMethod);
-        return method != null && Boolean.TRUE.equals(auditConfiguration.getAuditedMethodsMap().get(method));
-    }
-
     public String getAuditCategoryName(HandlerMethod method, Audit audit) {
         if (audit != null && StringUtils.isNotBlank(audit.category())) {
             return audit.category();
@@ -158,4 +248,31 @@ public class AuditService {
         }
         return audit;
     }
+
+    /**
+     * Immutable view of an audit configuration with the audited methods indexed for the audit filter.
+     */
+    private static class AuditSnapshot {
+        private final AuditConfiguration configuration;
+        private final boolean enabled;
+        private final Set<Method> enabledMethods;
+        private final Set<String> enabledHttpMethods;
+
+        private AuditSnapshot(AuditConfiguration configuration) {
+            this.configuration = configuration;
+            this.enabled = configuration != null && configuration.isEnabled();
+            Set<Method> methods = Sets.newHashSet();
+            Set<String> httpMethods = Sets.newHashSet();
+            if (configuration != null) {
+                for (Map.Entry<Method, Boolean> auditedMethod : configuration.getAuditedMethodsMap().entrySet()) {
+                    if (Boolean.TRUE.equals(auditedMethod.getValue())) {
+                        methods.add(auditedMethod.getKey());
+                        httpMethods.add(auditedMethod.getKey().getMethod());
+                    }
+                }
+            }
+            this.enabledMethods = ImmutableSet.copyOf(methods);
+            this.enabledHttpMethods = ImmutableSet.copyOf(httpMethods);
+        }
+    }
 }
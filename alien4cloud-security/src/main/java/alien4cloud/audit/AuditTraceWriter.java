@@ -0,0 +1,251 @@
+package alien4cloud.audit;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.audit.model.AuditTrace;
+import alien4cloud.dao.IBulkSession;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.WriteConsistency;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Writes the audit traces to elastic search in background so audited requests don't wait for the indexing of their trace.
+ *
+ * Traces are added to a bounded queue and written by a single writer thread with bulk requests, a bulk is sent as soon as bulk_size traces are waiting or
+ * when flush_interval_ms has elapsed since the last bulk. When the queue is full the overflow policy applies:
+ * <ul>
+ * <li>BLOCK: the request waits for space in the queue at most block_timeout_ms, then the trace is dropped.</li>
+ * <li>DROP: the trace is dropped.</li>
+ * <li>SAMPLE: once the queue is half full only one trace out of sample_rate is kept, traces are dropped when the queue is full.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class AuditTraceWriter implements MetricSet {
+    /** Behavior when traces are produced faster than they can be written. */
+    public enum OverflowPolicy {
+        BLOCK, DROP, SAMPLE
+    }
+
+    @Resource(name = "alien-audit-dao")
+    private IGenericSearchDAO alienDAO;
+    /** Disable to write every trace synchronously on the request thread. */
+    @Value("${audit.async.enabled:true}")
+    private boolean enabled = true;
+    /** Maximum number of traces waiting to be written. */
+    @Value("${audit.async.queue_capacity:10000}")
+    private int queueCapacity = 10000;
+    /** Maximum number of traces written in a single bulk request. */
+    @Value("${audit.async.bulk_size:500}")
+    private int bulkSize = 500;
+    /** Maximum time in milliseconds a trace waits in the queue when less than bulk_size traces are waiting. */
+    @Value("${audit.async.flush_interval_ms:1000}")
+    private long flushIntervalMs = 1000;
+    @Value("${audit.async.overflow_policy:BLOCK}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    @Value("${audit.async.block_timeout_ms:1000}")
+    private long blockTimeoutMs = 1000;
+    @Value("${audit.async.sample_rate:10}")
+    private int sampleRate = 10;
+
+    private final Queue<AuditTrace> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sampledTraces = new AtomicLong();
+    private final Meter droppedTraces = new Meter();
+    private final Meter writtenTraces = new Meter();
+    private final Meter failedTraces = new Meter();
+    private final Timer flushes = new Timer();
+    private Semaphore freeSlots;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        freeSlots = new Semaphore(queueCapacity);
+        running = true;
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "audit-trace-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stop the writer once all the queued traces are written.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Add a trace to the queue of traces to write (or write it immediately if asynchronous writes are disabled).
+     *
+     * @param auditTrace The trace to write.
+     */
+    public void write(AuditTrace auditTrace) {
+        if (!enabled) {
+            alienDAO.save(auditTrace);
+            return;
+        }
+        if (!acquireSlot()) {
+            droppedTraces.mark();
+            log.debug("Audit trace queue is full, dropping trace {}", auditTrace);
+            return;
+        }
+        queue.offer(auditTrace);
+        if (getQueueDepth() >= bulkSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * @return The number of traces waiting to be written.
+     */
+    public long getQueueDepth() {
+        return freeSlots == null ? 0 : queueCapacity - freeSlots.availablePermits();
+    }
+
+    /**
+     * @return The number of traces that have been dropped because the queue was full (or sampled out).
+     */
+    public long getDroppedTraces() {
+        return droppedTraces.getCount();
+    }
+
+    /**
+     * @return The number of traces written to elastic search.
+     */
+    public long getWrittenTraces() {
+        return writtenTraces.getCount();
+    }
+
+    /**
+     * @return The number of traces that could not be written to elastic search.
+     */
+    public long getFailedTraces() {
+        return failedTraces.getCount();
+    }
+
+    /**
+     * @return The number of bulk requests sent to elastic search.
+     */
+    public long getFlushCount() {
+        return flushes.getCount();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = Maps.newHashMap();
+        metrics.put("queue_depth", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getQueueDepth();
+            }
+        });
+        metrics.put("dropped", droppedTraces);
+        metrics.put("written", writtenTraces);
+        metrics.put("failed", failedTraces);
+        metrics.put("flushes", flushes);
+        return metrics;
+    }
+
+    private boolean acquireSlot() {
+        switch (overflowPolicy) {
+        case BLOCK:
+            try {
+                return freeSlots.tryAcquire(blockTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        case SAMPLE:
+            if (getQueueDepth() >= queueCapacity / 2 && sampledTraces.incrementAndGet() % Math.max(1, sampleRate) != 0) {
+                return false;
+            }
+            return freeSlots.tryAcquire();
+        default:
+            return freeSlots.tryAcquire();
+        }
+    }
+
+    private void writeLoop() {
+        long lastFlush = System.currentTimeMillis();
+        while (running) {
+            long elapsed = System.currentTimeMillis() - lastFlush;
+            if (getQueueDepth() >= bulkSize || elapsed >= flushIntervalMs) {
+                flush();
+                lastFlush = System.currentTimeMillis();
+            } else {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(flushIntervalMs - elapsed));
+            }
+        }
+        // write the remaining traces before stopping
+        while (!queue.isEmpty()) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        List<AuditTrace> traces = Lists.newArrayList();
+        AuditTrace auditTrace;
+        while (traces.size() < bulkSize && (auditTrace = queue.poll()) != null) {
+            traces.add(auditTrace);
+        }
+        if (traces.isEmpty()) {
+            return;
+        }
+        Timer.Context flushContext = flushes.time();
+        try {
+            IBulkSession bulkSession = alienDAO.newBulkSession(WriteConsistency.NEAR_REAL_TIME);
+            for (AuditTrace trace : traces) {
+                bulkSession.save(trace);
+            }
+            bulkSession.flush();
+            writtenTraces.mark(traces.size());
+        } catch (Exception e) {
+            failedTraces.mark(traces.size());
+            log.error("Unable to write " + traces.size() + " audit traces", e);
+        } finally {
+            freeSlots.release(traces.size());
+            flushContext.stop();
+        }
+    }
+}
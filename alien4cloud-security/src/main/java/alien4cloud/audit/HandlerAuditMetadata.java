@@ -0,0 +1,20 @@
+package alien4cloud.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import alien4cloud.audit.model.Method;
+
+/**
+ * Audit metadata of a controller method, computed once from its annotations and request mappings.
+ */
+@Getter
+@AllArgsConstructor
+public class HandlerAuditMetadata {
+    /** The audited method (path, http method, category and action). */
+    private final Method method;
+    /** The description of the action from the api documentation, null if not documented. */
+    private final String actionDescription;
+    /** True if the method is audited when no configuration has been saved for it. */
+    private final boolean enabledByDefault;
+}
@@ -10,12 +10,10 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.method.HandlerMethod;
-import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import alien4cloud.audit.AuditService;
-import alien4cloud.audit.annotation.Audit;
+import alien4cloud.audit.HandlerAuditMetadata;
 import alien4cloud.audit.model.AuditConfiguration;
 import alien4cloud.audit.model.AuditedMethod;
 import alien4cloud.audit.model.Method;
@@ -43,6 +41,7 @@ public class AuditController {
 
     @PostConstruct
     private void postConstruct() {
+        auditService.registerHandlerMethods(requestMappingHandlerMapping.getHandlerMethods().values());
         AuditConfiguration auditConfiguration = auditService.getAuditConfiguration();
         Map<Method, Boolean> allAvailableMethodsForAudit = getAllAvailableMethodsForAudit();
         if (auditConfiguration == null) {
@@ -62,30 +61,10 @@ public class AuditController {
         auditService.saveAuditConfiguration(auditConfiguration);
     }
 
-    private static interface IAuditedMethodFactory<T extends Method> {
-        T buildAuditedMethod(Method auditedMethod, HandlerMethod method);
-    }
-
     private Map<Method, Boolean> getAllAvailableMethodsForAudit() {
-        return getAllAvailableMethodsForAudit(new IAuditedMethodFactory<Method>() {
-            @Override
-            public Method buildAuditedMethod(Method auditedMethod, HandlerMethod method) {
-                return auditedMethod;
-            }
-        });
-    }
-
-    private <T extends Method> Map<T, Boolean> getAllAvailableMethodsForAudit(IAuditedMethodFactory<T> methodFactory) {
-        Map<RequestMappingInfo, HandlerMethod> handlerMethods = this.requestMappingHandlerMapping.getHandlerMethods();
-        Map<T, Boolean> allMethods = Maps.newHashMap();
-        for (Map.Entry<RequestMappingInfo, HandlerMethod> handlerMethodEntry : handlerMethods.entrySet()) {
-            HandlerMethod method = handlerMethodEntry.getValue();
-            Method auditedMethod = auditService.getAuditedMethod(method);
-            if (auditedMethod != null) {
-                Audit audit = method.getMethodAnnotation(Audit.class);
-                boolean enabledByDefault = (audit != null && audit.enabledByDefault());
-                allMethods.put(methodFactory.buildAuditedMethod(auditedMethod, method), enabledByDefault);
-            }
+        Map<Method, Boolean> allMethods = Maps.newHashMap();
+        for (HandlerAuditMetadata handlerMetadata : auditService.getHandlersMetadata()) {
+            allMethods.put(handlerMetadata.getMethod(), handlerMetadata.isEnabledByDefault());
         }
         return allMethods;
     }
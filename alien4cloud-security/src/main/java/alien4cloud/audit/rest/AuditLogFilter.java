@@ -8,6 +8,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.Ordered;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -19,14 +20,12 @@ import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.HandlerMapping;
 
 import alien4cloud.audit.AuditService;
-import alien4cloud.audit.annotation.Audit;
-import alien4cloud.audit.model.AuditConfiguration;
+import alien4cloud.audit.HandlerAuditMetadata;
 import alien4cloud.audit.model.AuditTrace;
 import alien4cloud.security.AuthorizationUtil;
 import alien4cloud.security.model.User;
 
 import com.google.common.base.Charsets;
-import io.swagger.annotations.ApiOperation;
 
 /**
  * This filter is used to intercept all rest call that need to be audited
@@ -40,6 +39,10 @@ public class AuditLogFilter extends OncePerRequestFilter implements Ordered {
     @Resource
     private HandlerMapping mapping;
 
+    /** Maximum number of bytes of the request body kept in the audit trace, a negative value to keep the whole body. */
+    @Value("${audit.request_body.max_length:65536}")
+    private int requestBodyMaxLength = 65536;
+
     private HandlerMethod getHandlerMethod(HttpServletRequest request) {
         HandlerExecutionChain handlerChain;
         try {
@@ -58,10 +61,6 @@ public class AuditLogFilter extends OncePerRequestFilter implements Ordered {
         return handlerMethod;
     }
 
-    private ApiOperation getApiDoc(HandlerMethod method) {
-        return method.getMethodAnnotation(ApiOperation.class);
-    }
-
     private boolean isRequestContainingJson(HttpServletRequest request) {
         String contentType = request.getHeader(HttpHeaders.CONTENT_TYPE);
         return contentType != null && contentType.startsWith(MediaType.APPLICATION_JSON_VALUE);
@@ -72,18 +71,14 @@ public class AuditLogFilter extends OncePerRequestFilter implements Ordered {
         return Ordered.LOWEST_PRECEDENCE - 10;
     }
 
-    private AuditTrace getAuditTrace(HttpServletRequest request, HttpServletResponse response, HandlerMethod method, User user, boolean requestContainsJson)
-            throws IOException {
-        Audit audit = auditService.getAuditAnnotation(method);
+    private AuditTrace getAuditTrace(HttpServletRequest request, HttpServletResponse response, HandlerAuditMetadata handlerMetadata, User user,
+            boolean requestContainsJson) throws IOException {
         // trace user info only when he is logged
         AuditTrace auditTrace = new AuditTrace();
         auditTrace.setTimestamp(System.currentTimeMillis());
-        auditTrace.setAction(auditService.getAuditActionName(method, audit));
-        ApiOperation apiDoc = getApiDoc(method);
-        if (apiDoc != null) {
-            auditTrace.setActionDescription(apiDoc.value());
-        }
-        auditTrace.setCategory(auditService.getAuditCategoryName(method, audit));
+        auditTrace.setAction(handlerMetadata.getMethod().getAction());
+        auditTrace.setActionDescription(handlerMetadata.getActionDescription());
+        auditTrace.setCategory(handlerMetadata.getMethod().getCategory());
         auditTrace.setUserName(user.getUsername());
         auditTrace.setUserFirstName(user.getFirstName());
         auditTrace.setUserLastName(user.getLastName());
@@ -95,17 +90,29 @@ public class AuditLogFilter extends OncePerRequestFilter implements Ordered {
         auditTrace.setSourceIp(request.getRemoteAddr());
         // request body
         if (requestContainsJson) {
-            auditTrace.setRequestBody(StreamUtils.copyToString(request.getInputStream(), Charsets.UTF_8));
+            auditTrace.setRequestBody(getRequestBody(request));
         }
         // response details
         auditTrace.setResponseStatus(response.getStatus());
         return auditTrace;
     }
 
+    private String getRequestBody(HttpServletRequest request) throws IOException {
+        if (!(request instanceof MultiReadHttpServletRequest)) {
+            return StreamUtils.copyToString(request.getInputStream(), Charsets.UTF_8);
+        }
+        MultiReadHttpServletRequest multiReadRequest = (MultiReadHttpServletRequest) request;
+        String body = multiReadRequest.getBody(requestBodyMaxLength);
+        if (requestBodyMaxLength >= 0 && multiReadRequest.getBodySize() > requestBodyMaxLength) {
+            body += "... (truncated, " + multiReadRequest.getBodySize() + " bytes)";
+        }
+        return body;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        AuditConfiguration configuration = auditService.getAuditConfiguration();
-        if (configuration == null || !configuration.isEnabled()) {
+        // requests which http method is not audited don't have to be resolved to their handler
+        if (!auditService.isAuditEnabled(request.getMethod())) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -119,7 +126,8 @@ public class AuditLogFilter extends OncePerRequestFilter implements Ordered {
             filterChain.doFilter(request, response);
             return;
         }
-        if (!auditService.isMethodAudited(configuration, method)) {
+        HandlerAuditMetadata handlerMetadata = auditService.getHandlerMetadata(method);
+        if (handlerMetadata == null || !auditService.isMethodAudited(handlerMetadata)) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -132,7 +140,7 @@ public class AuditLogFilter extends OncePerRequestFilter implements Ordered {
         } finally {
             AuditTrace auditTrace = null;
             try {
-                auditTrace = getAuditTrace(request, response, method, user, requestContainsJson);
+                auditTrace = getAuditTrace(request, response, handlerMetadata, user, requestContainsJson);
             } catch (Exception e) {
                 logger.warn("Unable to construct audit trace", e);
             }
@@ -13,6 +13,8 @@ import javax.servlet.http.HttpServletRequestWrapper;
 
 import org.apache.commons.io.IOUtils;
 
+import com.google.common.base.Charsets;
+
 public class MultiReadHttpServletRequest extends HttpServletRequestWrapper {
 
     private byte[] cachedBytes;
@@ -34,6 +36,32 @@ public class MultiReadHttpServletRequest extends HttpServletRequestWrapper {
         return new BufferedReader(new InputStreamReader(getInputStream()));
     }
 
+    /**
+     * Get the body of the request as a string.
+     *
+     * @param maxLength The maximum number of bytes of the body to decode, a negative value to decode the whole body.
+     * @return The (possibly truncated) body of the request.
+     * @throws IOException In case the body cannot be read.
+     */
+    public String getBody(int maxLength) throws IOException {
+        if (cachedBytes == null)
+            cacheInputStream();
+
+        int length = maxLength < 0 ? cachedBytes.length : Math.min(maxLength, cachedBytes.length);
+        return new String(cachedBytes, 0, length, Charsets.UTF_8);
+    }
+
+    /**
+     * @return The size in bytes of the body of the request.
+     * @throws IOException In case the body cannot be read.
+     */
+    public int getBodySize() throws IOException {
+        if (cachedBytes == null)
+            cacheInputStream();
+
+        return cachedBytes.length;
+    }
+
     private void cacheInputStream() throws IOException {
         /*
          * Cache the inputstream in order to read it multiple times. For
@@ -0,0 +1,218 @@
+package alien4cloud.security;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import alien4cloud.Constants;
+import alien4cloud.security.groups.IAlienGroupDao;
+import alien4cloud.security.model.Group;
+import alien4cloud.security.model.User;
+import alien4cloud.security.users.IAlienUserDao;
+import alien4cloud.utils.CacheMetricSet;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Keeps in memory the ALL_USERS group and the effective groups and global roles of the authenticated users so the authorization checks on resources don't
+ * access the store.
+ *
+ * The authorizations of a user are resolved when the user logs in (or on the first check) and dropped when the user or any group changes, they are then
+ * resolved again from the store on the next check. Principals that are not in the store are remembered as such so they are not looked up on every check,
+ * their authorizations are resolved from the principal.
+ */
+@Slf4j
+@Component
+public class AuthorizationCache implements MetricSet {
+    @Resource
+    private IAlienGroupDao alienGroupDao;
+    @Resource
+    private IAlienUserDao alienUserDao;
+
+    /** Disable to resolve the authorizations from the principal and the store on every check. */
+    @Value("${alien_security.authorization_cache.enabled:true}")
+    private boolean enabled = true;
+    /** Maximum number of users which authorizations are kept in memory. */
+    @Value("${alien_security.authorization_cache.max_size:10000}")
+    private int maxSize = 10000;
+    /** Time in minutes after which the authorizations of a user are resolved again from the store. */
+    @Value("${alien_security.authorization_cache.ttl_minutes:60}")
+    private int ttlMinutes = 60;
+
+    /** Authorizations by username. */
+    private Cache<String, Authorizations> authorizations;
+    /** Usernames of the authenticated principals that are not in the user store. */
+    private Cache<String, Boolean> unknownUsers;
+    /** The ALL_USERS group, null until it is found in the store. */
+    private volatile Group allUsersGroup;
+    /** Incremented on every invalidation so authorizations resolved from a user or group that has been updated meanwhile are not cached. */
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            authorizations = CacheBuilder.newBuilder().maximumSize(Math.max(1, maxSize)).expireAfterWrite(ttlMinutes, TimeUnit.MINUTES).recordStats()
+                    .build();
+            unknownUsers = CacheBuilder.newBuilder().maximumSize(Math.max(1, maxSize)).expireAfterWrite(ttlMinutes, TimeUnit.MINUTES).build();
+        }
+    }
+
+    /**
+     * Get the alien's default all users group.
+     *
+     * @return The ALL_USERS group or null if it doesn't exist.
+     */
+    public Group getAllUsersGroup() {
+        Group group = allUsersGroup;
+        if (group != null) {
+            return group;
+        }
+        long currentGeneration = generation.get();
+        group = alienGroupDao.findByName(Constants.GROUP_NAME_ALL_USERS);
+        if (group == null) {
+            log.warn("Default all users group <{}> not found", Constants.GROUP_NAME_ALL_USERS);
+            return null;
+        }
+        if (enabled && currentGeneration == generation.get()) {
+            allUsersGroup = group;
+        }
+        return group;
+    }
+
+    /**
+     * Get the effective groups and roles of an authenticated user.
+     *
+     * @param user The authenticated user.
+     * @return The authorizations of the user.
+     */
+    public Authorizations getAuthorizations(User user) {
+        if (!enabled) {
+            return resolve(user);
+        }
+        Authorizations userAuthorizations = authorizations.getIfPresent(user.getUsername());
+        if (userAuthorizations != null) {
+            return userAuthorizations;
+        }
+        if (unknownUsers.getIfPresent(user.getUsername()) != null) {
+            return resolve(user);
+        }
+        long currentGeneration = generation.get();
+        User storedUser = alienUserDao.find(user.getUsername());
+        if (storedUser == null) {
+            // not managed by alien, don't keep authorizations that are not related to the store
+            if (currentGeneration == generation.get()) {
+                unknownUsers.put(user.getUsername(), Boolean.TRUE);
+            }
+            return resolve(user);
+        }
+        userAuthorizations = resolve(storedUser);
+        if (currentGeneration == generation.get()) {
+            authorizations.put(user.getUsername(), userAuthorizations);
+        }
+        return userAuthorizations;
+    }
+
+    /**
+     * Resolve again the authorizations of a user that has just been authenticated.
+     *
+     * @param user The authenticated user, as read from the store.
+     * @return The authorizations of the user.
+     */
+    public Authorizations refresh(User user) {
+        long currentGeneration = generation.get();
+        Authorizations userAuthorizations = resolve(user);
+        if (enabled) {
+            authorizations.invalidate(user.getUsername());
+            unknownUsers.invalidate(user.getUsername());
+            if (currentGeneration == generation.get()) {
+                authorizations.put(user.getUsername(), userAuthorizations);
+            }
+        }
+        return userAuthorizations;
+    }
+
+    /**
+     * Drop the authorizations of a user after it has been updated or deleted.
+     *
+     * @param username The username of the user.
+     */
+    public void invalidateUser(String username) {
+        generation.incrementAndGet();
+        if (authorizations != null) {
+            authorizations.invalidate(username);
+            unknownUsers.invalidate(username);
+        }
+    }
+
+    /**
+     * Drop the ALL_USERS group and all the authorizations after a group has been updated or deleted.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        allUsersGroup = null;
+        if (authorizations != null) {
+            authorizations.invalidateAll();
+        }
+    }
+
+    public CacheStats getCacheStats() {
+        return authorizations == null ? new CacheStats(0, 0, 0, 0, 0, 0) : authorizations.stats();
+    }
+
+    public long getCacheSize() {
+        return authorizations == null ? 0 : authorizations.size();
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        return new CacheMetricSet(authorizations).getMetrics();
+    }
+
+    private Authorizations resolve(User user) {
+        ImmutableSet.Builder<String> groups = ImmutableSet.builder();
+        ImmutableSet.Builder<String> roles = ImmutableSet.builder();
+        if (user.getGroups() != null) {
+            groups.addAll(user.getGroups());
+        }
+        if (user.getRoles() != null) {
+            roles.add(user.getRoles());
+        }
+        if (user.getGroupRoles() != null) {
+            roles.addAll(user.getGroupRoles());
+        }
+        Group group = getAllUsersGroup();
+        if (group != null) {
+            groups.add(group.getId());
+            if (group.getRoles() != null) {
+                roles.addAll(group.getRoles());
+            }
+        }
+        return new Authorizations(groups.build(), roles.build());
+    }
+
+    /**
+     * Effective groups (including ALL_USERS) and global roles (including the roles of the groups) of a user.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Authorizations {
+        private final Set<String> groups;
+        private final Set<String> roles;
+    }
+}
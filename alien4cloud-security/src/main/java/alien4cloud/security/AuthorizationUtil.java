@@ -3,8 +3,6 @@ package alien4cloud.security;
 import java.util.Map;
 import java.util.Set;
 
-import lombok.extern.slf4j.Slf4j;
-
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.FilterBuilders;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,12 +14,9 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
-import alien4cloud.Constants;
-import alien4cloud.security.groups.IAlienGroupDao;
 import alien4cloud.security.model.ApplicationEnvironmentRole;
 import alien4cloud.security.model.ApplicationRole;
 import alien4cloud.security.model.CloudRole;
-import alien4cloud.security.model.Group;
 import alien4cloud.security.model.Role;
 import alien4cloud.security.model.User;
 
@@ -30,15 +25,14 @@ import com.google.common.collect.Sets;
 /**
  * Applications and topologies concerns
  */
-@Slf4j
 @Component
 public final class AuthorizationUtil {
 
-    private static IAlienGroupDao alienGroupDao;
+    private static AuthorizationCache authorizationCache;
 
     @Autowired
-    public void setAlienGroupDao(IAlienGroupDao alienGroupDao) {
-        AuthorizationUtil.alienGroupDao = alienGroupDao;
+    public void setAuthorizationCache(AuthorizationCache authorizationCache) {
+        AuthorizationUtil.authorizationCache = authorizationCache;
     }
 
     private AuthorizationUtil() {
@@ -163,20 +157,15 @@ public final class AuthorizationUtil {
 
         FilterBuilder filterBuilder;
         User user = (User) auth.getPrincipal();
-        if (user.getGroups() != null && !user.getGroups().isEmpty()) {
+        // groups of the user including the ALL_USERS group
+        Set<String> groups = authorizationCache.getAuthorizations(user).getGroups();
+        if (!groups.isEmpty()) {
             filterBuilder = FilterBuilders.boolFilter()
                     .should(FilterBuilders.nestedFilter("userRoles", FilterBuilders.termFilter("userRoles.key", auth.getName())))
-                    .should(FilterBuilders.nestedFilter("groupRoles", FilterBuilders.inFilter("groupRoles.key", user.getGroups().toArray())));
+                    .should(FilterBuilders.nestedFilter("groupRoles", FilterBuilders.inFilter("groupRoles.key", groups.toArray())));
         } else {
             filterBuilder = FilterBuilders.nestedFilter("userRoles", FilterBuilders.termFilter("userRoles.key", auth.getName()));
         }
-        Group group = getAllUsersGroup();
-        if (group != null) {
-            String groupId = group.getId();
-            // add ALL_USERS group as OR filter
-            filterBuilder = FilterBuilders.orFilter(filterBuilder,
-                    FilterBuilders.nestedFilter("groupRoles", FilterBuilders.inFilter("groupRoles.key", groupId)));
-        }
         return filterBuilder;
     }
 
@@ -208,14 +197,7 @@ public final class AuthorizationUtil {
                 allRoles.addAll(userRoles);
             }
         }
-        Set<String> groups = user.getGroups();
-        if (groups == null) {
-            groups = Sets.newHashSet();
-        }
-        Group allUserGroup = getAllUsersGroup();
-        if (allUserGroup != null) {
-            groups.add(allUserGroup.getId());
-        }
+        Set<String> groups = authorizationCache.getAuthorizations(user).getGroups();
         Map<String, Set<String>> groupRolesMap = resource.getGroupRoles();
         if (groupRolesMap != null && !groupRolesMap.isEmpty()) {
             for (String group : groups) {
@@ -237,16 +219,7 @@ public final class AuthorizationUtil {
      * @return all user's A4C roles
      */
     private static Set<String> getRoles(User user) {
-        Set<String> allRoles = Sets.newHashSet();
-        String[] userRoles = user.getRoles();
-        Set<String> groupRoles = user.getGroupRoles();
-        if (userRoles != null && userRoles.length > 0) {
-            allRoles.addAll(Sets.newHashSet(userRoles));
-        }
-        if (groupRoles != null && !groupRoles.isEmpty()) {
-            allRoles.addAll(groupRoles);
-        }
-        return allRoles;
+        return authorizationCache.getAuthorizations(user).getRoles();
     }
 
     private static boolean hasAtLeastOneRole(Set<String> actualRoles, IResourceRoles adminRole, IResourceRoles... expectedRoles) {
@@ -315,20 +288,6 @@ public final class AuthorizationUtil {
         return hasAuthorization(getCurrentUser(), resource, resourceAdminRole, expectedRoles);
     }
 
-    /**
-     * Recover the alien's default all user group
-     *
-     * @return
-     */
-    private static Group getAllUsersGroup() {
-        Group group = alienGroupDao.findByName(Constants.GROUP_NAME_ALL_USERS);
-        if (group == null) {
-            log.warn("Default all users group <{}> not found", Constants.GROUP_NAME_ALL_USERS);
-            return null;
-        }
-        return group;
-    }
-
     /**
      * Create an authentication token from an Alien user
      *
@@ -337,22 +296,10 @@ public final class AuthorizationUtil {
      * @return the authentication token
      */
     public static UsernamePasswordAuthenticationToken createAuthenticationToken(User user, String password) {
-        Set<SimpleGrantedAuthority> authorities = user.getAuthorities();
-        Group allUserGroup = getAllUsersGroup();
-        if (allUserGroup != null) {
-            Set<String> allUserGroupRoles = allUserGroup.getRoles();
-            if (allUserGroupRoles != null) {
-                Set<SimpleGrantedAuthority> mergedAuthorities;
-                if (authorities != null) {
-                    mergedAuthorities = Sets.newHashSet(authorities);
-                } else {
-                    mergedAuthorities = Sets.newHashSet();
-                }
-                for (String allUserGroupRole : allUserGroupRoles) {
-                    mergedAuthorities.add(new SimpleGrantedAuthority(allUserGroupRole));
-                }
-                return new UsernamePasswordAuthenticationToken(user, password, mergedAuthorities);
-            }
+        // roles of the user, of the user's groups and of the ALL_USERS group, resolved once for the session
+        Set<SimpleGrantedAuthority> authorities = Sets.newHashSet();
+        for (String role : authorizationCache.refresh(user).getRoles()) {
+            authorities.add(new SimpleGrantedAuthority(role));
         }
         return new UsernamePasswordAuthenticationToken(user, password, authorities);
     }
@@ -7,6 +7,7 @@ import java.util.UUID;
 
 import javax.annotation.Resource;
 
+import alien4cloud.security.AuthorizationCache;
 import alien4cloud.security.groups.rest.UpdateGroupRequest;
 import alien4cloud.security.model.Group;
 import lombok.extern.slf4j.Slf4j;
@@ -35,6 +36,9 @@ public class GroupService {
     @Resource
     private UserService userService;
 
+    @Resource
+    private AuthorizationCache authorizationCache;
+
     public void updateGroup(String groupId, UpdateGroupRequest groupUpdateRequest) {
         Group group = retrieveGroup(groupId);
         String currentGroupName = group.getName();
@@ -47,7 +51,7 @@ public class GroupService {
             // If group name has changed, must check unicity
             checkGroupNameUnicity(group.getName());
         }
-        alienGroupDao.save(group);
+        saveGroup(group);
     }
 
     public void deleteGroup(String groupId) {
@@ -58,6 +62,7 @@ public class GroupService {
             }
         }
         alienGroupDao.delete(groupId);
+        authorizationCache.invalidateAll();
     }
 
     public User addUserToGroup(String username, String groupId) {
@@ -68,7 +73,7 @@ public class GroupService {
         users.add(user.getUsername());
         group.setUsers(users);
 
-        alienGroupDao.save(group);
+        saveGroup(group);
 
         // update groupRoles in the user
         userService.addGroupToUser(group, user);
@@ -84,7 +89,7 @@ public class GroupService {
         User user = userService.retrieveUser(username);
 
         group.getUsers().remove(user.getUsername());
-        alienGroupDao.save(group);
+        saveGroup(group);
 
         // update groupRoles in users objects
         userService.removeGroupFromUser(user, group);
@@ -128,7 +133,7 @@ public class GroupService {
             group.setUsers(usersSet);
         }
 
-        alienGroupDao.save(group);
+        saveGroup(group);
 
         if (CollectionUtils.isNotEmpty(usersList)) {
             for (User user : usersList) {
@@ -146,7 +151,7 @@ public class GroupService {
         rolesSet.add(Role.getStringFormatedRole(role));
         group.setRoles(rolesSet);
 
-        alienGroupDao.save(group);
+        saveGroup(group);
 
         // update groupRoles in users objects
         if (CollectionUtils.isNotEmpty(group.getUsers())) {
@@ -171,7 +176,7 @@ public class GroupService {
         }
 
         group.getRoles().remove(Role.getStringFormatedRole(role));
-        alienGroupDao.save(group);
+        saveGroup(group);
 
         // update groupRoles in users objects
         if (CollectionUtils.isNotEmpty(group.getUsers())) {
@@ -182,6 +187,12 @@ public class GroupService {
 
     }
 
+    private void saveGroup(Group group) {
+        alienGroupDao.save(group);
+        // the groups of the users are denormalized and the ALL_USERS group roles are granted to everyone
+        authorizationCache.invalidateAll();
+    }
+
     /**
      * check if the given groupId is unique in the system
      * 
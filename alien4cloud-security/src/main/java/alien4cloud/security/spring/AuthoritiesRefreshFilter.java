@@ -0,0 +1,53 @@
+package alien4cloud.security.spring;
+
+import java.io.IOException;
+import java.util.Set;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import alien4cloud.security.AuthorizationCache;
+import alien4cloud.security.model.User;
+
+/**
+ * Replace the authorities of the authenticated user (granted at login and kept in the session) when the global roles of the user have changed since, so
+ * updates of the user or of its groups apply to the open sessions.
+ *
+ * The roles are read from the {@link AuthorizationCache} so the store is only accessed after the authorizations of the user have been invalidated.
+ */
+@Slf4j
+public class AuthoritiesRefreshFilter extends OncePerRequestFilter {
+    private final AuthorizationCache authorizationCache;
+
+    public AuthoritiesRefreshFilter(AuthorizationCache authorizationCache) {
+        this.authorizationCache = authorizationCache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof UsernamePasswordAuthenticationToken && authentication.getPrincipal() instanceof User) {
+            User user = (User) authentication.getPrincipal();
+            Set<String> roles = authorizationCache.getAuthorizations(user).getRoles();
+            if (!roles.equals(AuthorityUtils.authorityListToSet(authentication.getAuthorities()))) {
+                log.debug("Roles of user <{}> have changed, refreshing the authorities of the session", user.getUsername());
+                UsernamePasswordAuthenticationToken refreshed = new UsernamePasswordAuthenticationToken(user, authentication.getCredentials(),
+                        AuthorityUtils.createAuthorityList(roles.toArray(new String[roles.size()])));
+                refreshed.setDetails(authentication.getDetails());
+                // the security context is saved in the session at the end of the request
+                SecurityContextHolder.getContext().setAuthentication(refreshed);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
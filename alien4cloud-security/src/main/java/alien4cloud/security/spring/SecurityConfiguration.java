@@ -27,8 +27,11 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.context.SecurityContextPersistenceFilter;
 import org.springframework.social.security.SpringSocialConfigurer;
 
+import alien4cloud.security.AuthorizationCache;
+
 import com.google.common.collect.Lists;
 
 @Slf4j
@@ -43,6 +46,8 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     private Alien4CloudAccessDeniedHandler accessDeniedHandler;
     @Resource
     private Alien4CloudAuthenticationProvider authenticationProvider;
+    @Resource
+    private AuthorizationCache authorizationCache;
 
     @Autowired
     private Environment env;
@@ -96,6 +101,8 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         http.formLogin().defaultSuccessUrl("/rest/auth/status").failureUrl("/rest/auth/authenticationfailed").loginProcessingUrl("/login")
                 .usernameParameter("username").passwordParameter("password").permitAll().and().logout().logoutSuccessUrl("/").deleteCookies("JSESSIONID");
         http.csrf().disable();
+        // roles of the users may change during their session
+        http.addFilterAfter(new AuthoritiesRefreshFilter(authorizationCache), SecurityContextPersistenceFilter.class);
 
         // handle non authenticated request
         http.exceptionHandling().authenticationEntryPoint(new FailureAuthenticationEntryPoint());
@@ -10,6 +10,7 @@ import java.util.Set;
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
+import alien4cloud.security.AuthorizationCache;
 import alien4cloud.security.model.Role;
 import alien4cloud.security.model.User;
 import alien4cloud.security.users.rest.UpdateUserRequest;
@@ -34,6 +35,8 @@ public class UserService {
     private IAlienUserDao alienUserDao;
     @Resource
     private IAlienGroupDao alienGroupDao;
+    @Resource
+    private AuthorizationCache authorizationCache;
 
     @Value("${alien_security.admin.ensure}")
     private boolean ensure;
@@ -102,7 +105,7 @@ public class UserService {
         user.setAccountNonExpired(true);
         user.setAccountNonLocked(true);
         user.setCredentialsNonExpired(true);
-        alienUserDao.save(user);
+        saveUser(user);
     }
 
     /**
@@ -117,7 +120,7 @@ public class UserService {
         if (userUpdateRequest.getPassword() != null) {
             user.setPassword(BCrypt.hashpw(userUpdateRequest.getPassword(), BCrypt.gensalt()));
         }
-        alienUserDao.save(user);
+        saveUser(user);
     }
 
     /**
@@ -150,7 +153,7 @@ public class UserService {
             user.setGroupRoles(groupRolesSet);
         }
 
-        alienUserDao.save(user);
+        saveUser(user);
 
     }
 
@@ -176,11 +179,22 @@ public class UserService {
         groupRolesSet.add(Role.getStringFormatedRole(role));
         user.setGroupRoles(groupRolesSet);
 
-        alienUserDao.save(user);
+        saveUser(user);
     }
 
     public void saveUser(User user) {
         alienUserDao.save(user);
+        authorizationCache.invalidateUser(user.getUsername());
+    }
+
+    /**
+     * Delete a user from the store.
+     * 
+     * @param username the username of the user to delete
+     */
+    public void deleteUser(String username) {
+        alienUserDao.delete(username);
+        authorizationCache.invalidateUser(username);
     }
 
     /**
@@ -205,7 +219,7 @@ public class UserService {
             }
             user.setGroupRoles(groupRolesSet);
         }
-        alienUserDao.save(user);
+        saveUser(user);
     }
 
     /**
@@ -243,7 +257,7 @@ public class UserService {
         if (CollectionUtils.isNotEmpty(group.getRoles())) {
             updateUserGroupRoles(user);
         } else {
-            alienUserDao.save(user);
+            saveUser(user);
         }
     }
 
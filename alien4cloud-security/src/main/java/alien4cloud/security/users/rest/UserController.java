@@ -157,7 +157,7 @@ public class UserController {
         resourceRoleService.deleteUserRoles(username);
         groupService.removeUserFromAllGroup(username);
 
-        alienUserDao.delete(username);
+        userService.deleteUser(username);
         return RestResponseBuilder.<Void> builder().build();
     }
 
@@ -182,7 +182,7 @@ public class UserController {
         Set<String> roleSet = user.getRoles() == null ? new HashSet<String>() : Sets.newHashSet(user.getRoles());
         roleSet.add(goodRoleToAdd);
         user.setRoles(roleSet.toArray(new String[roleSet.size()]));
-        alienUserDao.save(user);
+        userService.saveUser(user);
 
         return RestResponseBuilder.<Void> builder().build();
     }
@@ -212,7 +212,7 @@ public class UserController {
         String[] roles = user.getRoles();
         roles = ArrayUtils.removeElement(roles, goodRoleToAdd);
         user.setRoles(roles);
-        alienUserDao.save(user);
+        userService.saveUser(user);
 
         return RestResponseBuilder.<Void> builder().build();
     }
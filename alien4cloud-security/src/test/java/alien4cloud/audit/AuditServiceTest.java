@@ -0,0 +1,93 @@
+package alien4cloud.audit;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+
+import alien4cloud.audit.annotation.Audit;
+import alien4cloud.audit.model.AuditConfiguration;
+import alien4cloud.audit.model.AuditTrace;
+import alien4cloud.audit.model.Method;
+import alien4cloud.dao.IGenericSearchDAO;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Check that the audit filter decisions follow the saved audit configuration.
+ */
+public class AuditServiceTest {
+    private AuditService auditService;
+    private HandlerMethod createMethod;
+    private HandlerMethod getMethod;
+    private AuditTraceWriter auditTraceWriter;
+
+    @Before
+    public void before() throws NoSuchMethodException {
+        IGenericSearchDAO alienDAO = Mockito.mock(IGenericSearchDAO.class);
+        auditService = new AuditService();
+        ReflectionTestUtils.setField(auditService, "alienDAO", alienDAO);
+        auditTraceWriter = Mockito.mock(AuditTraceWriter.class);
+        ReflectionTestUtils.setField(auditService, "auditTraceWriter", auditTraceWriter);
+
+        SampleController controller = new SampleController();
+        createMethod = new HandlerMethod(controller, "create");
+        getMethod = new HandlerMethod(controller, "get");
+        auditService.registerHandlerMethods(Arrays.asList(createMethod, getMethod));
+    }
+
+    @Test
+    public void handlerMetadataIsComputedOnRegistration() throws NoSuchMethodException {
+        Assert.assertEquals(2, auditService.getHandlersMetadata().size());
+        // handler methods resolved for a request are new instances of the registered ones.
+        HandlerAuditMetadata createMetadata = auditService.getHandlerMetadata(new HandlerMethod(new SampleController(), "create"));
+        Assert.assertEquals(new Method("/rest/samples", "POST", "Sample", "createSample"), createMetadata.getMethod());
+        Assert.assertTrue(createMetadata.isEnabledByDefault());
+        Assert.assertFalse(auditService.getHandlerMetadata(getMethod).isEnabledByDefault());
+    }
+
+    @Test
+    public void auditDecisionsFollowSavedConfiguration() {
+        AuditConfiguration auditConfiguration = new AuditConfiguration();
+        auditConfiguration.setAuditedMethodsMap(Collections.singletonMap(auditService.getHandlerMetadata(createMethod).getMethod(), true));
+        auditService.saveAuditConfiguration(auditConfiguration);
+        Assert.assertTrue(auditService.isAuditEnabled("POST"));
+        Assert.assertFalse(auditService.isAuditEnabled("GET"));
+        Assert.assertTrue(auditService.isMethodAudited(auditService.getHandlerMetadata(createMethod)));
+        Assert.assertFalse(auditService.isMethodAudited(auditService.getHandlerMetadata(getMethod)));
+
+        AuditConfiguration disabledConfiguration = new AuditConfiguration();
+        disabledConfiguration.setEnabled(false);
+        disabledConfiguration.setAuditedMethodsMap(Maps.newHashMap(auditConfiguration.getAuditedMethodsMap()));
+        auditService.saveAuditConfiguration(disabledConfiguration);
+        Assert.assertFalse(auditService.isAuditEnabled("POST"));
+        Assert.assertFalse(auditService.isMethodAudited(auditService.getHandlerMetadata(createMethod)));
+    }
+
+    @Test
+    public void auditTracesAreWrittenInBackground() {
+        AuditTrace auditTrace = new AuditTrace();
+        auditService.saveAuditTrace(auditTrace);
+        Mockito.verify(auditTraceWriter).write(auditTrace);
+    }
+
+    @RequestMapping("/rest/samples")
+    private static class SampleController {
+        @Audit(action = "createSample")
+        @RequestMapping(method = RequestMethod.POST)
+        public void create() {
+        }
+
+        @Audit(enabledByDefault = false)
+        @RequestMapping(value = "/{id}", method = RequestMethod.GET)
+        public void get() {
+        }
+    }
+}
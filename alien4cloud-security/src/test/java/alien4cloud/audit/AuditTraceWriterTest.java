@@ -0,0 +1,64 @@
+package alien4cloud.audit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.audit.model.AuditTrace;
+import alien4cloud.dao.IBulkSession;
+import alien4cloud.dao.IGenericSearchDAO;
+import alien4cloud.dao.model.WriteConsistency;
+
+/**
+ * Check that audit traces are queued and written by bulks, and dropped when the queue is full.
+ */
+public class AuditTraceWriterTest {
+    private IGenericSearchDAO alienDAO;
+    private IBulkSession bulkSession;
+    private AuditTraceWriter auditTraceWriter;
+
+    @Before
+    public void before() {
+        alienDAO = Mockito.mock(IGenericSearchDAO.class);
+        bulkSession = Mockito.mock(IBulkSession.class);
+        Mockito.when(alienDAO.newBulkSession(WriteConsistency.NEAR_REAL_TIME)).thenReturn(bulkSession);
+
+        auditTraceWriter = new AuditTraceWriter();
+        ReflectionTestUtils.setField(auditTraceWriter, "alienDAO", alienDAO);
+        ReflectionTestUtils.setField(auditTraceWriter, "queueCapacity", 2);
+        ReflectionTestUtils.setField(auditTraceWriter, "bulkSize", 10);
+        // traces stay in the queue until the writer is stopped.
+        ReflectionTestUtils.setField(auditTraceWriter, "flushIntervalMs", 60000L);
+        ReflectionTestUtils.setField(auditTraceWriter, "overflowPolicy", AuditTraceWriter.OverflowPolicy.DROP);
+    }
+
+    @Test
+    public void tracesAreDroppedWhenQueueIsFull() {
+        auditTraceWriter.init();
+        for (int i = 0; i < 3; i++) {
+            auditTraceWriter.write(new AuditTrace());
+        }
+        Assert.assertEquals(2, auditTraceWriter.getQueueDepth());
+        Assert.assertEquals(1, auditTraceWriter.getDroppedTraces());
+        Mockito.verify(alienDAO, Mockito.never()).save(Mockito.any(AuditTrace.class));
+
+        // remaining traces are written in a single bulk when the writer stops.
+        auditTraceWriter.destroy();
+        Mockito.verify(bulkSession, Mockito.times(2)).save(Mockito.any(AuditTrace.class));
+        Mockito.verify(bulkSession, Mockito.times(1)).flush();
+        Assert.assertEquals(0, auditTraceWriter.getQueueDepth());
+        Assert.assertEquals(2, auditTraceWriter.getWrittenTraces());
+        Assert.assertEquals(1, auditTraceWriter.getFlushCount());
+    }
+
+    @Test
+    public void tracesAreWrittenOnRequestThreadWhenDisabled() {
+        ReflectionTestUtils.setField(auditTraceWriter, "enabled", false);
+        auditTraceWriter.init();
+        auditTraceWriter.write(new AuditTrace());
+        Mockito.verify(alienDAO, Mockito.times(1)).save(Mockito.any(AuditTrace.class));
+        Mockito.verify(alienDAO, Mockito.never()).newBulkSession(Mockito.any(WriteConsistency.class));
+    }
+}
@@ -0,0 +1,87 @@
+package alien4cloud.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.Constants;
+import alien4cloud.security.groups.IAlienGroupDao;
+import alien4cloud.security.model.Group;
+import alien4cloud.security.model.User;
+import alien4cloud.security.spring.AuthoritiesRefreshFilter;
+import alien4cloud.security.users.IAlienUserDao;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Test the refresh of the authorities of the open sessions.
+ */
+public class AuthoritiesRefreshFilterTest {
+    private IAlienUserDao alienUserDao;
+    private AuthorizationCache authorizationCache;
+    private AuthoritiesRefreshFilter filter;
+    private User user;
+
+    @Before
+    public void before() {
+        IAlienGroupDao alienGroupDao = mock(IAlienGroupDao.class);
+        alienUserDao = mock(IAlienUserDao.class);
+        authorizationCache = new AuthorizationCache();
+        ReflectionTestUtils.setField(authorizationCache, "alienGroupDao", alienGroupDao);
+        ReflectionTestUtils.setField(authorizationCache, "alienUserDao", alienUserDao);
+        authorizationCache.init();
+        filter = new AuthoritiesRefreshFilter(authorizationCache);
+
+        Group allUsers = new Group(Constants.GROUP_NAME_ALL_USERS);
+        allUsers.setId("all-users");
+        allUsers.setRoles(Sets.newHashSet("COMPONENTS_BROWSER"));
+        when(alienGroupDao.findByName(Constants.GROUP_NAME_ALL_USERS)).thenReturn(allUsers);
+
+        user = new User();
+        user.setUsername("user");
+        user.setRoles(new String[] { "APPLICATIONS_MANAGER" });
+        when(alienUserDao.find("user")).thenReturn(user);
+        // authorities granted at login
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, "password", AuthorityUtils.createAuthorityList("APPLICATIONS_MANAGER", "COMPONENTS_BROWSER")));
+    }
+
+    @After
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void authoritiesAreKeptWhenRolesDidNotChange() throws Exception {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+        assertSame(authentication, SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    public void authoritiesAreRefreshedWhenRolesChanged() throws Exception {
+        User updatedUser = new User();
+        updatedUser.setUsername("user");
+        updatedUser.setRoles(new String[] { "ADMIN" });
+        when(alienUserDao.find("user")).thenReturn(updatedUser);
+        authorizationCache.invalidateUser("user");
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals(Sets.newHashSet("ADMIN", "COMPONENTS_BROWSER"), AuthorityUtils.authorityListToSet(authentication.getAuthorities()));
+        assertSame(user, authentication.getPrincipal());
+    }
+}
@@ -0,0 +1,107 @@
+package alien4cloud.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import alien4cloud.Constants;
+import alien4cloud.security.groups.IAlienGroupDao;
+import alien4cloud.security.model.Group;
+import alien4cloud.security.model.User;
+import alien4cloud.security.users.IAlienUserDao;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Test the in memory authorizations of the users.
+ */
+public class AuthorizationCacheTest {
+    private IAlienGroupDao alienGroupDao;
+    private IAlienUserDao alienUserDao;
+    private AuthorizationCache authorizationCache;
+    private User user;
+
+    @Before
+    public void before() {
+        alienGroupDao = mock(IAlienGroupDao.class);
+        alienUserDao = mock(IAlienUserDao.class);
+        authorizationCache = new AuthorizationCache();
+        ReflectionTestUtils.setField(authorizationCache, "alienGroupDao", alienGroupDao);
+        ReflectionTestUtils.setField(authorizationCache, "alienUserDao", alienUserDao);
+        authorizationCache.init();
+
+        Group allUsers = new Group(Constants.GROUP_NAME_ALL_USERS);
+        allUsers.setId("all-users");
+        allUsers.setRoles(Sets.newHashSet("COMPONENTS_BROWSER"));
+        when(alienGroupDao.findByName(Constants.GROUP_NAME_ALL_USERS)).thenReturn(allUsers);
+
+        user = new User();
+        user.setUsername("user");
+        user.setRoles(new String[] { "APPLICATIONS_MANAGER" });
+        user.setGroups(Sets.newHashSet("group"));
+        user.setGroupRoles(Sets.newHashSet("ARCHITECT"));
+        when(alienUserDao.find("user")).thenReturn(user);
+    }
+
+    @Test
+    public void authorizationsAreResolvedOnce() {
+        authorizationCache.getAuthorizations(user);
+        AuthorizationCache.Authorizations authorizations = authorizationCache.getAuthorizations(user);
+
+        assertEquals(Sets.newHashSet("group", "all-users"), authorizations.getGroups());
+        assertEquals(Sets.newHashSet("APPLICATIONS_MANAGER", "ARCHITECT", "COMPONENTS_BROWSER"), authorizations.getRoles());
+        // the groups of the principal are left untouched
+        assertEquals(Sets.newHashSet("group"), user.getGroups());
+        verify(alienUserDao, times(1)).find("user");
+        verify(alienGroupDao, times(1)).findByName(Constants.GROUP_NAME_ALL_USERS);
+        assertEquals(1, authorizationCache.getCacheStats().hitCount());
+    }
+
+    @Test
+    public void authorizationsAreResolvedAgainOnceInvalidated() {
+        authorizationCache.getAuthorizations(user);
+        User updatedUser = new User();
+        updatedUser.setUsername("user");
+        when(alienUserDao.find("user")).thenReturn(updatedUser);
+        authorizationCache.invalidateUser("user");
+
+        AuthorizationCache.Authorizations authorizations = authorizationCache.getAuthorizations(user);
+        assertEquals(Sets.newHashSet("all-users"), authorizations.getGroups());
+        assertEquals(Sets.newHashSet("COMPONENTS_BROWSER"), authorizations.getRoles());
+
+        authorizationCache.invalidateAll();
+        authorizationCache.getAuthorizations(user);
+        verify(alienGroupDao, times(2)).findByName(Constants.GROUP_NAME_ALL_USERS);
+    }
+
+    @Test
+    public void principalsNotInTheStoreAreLookedUpOnce() {
+        User ldapUser = new User();
+        ldapUser.setUsername("ldap-user");
+        ldapUser.setRoles(new String[] { "COMPONENTS_MANAGER" });
+
+        authorizationCache.getAuthorizations(ldapUser);
+        AuthorizationCache.Authorizations authorizations = authorizationCache.getAuthorizations(ldapUser);
+        assertEquals(Sets.newHashSet("COMPONENTS_MANAGER", "COMPONENTS_BROWSER"), authorizations.getRoles());
+        verify(alienUserDao, times(1)).find("ldap-user");
+
+        // the user is looked up again once it has been saved in the store
+        authorizationCache.invalidateUser("ldap-user");
+        authorizationCache.getAuthorizations(ldapUser);
+        verify(alienUserDao, times(2)).find("ldap-user");
+    }
+
+    @Test
+    public void storeIsNotAccessedWhenAuthorizationsAreRefreshedAtLogin() {
+        AuthorizationCache.Authorizations authorizations = authorizationCache.refresh(user);
+        assertEquals(authorizations, authorizationCache.getAuthorizations(user));
+        verify(alienUserDao, never()).find("user");
+    }
+}